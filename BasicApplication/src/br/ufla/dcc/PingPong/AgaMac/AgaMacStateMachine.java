@@ -11,6 +11,7 @@ import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.Position;
 import br.ufla.dcc.grubix.simulator.event.WakeUpCall;
 import br.ufla.dcc.grubix.simulator.event.MACPacket.PacketType;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
 import br.ufla.dcc.grubix.simulator.physical.UnitDisc;
 
@@ -95,8 +96,10 @@ public class AgaMacStateMachine  {
     		 atual está subutilizado */
     		if ((agaState.getCurrentThreshold() != agaState.getThreshold()) && 
     				(myRank > agaState.getThreshold())) {
-    			debug.printw("myRank="+myRank+" threshold="+agaState.getThreshold()+
-    					" currentThreshold="+agaState.getCurrentThreshold(), address);
+    			if (debug.isOn()) {
+    				debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.checkFCS", "myRank="+myRank+" threshold="+agaState.getThreshold()+
+	    					" currentThreshold="+agaState.getCurrentThreshold(), address);
+    			}
     		}
     		/* Se myRank > limiar atual, limiar atual passa a ser o limiar padrão, se já não era, e
     		 o rank é retornado */
@@ -131,14 +134,18 @@ public class AgaMacStateMachine  {
     public boolean changeStateTimeOut(WakeUpCall wuc) {
     	
     	// Debug, escreve entrada no arquivo de depuração
-    	debug.writeIfNodes(debug.str("Estado Antes")+debug.strAgaLayer(agaState, agaRadioState)+
-    				debug.strWuc(wuc), address, new Integer[]{1});
+    	if (debug.isOn()) {
+    		debug.writeIfNodes("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateTimeOut", debug.str("Estado Antes")+debug.strAgaLayer(agaState, agaRadioState)+
+	    				debug.strWuc(wuc), address, new Integer[]{1});
+    	}
     	
         /* Verifica se o número do estado armazeno no WUC é o mesmo do estado atual. Se não for,
          já houve mudança no estado do AGAMac antes do término do WUC, portanto esse WUC deve ser
          ignorado, já que não é mais válido. */
 		if (agaState.getStateSeqNum() != ((AgaMacWucTimeOut)wuc).getStateNumber()) {
-			debug.write(debug.str("AVISO! Número do estado não corresponde ao número do WUC"), address);
+			if (debug.isOn()) {
+				debug.write("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateTimeOut", debug.str("AVISO! Número do estado não corresponde ao número do WUC"), address);
+			}
 			return false;        
 		}
 		
@@ -146,7 +153,9 @@ public class AgaMacStateMachine  {
 		durante um CS_START receber um DATA indesejado */
         if((agaRadioState.getRadioState() == RadioState.OFF) && 
         		(agaState.getState() != AgaMacStateTypes.SLEEP)) {
-        	debug.printw("AVISO! Estado do radio: OFF e AGAMac: "+agaState.getState(), address);
+        	if (debug.isOn()) {
+        		debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateTimeOut", "AVISO! Estado do radio: OFF e AGAMac: "+agaState.getState(), address);
+        	}
         	return false;
         }
     	
@@ -213,7 +222,7 @@ public class AgaMacStateMachine  {
             } else {
             	// +AGAMac Se ninguém respondeu então reinicie o processo de envio com threshold menor
             	agaState.setRestartRTS(true);
-            	debug.printw("AVISO! Final de WAITING_CTS e ninguém respondeu", address);
+            	debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateTimeOut", "AVISO! Final de WAITING_CTS e ninguém respondeu", address);
             }
             break;
             
@@ -240,13 +249,17 @@ public class AgaMacStateMachine  {
             break;  
             
         default:
-        	debug.printw("AVISO! Estado desconhecido"+agaState.getState(), address);
+        	if (debug.isOn()) {
+        		debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateTimeOut", "AVISO! Estado desconhecido"+agaState.getState(), address);
+        	}
     		break;
     	}
     	
     	// Debug, escreve entrada no arquivo de depuração
-    	debug.writeIfNodes(debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
-    				debug.strWuc(wuc), address, new Integer[]{1});
+    	if (debug.isOn()) {
+    		debug.writeIfNodes("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateTimeOut", debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
+	    				debug.strWuc(wuc), address, new Integer[]{1});
+    	}
     
     	return true;
     }
@@ -258,15 +271,19 @@ public class AgaMacStateMachine  {
      */
     public void changeStateSentMsg(AgaMacPacket packet) {
     	// Debug, escreve entrada no arquivo de depuração
-    	debug.write(debug.str("Estado Antes")+debug.strAgaLayer(agaState, agaRadioState)+
-				debug.strAgaPkt(packet), address);
+    	if (debug.isOn()) {
+    		debug.write("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateSentMsg", debug.str("Estado Antes")+debug.strAgaLayer(agaState, agaRadioState)+
+					debug.strAgaPkt(packet), address);
+    	}
     	
     	switch (packet.getType()) {
     	case RTS:
             agaState.setState(AgaMacStateTypes.WAITING_CTS, agaConf.getStepsCTS());
             // Vai ouvir o canal para esperar o CTS
             agaRadioState.setRadioState(RadioState.LISTENING);
-            debug.write(debug.strAgaPkt(packet), address);
+            if (debug.isOn()) {
+            	debug.write("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateSentMsg", debug.strAgaPkt(packet), address);
+            }
             break;
             
     	case CTS:
@@ -308,13 +325,17 @@ public class AgaMacStateMachine  {
     	default:
             agaState.setState(AgaMacStateTypes.CS, agaConf.getStepsCS());
             agaRadioState.setRadioState(RadioState.LISTENING);
-            debug.printw("Mensagem desconhecida: "+packet.getType(), address);
+            if (debug.isOn()) {
+            	debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateSentMsg", "Mensagem desconhecida: "+packet.getType(), address);
+            }
     		break;
     	}
     	
     	// Debug, escreve entrada no arquivo de depuração
-    	debug.write(debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
-				debug.strAgaPkt(packet), address);
+    	if (debug.isOn()) {
+    		debug.write("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateSentMsg", debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
+					debug.strAgaPkt(packet), address);
+    	}
     }
     
     
@@ -328,8 +349,10 @@ public class AgaMacStateMachine  {
     public void changeStateReceivedMsg(AgaMacPacket packet) {
     	
     	// Debug, escreve entrada no arquivo de depuração
-    	debug.write(debug.str("Estado Antes")+debug.strAgaLayer(agaState, agaRadioState)+
-				debug.strAgaPkt(packet), address);
+    	if (debug.isOn()) {
+    		debug.write("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateReceivedMsg", debug.str("Estado Antes")+debug.strAgaLayer(agaState, agaRadioState)+
+					debug.strAgaPkt(packet), address);
+    	}
     	
     	// Se a mensagem é destinado para outro nó
         if ((packet.getReceiver().asInt() != address.getId().asInt()) && 
@@ -341,8 +364,10 @@ public class AgaMacStateMachine  {
                 agaRadioState.setRadioState(RadioState.OFF);
         	}
         	// Debug, escreve entrada no arquivo de depuração
-        	debug.write(debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
-    				debug.strAgaPkt(packet), address);
+        	if (debug.isOn()) {
+        		debug.write("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateReceivedMsg", debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
+	    				debug.strAgaPkt(packet), address);
+        	}
         	/* Nos demais casos, ignora a chegada de mensagem destinada a outro nó, e aguarda o final 
             da WUC em curso */
         	return; 
@@ -371,7 +396,7 @@ public class AgaMacStateMachine  {
                     	/* +AGAMac Para evitar colisão em Broadcast, quem tem o melhor rank, limitado 
                     	 a 1.0, responde antes. O fator random é critério de desempate. O tempo máximo
                     	 para envio é 90% StepsCTS */
-                		double delay = ((1 - myRank) * 0.9 * Math.random()) * agaConf.getStepsCTS();
+                		double delay = ((1 - myRank) * 0.9 * Configuration.getInstance().getRandomGenerator().nextDouble()) * agaConf.getStepsCTS();
                     	agaState.setState(AgaMacStateTypes.WILL_SEND_MSG, delay);
                     	// Avisa o AGAMac que tem um pacote CTS a ser enviado em seguida
                     	agaState.setSendingPktType(PacketType.CTS);
@@ -386,7 +411,9 @@ public class AgaMacStateMachine  {
                     agaRadioState.setRadioState(RadioState.LISTENING);
                 }
             } else {
-            	debug.printw("AVISO! RTS recebido no estado: "+agaState.getState(), address);
+            	if (debug.isOn()) {
+            		debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateReceivedMsg", "AVISO! RTS recebido no estado: "+agaState.getState(), address);
+            	}
             }
             break;
             
@@ -405,7 +432,9 @@ public class AgaMacStateMachine  {
                 			packet.getSequenceNumber());
                 }
             } else {
-            	debug.printw("AVISO! CTS recebido no estado: "+agaState.getState(), address);
+            	if (debug.isOn()) {
+            		debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateReceivedMsg", "AVISO! CTS recebido no estado: "+agaState.getState(), address);
+            	}
             }
             break;
             
@@ -466,13 +495,17 @@ public class AgaMacStateMachine  {
             // Volta para CS
             agaState.setState(AgaMacStateTypes.CS, agaConf.getStepsCS());
             agaRadioState.setRadioState(RadioState.LISTENING);
-            debug.printw("Mensagem desconhecida: "+packet.getType(), address);
+            if (debug.isOn()) {
+            	debug.printw("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateReceivedMsg", "Mensagem desconhecida: "+packet.getType(), address);
+            }
             break;
     	}
 
     	// Debug, escreve entrada no arquivo de depuração
-    	debug.write(debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
-				debug.strAgaPkt(packet), address);
+    	if (debug.isOn()) {
+    		debug.write("br.ufla.dcc.PingPong.AgaMac.AgaMacStateMachine.changeStateReceivedMsg", debug.str("Estado Depois")+debug.strAgaLayer(agaState, agaRadioState)+
+					debug.strAgaPkt(packet), address);
+    	}
     }
     
     
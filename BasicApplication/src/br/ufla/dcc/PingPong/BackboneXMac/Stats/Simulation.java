@@ -17,7 +17,9 @@ import br.ufla.dcc.PingPong.node.AppPacket;
 import br.ufla.dcc.grubix.simulator.LayerType;
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
+import br.ufla.dcc.grubix.simulator.metrics.MetricsRegistry;
 
 public class Simulation {
 	
@@ -39,6 +41,27 @@ public class Simulation {
 	
 	private List<Transmission> transmissions = new ArrayList<Transmission>();	
 	
+	/* Somente a última transmissão da lista ainda muda. As anteriores são somadas quando uma
+	 * nova começa, na ordem da lista, e os totais não precisam percorrer a lista */
+	
+	/** Transmissões que chegaram ao destino final */
+	private int deliveries = 0;
+	
+	/** RTS das transmissões somadas */
+	private int foldedRts = 0;
+	
+	/** Número de transmissões somadas com início e fim */
+	private int foldedCount = 0;
+	
+	/** Soma dos tempos (fim - início) das transmissões somadas */
+	private double foldedTime = 0;
+	
+	/** Menor início das transmissões somadas com início e fim, -1 se nenhuma */
+	private double foldedStart = -1;
+	
+	/** Maior fim das transmissões somadas com início e fim, -1 se nenhuma */
+	private double foldedEnd = -1;
+	
 	/** Construtor */
 	static public Simulation getInstance() {
 		if (instance == null) {
@@ -49,8 +72,15 @@ public class Simulation {
 	
 	/** Define o total de transmissões que serão realizadas na simulação */
 	public void setTransmission(NodeId senderId, NodeId destinationId) {
+		if (!transmissions.isEmpty()) {
+			fold(transmissions.get(transmissions.size() - 1));
+		}
 		idTransmission++;
-		transmissions.add(new Transmission(senderId,destinationId,idTransmission));
+		Transmission transmission = new Transmission(senderId,destinationId,idTransmission);
+		transmissions.add(transmission);
+		if (transmission.getDestinationId().asInt() == transmission.getDestinationFinalId()) {
+			deliveries++;
+		}
 		if(senderId.asInt() == 1)
 			newData++;
 		//transmissions.get(idTransmission-1).setIdTransmissionMaster(idTransmissionMaster);
@@ -89,15 +119,44 @@ public class Simulation {
 	}
 	
 	
-	public double txAverageTime(){
-		double totalTime = 0;
-		int count = 0;
-		for(int i = 0; i<transmissions.size();++i){
-			if(transmissions.get(i).getEndTx() > 0 && transmissions.get(i).getStartTx() > 0){
-				count++;
-				totalTime += transmissions.get(i).getEndTx() - transmissions.get(i).getStartTx();
+	/** Soma a transmissão, que não muda mais, aos totais e às métricas da simulação */
+	private void fold(Transmission t) {
+		foldedRts += t.getNumRtsTrans();
+		boolean complete = t.getEndTx() > 0 && t.getStartTx() > 0;
+		if (complete) {
+			foldedCount++;
+			foldedTime += t.getEndTx() - t.getStartTx();
+			if (foldedStart < 0 || foldedStart > t.getStartTx()) {
+				foldedStart = t.getStartTx();
+			}
+			if (foldedEnd < 0 || foldedEnd < t.getEndTx()) {
+				foldedEnd = t.getEndTx();
 			}
 		}
+		if (Configuration.getInstance().isMetrics()) {
+			// uma vez por transmissão, não por evento
+			MetricsRegistry metrics = SimulationContext.current().getMetrics();
+			metrics.counter(null, LayerType.MAC, "backbone rts").add(t.getNumRtsTrans());
+			if (complete) {
+				metrics.histogram(null, LayerType.MAC, "backbone transmission time")
+					.record(t.getEndTx() - t.getStartTx());
+			}
+		}
+	}
+	
+	/** Última transmissão, a única que ainda muda, null se nenhuma */
+	private Transmission last() {
+		return transmissions.isEmpty() ? null : transmissions.get(transmissions.size() - 1);
+	}
+	
+	public double txAverageTime(){
+		double totalTime = foldedTime;
+		int count = foldedCount;
+		Transmission t = last();
+		if(t != null && t.getEndTx() > 0 && t.getStartTx() > 0){
+			count++;
+			totalTime += t.getEndTx() - t.getStartTx();
+		}
 		
 		if(count == 0){
 			return 0;
@@ -108,16 +167,15 @@ public class Simulation {
 	
 	/** Obter tempo útil total da simulação */
 	public double getTotalSimulationTime() {
-		double start = -1;
-		double end = -1;
-		for(int i  = 0; i<transmissions.size();++i){
-			if(transmissions.get(i).getStartTx() > 0 && transmissions.get(i).getEndTx()>0){
-				if (start < 0 || start > transmissions.get(i).getStartTx()) {
-					start = transmissions.get(i).getStartTx();
-				}
-				if (end < 0 || end < transmissions.get(i).getEndTx()) {
-					end = transmissions.get(i).getEndTx();
-				}
+		double start = foldedStart;
+		double end = foldedEnd;
+		Transmission t = last();
+		if(t != null && t.getStartTx() > 0 && t.getEndTx()>0){
+			if (start < 0 || start > t.getStartTx()) {
+				start = t.getStartTx();
+			}
+			if (end < 0 || end < t.getEndTx()) {
+				end = t.getEndTx();
 			}
 		}
 		return end-start;
@@ -125,26 +183,12 @@ public class Simulation {
 	
 	
 	public int numTrans(){
-		int num = 0;
-		int i = 0;
-		while(i<transmissions.size()){
-			if(transmissions.get(i).getDestinationId().asInt() == transmissions.get(i).getDestinationFinalId()){
-				++num;
-			}
-			++i;
-		}
-		return num;
-		//System.out.println(num);
+		return deliveries;
 	}
 	
 	public int numRts(){
-		int i = 0 ;
-		int num = 0;
-		while(i<transmissions.size()){
-			num += transmissions.get(i).getNumRtsTrans();
-			i++;
-		}
-		return num;
+		Transmission t = last();
+		return (t == null) ? foldedRts : foldedRts + t.getNumRtsTrans();
 	}
 	
 	public void printStatistics(){
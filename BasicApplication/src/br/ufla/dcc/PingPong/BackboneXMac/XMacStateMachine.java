@@ -8,6 +8,7 @@ import br.ufla.dcc.grubix.simulator.Direction;
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.event.MACPacket.PacketType;
 import br.ufla.dcc.grubix.simulator.event.WakeUpCall;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
 
 /** Classe que define os estados do XMac e suas respectivas durações
  * 
@@ -50,7 +51,7 @@ public class XMacStateMachine  {
         //int delay = gerador.nextInt(Integer.valueOf((int) Math.round(xConf.getStepsCycle())));
         
     	// Tempo pequeno aleatório em steps para ligar o nó sensor
-        double delay = ((int) (Math.random() * (xConf.getStepsCycle())));
+        double delay = ((int) (Configuration.getInstance().getRandomGenerator().nextDouble() * (xConf.getStepsCycle())));
     	xState.setState(XMacStateTypes.SLEEP, delay);
         xRadioState.setRadioState(RadioState.OFF);
     }
@@ -70,7 +71,9 @@ public class XMacStateMachine  {
          já houve mudança no estado do XMac antes do término do WUC, portanto esse WUC deve ser
          ignorado, já que não é mais válido. */
 		if (xState.getStateSeqNum() != ((XMacWucTimeOut)wuc).getStateNumber()) {
-			debug.write(debug.str("AVISO! Número do estado não corresponde ao número do WUC"), address);
+			if (debug.isOn()) {
+				debug.write("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateTimeOut", debug.str("AVISO! Número do estado não corresponde ao número do WUC"), address);
+			}
 			return false;        
 		}
 		
@@ -78,7 +81,9 @@ public class XMacStateMachine  {
 		durante um CS_START receber um DATA indesejado */
         if((xRadioState.getRadioState() == RadioState.OFF) && 
         		(xState.getState() != XMacStateTypes.SLEEP)) {
-        	debug.printw("AVISO! Estado do radio: OFF e XMac: "+xState.getState(), address);
+        	if (debug.isOn()) {
+        		debug.printw("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateTimeOut", "AVISO! Estado do radio: OFF e XMac: "+xState.getState(), address);
+        	}
         	return false;
         }
     	
@@ -180,7 +185,9 @@ public class XMacStateMachine  {
             break;
             
         default:
-        	debug.printw("AVISO! Estado desconhecido"+xState.getState(), address);
+        	if (debug.isOn()) {
+        		debug.printw("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateTimeOut", "AVISO! Estado desconhecido"+xState.getState(), address);
+        	}
     		break;
     	}
     	
@@ -205,7 +212,9 @@ public class XMacStateMachine  {
             xState.setState(XMacStateTypes.WAITING_CTS, xConf.getStepsCTS());
             // Vai ouvir o canal para esperar o CTS
             xRadioState.setRadioState(RadioState.LISTENING);
-            debug.write(debug.strPaxPkt(packet), address);
+            if (debug.isOn()) {
+            	debug.write("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateSentMsg", debug.strPaxPkt(packet), address);
+            }
             SingletonTestResult.getInstance().countPreamble();
             break;
             
@@ -248,7 +257,9 @@ public class XMacStateMachine  {
     	default:
             xState.setState(XMacStateTypes.CS, xConf.getStepsCS());
             xRadioState.setRadioState(RadioState.LISTENING);
-            debug.printw("Mensagem desconhecida: "+packet.getType(), address);
+            if (debug.isOn()) {
+            	debug.printw("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateSentMsg", "Mensagem desconhecida: "+packet.getType(), address);
+            }
     		break;
     	}
     	
@@ -315,7 +326,9 @@ public class XMacStateMachine  {
                     xRadioState.setRadioState(RadioState.LISTENING);
                 }
             } else {
-            	debug.printw("AVISO! RTS recebido no estado: "+xState.getState(), address);
+            	if (debug.isOn()) {
+            		debug.printw("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateReceivedMsg", "AVISO! RTS recebido no estado: "+xState.getState(), address);
+            	}
             }
             break;
             
@@ -332,7 +345,9 @@ public class XMacStateMachine  {
                 			packet.getSequenceNumber());
                 }
             } else {
-            	debug.printw("AVISO! CTS recebido no estado: "+xState.getState(), address);
+            	if (debug.isOn()) {
+            		debug.printw("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateReceivedMsg", "AVISO! CTS recebido no estado: "+xState.getState(), address);
+            	}
             }
             break;
             
@@ -401,7 +416,9 @@ public class XMacStateMachine  {
             // Volta para CS
             xState.setState(XMacStateTypes.CS, xConf.getStepsCS());
             xRadioState.setRadioState(RadioState.LISTENING);
-            debug.printw("Mensagem desconhecida: "+packet.getType(), address);
+            if (debug.isOn()) {
+            	debug.printw("br.ufla.dcc.PingPong.BackboneXMac.XMacStateMachine.changeStateReceivedMsg", "Mensagem desconhecida: "+packet.getType(), address);
+            }
             break;
     	}
 
@@ -7,6 +7,7 @@ import br.ufla.dcc.PingPong.EXMac.EXMacState.EXMacStateType;
 import br.ufla.dcc.grubix.simulator.Address;
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.event.MACPacket.PacketType;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
 
 /** Classe que define os estados do XMac e suas respectivas durações
  * 
@@ -545,7 +546,7 @@ public class EXMacStateMachine  {
     	// int delay = gerador.nextInt(Integer.valueOf((int) Math.round(xConf.getStepsCycle())));
        
     	// Tempo pequeno aleatório em steps para ligar o nó sensor
-    	double delay = (Math.random() * (xConf.getStepsCycle()));
+    	double delay = (Configuration.getInstance().getRandomGenerator().nextDouble() * (xConf.getStepsCycle()));
     	xState.setState(EXMacStateType.SLEEP, delay);
     }
   	
@@ -6,6 +6,7 @@ import br.ufla.dcc.PingPong.MXMac.MXMacState.MXMacStateType;
 import br.ufla.dcc.grubix.simulator.Address;
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.event.MACPacket.PacketType;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
 import static br.ufla.dcc.PingPong.MXMac.MXMacConstants.TUNE_INTO_NEIGHBOR_CHANNEL;
 import static br.ufla.dcc.PingPong.MXMac.MXMacConstants.RESTORE_DEFAULT_CHANNEL;
@@ -557,7 +558,7 @@ public class MXMacStateMachine  {
     		delay = xConf.getStepsSleep();
     	} else {
     		// Tempo pequeno aleatório em steps para ligar o nó sensor
-        	delay = (Math.random() * (xConf.getStepsCycle()));
+        	delay = (Configuration.getInstance().getRandomGenerator().nextDouble() * (xConf.getStepsCycle()));
     	}
     	xState.setState(MXMacStateType.SLEEP, delay);
     }
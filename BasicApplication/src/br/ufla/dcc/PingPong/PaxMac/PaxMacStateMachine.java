@@ -99,8 +99,10 @@ public class PaxMacStateMachine  {
 					paxState.setState(PaxMacStateTypes.WAITING_CTS_DATA, paxConf.getStepsWaitingCtsData());
 							
 					// Ferramentas de depuração -------------------------
-					debug.print("[Dado-procedimento] Irá esperar pelo CTS-DATA do nó: "+
-							paxState.getNextReceiverNode(), address);
+					if (debug.isOn()) {
+						debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[Dado-procedimento] Irá esperar pelo CTS-DATA do nó: "+
+								paxState.getNextReceiverNode(), address);
+					}
 					statistics.getTransmission(paxState.getFinalReceiverNode()).addCtsDataWaiting(address.getId());		
 					// --------------------------------------------------
     			} else {
@@ -111,13 +113,13 @@ public class PaxMacStateMachine  {
 	    				changeStateSendingMsg();
 	    				
 	    				// Ferramentas de depuração -------------------------
-	    				debug.print("[RTS-procedimento] Irá reiniciar o envio de RTS", address);
+	    				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[RTS-procedimento] Irá reiniciar o envio de RTS", address);
 	    				// --------------------------------------------------
 	    			
     				/* Não deve ocorrer: posse do dado, não sabe quem é o próximo nó e não é a origem */
     				} else {
 						// Ferramentas de depuração -------------------------
-						debug.print("!!![Erro] Tem posse do dado mas não sabe qual o próximo nó.", address);
+						debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "!!![Erro] Tem posse do dado mas não sabe qual o próximo nó.", address);
 						System.exit(1);
 						// --------------------------------------------------
 					}
@@ -131,12 +133,12 @@ public class PaxMacStateMachine  {
 	        	if (paxState.isWakeUpToSendCtsData()) {
 	        		
 	        		// Ferramentas de depuração -------------------------
-					debug.print("[CS-LONG-início] Iniciando o CS-LONG antes do CTS-DATA", address);
+					debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[CS-LONG-início] Iniciando o CS-LONG antes do CTS-DATA", address);
 					// --------------------------------------------------
 	    		} else if (paxState.getSendingPktType() == PacketType.RTS) {
 	    			
 	    			// Ferramentas de depuração -------------------------
-					debug.print("[CS-LONG-início] Iniciando o CS-LONG antes de reiniciar o RTS", address);
+					debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[CS-LONG-início] Iniciando o CS-LONG antes de reiniciar o RTS", address);
 					// --------------------------------------------------
 	    		}
 	        	paxState.setState(PaxMacStateTypes.CS_LONG, paxConf.getStepsCsLong());
@@ -147,7 +149,7 @@ public class PaxMacStateMachine  {
     		/* Não recebeu CTS DATA, irá tentar novamente no próximo intervalo */
     		
     		// Ferramentas de depuração -------------------------
-    		debug.print("[!!!CTS-DATA-espera-fim] Estava esperando o CTS-DATA mas não recebeu", address);
+    		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!CTS-DATA-espera-fim] Estava esperando o CTS-DATA mas não recebeu", address);
     		// --------------------------------------------------
     		
     		retryDataSend();
@@ -165,7 +167,7 @@ public class PaxMacStateMachine  {
     			if (paxState.isWakeUpToSendCtsData()) {
         			
             		// Ferramentas de depuração -------------------------
-            		debug.print("[!!!CS-LONG-fim] Canal livre!!!", address);
+            		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!CS-LONG-fim] Canal livre!!!", address);
             		// --------------------------------------------------
             		
     				paxState.setSendingPktType(PacketType.CTS_DATA);
@@ -178,7 +180,7 @@ public class PaxMacStateMachine  {
     				changeStateSendingMsg();
     				
     				// Ferramentas de depuração -------------------------
-    				debug.print("[RTS-procedimento] Irá reiniciar o envio de RTS", address);
+    				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[RTS-procedimento] Irá reiniciar o envio de RTS", address);
     				// --------------------------------------------------
     			
     			/* Após o ultimo nó enviar um CTS, escuta o canal para ver se quando recebeu o RTS não houve
@@ -190,7 +192,7 @@ public class PaxMacStateMachine  {
     				paxState.setState(PaxMacStateTypes.SLEEP, delayWakeupDataHandle());
                 	
                 	// Ferramentas de depuração -------------------------
-    				debug.print("[CTS-enviado-sucesso] Irá esperar o dado", address);
+    				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[CTS-enviado-sucesso] Irá esperar o dado", address);
     				// --------------------------------------------------
         		}
     		}
@@ -200,7 +202,7 @@ public class PaxMacStateMachine  {
     		if (paxState.isChannelBusy()) {
     			
         		// Ferramentas de depuração -------------------------
-        		debug.print("[!!!CarrierSense-fim] O canal está ocupado (isChannelBusy)", address);
+        		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!CarrierSense-fim] O canal está ocupado (isChannelBusy)", address);
         		// --------------------------------------------------
         		
     			/* Se o nó recebeu um RTS e ia começar o envio de seu primeiro RTS mas o canal está
@@ -211,14 +213,14 @@ public class PaxMacStateMachine  {
     				paxState.setState(PaxMacStateTypes.SLEEP, paxConf.getStepsSleep());
     				
     				// Ferramentas de depuração -------------------------
-            		debug.print("[CTS-contido] Algum nó já respondeu o CTS/RTS primeiro.", address);
+            		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[CTS-contido] Algum nó já respondeu o CTS/RTS primeiro.", address);
             		// --------------------------------------------------
     			}
     		} else {
     			changeStateSendingMsg();
 
     			// Ferramentas de depuração -------------------------
-        		debug.print("[CarrierSense-fim] Canal livre!!!", address);
+        		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[CarrierSense-fim] Canal livre!!!", address);
         		// --------------------------------------------------	
         	}
             break;
@@ -238,16 +240,18 @@ public class PaxMacStateMachine  {
     			changeStateSendingMsg();
     			
     			// Ferramentas de depuração -------------------------
-    			debug.print("[CTS-espera-fim] Estava esperando um CTS/RTS mas não recebeu", address);
+    			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[CTS-espera-fim] Estava esperando um CTS/RTS mas não recebeu", address);
     			// --------------------------------------------------
             } else {
         		// Se já atingiu o limite de sequências de RTS enviados
         		if (paxState.getRtsSequenceCount() >= paxConf.getMaxRtsSequences()) {
         			
         			// Ferramentas de depuração -------------------------
-            		debug.print("[!!!RTS-sequência-limite] Já reiniciou as sequências de RTS até o " +
-            				"limite.\nVolta ao ciclo de trabalho.", address);
-            		statistics.getTransmission(paxState.getFinalReceiverNode()).finalizeTx = true;
+            		if (debug.isOn()) {
+            			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!RTS-sequência-limite] Já reiniciou as sequências de RTS até o " +
+	            				"limite.\nVolta ao ciclo de trabalho.", address);
+            		}
+            		statistics.getTransmission(paxState.getFinalReceiverNode()).setFinalizeTx();
             		// --------------------------------------------------	
         			
         			paxState.nodeWillBeFired();
@@ -267,8 +271,10 @@ public class PaxMacStateMachine  {
             		paxState.setState(PaxMacStateTypes.SLEEP, delay);
 	            		
             		// Ferramentas de depuração -------------------------
-                	debug.print("[!!!CTS-espera-fim] Mandou toda a sequência de RTS mas ninguém " +
-            				"respondeu com um CTS/RTS\nReinicia o envio de RTS após BackOff", address);
+                	if (debug.isOn()) {
+                		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!CTS-espera-fim] Mandou toda a sequência de RTS mas ninguém " +
+	            				"respondeu com um CTS/RTS\nReinicia o envio de RTS após BackOff", address);
+                	}
     				statistics.getTransmission(paxState.getFinalReceiverNode()).setRestartRts(address.getId(), 
     						paxState.getRtsSequenceCount());
     				// --------------------------------------------------
@@ -281,8 +287,10 @@ public class PaxMacStateMachine  {
         	 * Se o número máximo de tentativas acabou, volta para o ciclo de trabalho */
         	
         	// Ferramentas de depuração -------------------------
-            debug.print("[!!!Dado-espera-fim] Estava esperando dado mas não recebeu. Nó anterior: "+
-            		paxState.getPreviousReceiverLv1(), address);
+            if (debug.isOn()) {
+            	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!Dado-espera-fim] Estava esperando dado mas não recebeu. Nó anterior: "+
+	            		paxState.getPreviousReceiverLv1(), address);
+            }
             misc.vGrubix(address.getId(), "Data nao chegou", "DARK_RED");
             // --------------------------------------------------
             
@@ -295,9 +303,11 @@ public class PaxMacStateMachine  {
         	 * cs_start que será executado por causa do RTS definido como nulo */
         	
         	// Ferramentas de depuração -------------------------
-        	debug.print("[!!!Ack-espera-fim] Não recebeu o ACK do nó: "+paxState.getNextReceiverNode() + 
-        			" Irá tentar novamente."
-        	, address);
+        	if (debug.isOn()) {
+        		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!Ack-espera-fim] Não recebeu o ACK do nó: "+paxState.getNextReceiverNode() + 
+	        			" Irá tentar novamente."
+	        	, address);
+        	}
         	statistics.getTransmission(paxState.getFinalReceiverNode()).addAckWaiting(address.getId());
         	misc.vGrubix(address.getId(), "Ack nao chegou", "DARK_RED");
         	// --------------------------------------------------
@@ -306,14 +316,18 @@ public class PaxMacStateMachine  {
         	break;
 
         default:
-        	debug.print("[!!!Aviso] Estado desconhecido"+paxState.getState(), address);
+        	if (debug.isOn()) {
+        		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[!!!Aviso] Estado desconhecido"+paxState.getState(), address);
+        	}
     		break;
     	}
 
     	// Ferramentas de depuração -------------------------
     	if (paxState.getState() != PaxMacStateTypes.CS_LONG && 
     			paxState.getState() != PaxMacStateTypes.SLEEP)
-    		debug.print("[Estado-atual] "+debug.prtState(paxState), address);
+    		if (debug.isOn()) {
+    			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateTimeOut", "[Estado-atual] "+debug.prtState(paxState), address);
+    		}
     	// --------------------------------------------------
     	return true;
     }
@@ -325,7 +339,9 @@ public class PaxMacStateMachine  {
      */
     public void changeStateSentMsg(PaxMacPacket packet) {
     	// Ferramentas de depuração -------------------------
-	    debug.print("["+packet.getType()+"-enviou] Enviou "+packet.getType(), address);
+	    if (debug.isOn()) {
+	    	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateSentMsg", "["+packet.getType()+"-enviou] Enviou "+packet.getType(), address);
+	    }
 	    // --------------------------------------------------
     	
 	    switch (packet.getType()) {
@@ -357,8 +373,10 @@ public class PaxMacStateMachine  {
     		paxState.setState(PaxMacStateTypes.WAITING_DATA, paxConf.getStepsWaitingData());
 			
     		// Ferramentas de depuração -------------------------
-    		debug.print("[Dado-procedimento] Irá esperar o dado.\n" +
-    				"[PATH] "+debug.prtPath(paxState, paxConf, this), address);
+    		if (debug.isOn()) {
+    			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateSentMsg", "[Dado-procedimento] Irá esperar o dado.\n" +
+	    				"[PATH] "+debug.prtPath(paxState, paxConf, this), address);
+    		}
     		statistics.getTransmission(packet.getFinalReceiverNode()).addCtsDataSent(address.getId());
     		// --------------------------------------------------
     		break;
@@ -398,13 +416,17 @@ public class PaxMacStateMachine  {
             paxState.setState(PaxMacStateTypes.CS_LONG, paxConf.getStepsCsLong());
            
             // Ferramentas de depuração -------------------------
-            debug.print("[!!!Aviso] Mensagem desconhecida: "+packet.getType(), address);
+            if (debug.isOn()) {
+            	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateSentMsg", "[!!!Aviso] Mensagem desconhecida: "+packet.getType(), address);
+            }
             // --------------------------------------------------
     		break;
     	}
     	
 	    // Ferramentas de depuração -------------------------
-    	debug.print("[Estado-atual] "+debug.prtState(paxState), address);
+    	if (debug.isOn()) {
+    		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateSentMsg", "[Estado-atual] "+debug.prtState(paxState), address);
+    	}
     	// --------------------------------------------------
     }
     
@@ -436,7 +458,7 @@ public class PaxMacStateMachine  {
             		paxState.setState(PaxMacStateTypes.SLEEP, delay);
   
             		// Ferramentas de depuração -------------------------
-            		debug.print("!!![RTS-recebeu] Recebeu RTS de outro caminho, faz backOff", address);
+            		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "!!![RTS-recebeu] Recebeu RTS de outro caminho, faz backOff", address);
             		misc.vGrubixChannelReservation(address.getId(), packet.finalReceiverNode);
             		// --------------------------------------------------
     				
@@ -452,8 +474,10 @@ public class PaxMacStateMachine  {
     				// Ferramentas de depuração -------------------------
 	    			misc.vGrubix(address.getId(), "Recebeu CTS/RTS", "LIGHT_GREEN");
 	    			statistics.getTransmission(packet).addNode(address.getId());
-	            	debug.print("$$$[RTS-recebeu] Recebeu CTS/RTS, volto a dormir.\n"+
-	            			"[PATH] "+debug.prtPath(paxState, paxConf, this), address);
+	            	if (debug.isOn()) {
+	            		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "$$$[RTS-recebeu] Recebeu CTS/RTS, volto a dormir.\n"+
+		            			"[PATH] "+debug.prtPath(paxState, paxConf, this), address);
+	            	}
 	            	// --------------------------------------------------
     			
 	            /* Se recebeu o RTS em que o nó anterior é o mesmo que desse nó, então é um nó
@@ -465,8 +489,10 @@ public class PaxMacStateMachine  {
     				
     				// Ferramentas de depuração -------------------------
     				misc.vGrubix(address.getId(), "Excluido", "PINK");
-    				debug.print("[!!!Otimização-caminho] Outro nó mais longe já respondeu. Volto para o " +
-                    		"ciclo de trabalho", address);
+    				if (debug.isOn()) {
+    					debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "[!!!Otimização-caminho] Outro nó mais longe já respondeu. Volto para o " +
+	                    		"ciclo de trabalho", address);
+    				}
                     // --------------------------------------------------
 	            	
             	/* Se recebeu um RTS do nó anterior novamente, quer dizer que houve colisão no nó 
@@ -479,8 +505,10 @@ public class PaxMacStateMachine  {
     						paxConf.getStepsBackOffChannelBusy(address.getId()));
 
     				// Ferramentas de depuração -------------------------
-                    debug.print("[!!!Terminal-oculto] Nó anterior não recebeu CTS/RTS. Volto a dormir " +
-                    		"por um tempo aleatório", address);
+                    if (debug.isOn()) {
+                    	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "[!!!Terminal-oculto] Nó anterior não recebeu CTS/RTS. Volto a dormir " +
+	                    		"por um tempo aleatório", address);
+                    }
                     // --------------------------------------------------
     			}
     			
@@ -519,7 +547,9 @@ public class PaxMacStateMachine  {
 		   					paxConf.getStepsRTS() - 0.00228; // 0.00228 fica igual
 		   			
 	    			// Ferramentas de depuração -------------------------
-	    			debug.print("$$$[RTS-recebeu] Recebeu o RTS no nó: "+ packet.getSender().getId(), address);
+	    			if (debug.isOn()) {
+	    				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "$$$[RTS-recebeu] Recebeu o RTS no nó: "+ packet.getSender().getId(), address);
+	    			}
 	    			misc.vGrubix(address.getId(), "Recebeu RTS", "GREEN");
 	    			// --------------------------------------------------
 	    			
@@ -537,7 +567,7 @@ public class PaxMacStateMachine  {
 		           		paxState.setState(PaxMacStateTypes.SLEEP, delay);
 		           		
 		           		// Ferramentas de depuração -------------------------
-		    			debug.print("!!![Impossibilitado] Nó alcança três nós atrás no caminho ", address);
+		    			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "!!![Impossibilitado] Nó alcança três nós atrás no caminho ", address);
 		    			// --------------------------------------------------
 		           		
 		           	/* Se o nó alcança o segundo nó atrás, então irá considerá-lo como seu nó anterior. 
@@ -575,7 +605,9 @@ public class PaxMacStateMachine  {
 		    			changeStateSendingMsg(delay);
 		    			
 		    			// Ferramentas de depuração -------------------------
-		    			debug.print("[CS-SHORT-inicio] Espera um tempo aleatório de: " + delay + " steps", address);
+		    			if (debug.isOn()) {
+		    				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "[CS-SHORT-inicio] Espera um tempo aleatório de: " + delay + " steps", address);
+		    			}
 		    			// --------------------------------------------------
 	    			}	
 	    		}
@@ -602,18 +634,20 @@ public class PaxMacStateMachine  {
 	            	if (packet.getFinalReceiverNode() != address.getId()) {
 	            		
 	        			// Ferramentas de depuração -------------------------
-	        			debug.print("$$$[Dado-recebeu] Recebeu o dado, não sou o destino final.\n "+
-	        					"[Dado] "+debug.prtPkt(packet, paxConf), address);
+	        			if (debug.isOn()) {
+	        				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "$$$[Dado-recebeu] Recebeu o dado, não sou o destino final.\n "+
+		        					"[Dado] "+debug.prtPkt(packet, paxConf), address);
+	        			}
 	        			// --------------------------------------------------
 	        		
 	    
 	        		// Se o nó é o destino final
 	            	} else {
 	            		// Ferramentas de depuração -------------------------
-	            		debug.print("$$$[Dado-recebeu] Recebeu dado, sou o nó de destino final", address);
+	            		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "$$$[Dado-recebeu] Recebeu dado, sou o nó de destino final", address);
 	            		misc.vGrubix(address.getId(), "Recebeu o dado", "DARK_BLUE");
 	            		statistics.getTransmission(paxState.getFinalReceiverNode()).setEndTime(); 
-	        			statistics.getTransmission(packet).destinationGetData = true;    			
+	        			statistics.getTransmission(packet).setDestinationGetData();    			
 	        			// --------------------------------------------------
 	        			
 	            		/* Se ACK foi exigido, armazena o número de sequência. O ACK será usado apenas pelo 
@@ -636,11 +670,13 @@ public class PaxMacStateMachine  {
     			} else if (packet.getReceiver() == address.getId()) {
 	
 	        		// Ferramentas de depuração -------------------------
-	                debug.print("$$$[ACK-recebeu] Recebeu ACK. Transmissão para destino "+
-	                		packet.getFinalReceiverNode()+" simulado com sucesso!", address);
+	                if (debug.isOn()) {
+	                	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "$$$[ACK-recebeu] Recebeu ACK. Transmissão para destino "+
+		                		packet.getFinalReceiverNode()+" simulado com sucesso!", address);
+	                }
 	                misc.vGrubix(address.getId(), "Recebeu ACK/DADO", "DARK_GREEN");
 	    	    	statistics.getTransmission(paxState.getFinalReceiverNode()).setEndTime(); 
-	    			statistics.getTransmission(packet).finalizeTx = true;
+	    			statistics.getTransmission(packet).setFinalizeTx();
 	    			// --------------------------------------------------
 	    			paxState.setState(PaxMacStateTypes.CS_LONG, paxConf.getStepsCsLong());
 	    			paxState.nodeWillBeFired();
@@ -658,8 +694,10 @@ public class PaxMacStateMachine  {
     			} else if (packet.getReceiver() == address.getId()) {
 	
 	    			// Ferramentas de depuração -------------------------
-	            	debug.print("$$$[CTS-recebeu] Recebeu CTS do nó: "+ packet.getSender().getId()+
-	            			", irá dormir até: "+paxState.getCtsDataTime(), address);
+	            	if (debug.isOn()) {
+	            		debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "$$$[CTS-recebeu] Recebeu CTS do nó: "+ packet.getSender().getId()+
+		            			", irá dormir até: "+paxState.getCtsDataTime(), address);
+	            	}
 	            	statistics.getTransmission(packet).addNode(address.getId());
 	            	// --------------------------------------------------
 	            	
@@ -687,8 +725,10 @@ public class PaxMacStateMachine  {
     				paxState.setSendingPktType(PacketType.DATA);
 	    			changeStateSendingMsg();
 		    		// Ferramentas de depuração -------------------------
-		            debug.print("[$$$CTS-DATA-recebeu] Recebeu CTS-DATA do nó: " +packet.getSender().getId() +
-		            		"\nIrá enviar o dado", address);
+		            if (debug.isOn()) {
+		            	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "[$$$CTS-DATA-recebeu] Recebeu CTS-DATA do nó: " +packet.getSender().getId() +
+			            		"\nIrá enviar o dado", address);
+		            }
 		            // --------------------------------------------------
 	    		}
     		} else if (paxState.getState() == PaxMacStateTypes.WAITING_ACK) {
@@ -699,8 +739,10 @@ public class PaxMacStateMachine  {
     				paxState.setSendingPktType(PacketType.DATA);
 	    			changeStateSendingMsg();
 		    		// Ferramentas de depuração -------------------------
-		            debug.print("[$$$NOACK-CTS-DATA-recebeu] Recebeu CTS-DATA ao esperar por ACK, " +
-		            		"irá enviar o dado novamente", address);
+		            if (debug.isOn()) {
+		            	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "[$$$NOACK-CTS-DATA-recebeu] Recebeu CTS-DATA ao esperar por ACK, " +
+			            		"irá enviar o dado novamente", address);
+		            }
 		            // --------------------------------------------------
     			}
     		}
@@ -709,7 +751,9 @@ public class PaxMacStateMachine  {
             paxState.setState(PaxMacStateTypes.CS_LONG, paxConf.getStepsCsLong());
             
             // Ferramentas de depuração -------------------------
-            debug.print("[!!!Aviso] Mensagem desconhecida: "+packet.getType(), address);
+            if (debug.isOn()) {
+            	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivedMsg", "[!!!Aviso] Mensagem desconhecida: "+packet.getType(), address);
+            }
             // --------------------------------------------------
             break;
     	}
@@ -755,7 +799,7 @@ public class PaxMacStateMachine  {
 		 * que o FCS está extremamente grande, além do suportado. */
 		if (paxState.getSendingPktType() == PacketType.CTS_DATA && paxState.isReachTwoNodePath()) {
 			// Ferramentas de depuração -------------------------
-			debug.print("[!!!2Hop-anterior] 2o hop anterior no raio de alcance.", address);
+			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateSendingMsg", "[!!!2Hop-anterior] 2o hop anterior no raio de alcance.", address);
 			// --------------------------------------------------
 		}
     	
@@ -788,8 +832,10 @@ public class PaxMacStateMachine  {
     		/* Se estava preparando para enviar o CTS-DATA */
     		if (paxState.isWakeUpToSendCtsData()) {
     			// Ferramentas de depuração -------------------------
-    			debug.print("[!!!CarrierSense-fim] O canal está ocupado, não irei enviar CTS-DATA agora. "
-    					+ "Mensagem vinda de: "+packet.getSender().getId() + " ("+packet.getType()+")", address);
+    			if (debug.isOn()) {
+    				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivingMsg", "[!!!CarrierSense-fim] O canal está ocupado, não irei enviar CTS-DATA agora. "
+	    					+ "Mensagem vinda de: "+packet.getSender().getId() + " ("+packet.getType()+")", address);
+    			}
 				statistics.getTransmission(paxState.getFinalReceiverNode()).addCsLongCtsDataBusy(address.getId());			
     			// --------------------------------------------------
     			
@@ -799,8 +845,10 @@ public class PaxMacStateMachine  {
     		/* Se estava preparando para enviar o primeiro RTS após um backOff */
     		if (paxState.getSendingPktType() == PacketType.RTS) {
     			// Ferramentas de depuração -------------------------
-    			debug.print("[!!!CarrierSense-fim] O canal está ocupado, não irei reiniciar o RTS agora. "
-    					+ "Mensagem vinda de: "+packet.getSender().getId(), address);
+    			if (debug.isOn()) {
+    				debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivingMsg", "[!!!CarrierSense-fim] O canal está ocupado, não irei reiniciar o RTS agora. "
+	    					+ "Mensagem vinda de: "+packet.getSender().getId(), address);
+    			}
                 // --------------------------------------------------
 
     			delay = paxConf.getStepsBackOffWaitDataPass(address.getId(), packet.getSendCtsDataDelay());
@@ -820,8 +868,10 @@ public class PaxMacStateMachine  {
     			paxState.setState(PaxMacStateTypes.SLEEP, paxConf.getStepsCTS() + paxConf.getStepsRTS());
     			
     			// Ferramentas de depuração -------------------------
-        		debug.printw("[!!!CST-already-sent] Recebeu alguma mensagem enquanto preparava envio do CST, "
-        				+ "volto para o ciclo de trabalho.", address);
+        		if (debug.isOn()) {
+        			debug.printw("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivingMsg", "[!!!CST-already-sent] Recebeu alguma mensagem enquanto preparava envio do CST, "
+	        				+ "volto para o ciclo de trabalho.", address);
+        		}
         		// --------------------------------------------------
         		return true;
     		}
@@ -843,8 +893,10 @@ public class PaxMacStateMachine  {
     		if (packet.getType() == PacketType.DATA) {
     			
 				// Ferramentas de depuração -------------------------
-        		debug.print("$$$[Dado-recebeu] Recebeu ACK/DADO do nó: "+packet.getSender().getId()+"."+
-        				" Volto para o ciclo de trabalho", address);
+        		if (debug.isOn()) {
+        			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivingMsg", "$$$[Dado-recebeu] Recebeu ACK/DADO do nó: "+packet.getSender().getId()+"."+
+	        				" Volto para o ciclo de trabalho", address);
+        		}
         		misc.vGrubix(address.getId(), "Recebeu ACK/DADO", "DARK_GREEN");
         		// --------------------------------------------------
         		
@@ -864,9 +916,11 @@ public class PaxMacStateMachine  {
     		misc.vGrubix(address.getId(), "Recebendo DADO", "PURPLE");
     	}
     	if (paxState.getPreviousReceiverLv1() != null) {
-    		debug.print("[Estado-tempo-estendido] Estado="+paxState.getState()+
-    				" Tempo estendido="+delay+" Término="+(delay+paxState.currentTimeSteps()+
-    				" Mensagem="+packet.getType()), address);
+    		if (debug.isOn()) {
+    			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.changeStateReceivingMsg", "[Estado-tempo-estendido] Estado="+paxState.getState()+
+	    				" Tempo estendido="+delay+" Término="+(delay+paxState.currentTimeSteps()+
+	    				" Mensagem="+packet.getType()), address);
+    		}
     	}
     	// --------------------------------------------------
     	return true;
@@ -958,8 +1012,10 @@ public class PaxMacStateMachine  {
 		}
 		
 		// Ferramentas de depuração -------------------------
-		debug.print("!!![Dado-tempo-reajuste] Tempo para enviar/receber CTS-DATA reajustado para: " + 
-				paxState.getCtsDataTime(), address);
+		if (debug.isOn()) {
+			debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.incCtsDataTime", "!!![Dado-tempo-reajuste] Tempo para enviar/receber CTS-DATA reajustado para: " + 
+					paxState.getCtsDataTime(), address);
+		}
 		// --------------------------------------------------
 	}
 	
@@ -981,7 +1037,7 @@ public class PaxMacStateMachine  {
         		incTimes = paxConf.getCtsDataBackOffDuration();
         		
         		// Ferramentas de depuração -------------------------
-                debug.print("[!!!Dado-envio-backOff] Não recebeu o dado, possível colisão, faz backOff", address);
+                debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.retryDataSend", "[!!!Dado-envio-backOff] Não recebeu o dado, possível colisão, faz backOff", address);
                 misc.vGrubix(address.getId(), "BackOff", "PINK");
                 // --------------------------------------------------
         	} else {
@@ -992,17 +1048,19 @@ public class PaxMacStateMachine  {
     		paxState.setState(PaxMacStateTypes.SLEEP, delayWakeupDataHandle());
     		
     		// Ferramentas de depuração -------------------------
-            debug.print("[Dado-envio-continua] Irá enviar/receber o dado novamente. Tentativas " +
-            		"restantes: "+ (paxConf.getMaxCtsDataRetry() - paxState.getMissingDataCount()) + 
-            		" Irá acordar em: " +(paxState.currentTimeSteps() + delayWakeupDataHandle()) + 
-            		" (restando "+delayWakeupDataHandle()+")", address);
+            if (debug.isOn()) {
+            	debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.retryDataSend", "[Dado-envio-continua] Irá enviar/receber o dado novamente. Tentativas " +
+	            		"restantes: "+ (paxConf.getMaxCtsDataRetry() - paxState.getMissingDataCount()) + 
+	            		" Irá acordar em: " +(paxState.currentTimeSteps() + delayWakeupDataHandle()) + 
+	            		" (restando "+delayWakeupDataHandle()+")", address);
+            }
             // --------------------------------------------------
     	} else {
     		paxState.nodeWillBeFired();
 			paxState.setState(PaxMacStateTypes.SLEEP, paxConf.getStepsSleep());
 			
 			// Ferramentas de depuração -------------------------
-            debug.print("[!!!Dado-envio-fim] Não irá mais enviar o dado. Volta ao ciclo", address);
+            debug.print("br.ufla.dcc.PingPong.PaxMac.PaxMacStateMachine.retryDataSend", "[!!!Dado-envio-fim] Não irá mais enviar o dado. Volta ao ciclo", address);
             // --------------------------------------------------
     	}
 	}
@@ -212,10 +212,58 @@ public class PhysicalSimple extends PhysicalLayer {
 	
 		PhysicalPacket incomingPacket = (PhysicalPacket) packet;  
 		
+		if (!occupyChannel(incomingPacket)) 
+			return;
+		
+		/* Todas as verificações feitas anteriormente são para verificar atividade no canal de comunicação
+		 A seguir começam as verificações para a recepção de mensagem pelo rádio do nó sensor. Caso o rádio
+		 não esteja em LISTENING ou RECEIVING, irá ignorar a mensagem */	
+		if (!isListening()) {
+			return;
+		}
+		
+		phyRadioState.setRadioState(RadioState.RECEIVING);	
+
+		if(msgColision) {
+			// Avisa a Mac que ocorreu colisão de mensagens no receptor
+			sendEventUp(new ColisionDetectEvent(sender, incomingPacket.getEnclosedPacket()));
+		} else {
+			/* Avisa a Mac que tem mensagem chegando. Oficialmente, a MAC só conhecerá a mensagem 
+			 posteriormente. */
+			sendEventUp(new StartOfFrameDelimiter(sender, incomingPacket.getEnclosedPacket()));
+		}
+	}
+	
+	
+	/**
+	 * Mensagem que o rádio não recebe, porque não está em LISTENING ou RECEIVING.
+	 * A AIR não a entrega pela lowerSAP, mas avisa quando a mensagem termina de chegar, o mesmo
+	 * momento em que a lowerSAP a receberia. A atividade no canal é marcada do mesmo modo, 
+	 * para detectar colisões e o canal ocupado quando o rádio for ligado.
+	 * 
+	 * @param packet a mensagem que chegou.
+	 */
+	@Override
+	public void channelOccupied(PhysicalPacket packet) {
+		if (packet.isTerminal() || packet.getSender().getId().equals(getNode().getId())) 
+			return;
+		
+		occupyChannel(packet);
+	}
+	
+	
+	/**
+	 * Marca a atividade no canal causada por uma mensagem que está chegando.
+	 * 
+	 * @param incomingPacket a mensagem que está chegando.
+	 * @return false, se houve colisão e as colisões não são detectadas.
+	 */
+	private boolean occupyChannel(PhysicalPacket incomingPacket) {
+		
 		// Se o tempo atual for menor que fim de uma transmissão, ocorrerá uma colisão
 		if(currentTimeSteps() < lastReceptionEnd) {
 			// se ocorreu uma colisão e não era para detectar colisões, não faça nada até que o pacote corrente termine de chegar
-			if (!detectPacketColision) return;
+			if (!detectPacketColision) return false;
 			
 			msgColision = true;
 		} else {
@@ -241,25 +289,20 @@ public class PhysicalSimple extends PhysicalLayer {
 			sendEventSelf(timeChannelActivity);   
 			// Só precisa marcar outro tempo de atividade do canal se for ultrapassar o tempo que já estava sendo marcado.
 		}
-		
-		/* Todas as verificações feitas anteriormente são para verificar atividade no canal de comunicação
-		 A seguir começam as verificações para a recepção de mensagem pelo rádio do nó sensor. Caso o rádio
-		 não esteja em LISTENING ou RECEIVING, irá ignorar a mensagem */	
-		if((phyRadioState.getRadioState() != RadioState.LISTENING) && 
-				(phyRadioState.getRadioState() != RadioState.RECEIVING)) {
-			return;
-		}
-		
-		phyRadioState.setRadioState(RadioState.RECEIVING);	
-
-		if(msgColision) {
-			// Avisa a Mac que ocorreu colisão de mensagens no receptor
-			sendEventUp(new ColisionDetectEvent(sender, incomingPacket.getEnclosedPacket()));
-		} else {
-			/* Avisa a Mac que tem mensagem chegando. Oficialmente, a MAC só conhecerá a mensagem 
-			 posteriormente. */
-			sendEventUp(new StartOfFrameDelimiter(sender, incomingPacket.getEnclosedPacket()));
-		}
+		return true;
+	}
+	
+	
+	/**
+	 * O rádio só recebe mensagens em LISTENING ou RECEIVING, conforme o phyRadioState.
+	 * O estado do rádio na PhysicalLayer fica sempre em LISTENING.
+	 * 
+	 * @return true, se o rádio controlado pela PHY estiver em LISTENING ou RECEIVING.
+	 */
+	@Override
+	public boolean isListening() {
+		return (phyRadioState.getRadioState() == RadioState.LISTENING) 
+			|| (phyRadioState.getRadioState() == RadioState.RECEIVING);
 	}
 	
 	
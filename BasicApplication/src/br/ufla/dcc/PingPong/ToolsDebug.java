@@ -1,11 +1,19 @@
 package br.ufla.dcc.PingPong;
 
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 /*
@@ -55,19 +63,25 @@ import br.ufla.dcc.grubix.simulator.event.Packet;
 import br.ufla.dcc.grubix.simulator.event.PhysicalPacket;
 import br.ufla.dcc.grubix.simulator.event.WakeUpCall;
 import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
 
 
 /** Classe que organiza as informações para imprimir ou gerar arquivo para a depuração
+ * 
+ *  Uso sem custo quando a depuração está desabilitada: os argumentos das chamadas são montados
+ *  somente dentro de <code>if (debug.isOn()) {...}</code>. A origem do registro pode ser informada
+ *  por uma etiqueta "pacote.Classe.metodo" (métodos com o parâmetro tag), com o nome completo da
+ *  classe como em filterMethods; a pilha de chamadas então não é consultada, o filtro e o
+ *  cabeçalho usam a etiqueta, sem o método anterior. Os filtros são compilados no construtor e as decisões
+ *  por método ficam guardadas. O arquivo é descarregado a cada {@link #FLUSH_RECORDS} registros
+ *  e fechado no fim da simulação.
  * 
  *  @author Gustavo Araújo
  *  @version 01/11/2016
  * 
  */
-public class ToolsDebug {
-	/**  Instância da classe, processo para criar uma classe Singleton */
-	private static ToolsDebug instance = null;
-	
+public class ToolsDebug implements Closeable {
 	/** Se é para habilitar o debug **/
 	private boolean disable_debug = true;
 	
@@ -112,13 +126,47 @@ public class ToolsDebug {
 	/** Se é para excluir ou somente exibir items que casam com os métodos informados */
 	private boolean filterMethodsExcludeMode = true;
 	
+	/** Quantidade de registros escritos no buffer entre duas descargas no arquivo */
+	public static final int FLUSH_RECORDS = 64;
+	
+	/** Registros escritos no buffer desde a última descarga no arquivo */
+	private int pendingRecords = 0;
+	
+	/** Filtro de id's compilado */
+	private final Set<String> nodeSet = new HashSet<String>();
+	
+	/** Filtro de etiquetas compilado */
+	private final Set<String> labelSet = new HashSet<String>();
+	
+	/** Filtro de métodos compilado */
+	private final Set<String> methodSet = new HashSet<String>();
+	
+	/** Decisões do filtro de métodos já tomadas, pela etiqueta "Classe.metodo" */
+	private final Map<String, Boolean> methodDecisions = new HashMap<String, Boolean>();
+	
+	/** Formato dos steps no cabeçalho, criado no primeiro uso */
+	private DecimalFormat stepsFormat;
+	
+	/** Formato dos steps nas impressões, criado no primeiro uso */
+	private DecimalFormat stepsFormatLong;
+	
 	
 	/** Construtor */
 	public ToolsDebug() {
 		if (disable_debug) {return;}
+		nodeSet.addAll(Arrays.asList(filterNodes));
+		labelSet.addAll(Arrays.asList(filterLabels));
+		methodSet.addAll(Arrays.asList(filterMethods));
 		create();
 
 	}
+	
+	
+	/** Se a depuração está habilitada. Deve proteger as chamadas cujos argumentos custam para 
+	 * serem montados: <code>if (debug.isOn()) { debug.write(tag, debug.strPkt(p), addr); }</code> */
+	public final boolean isOn() {
+		return !disable_debug;
+	}
 
 	
 	/**
@@ -126,8 +174,12 @@ public class ToolsDebug {
 	 * instância, já é uma classe singleton 
 	 */
 	public static synchronized ToolsDebug getInstance() {
+		// Uma instância por simulação, guardada no contexto da simulação
+		SimulationContext context = SimulationContext.current();
+		ToolsDebug instance = context.getShared(ToolsDebug.class);
 		if(instance == null) {
 		     instance = new ToolsDebug();
+		     context.putShared(ToolsDebug.class, instance);
 		}
 		return instance;
 	}
@@ -152,21 +204,23 @@ public class ToolsDebug {
     }
     
 	
-	/** Fechar o arquivo */
-	public void close() {
-		if (!isWriteFile()) {return;}
+	/** Fechar o arquivo. Chamado pelo contexto no fim da simulação, escreve os registros que 
+	 * ainda estão no buffer; os registros posteriores são descartados */
+	public synchronized void close() {
+		if (!isWriteFile() || this.writer == null) {return;}
 		try {
 			// Fechando conexão
 			this.writer.close();
 		} catch (IOException e) {
 			System.out.println("BufferedWriter close error");
 		}
+		this.writer = null;
 	}
 	
 	
 	/** Escreve no buffer */
-	public void writeBuffer(String text) {
-		if (!isWriteFile()) {return;}
+	public synchronized void writeBuffer(String text) {
+		if (!isWriteFile() || this.writer == null) {return;}
 		try {
 			this.writer.write(text);
 		} catch (IOException e) {
@@ -176,8 +230,8 @@ public class ToolsDebug {
 	
 	
 	/** Escreve buffer no arquivo */
-	public void writeFile() {
-		if (!isWriteFile()) {return;}
+	public synchronized void writeFile() {
+		if (!isWriteFile() || this.writer == null) {return;}
 		try {
 			// Criando o conteúdo do arquivo
 			this.writer.flush();
@@ -192,7 +246,8 @@ public class ToolsDebug {
 	 */
 	public void write(Address addr) {
 		if (disable_debug || !isWriteFile()) {return;}
-		writeRegister("", addr, "");
+		StackTraceElement[] frames = callerFrames();
+		writeRegister(callerTag(frames), frames, "", addr, "");
 	}
 	
 	
@@ -202,18 +257,20 @@ public class ToolsDebug {
 	 */
 	public void write(String text, Address addr) {
 		if (disable_debug || !isWriteFile()) {return;}
-		writeRegister(text, addr, "");
+		StackTraceElement[] frames = callerFrames();
+		writeRegister(callerTag(frames), frames, text, addr, "");
 	}
 	
 	
 	/** Chama método para criar e escrever registro
-	 * @param text   texto que será escrito
-	 * @param addr   id do nó para informar no cabeçalho e ser comparado no filtro por id's
+	 * @param text  texto que será escrito
+	 * @param addr  id do nó para informar no cabeçalho e ser comparado no filtro por id's
 	 * @param label  etiqueta que será escrita e ser comparada no filtro por labels 
 	 */
 	public void write(String text, Address addr, String label) {
 		if (disable_debug || !isWriteFile()) {return;}
-		writeRegister(text, addr, label);
+		StackTraceElement[] frames = callerFrames();
+		writeRegister(callerTag(frames), frames, text, addr, label);
 	}
 
 	
@@ -224,57 +281,125 @@ public class ToolsDebug {
 	 */
 	public void writeIfNodes(String text, Address addr, Integer[] nodes) {
 		if (disable_debug || !isWriteFile()) {return;}
-		if (Arrays.asList(nodes).contains(addr.getId().asInt())) 
-			writeRegister(text, addr, "");
+		if (Arrays.asList(nodes).contains(addr.getId().asInt())) {
+			StackTraceElement[] frames = callerFrames();
+			writeRegister(callerTag(frames), frames, text, addr, "");
+		}
 	}
 	
 	
-	/** Cria e escrever registro 
+	/** Chama método para criar e escrever registro, sem consultar a pilha de chamadas
+	 * @param tag   origem do registro no formato "pacote.Classe.metodo"
+	 * @param text  texto que será escrito
+	 * @param addr  id do nó para informar no cabeçalho e ser comparado no filtro por id's 
+	 */
+	public void write(String tag, String text, Address addr) {
+		if (disable_debug || !isWriteFile()) {return;}
+		writeRegister(tag, tagFrames(tag), text, addr, "");
+	}
+	
+	
+	/** Chama método para criar e escrever registro, sem consultar a pilha de chamadas
+	 * @param tag    origem do registro no formato "pacote.Classe.metodo"
 	 * @param text   texto que será escrito
 	 * @param addr   id do nó para informar no cabeçalho e ser comparado no filtro por id's
 	 * @param label  etiqueta que será escrita e ser comparada no filtro por labels 
 	 */
-	private boolean writeRegister(String text, Address nodeAdr, String label) {
-		
-		// Adquire a pilha de métodos chamados durante a execução
-		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-		String s = "";
-		
+	public void write(String tag, String text, Address addr, String label) {
+		if (disable_debug || !isWriteFile()) {return;}
+		writeRegister(tag, tagFrames(tag), text, addr, label);
+	}
+	
+	
+	/** Chama método para criar e escrever registro somente se o nó possui o um dos ids informados,
+	 * sem consultar a pilha de chamadas
+	 * @param tag    origem do registro no formato "pacote.Classe.metodo"
+	 * @param text   texto que será escrito
+	 * @param addr   id do nó para informar no cabeçalho e ser comparado no filtro por id's
+	 * @param nodes  somente nó com um destes ids poderá criar e escrever o registro
+	 */
+	public void writeIfNodes(String tag, String text, Address addr, Integer[] nodes) {
+		if (disable_debug || !isWriteFile()) {return;}
+		if (Arrays.asList(nodes).contains(addr.getId().asInt())) 
+			writeRegister(tag, tagFrames(tag), text, addr, "");
+	}
+	
+	
+	/** Obtém da pilha o método que chamou esta classe e o método que o chamou: os dois primeiros
+	 * elementos fora desta classe */
+	private static StackTraceElement[] callerFrames() {
+		StackTraceElement[] st = new Throwable().getStackTrace();
+		int i = 0;
+		while (i < st.length - 2 && st[i].getClassName().equals(ToolsDebug.class.getName())) {
+			i++;
+		}
+		return new StackTraceElement[] {st[i], st[i+1]};
+	}
+	
+	
+	/** Origem "pacote.Classe.metodo" do registro, como nas etiquetas */
+	private static String callerTag(StackTraceElement[] frames) {
+		return frames[0].getClassName()+'.'+frames[0].getMethodName();
+	}
+	
+	
+	/** Método que chamou esta classe, obtido da etiqueta "pacote.Classe.metodo". O método 
+	 * anterior não é conhecido, por isso o vetor só tem um elemento */
+	private static StackTraceElement[] tagFrames(String tag) {
+		int dot = tag.lastIndexOf('.');
+		return new StackTraceElement[] {
+				new StackTraceElement(tag.substring(0, Math.max(dot, 0)), tag.substring(dot+1), null, -1)};
+	}
+	
+	
+	/** Cria e escrever registro 
+	 * @param caller  origem do registro no formato "pacote.Classe.metodo", usada pelos filtros
+	 * @param frames  método que chamou esta classe e o anterior, se conhecido
+	 * @param text    texto que será escrito
+	 * @param addr    id do nó para informar no cabeçalho e ser comparado no filtro por id's
+	 * @param label   etiqueta que será escrita e ser comparada no filtro por labels 
+	 */
+	private boolean writeRegister(String caller, StackTraceElement[] frames, String text, 
+			Address nodeAdr, String label) {
 		// Escrever somente registros que passarem no filtro
-		if (!filter(stackTrace[3].getClassName(), stackTrace[3].getMethodName(), nodeAdr, label)) 
+		if (!filter(caller, nodeAdr, label)) 
 			return false;
 
 		/* Monta um id-chave do registro para comparar com o último id-chave, evitando criar mais 
 		 de um registro para um mesmo método caso seja depurado mais de uma vez em sequência */
-		String StackTraceKey = stackTrace[3].getClassName()+stackTrace[3].getMethodName()+
-				stackTrace[4].getClassName()+stackTrace[4].getMethodName();
+		String StackTraceKey = frames[0].getClassName()+frames[0].getMethodName();
+		if (frames.length > 1) {
+			StackTraceKey += frames[1].getClassName()+frames[1].getMethodName();
+		}
 		if (nodeAdr != null) {
 			StackTraceKey += nodeAdr.getId();
 		}
 
+		StringBuilder s = new StringBuilder();
 		/* Se o id-chave é diferente, escreva o cabeçalho do novo registro, contendo qual o método
 		que chamou a classe Debug */
 		if (!getLastStackTrace().equals(StackTraceKey)) 
-			s+="\n"+strHeader(stackTrace, nodeAdr);
+			s.append('\n').append(strHeader(frames, nodeAdr));
 		
 		if (!label.equals("")) 
-			s+= tagLabel(label);
+			s.append(tagLabel(label));
 		if (!text.equals("")) {
 			/* Se foi passado o texto sem chamar o método str(), deve tratá-lo para receber os 
 			delimitadores do campo ([]) */
-			if (!text.substring(0,1).equals(tagField("").substring(0,1)))
+			if (text.charAt(0) != '[')
 				text = str(text);
-			s+= text;
+			s.append(text);
 		}
 		// Se não possui quebra de linha no final, acrescenta quebra de linha
-		if (!s.substring(s.length()-1).equals("\n"))
-			s+='\n';
+		if (s.length() == 0 || s.charAt(s.length()-1) != '\n')
+			s.append('\n');
 		
-		// Escreve no buffer
-		writeBuffer(s);
-		// Escreve no arquivo
-		writeFile();
-
+		// Escreve no buffer e periodicamente no arquivo
+		writeBuffer(s.toString());
+		if (++pendingRecords >= FLUSH_RECORDS) {
+			pendingRecords = 0;
+			writeFile();
+		}
 		
 		// Guardar o ultimo id-chave para comparação posterior
 		setLastStackTrace(StackTraceKey);
@@ -284,7 +409,7 @@ public class ToolsDebug {
 	
 	/** Define as tags entre os tipos de informação */
 	public String tagField(String text) {
-		return '['+String.format("%1$-" + 12 + "s", text)+']';
+		return '['+padRight(text, 12)+']';
 	}
 	
 	
@@ -306,7 +431,10 @@ public class ToolsDebug {
 	}
 	
 	
-	/** Define o formato do cabeçalho do registro */
+	/** Define o formato do cabeçalho do registro 
+	 * @param st   método que criou o registro e o método que o chamou, se conhecido
+	 * @param adr  id do nó
+	 */
 	private String strHeader(StackTraceElement[] st, Address adr) {
 		this.countId++;
 		double steps = SimulationManager.getInstance().getCurrentTime();
@@ -316,14 +444,45 @@ public class ToolsDebug {
 			nodeInfo += "?";
 		else
 			nodeInfo += adr.getId()+" "+adr.getFromLayer();
+		String stepsInfo = formatSteps(steps);
 
-		return countId + fillString(8,'-').substring(String.valueOf(countId).length())+
-			"Node "+nodeInfo + fillString(20,'-').substring(nodeInfo.length())+
-			"Steps "+String.format("%1$,.4f", steps) + 
-			fillString(60,'-').substring(String.format("%1$,.4f", steps).length())+
-			"\n"+tagField("Method")+" "+st[3].getMethodName()+"() "+st[3].getClassName()+
-			"\n"+tagField("Previous")+String.format("%1$-"+(st[3].getMethodName().length()+4)+"s", "")+
-			st[4].getClassName()+":"+st[4].getMethodName()+"()"+'\n';
+		return countId + fillString(8,'-').substring(Math.min(8, String.valueOf(countId).length()))+
+			"Node "+nodeInfo + fillString(20,'-').substring(Math.min(20, nodeInfo.length()))+
+			"Steps "+stepsInfo + 
+			fillString(60,'-').substring(Math.min(60, stepsInfo.length()))+
+			"\n"+tagField("Method")+" "+st[0].getMethodName()+"() "+st[0].getClassName()+'\n'+
+			(st.length > 1 ? tagField("Previous")+fillString(st[0].getMethodName().length()+4, ' ')+
+			st[1].getClassName()+":"+st[1].getMethodName()+"()"+'\n' : "");
+	}
+	
+	
+	/** Formata os steps com quatro casas decimais e separador de milhar, como "%1$,.4f". 
+	 * Arredonda a representação decimal do double, como o String.format */
+	private String formatSteps(double steps) {
+		if (stepsFormat == null) {
+			stepsFormat = new DecimalFormat("#,##0.0000");
+			stepsFormat.setRoundingMode(RoundingMode.HALF_UP);
+		}
+		return stepsFormat.format(new BigDecimal(Double.toString(steps)));
+	}
+	
+	
+	/** Formata os steps com dez casas decimais e separador de milhar, como "%1$,.10f" */
+	private String formatStepsLong(double steps) {
+		if (stepsFormatLong == null) {
+			stepsFormatLong = new DecimalFormat("#,##0.0000000000");
+			stepsFormatLong.setRoundingMode(RoundingMode.HALF_UP);
+		}
+		return stepsFormatLong.format(new BigDecimal(Double.toString(steps)));
+	}
+	
+	
+	/** Completa o texto com espaços à direita até o tamanho informado, como "%1$-Ns" */
+	private static String padRight(String text, int size) {
+		if (text.length() >= size) {
+			return text;
+		}
+		return text + fillString(size - text.length(), ' ');
 	}
 	
 	
@@ -457,8 +616,15 @@ public class ToolsDebug {
 	/** Imprime texto do usuário com informações do nó e steps, sem passar pelos filtros. */
 	public void print(String text, Address sender) {
 		if (disable_debug) {return;}
-		String s = printRegister(sender, text, false);
-		System.out.println(s);
+		System.out.println(printRegister(callerFrames(), sender, text));
+	}
+	
+	
+	/** Imprime texto do usuário com informações do nó e steps, sem passar pelos filtros. A 
+	 * etiqueta tem o formato "pacote.Classe.metodo"; a pilha de chamadas não é consultada. */
+	public void print(String tag, String text, Address sender) {
+		if (disable_debug) {return;}
+		System.out.println(printRegister(tagFrames(tag), sender, text));
 	}
 	
 
@@ -466,30 +632,41 @@ public class ToolsDebug {
 	 pelos filtros. */
 	public void printw(String text, Address sender) {
 		if (disable_debug) {return;}
-		String s = printRegister(sender, text, true);
-		if (s.equals(""))
+		StackTraceElement[] frames = callerFrames();
+		printAndWrite(callerTag(frames), frames, text, sender);
+	}
+	
+	
+	/** Imprime e escreve no arquivo o texto do usuário com informações do nó e steps passando
+	 pelos filtros. A etiqueta tem o formato "pacote.Classe.metodo"; a pilha de chamadas não é 
+	 consultada. */
+	public void printw(String tag, String text, Address sender) {
+		if (disable_debug) {return;}
+		printAndWrite(tag, tagFrames(tag), text, sender);
+	}
+	
+	
+	/** Imprime e escreve no arquivo o registro, se passar pelos filtros */
+	private void printAndWrite(String caller, StackTraceElement[] frames, String text, Address sender) {
+		if (!filter(caller, sender, ""))
 			return;
-		writeRegister(tagField("@Print")+" "+text, sender, "");
-		System.out.println(s);
+		writeRegister(caller, frames, tagField("@Print")+" "+text, sender, "");
+		System.out.println(printRegister(frames, sender, text));
 	}
 
 	
 	/** Cria o registro que será impresso e/ou escrito **/
-	private String printRegister(Address adr, String text, boolean hasFilter) {
-		String s ="";
-		
-		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-		if (hasFilter && !filter(stackTrace[3].getClassName(), stackTrace[3].getMethodName(), adr, ""))
-			return s;
-		
+	private String printRegister(StackTraceElement[] st, Address adr, String text) {
 		double steps = SimulationManager.getInstance().getCurrentTime();
-		s += ">>>>> NODE:"+adr.getId()+" STEP:"+String.format("%1$,.10f", steps)+" >>>>>>"+
-				" METHOD:"+stackTrace[3].getMethodName()+"()"+
-				" ROUTINE:"+stackTrace[4].getMethodName()+
-				" CLASS:"+stackTrace[3].getClassName()+"\n"+text;
-		if (!s.substring(s.length()-1).equals("\n"))
-			s+='\n';
-		return s;
+		StringBuilder s = new StringBuilder();
+		s.append(">>>>> NODE:").append(adr.getId()).append(" STEP:").append(formatStepsLong(steps))
+				.append(" >>>>>> METHOD:").append(st[0].getMethodName()).append("()");
+		if (st.length > 1)
+			s.append(" ROUTINE:").append(st[1].getMethodName());
+		s.append(" CLASS:").append(st[0].getClassName()).append('\n').append(text);
+		if (s.charAt(s.length()-1) != '\n')
+			s.append('\n');
+		return s.toString();
 	}
 	
 	
@@ -501,27 +678,31 @@ public class ToolsDebug {
 	}
 	
 	
-	/** Realiza a verificação do filtro */
-	private boolean filter(String clas, String method, Address adr, String label) {
-		if (adr != null && Arrays.asList(filterNodes).contains(adr.getId().toString())) {
+	/** Realiza a verificação do filtro 
+	 * @param caller  "pacote.Classe.metodo" que criou o registro, como em filterMethods
+	 */
+	private boolean filter(String caller, Address adr, String label) {
+		if (adr != null && nodeSet.contains(adr.getId().toString())) {
 			if (filterNodesExcludeMode) return false;
 		} else {
 			if (!filterNodesExcludeMode) return false;
 		}
 		
-		if (!label.equals("") && Arrays.asList(filterLabels).contains(label)) {
+		if (!label.equals("") && labelSet.contains(label)) {
 			if (filterLabelsExcludeMode) return false;
 		} else {
 			if (!filterLabelsExcludeMode) return false;
 		}
 		
-		if (Arrays.asList(filterMethods).contains(clas) ||
-				Arrays.asList(filterMethods).contains(clas+'.'+method+"()")) {
-			if (filterMethodsExcludeMode) return false;
-		} else {
-			if (!filterMethodsExcludeMode) return false;
+		Boolean accepted = methodDecisions.get(caller);
+		if (accepted == null) {
+			int dot = caller.lastIndexOf('.');
+			boolean listed = methodSet.contains(caller.substring(0, Math.max(dot, 0))) || 
+					methodSet.contains(caller+"()");
+			accepted = (listed != filterMethodsExcludeMode);
+			methodDecisions.put(caller, accepted);
 		}
-		return true;
+		return accepted;
 	}
 	
 	
@@ -66,7 +66,7 @@ public class ToolsMiscellaneous {
 	/** Retorna um valor randômico entre 0 e 1 */
 	public double rand(NodeId node) {
 		if (randomSeed) {
-			return Math.random();
+			return Configuration.getInstance().getRandomGenerator().nextDouble();
 		} else {
 			Random generator = new Random(node.asInt()*100000);
 			double num = generator.nextDouble();
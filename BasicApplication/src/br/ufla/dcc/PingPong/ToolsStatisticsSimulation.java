@@ -2,8 +2,10 @@ package br.ufla.dcc.PingPong;
 
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import br.ufla.dcc.PingPong.PaxMac.PaxMacConfiguration;
 import br.ufla.dcc.PingPong.PaxMac.PaxMacPacket;
@@ -13,13 +15,16 @@ import br.ufla.dcc.grubix.simulator.LayerType;
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.event.Packet;
 import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
+import br.ufla.dcc.grubix.simulator.metrics.Counter;
+import br.ufla.dcc.grubix.simulator.metrics.Histogram;
+import br.ufla.dcc.grubix.simulator.metrics.MetricsRegistry;
+import br.ufla.dcc.grubix.simulator.metrics.TimeSeries;
 
 /** Guarda e processa informações que serão usadas para gerar as estatísticas da simulação */
 public class ToolsStatisticsSimulation {
 
-	static private ToolsStatisticsSimulation instance = null;
-	
 	/** Referência para as configurações da camada MAC */
 	public PaxMacConfiguration paxConf = null;
 	
@@ -32,6 +37,55 @@ public class ToolsStatisticsSimulation {
 	/** Lista de objetos para os dados estatísticos do fluxo de transmissão */
 	public List<ToolsStatisticsTransmission> transmissions = new ArrayList<ToolsStatisticsTransmission>();
 	
+	/** Transmissões indexadas pelo destino, para não percorrer a lista a cada evento */
+	private final Map<NodeId, ToolsStatisticsTransmission> transmissionsByDestination = 
+		new HashMap<NodeId, ToolsStatisticsTransmission>();
+	
+	/** Métricas da simulação, null se as métricas estão desligadas na configuração */
+	private final MetricsRegistry metrics;
+	
+	/* Totais da simulação, atualizados pelas transmissões durante a simulação. Com as métricas
+	 * ligadas são os contadores do registro, que os resume no fim da simulação */
+	
+	/** Total de RTS enviados */
+	final Counter rtsSent;
+	
+	/** Total de CTS-DATA enviados */
+	final Counter ctsDataSent;
+	
+	/** Total de dados enviados */
+	final Counter dataSent;
+	
+	/** Total de esperas por ACK */
+	final Counter ackWaiting;
+	
+	/** Total de esperas por CTS-DATA */
+	final Counter ctsDataWaiting;
+	
+	/** Total de CS-LONG CTS-DATA ocupados */
+	final Counter csLongCtsDataBusy;
+	
+	/** Total de reinícios do envio de RTS */
+	final Counter restartRts;
+	
+	/** Total de dados que chegaram ao destino */
+	final Counter deliveries;
+	
+	/** Entregas ao longo do tempo da simulação, null se as métricas estão desligadas */
+	final TimeSeries deliveriesOverTime;
+	
+	/** Tempos das transmissões completas (fim - início), em steps */
+	private final Histogram txTime;
+	
+	/** Número de transmissões finalizadas */
+	private int finalizedTransmissions = 0;
+	
+	/** Início da primeira transmissão completa, -1 se nenhuma */
+	private double firstStartTime = -1;
+	
+	/** Fim da última transmissão completa, -1 se nenhuma */
+	private double lastEndTime = -1;
+	
 	/** Se já imprimiu as estatísticas */
 	public boolean printedStatistics = false;
 	
@@ -41,13 +95,58 @@ public class ToolsStatisticsSimulation {
 	
 	/** Construtor */
 	static public ToolsStatisticsSimulation getInstance() {
+		// Uma instância por simulação, guardada no contexto da simulação
+		SimulationContext context = SimulationContext.current();
+		ToolsStatisticsSimulation instance = context.getShared(ToolsStatisticsSimulation.class);
 		if (instance == null) {
-			instance = new ToolsStatisticsSimulation();
+			instance = new ToolsStatisticsSimulation(context);
+			context.putShared(ToolsStatisticsSimulation.class, instance);
 		}
 		return instance;
 	}
 	
 	
+	/** Construtor, com as métricas do contexto se estão ligadas */
+	private ToolsStatisticsSimulation(SimulationContext context) {
+		Configuration configuration = context.getConfiguration();
+		metrics = (configuration != null && configuration.isMetrics()) ? context.getMetrics() : null;
+		rtsSent = counter("rts sent");
+		ctsDataSent = counter("ctsdata sent");
+		dataSent = counter("data sent");
+		ackWaiting = counter("ack waiting");
+		ctsDataWaiting = counter("ctsdata waiting");
+		csLongCtsDataBusy = counter("cslong ctsdata busy");
+		restartRts = counter("rts restarts");
+		deliveries = counter("deliveries");
+		deliveriesOverTime = (metrics == null) ? null : metrics.series(null, LayerType.MAC, "deliveries over time");
+		txTime = (metrics == null) ? new Histogram() : metrics.histogram(null, LayerType.MAC, "transmission time");
+	}
+	
+	
+	/** Retorna o contador do registro de métricas, ou um contador avulso se estão desligadas */
+	private Counter counter(String name) {
+		return (metrics == null) ? new Counter() : metrics.counter(null, LayerType.MAC, name);
+	}
+	
+	
+	/** Chamado pela transmissão quando os tempos de início e fim estão definidos */
+	void completeTransmission(ToolsStatisticsTransmission t) {
+		txTime.record(t.endTime - t.startTime);
+		if (firstStartTime < 0 || firstStartTime > t.startTime) {
+			firstStartTime = t.startTime;
+		}
+		if (lastEndTime < 0 || lastEndTime < t.endTime) {
+			lastEndTime = t.endTime;
+		}
+	}
+	
+	
+	/** Chamado pela transmissão quando é finalizada */
+	void finalizeTransmission() {
+		finalizedTransmissions++;
+	}
+	
+	
 	/** Define o total de transmissões que serão realizadas na simulação */
 	public void setNumTransmissions(int numTransmissions) {
 		this.numTransmissions = numTransmissions;
@@ -71,14 +170,14 @@ public class ToolsStatisticsSimulation {
 			SimulationManager.getInstance().cancelSimulation();
 		}
 		
-		for (ToolsStatisticsTransmission t : transmissions) {
-			if (t.destinationId.asInt() == destinationId.asInt()) {
-		        return t;
-		    }
+		ToolsStatisticsTransmission transmission = transmissionsByDestination.get(destinationId);
+		if (transmission != null) {
+			return transmission;
 		}
 		// Adiciona um novo nó na lista e o retorna
-		ToolsStatisticsTransmission transmission = new ToolsStatisticsTransmission(destinationId, paxConf);
+		transmission = new ToolsStatisticsTransmission(destinationId, paxConf, this);
 		transmissions.add(transmission);
+		transmissionsByDestination.put(destinationId, transmission);
 		return transmission;
 	}
 	
@@ -113,88 +212,46 @@ public class ToolsStatisticsSimulation {
 	
 	/** Obter o total de reinicio de RTS na simulação */
 	public double getTotalRestartRts() {
-		int total = 0;
-		for (ToolsStatisticsTransmission t : transmissions) {
-			total += t.getTotalRestartRts();
-		}
-		return total;
+		return restartRts.getCount();
 	}
 	
 	
 	/** Obter total de CTS-DATA enviados */
 	public int getTotalCtsDataSent() {
-		int total = 0;
-		for (ToolsStatisticsTransmission t : transmissions) {
-			total += t.getTotalCtsDataSent();
-		}
-		return total;
+		return (int) ctsDataSent.getCount();
 	}
 	
 	
 	/** Obter total de CS-LONG CTS-DATA ocupados */
 	public int getTotalCsLongCtsDataBusy() {
-		int total = 0;
-		for (ToolsStatisticsTransmission t : transmissions) {
-			total += t.getTotalCsLongCtsDataBusy();
-		}
-		return total;
+		return (int) csLongCtsDataBusy.getCount();
 	}
 	
 	
 	/** Obter total de espera CTS-DATA realizados */
 	public int getTotalCtsDataWaiting() {
-		int total = 0;
-		for (ToolsStatisticsTransmission t : transmissions) {
-			total += t.getTotalCtsDataWaiting();
-		}
-		return total;
+		return (int) ctsDataWaiting.getCount();
 	}
 	
 
 	/** Obter o total de dados que chegaram ao destino */
 	public int getTotalDestinationGetData() {
-		int total = 0;
-		for (ToolsStatisticsTransmission t : transmissions) {
-			if (t.destinationGetData) {
-				total++;
-			}
-		}
-		return total;	
+		return (int) deliveries.getCount();
 	}
 	
 	
 	/** Obter tempo útil total da simulação */
 	public double getTotalSimulationTime() {
-		double start = -1;
-		double end = -1;
-		for (ToolsStatisticsTransmission t : transmissions) {
-			/* Se tem um tempo igual -1 é porque terminou o tempo da simulação e dado não chegou 
-			 * ao destino */
-			if (t.startTime > 0 && t.endTime > 0) {
-				if (start < 0 || start > t.startTime) {
-					start = t.startTime;
-				}
-				if (end < 0 || end < t.endTime) {
-					end = t.endTime;
-				}
-			}
-		}
-		return end-start;
+		/* Só contam as transmissões completas; as que ainda têm um tempo igual a -1 terminaram
+		 * com o tempo da simulação, sem que o dado chegasse ao destino */
+		return lastEndTime-firstStartTime;
 	}
 	
 	
 	/** Obter o tempo médio das transmissões */
 	public double getAverageTxTime() {
-		double totalTime = 0;
-		int count = 0;
-		for (ToolsStatisticsTransmission t : transmissions) {
-			if (t.startTime > 0 && t.endTime > 0) {
-				count++;
-				totalTime += t.endTime - t.startTime;
-			}
-		}
-		if (count == 0) {return 0;}
-		return totalTime/count;
+		if (txTime.getCount() == 0) {return 0;}
+		return txTime.getMean();
 	}
 	
 	
@@ -203,16 +260,7 @@ public class ToolsStatisticsSimulation {
 		if (transmissions.size() == 0) {
 			return false;
 		}
-		int count = 0;
-		for (ToolsStatisticsTransmission t : transmissions) {
-		    if (t.finalizeTx) {
-		    	count++;
-		    }
-		}
-		if (count == numTransmissions) {
-			return true;
-		}
-		return false;
+		return finalizedTransmissions == numTransmissions;
 	}
 	
 	
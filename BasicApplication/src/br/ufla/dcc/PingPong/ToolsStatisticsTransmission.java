@@ -20,11 +20,11 @@ public class ToolsStatisticsTransmission {
 	/** Referência para as configurações */
 	public PaxMacConfiguration paxConf;
 	
-	/** Flag para que informa se o destino recebeu o dado */
-	public boolean destinationGetData = false;
+	/** Flag para que informa se o destino recebeu o dado, ver setDestinationGetData() */
+	private boolean destinationGetData = false;
 	
-	/** Flag que indica que terminou a transmissão  */
-	public boolean finalizeTx = false;
+	/** Flag que indica que terminou a transmissão, ver setFinalizeTx()  */
+	private boolean finalizeTx = false;
 	
 	/** Tempo em que começou o envio da primeira mensagem **/
 	public double startTime = -1;
@@ -38,10 +38,12 @@ public class ToolsStatisticsTransmission {
 	/** Ferramentas diversas auxiliares */
  	ToolsMiscellaneous misc = ToolsMiscellaneous.getInstance();
 	
-	
+	/** Estatísticas da simulação, cujos totais são atualizados junto com os desta transmissão */
+	private final ToolsStatisticsSimulation simulation;
  	
 	/** Construtor */
-	public ToolsStatisticsTransmission(NodeId destinationId, PaxMacConfiguration paxConf) {
+	ToolsStatisticsTransmission(NodeId destinationId, PaxMacConfiguration paxConf, 
+			ToolsStatisticsSimulation simulation) {
 		if (destinationId == null || destinationId.asInt() == -1) {
 			System.out.println("[StatisticsError] Destino Inválido nas estatísticas: "+
 					destinationId.asInt());
@@ -49,6 +51,7 @@ public class ToolsStatisticsTransmission {
 		}
 		this.destinationId = destinationId;
 		this.paxConf = paxConf;
+		this.simulation = simulation;
 	}
 	
 	
@@ -101,42 +104,50 @@ public class ToolsStatisticsTransmission {
 	/** Adicionar o número de RTS enviados no nó */
 	public void addRtsSent(NodeId id) {
 		getPathNode(id).incRtsSent();
+		simulation.rtsSent.increment();
 	}
 	
 	
 	/** Adicionar o número de CTA-DATA enviados no nó */
 	public void addCtsDataSent(NodeId id) {
 		getPathNode(id).incCtsDataSent();
+		simulation.ctsDataSent.increment();
 	}
 	
 	
 	/** Adicionar o número de dados enviados no nó */
 	public void addDataSent(NodeId id) {
 		getPathNode(id).incDataSent();
+		simulation.dataSent.increment();
 	}
 	
 
 	/**  Adicionar no nó, quantas vezes teve que reiniciar o processo de envio de RTS */
 	public void setRestartRts(NodeId id, int numRetry) {
-		getPathNode(id).setRestartRtsProcesses(numRetry);
+		ToolsStatisticsNode node = getPathNode(id);
+		simulation.restartRts.add(numRetry - node.getRestartRtsProcesses());
+		node.setRestartRtsProcesses(numRetry);
 	}
 	
 
 	/**  Adicionar no nó, quantas vezes estava esperando ACK */
 	public void addAckWaiting(NodeId id) {
 		getPathNode(id).incAckWaiting();
+		simulation.ackWaiting.increment();
 	}
 	
 	
 	/**  Adicionar no nó, quantas vezes estava esperando dado */
 	public void addCtsDataWaiting(NodeId id) {
 		getPathNode(id).incCtsDataWaiting();
+		simulation.ctsDataWaiting.increment();
 	}
 	
 	
 	/**  Adicionar no nó, quantas vezes estava sondando o canal, antes de enviar CTS-DATA */
 	public void addCsLongCtsDataBusy(NodeId id) {
 		getPathNode(id).incCsLongCtsDataBusy();
+		simulation.csLongCtsDataBusy.increment();
 	}
 	
 	
@@ -144,6 +155,7 @@ public class ToolsStatisticsTransmission {
 	public void setStartTime() {
 		if (this.startTime < 0) {
 			this.startTime = SimulationManager.getInstance().getCurrentTime();
+			checkComplete();
 		}
 	}
 	
@@ -152,6 +164,50 @@ public class ToolsStatisticsTransmission {
 	public void setEndTime() {
 		if (this.endTime < 0) {
 			this.endTime = SimulationManager.getInstance().getCurrentTime();
+			checkComplete();
+		}
+	}
+	
+	
+	/** Informa a simulação quando início e fim da transmissão estão definidos. Um tempo 0 não
+	 * conta, como nas estatísticas da simulação */
+	private void checkComplete() {
+		if (startTime > 0 && endTime > 0) {
+			simulation.completeTransmission(this);
+		}
+	}
+	
+	
+	/** Informa se o destino recebeu o dado */
+	public boolean isDestinationGetData() {
+		return destinationGetData;
+	}
+	
+	
+	/** Marca que o destino recebeu o dado */
+	public void setDestinationGetData() {
+		if (!destinationGetData) {
+			destinationGetData = true;
+			simulation.deliveries.increment();
+			if (simulation.deliveriesOverTime != null) {
+				double now = SimulationManager.getInstance().getCurrentTime();
+				simulation.deliveriesOverTime.add(now, 1.0);
+			}
+		}
+	}
+	
+	
+	/** Informa se terminou a transmissão */
+	public boolean isFinalizeTx() {
+		return finalizeTx;
+	}
+	
+	
+	/** Marca que terminou a transmissão */
+	public void setFinalizeTx() {
+		if (!finalizeTx) {
+			finalizeTx = true;
+			simulation.finalizeTransmission();
 		}
 	}
 
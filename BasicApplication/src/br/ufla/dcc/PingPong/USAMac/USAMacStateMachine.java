@@ -6,6 +6,7 @@ import br.ufla.dcc.PingPong.USAMac.USAMacState.USAMacStateType;
 import br.ufla.dcc.grubix.simulator.Address;
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.event.MACPacket.PacketType;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
 
 /** Classe que define os estados do XMac e suas respectivas durações
@@ -553,7 +554,7 @@ public class USAMacStateMachine  {
     		delay = xConf.getStepsSleep();
     	} else {
     		// Tempo pequeno aleatório em steps para ligar o nó sensor
-        	delay = (Math.random() * (xConf.getStepsCycle()));
+        	delay = (Configuration.getInstance().getRandomGenerator().nextDouble() * (xConf.getStepsCycle()));
     	}
     	xState.setState(USAMacStateType.SLEEP, delay);
     }
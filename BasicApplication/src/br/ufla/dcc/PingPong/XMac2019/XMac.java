@@ -28,6 +28,7 @@ import br.ufla.dcc.grubix.simulator.event.SendingTerminated;
 import br.ufla.dcc.grubix.simulator.event.StartSimulation;
 import br.ufla.dcc.grubix.simulator.event.WakeUpCall;
 import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.EventHandle;
 import br.ufla.dcc.grubix.simulator.node.Link;
 import br.ufla.dcc.grubix.simulator.node.MACLayer;
 import br.ufla.dcc.grubix.simulator.node.MACState;
@@ -88,6 +89,12 @@ public class XMac extends MACLayer {
 	/** Ativa funções de depuração */
 	private boolean debug = false;
 
+	/** Último WucTimeOut enviado, para cancelá-lo quando o estado mudar */
+	private XMacWucTimeOut lastWuc;
+
+	/** Handle do último WucTimeOut enviado */
+	private EventHandle lastWucHandle;
+
 	/**
 	 * Função padrão do Grubix para fazer a configuração do objeto
 	 * 
@@ -496,8 +503,16 @@ public class XMac extends MACLayer {
 	 * e operação do rádio.
 	 */
 	XMacWucTimeOut createtWucTimeOut() {
+		/*
+		 * Se o estado mudou, o WUC anterior não é mais válido e seria ignorado em
+		 * processWakeUpCall. Cancela-o para que nem seja entregue.
+		 */
+		if ((lastWucHandle != null) && (lastWuc.getStateNumber() != xState.getStateSeqNum())) {
+			lastWucHandle.cancel();
+		}
 		XMacWucTimeOut wuc = new XMacWucTimeOut(sender, xState.getStateDuration(), xState.getStateSeqNum());
-		sendEventSelf(wuc);
+		lastWuc = wuc;
+		lastWucHandle = sendEventSelf(wuc);
 		return wuc;
 	}
 
@@ -6,6 +6,7 @@ import br.ufla.dcc.PingPong.XMac2019.XMacState.XMacStateType;
 import br.ufla.dcc.grubix.simulator.Address;
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.event.MACPacket.PacketType;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
 
 /** Classe que define os estados do XMac e suas respectivas durações
  * 
@@ -519,7 +520,7 @@ public class XMacStateMachine  {
     	// int delay = gerador.nextInt(Integer.valueOf((int) Math.round(xConf.getStepsCycle())));
        
     	// Tempo pequeno aleatório em steps para ligar o nó sensor
-    	double delay = (Math.random() * (xConf.getStepsCycle()));
+    	double delay = (Configuration.getInstance().getRandomGenerator().nextDouble() * (xConf.getStepsCycle()));
     	xState.setState(XMacStateType.SLEEP, delay);
     }
   	
@@ -55,6 +55,9 @@ public class SingletonTestResult {
 
 	private boolean enabled;
 
+	// file of the results, not written if null
+	private File statsFile = new File(CURRENT_DIR + "DEBUG_STATS.txt");
+
 	private static volatile SingletonTestResult result = null;
 
 	private SingletonTestResult() {
@@ -156,6 +159,22 @@ public class SingletonTestResult {
 		}
 	}
 
+	public double getHopCount() {
+		return hopNumber;
+	}
+
+	public double getPreambleCount() {
+		return preambleNumber;
+	}
+
+	public double getCarrierSenseCount() {
+		return csNumber;
+	}
+
+	public void setStatsFile(File statsFile) {
+		this.statsFile = statsFile;
+	}
+
 	public void setStartingTime(double time) {
 		startSimulationTime = time;
 	}
@@ -197,11 +216,9 @@ public class SingletonTestResult {
 	}
 
 	private void writeResultsToFile() {
-		if (startSimulationTime != endSimulationTime) {
-			String filename = "DEBUG_STATS.txt";
-			File file = new File(CURRENT_DIR + filename);
+		if ((startSimulationTime != endSimulationTime) && (statsFile != null)) {
 			try {
-				BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+				BufferedWriter writer = new BufferedWriter(new FileWriter(statsFile));
 				writer.write("####### STATS #######\n");
 				writer.write("Sim time:\t" + (endSimulationTime - startSimulationTime) + "\n");
 				writer.write("Hops:\t" + hopNumber + "\n");
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Random;
 
 import br.ufla.dcc.grubix.simulator.Position;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
 
 @SuppressWarnings("unused")
 public class TestScenarios {
@@ -18,6 +19,8 @@ public class TestScenarios {
 	private int upperCounter = 0;
 	private int lowerCounter = 0;
 	private boolean upperTime = false;
+	// seeded with the seed of the simulation, so runs with the same seed choose the same targets
+	private Random rnd = null;
 	
 	private TestScenarios() {
 		double SQUARE_SIDE = 300d;
@@ -57,7 +60,9 @@ public class TestScenarios {
 	}
 	
 	private int getRandom(boolean upper) {
-		Random rnd = new Random();
+		if (rnd == null) {
+			rnd = new Random(Configuration.getInstance().getRandomGenerator().getSeed());
+		}
 		int idx, repCount = -1;
 		List<Integer> list = (upper) ? (scene1upper) : (scene1lower);
 		do {
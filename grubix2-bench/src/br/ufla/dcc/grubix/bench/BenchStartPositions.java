@@ -0,0 +1,54 @@
+package br.ufla.dcc.grubix.bench;
+
+import br.ufla.dcc.PingPong.testing.TestScenarios;
+import br.ufla.dcc.grubix.simulator.Position;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.movement.StartPositionGenerator;
+import br.ufla.dcc.grubix.simulator.node.Node;
+import br.ufla.dcc.grubix.simulator.random.InheritRandomGenerator;
+import br.ufla.dcc.grubix.simulator.random.RandomGenerator;
+import br.ufla.dcc.grubix.xml.ConfigurationException;
+import br.ufla.dcc.grubix.xml.ShoXParameter;
+
+/**
+ * Random start positions within the deployment area, which are also registered as targets of
+ * the ping pong application, as the positions read from a file are.
+ *
+ * {@link TestScenarios} expects a field of 300 x 300, the positions are therefore scaled to it
+ * when registered, so the targets stay at the upper and lower border of larger fields.
+ */
+public class BenchStartPositions extends StartPositionGenerator {
+
+	/** the side of the field expected by {@link TestScenarios}. */
+	private static final double SCENARIO_SIDE = 300.0;
+
+	/** xSize (from the Configuration). */
+	private double xSize;
+
+	/** ySize (from the Configuration). */
+	private double ySize;
+
+	/** random generator, by default the global one. */
+	@ShoXParameter(description = "random generator", defaultClass = InheritRandomGenerator.class)
+	private RandomGenerator random;
+
+	/** {@inheritDoc} */
+	public void initConfiguration(Configuration config) throws ConfigurationException {
+		super.initConfiguration(config);
+		xSize = config.getXSize();
+		ySize = config.getYSize();
+	}
+
+	/**
+	 * @param node the node for which the new position should be generated.
+	 * @return a new random position.
+	 */
+	@Override
+	public Position newPosition(Node node) {
+		double x = Math.floor(random.nextDouble() * xSize * 100) / 100;
+		double y = Math.floor(random.nextDouble() * ySize * 100) / 100;
+		TestScenarios.getInstance().evaluateTarget(node.getId().asInt(),
+				new Position(x * SCENARIO_SIDE / xSize, y * SCENARIO_SIDE / ySize));
+		return new Position(x, y);
+	}
+}
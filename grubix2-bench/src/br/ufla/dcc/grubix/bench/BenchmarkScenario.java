@@ -0,0 +1,290 @@
+package br.ufla.dcc.grubix.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.NodeGenerator;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
+import br.ufla.dcc.grubix.simulator.kernel.Simulator;
+import br.ufla.dcc.grubix.simulator.node.Node;
+import br.ufla.dcc.grubix.simulator.random.JavaRandomGenerator;
+import br.ufla.dcc.grubix.xml.ConfigurationException;
+import br.ufla.dcc.grubix.xml.ConfigurationReader;
+
+/**
+ * A simulation configuration prepared for benchmarks.
+ *
+ * The configuration is read from an XML file and adapted before it is used: history logging is
+ * switched off, the number of nodes, the seed, the event limit and the checksum over the
+ * delivered events can be changed and all files written by the simulator are redirected into
+ * a temporary directory. Changing the number of nodes scales the field, so the density of the
+ * nodes and thus the number of neighbors stays the same.
+ *
+ * A scenario can either be run completely, like {@link Simulator#run} does, or be started only:
+ * then the nodes are created and initialized, but no traffic is simulated, and the nodes and
+ * the kernel can be used by the micro benchmarks.
+ *
+ * The working directory has to be the one of BasicApplication, as the protocols read their
+ * files from there.
+ */
+public final class BenchmarkScenario {
+
+	/** the default scenario, relative to the BasicApplication directory. */
+	public static final String DEFAULT_CONFIG = "../grubix2-bench/scenarios/bench.xml";
+
+	/** the adapted configuration. */
+	private final Document document;
+
+	/** the directory for the adapted configuration and all files written by the simulation. */
+	private final File directory;
+
+	/** the context of the started simulation, null if not started. */
+	private SimulationContext context;
+
+	/** the nodes of the started simulation. */
+	private SortedMap<NodeId, Node> nodes;
+
+	/**
+	 * reads a configuration.
+	 *
+	 * @param configFile the XML configuration file.
+	 * @throws IOException if the file can not be read.
+	 */
+	public BenchmarkScenario(String configFile) throws IOException {
+		try {
+			document = new SAXBuilder().build(configFile);
+		} catch (JDOMException e) {
+			IOException ioe = new IOException("could not parse " + configFile);
+			ioe.initCause(e);
+			throw ioe;
+		}
+		directory = File.createTempFile("grubix-bench", "");
+		if (!directory.delete() || !directory.mkdir()) {
+			throw new IOException("could not create " + directory);
+		}
+		Element root = document.getRootElement();
+
+		Element logging = root.getChild("logging");
+		if (logging == null) {
+			logging = new Element("logging");
+			root.addContent(logging);
+		}
+		setChild(logging, ConfigurationReader.ISLOGGING, "false");
+
+		Element positions = root.getChild("positions");
+		if ((positions != null) && (positions.getChild("generated") != null)) {
+			Element target = positions.getChild("generated").getChild("targetfile");
+			if ((target != null) && (target.getTextTrim().length() > 0)) {
+				target.setText(new File(directory, new File(target.getTextTrim()).getName()).getPath());
+			}
+		}
+	}
+
+	/**
+	 * sets the text of a child element, which is added if missing.
+	 *
+	 * @param parent the parent element.
+	 * @param name   the name of the child.
+	 * @param value  the new text.
+	 */
+	private static void setChild(Element parent, String name, String value) {
+		Element child = parent.getChild(name);
+
+		if (child == null) {
+			child = new Element(name);
+			parent.addContent(child);
+		}
+		child.setText(value);
+	}
+
+	/**
+	 * sets the number of nodes. For a single node type the field is scaled with the
+	 * square root of the ratio of the node counts, to keep the density of the nodes.
+	 *
+	 * @param count the total number of nodes.
+	 */
+	public void setNodeCount(int count) {
+		List<?> types = document.getRootElement().getChild("nodes").getChildren("node");
+		if (types.size() != 1) {
+			throw new IllegalArgumentException("the node count can be set for one node type only");
+		}
+		Element type = (Element) types.get(0);
+		double scale = Math.sqrt((double) count / Integer.parseInt(type.getAttributeValue("count")));
+		type.setAttribute("count", Integer.toString(count));
+
+		Element dimension = document.getRootElement().getChild("field").getChild("dimension");
+		for (String axis : new String[] {"x", "y"}) {
+			double size = Double.parseDouble(dimension.getAttributeValue(axis));
+			dimension.setAttribute(axis, Long.toString(Math.round(size * scale)));
+		}
+	}
+
+	/**
+	 * sets the seed of the random generator. A Java random generator is added if the
+	 * configuration has none, as the default one would use a random seed.
+	 *
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed) {
+		Element root = document.getRootElement();
+		Element generator = root.getChild(ConfigurationReader.RANDOM_GENERATOR);
+		if (generator == null) {
+			generator = new Element(ConfigurationReader.RANDOM_GENERATOR);
+			generator.addContent(new Element("class").setText(JavaRandomGenerator.class.getName()));
+			root.addContent(generator);
+		}
+		List<Element> found = new ArrayList<Element>();
+		for (Iterator<?> it = generator.getDescendants(); it.hasNext();) {
+			Object o = it.next();
+
+			if ((o instanceof Element) && ((Element) o).getName().equals("param")
+					&& "seed".equals(((Element) o).getAttributeValue("name"))) {
+				found.add((Element) o);
+			}
+		}
+		if (found.isEmpty()) {
+			Element params = generator.getChild("params");
+			if (params == null) {
+				params = new Element("params");
+				generator.addContent(params);
+			}
+			Element param = new Element("param").setAttribute("name", "seed");
+			params.addContent(param);
+			found.add(param);
+		}
+		for (Element param : found) {
+			param.setText(Long.toString(seed));
+		}
+	}
+
+	/**
+	 * switches the checksum over the delivered events on or off, its value is part of the
+	 * summary of a run.
+	 *
+	 * @param enabled whether to compute the checksum.
+	 */
+	public void setTraceChecksum(boolean enabled) {
+		setChild(document.getRootElement().getChild("logging"), ConfigurationReader.TRACECHECKSUM,
+				Boolean.toString(enabled));
+	}
+
+	/**
+	 * sets the number of events after which the simulation ends.
+	 *
+	 * @param maxEvents the maximum number of events, 0 for no limit.
+	 */
+	public void setMaxEvents(long maxEvents) {
+		getSimulationTime().setAttribute("maxevents", Long.toString(maxEvents));
+	}
+
+	/**
+	 * sets the simulation time.
+	 *
+	 * @param steps the simulation time in steps.
+	 */
+	public void setSimulationSteps(long steps) {
+		Element time = getSimulationTime();
+		time.setAttribute("base", "steps");
+		time.setText(Long.toString(steps));
+	}
+
+	/** @return the simulation time element of the configuration. */
+	private Element getSimulationTime() {
+		return document.getRootElement().getChild("simulationtime");
+	}
+
+	/**
+	 * writes the adapted configuration.
+	 *
+	 * @return the name of the written file.
+	 * @throws IOException if the file can not be written.
+	 */
+	private String writeConfig() throws IOException {
+		File file = new File(directory, "scenario.xml");
+		OutputStream out = new FileOutputStream(file);
+		try {
+			new XMLOutputter(Format.getPrettyFormat().setEncoding("ISO-8859-1")).output(document, out);
+		} finally {
+			out.close();
+		}
+		return file.getPath();
+	}
+
+	/**
+	 * runs the scenario completely.
+	 *
+	 * @param protocol the MAC protocol name as expected by the Simulator.
+	 * @return the summary of the run, see {@link Simulator#run}.
+	 * @throws IOException if the configuration can not be written.
+	 * @throws ConfigurationException if the configuration is invalid.
+	 */
+	public Map<String, String> run(String protocol) throws IOException, ConfigurationException {
+		return Simulator.run(writeConfig(), false, false, protocol);
+	}
+
+	/**
+	 * starts the scenario: creates the nodes and delivers the events of the first simulation
+	 * step, which initialize them. The context of the simulation is bound to the calling thread.
+	 *
+	 * @return the simulation manager.
+	 * @throws IOException if the configuration can not be written.
+	 * @throws ConfigurationException if the configuration is invalid.
+	 */
+	public SimulationManager start() throws IOException, ConfigurationException {
+		setSimulationSteps(1);
+		String file = writeConfig();
+
+		context = new SimulationContext();
+		context.bind();
+		Configuration configuration = Configuration.readConfig(file);
+
+		nodes = new TreeMap<NodeId, Node>();
+		SimulationManager manager = new SimulationManager(context, null, nodes);
+		NodeGenerator.generateNodes(configuration, nodes);
+		manager.runSimulation();
+		return manager;
+	}
+
+	/** @return the context of the started simulation. */
+	public SimulationContext getContext() {
+		return context;
+	}
+
+	/** @return the nodes of the started simulation, ordered by id. */
+	public List<Node> getNodes() {
+		return new ArrayList<Node>(nodes.values());
+	}
+
+	/** removes the binding of the started simulation and the temporary files. */
+	public void close() {
+		if (context != null) {
+			SimulationContext.unbind();
+			context = null;
+		}
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+}
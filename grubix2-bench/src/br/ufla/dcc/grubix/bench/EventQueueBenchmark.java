@@ -0,0 +1,143 @@
+package br.ufla.dcc.grubix.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import br.ufla.dcc.grubix.simulator.event.Event;
+import br.ufla.dcc.grubix.simulator.kernel.EventEnvelope;
+import br.ufla.dcc.grubix.simulator.kernel.EventQueue;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
+import br.ufla.dcc.grubix.xml.DefaultConfigurableFactory;
+
+/**
+ * Measures the event queue implementations with the classic hold model: the queue is filled
+ * with the given number of envelopes, then every operation removes the first envelope and
+ * inserts a new one a random (exponentially distributed) time later. The size of the queue
+ * stays the same, as it does in a running simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventQueueBenchmark {
+
+	/** number of precomputed time increments, a power of two. */
+	private static final int INCREMENTS = 1 << 16;
+
+	/** the queue implementation. */
+	@Param({"HeapEventQueue", "CalendarEventQueue"})
+	public String queueClass;
+
+	/** the number of envelopes in the queue. */
+	@Param({"1000", "10000", "100000"})
+	public int size;
+
+	/** the queue. */
+	private EventQueue queue;
+
+	/** the time increments of the inserted envelopes. */
+	private final double[] increments = new double[INCREMENTS];
+
+	/** the event of all envelopes, the queue does not look at it. */
+	private Event event;
+
+	/** the number of inserted envelopes, their enqueue counter. */
+	private long counter;
+
+	/** an event that is never delivered. */
+	private static final class NullEvent extends Event {
+		/** {@inheritDoc} */
+		public double getDelay() {
+			return 0.0;
+		}
+
+		/** {@inheritDoc} */
+		public String toString() {
+			return "NullEvent";
+		}
+	}
+
+	/** an envelope that is never delivered. */
+	private static final class NullEnvelope extends EventEnvelope {
+		/**
+		 * @param event the event.
+		 * @param time  the time of the envelope.
+		 */
+		private NullEnvelope(Event event, double time) {
+			super(event, time);
+		}
+
+		/** {@inheritDoc} */
+		protected void deliver() {
+			throw new UnsupportedOperationException();
+		}
+
+		/** {@inheritDoc} */
+		public String toString() {
+			return "NullEnvelope " + getTime();
+		}
+	}
+
+	/**
+	 * creates and fills the queue.
+	 *
+	 * @throws Exception if the queue can not be created.
+	 */
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		SimulationContext context = new SimulationContext();
+		context.bind();
+		event = new NullEvent();
+
+		Class<? extends EventQueue> type = (Class<? extends EventQueue>)
+				Class.forName("br.ufla.dcc.grubix.simulator.kernel." + queueClass);
+		queue = new DefaultConfigurableFactory<EventQueue>(type).newInstance();
+
+		Random random = new Random(1);
+		for (int i = 0; i < INCREMENTS; i++) {
+			increments[i] = -Math.log(1.0 - random.nextDouble()) * size;
+		}
+		for (int i = 0; i < size; i++) {
+			add(increments[i & (INCREMENTS - 1)]);
+		}
+	}
+
+	/** removes the binding of the context. */
+	@TearDown
+	public void tearDown() {
+		SimulationContext.unbind();
+	}
+
+	/**
+	 * inserts a new envelope.
+	 *
+	 * @param time the time of the envelope.
+	 */
+	private void add(double time) {
+		EventEnvelope e = new NullEnvelope(event, time);
+		e.setEnqueueCounter(counter++);
+		queue.add(e);
+	}
+
+	/**
+	 * removes the first envelope and inserts a later one.
+	 *
+	 * @return the removed envelope.
+	 */
+	@Benchmark
+	public EventEnvelope hold() {
+		EventEnvelope first = queue.poll();
+		add(first.getTime() + increments[(int) counter & (INCREMENTS - 1)]);
+		return first;
+	}
+}
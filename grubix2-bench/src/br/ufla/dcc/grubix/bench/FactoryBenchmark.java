@@ -0,0 +1,69 @@
+package br.ufla.dcc.grubix.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import br.ufla.dcc.grubix.xml.Configurable;
+import br.ufla.dcc.grubix.xml.DefaultConfigurableFactory;
+
+/**
+ * Measures the creation of configured objects by reflection, which the node generator does for
+ * every layer of every node. The objects are created within a started scenario, as their
+ * initialization may read the configuration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FactoryBenchmark {
+
+	/** the class to create. */
+	@Param({"br.ufla.dcc.grubix.simulator.physical.UnitDisc",
+		"br.ufla.dcc.grubix.simulator.kernel.CalendarEventQueue",
+		"br.ufla.dcc.PingPong.XMac2019.XMac"})
+	public String instanceClass;
+
+	/** the started scenario. */
+	private BenchmarkScenario scenario;
+
+	/** the factory. */
+	private DefaultConfigurableFactory<Configurable> factory;
+
+	/**
+	 * starts a small scenario and creates the factory.
+	 *
+	 * @throws Exception if the scenario can not be started or the class not be found.
+	 */
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		scenario = new BenchmarkScenario(BenchmarkScenario.DEFAULT_CONFIG);
+		scenario.setNodeCount(100);
+		scenario.start();
+		factory = new DefaultConfigurableFactory<Configurable>(
+				(Class<? extends Configurable>) Class.forName(instanceClass));
+	}
+
+	/** ends the scenario. */
+	@TearDown
+	public void tearDown() {
+		scenario.close();
+	}
+
+	/**
+	 * @return a new instance.
+	 * @throws Exception if the instance can not be configured.
+	 */
+	@Benchmark
+	public Configurable newInstance() throws Exception {
+		return factory.newInstance();
+	}
+}
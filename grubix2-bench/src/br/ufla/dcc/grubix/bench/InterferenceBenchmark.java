@@ -0,0 +1,129 @@
+package br.ufla.dcc.grubix.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import br.ufla.dcc.grubix.simulator.event.Interference;
+import br.ufla.dcc.grubix.simulator.event.PhysicalPacket;
+import br.ufla.dcc.grubix.simulator.event.Transmission;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.node.Node;
+import br.ufla.dcc.grubix.simulator.physical.InterferenceQueue;
+import br.ufla.dcc.grubix.simulator.physical.NoiseVector;
+import br.ufla.dcc.grubix.simulator.physical.PhysicalModel;
+
+/**
+ * Measures the interference bookkeeping of a receiver.
+ *
+ * {@link #addAndCollect()} adds the interfering signals to the queue of a receiver one after
+ * another, every signal lasts one step and the next one starts 1/overlap steps later. After
+ * every signal the queue is cleaned up, as the air module does at the end of an incoming
+ * transmission, so about <code>overlap</code> signals are in the queue.
+ *
+ * {@link #noiseVector()} flattens <code>overlap</code> signals of random start, length and
+ * strength within one step into a noise vector, as the added noise mangler does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterferenceBenchmark {
+
+	/** the number of reused interfering signals, a power of two larger than the overlap. */
+	private static final int SIGNALS = 1 << 12;
+
+	/** the number of concurrent interfering signals. */
+	@Param({"4", "32", "256"})
+	public int overlap;
+
+	/** the started scenario. */
+	private BenchmarkScenario scenario;
+
+	/** the queue of a receiver, with the bit mangling model of the scenario. */
+	private InterferenceQueue queue;
+
+	/** the interfering signals, reused with a later start time when the queue has dropped them. */
+	private Interference[] signals;
+
+	/** the start time of the next signal. */
+	private double time;
+
+	/** the index of the next signal. */
+	private int next;
+
+	/** signals of random start, length and strength within the first step. */
+	private InterferenceQueue noise;
+
+	/** the noise vector, evaluated again in every call. */
+	private final NoiseVector vector = new NoiseVector();
+
+	/**
+	 * starts a small scenario and creates the signals.
+	 *
+	 * @throws Exception if the scenario can not be started.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		scenario = new BenchmarkScenario(BenchmarkScenario.DEFAULT_CONFIG);
+		scenario.setNodeCount(100);
+		scenario.start();
+		Configuration configuration = Configuration.getInstance();
+		PhysicalModel physicalModel = configuration.getPhysicalModel();
+
+		List<Node> nodes = scenario.getNodes();
+		Node receiver = nodes.get(0);
+		signals = new Interference[SIGNALS];
+		for (int i = 0; i < SIGNALS; i++) {
+			Node sender = nodes.get(1 + i % (nodes.size() - 1));
+			Transmission trans = new Transmission(TransmissionBenchmark.createPacket(sender, 0.0), 1.0);
+			signals[i] = new Interference(trans, physicalModel.apply(receiver, sender, 1.0));
+		}
+		queue = new InterferenceQueue(configuration.getBitManglingModel());
+
+		Random random = new Random(1);
+		noise = new InterferenceQueue(null);
+		for (int i = 0; i < overlap; i++) {
+			Node sender = nodes.get(1 + i % (nodes.size() - 1));
+			PhysicalPacket packet = TransmissionBenchmark.createPacket(sender, random.nextDouble());
+			packet.setBPS(packet.getTotalPacketSizeInBit() / (0.1 + 0.9 * random.nextDouble()));
+			Transmission trans = new Transmission(packet, random.nextDouble());
+			noise.addInterferingSignal(new Interference(trans, physicalModel.apply(receiver, sender,
+					trans.getSignalStrength())), null);
+		}
+	}
+
+	/** ends the scenario. */
+	@TearDown
+	public void tearDown() {
+		scenario.close();
+	}
+
+	/** adds the next signal and removes the finished ones. */
+	@Benchmark
+	public void addAndCollect() {
+		Interference signal = signals[next];
+		next = (next + 1) & (SIGNALS - 1);
+
+		signal.getPacket().setTime(time);
+		queue.addInterferingSignal(signal, null);
+		queue.garbageCollect(time);
+		time += 1.0 / overlap;
+	}
+
+	/** @return the noise vector of the signals within the first step. */
+	@Benchmark
+	public NoiseVector noiseVector() {
+		vector.evaluate(0.0, 1.0, noise, 0.0);
+		return vector;
+	}
+}
@@ -0,0 +1,359 @@
+package br.ufla.dcc.grubix.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import br.ufla.dcc.PingPong.testing.SingletonTestResult;
+
+/**
+ * Runs the protocol scenarios of BasicApplication with fixed seeds and compares the results
+ * with stored baselines.
+ *
+ * Every scenario runs in its own JVM, as the protocols keep state in singletons, and its
+ * results are written to a properties file:
+ * <ul>
+ * <li>the behaviour: delivered events, simulated time, the checksum over the delivered events
+ * and the statistics of the ping pong tests (hops, preambles, carrier senses, backbone nodes
+ * and the accumulated ping pong time). They have to be equal to the baseline. Only the
+ * statistics which the protocols of a scenario feed are kept, see {@link #SCENARIOS}; for
+ * a scenario without any, only the events, the time and the checksum are compared.</li>
+ * <li>the performance: delivered events per second of wall clock time and the peak heap usage.
+ * They may differ from the baseline by the tolerance, in the bad direction only.</li>
+ * </ul>
+ *
+ * Usage, from the BasicApplication directory:
+ * <pre>
+ * RegressionHarness [-update] [-baselines dir] [-tolerance fraction] [scenario ...]
+ * </pre>
+ * Without scenarios all known ones are run. <code>-update</code> writes the results as new
+ * baselines instead of comparing them. The exit code is 1 if a scenario failed or differs.
+ *
+ * The performance baselines depend on the machine, they should be updated on the machine
+ * which runs the comparisons, before the change which is to be checked.
+ */
+public final class RegressionHarness {
+
+	/**
+	 * the known scenarios: configuration file, MAC protocol name and the ping pong statistics
+	 * the scenario feeds, separated by spaces. Hops, preambles, carrier senses and backbone
+	 * nodes are counted by the backbone protocols only, the ping pong time by the protocol
+	 * comparison application if a ping pong completes. The others would stay 0.
+	 */
+	private static final String[][] SCENARIOS = {
+		{"TESTE_XMAC.xml", "XMAC", "pingPongTime"},
+		{"TESTE_MXMAC.xml", "MXMAC", ""},
+		{"TESTE_USAMAC.xml", "USAMAC", ""},
+		{"TESTE_EXMAC.xml", "EXMAC", "pingPongTime"},
+		{"application_backbone1.xml", "XMAC", "hops preambles carrierSenses backboneNodes"},
+		{"application_backbone2.xml", "XMAC", "hops preambles carrierSenses backboneNodes"},
+	};
+
+	/** the seed of all scenarios. */
+	private static final long SEED = 4711;
+
+	/** the ping pong statistics, kept for the scenarios which feed them. */
+	private static final String[] STATISTICS = {"hops", "preambles", "carrierSenses", "backboneNodes",
+		"pingPongTime"};
+
+	/** the results which have to be equal to the baseline. */
+	private static final String[] BEHAVIOUR = {"nodes", "events", "simulatedTime", "traceChecksum",
+		"hops", "preambles", "carrierSenses", "backboneNodes", "pingPongTime"};
+
+	/** the result which may be lower than the baseline by the tolerance. */
+	private static final String EVENTS_PER_SECOND = "eventsPerSecond";
+
+	/** the result which may be higher than the baseline by the tolerance. */
+	private static final String PEAK_HEAP = "peakHeap";
+
+	/** the module option the simulator needs on Java 9 and later. */
+	private static final String OPEN_JAVA_LANG = "java.base/java.lang=ALL-UNNAMED";
+
+	/** the directory of the baselines. */
+	private File baselines = new File("../grubix2-bench/baselines");
+
+	/** the allowed relative deviation of the performance. */
+	private double tolerance = 0.25;
+
+	/** whether to write new baselines. */
+	private boolean update;
+
+	/** utility class. */
+	private RegressionHarness() {
+	}
+
+	/**
+	 * runs the harness, or with <code>-run config protocol resultFile</code> a single scenario.
+	 *
+	 * @param args the command line arguments, see the class description.
+	 * @throws Exception if a scenario can not be run.
+	 */
+	public static void main(String[] args) throws Exception {
+		if ((args.length == 4) && args[0].equals("-run")) {
+			runScenario(args[1], args[2], new File(args[3]));
+			return;
+		}
+		RegressionHarness harness = new RegressionHarness();
+		List<String> configs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-update")) {
+				harness.update = true;
+			} else if (args[i].equals("-baselines") && (i + 1 < args.length)) {
+				harness.baselines = new File(args[++i]);
+			} else if (args[i].equals("-tolerance") && (i + 1 < args.length)) {
+				harness.tolerance = Double.parseDouble(args[++i]);
+			} else if (args[i].startsWith("-")) {
+				System.err.println("usage: RegressionHarness [-update] [-baselines dir] "
+						+ "[-tolerance fraction] [scenario ...]");
+				System.exit(2);
+			} else {
+				configs.add(args[i]);
+			}
+		}
+		boolean failed = false;
+		List<String> unknown = new ArrayList<String>(configs);
+		for (String[] scenario : SCENARIOS) {
+			if (configs.isEmpty() || unknown.remove(scenario[0])) {
+				failed |= !harness.check(scenario[0], scenario[1], scenario[2]);
+			}
+		}
+		for (String config : unknown) {
+			System.out.println(config + ": unknown scenario");
+			failed = true;
+		}
+		System.exit(failed ? 1 : 0);
+	}
+
+	/**
+	 * runs a scenario in a new JVM and compares its results with the baseline, or stores them
+	 * as new baseline.
+	 *
+	 * @param config     the configuration file.
+	 * @param protocol   the MAC protocol name.
+	 * @param statistics the ping pong statistics the scenario feeds, separated by spaces.
+	 * @return true if the results match the baseline.
+	 * @throws IOException if the JVM can not be started or the files not be accessed.
+	 * @throws InterruptedException if interrupted while waiting for the JVM.
+	 */
+	private boolean check(String config, String protocol, String statistics)
+			throws IOException, InterruptedException {
+		String name = new File(config).getName().replaceFirst("\\.xml$", "");
+		File result = File.createTempFile("grubix-" + name, ".properties");
+		File log = File.createTempFile("grubix-" + name, ".log");
+
+		List<String> command = new ArrayList<String>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+		List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+		command.addAll(arguments);
+		if (!System.getProperty("java.specification.version").startsWith("1.")
+				&& !arguments.contains(OPEN_JAVA_LANG)) {
+			// the packet size calculator reads the fields of enums by reflection
+			command.add("--add-opens");
+			command.add(OPEN_JAVA_LANG);
+		}
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(RegressionHarness.class.getName());
+		command.add("-run");
+		command.add(config);
+		command.add(protocol);
+		command.add(result.getPath());
+
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(log);
+		int exit = builder.start().waitFor();
+
+		SortedMap<String, String> actual = read(result);
+		result.delete();
+		if ((exit != 0) || !actual.containsKey(EVENTS_PER_SECOND)) {
+			System.out.println(name + ": FAILED (exit code " + exit + "), see " + log);
+			return false;
+		}
+		log.delete();
+		List<String> fed = Arrays.asList(statistics.split(" "));
+		for (String key : STATISTICS) {
+			if (!fed.contains(key)) {
+				actual.remove(key);
+			}
+		}
+
+		File file = new File(baselines, name + ".properties");
+		if (update) {
+			write(file, actual);
+			System.out.println(name + ": baseline written " + actual);
+			return true;
+		}
+		if (!file.exists()) {
+			System.out.println(name + ": no baseline " + file);
+			return false;
+		}
+		return compare(name, read(file), actual);
+	}
+
+	/**
+	 * compares the results of a scenario with its baseline and prints the differences.
+	 *
+	 * @param name     the name of the scenario.
+	 * @param expected the baseline.
+	 * @param actual   the results.
+	 * @return true if the results match the baseline.
+	 */
+	private boolean compare(String name, Map<String, String> expected, Map<String, String> actual) {
+		List<String> differences = new ArrayList<String>();
+		for (String key : BEHAVIOUR) {
+			String value = actual.get(key);
+			if ((value == null) ? (expected.get(key) != null) : !value.equals(expected.get(key))) {
+				differences.add(key + " " + expected.get(key) + " -> " + value);
+			}
+		}
+		double speed = ratio(actual, expected, EVENTS_PER_SECOND);
+		if (speed < 1.0 - tolerance) {
+			differences.add(String.format("%s %.0f%% of the baseline", EVENTS_PER_SECOND, 100 * speed));
+		}
+		double heap = ratio(actual, expected, PEAK_HEAP);
+		if (heap > 1.0 + tolerance) {
+			differences.add(String.format("%s %.0f%% of the baseline", PEAK_HEAP, 100 * heap));
+		}
+		System.out.println(String.format("%s: %s, %s %s (%.0f%%), %s %s (%.0f%%)", name,
+				differences.isEmpty() ? "ok" : "DIFFERS", EVENTS_PER_SECOND, actual.get(EVENTS_PER_SECOND),
+				100 * speed, PEAK_HEAP, actual.get(PEAK_HEAP), 100 * heap));
+		for (String difference : differences) {
+			System.out.println("    " + difference);
+		}
+		return differences.isEmpty();
+	}
+
+	/**
+	 * @param actual   the results.
+	 * @param expected the baseline.
+	 * @param key      the key of a numeric result.
+	 * @return the ratio of the result and the baseline, 1.0 if the baseline has no such value.
+	 */
+	private static double ratio(Map<String, String> actual, Map<String, String> expected, String key) {
+		if (expected.get(key) == null) {
+			return 1.0;
+		}
+		return Double.parseDouble(actual.get(key)) / Double.parseDouble(expected.get(key));
+	}
+
+	/**
+	 * runs a single scenario in this JVM and writes its results.
+	 *
+	 * @param config   the configuration file.
+	 * @param protocol the MAC protocol name.
+	 * @param file     the file for the results.
+	 * @throws Exception if the scenario can not be run.
+	 */
+	private static void runScenario(String config, String protocol, File file) throws Exception {
+		// warnings only, the debug output of log4j.properties would be measured as well
+		BasicConfigurator.configure();
+		Logger.getRootLogger().setLevel(Level.WARN);
+		// the results are read below, the DEBUG_STATS.txt of manual runs is kept
+		SingletonTestResult.getInstance().setStatsFile(null);
+		BenchmarkScenario scenario = new BenchmarkScenario(config);
+		scenario.setSeed(SEED);
+		scenario.setTraceChecksum(true);
+
+		List<MemoryPoolMXBean> heap = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				heap.add(pool);
+			}
+		}
+		long start = System.nanoTime();
+		Map<String, String> summary;
+		try {
+			summary = scenario.run(protocol);
+		} finally {
+			scenario.close();
+		}
+		long nanos = System.nanoTime() - start;
+		if (summary == null) {
+			throw new IllegalStateException("the simulation did not run");
+		}
+
+		long peak = 0;
+		for (MemoryPoolMXBean pool : heap) {
+			peak += pool.getPeakUsage().getUsed();
+		}
+		SingletonTestResult stats = SingletonTestResult.getInstance();
+		SortedMap<String, String> results = new TreeMap<String, String>(summary);
+		results.put("hops", Double.toString(stats.getHopCount()));
+		results.put("preambles", Double.toString(stats.getPreambleCount()));
+		results.put("carrierSenses", Double.toString(stats.getCarrierSenseCount()));
+		results.put("backboneNodes", Integer.toString(stats.getBackboneCount()));
+		results.put("pingPongTime", Double.toString(stats.getAccumulatedTime()));
+		results.put(EVENTS_PER_SECOND, Long.toString(Math.round(
+				Long.parseLong(summary.get("events")) * 1e9 / nanos)));
+		results.put(PEAK_HEAP, Long.toString(peak));
+		write(file, results);
+	}
+
+	/**
+	 * reads results, one <code>key=value</code> per line.
+	 *
+	 * @param file the file.
+	 * @return the results, empty if the file does not exist or is empty.
+	 * @throws IOException if the file can not be read.
+	 */
+	private static SortedMap<String, String> read(File file) throws IOException {
+		SortedMap<String, String> results = new TreeMap<String, String>();
+		if (!file.exists()) {
+			return results;
+		}
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				int separator = line.indexOf('=');
+				if ((separator > 0) && !line.startsWith("#")) {
+					results.put(line.substring(0, separator), line.substring(separator + 1));
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return results;
+	}
+
+	/**
+	 * writes results, one <code>key=value</code> per line and sorted by key, so the baselines
+	 * can be compared with a diff.
+	 *
+	 * @param file    the file.
+	 * @param results the results.
+	 * @throws IOException if the file can not be written.
+	 */
+	private static void write(File file, SortedMap<String, String> results) throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			for (Map.Entry<String, String> entry : results.entrySet()) {
+				out.print(entry.getKey() + "=" + entry.getValue() + "\n");
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package br.ufla.dcc.grubix.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs whole scenarios, from reading the configuration to the end of the simulation, for a
+ * fixed number of events. Every measurement is one run.
+ *
+ * The ping pong application chooses its targets with an unseeded random generator, so the runs
+ * differ slightly even with a fixed seed; the number of delivered events is the same for all.
+ * The targets are kept in a singleton, so every configuration needs its own JVM, which JMH
+ * does by forking for every parameter combination.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ScenarioBenchmark {
+
+	/** the configuration, relative to the BasicApplication directory. */
+	@Param({BenchmarkScenario.DEFAULT_CONFIG, "TESTE_XMAC.xml"})
+	public String config;
+
+	/** the MAC protocol name as expected by the Simulator. */
+	@Param({"XMAC"})
+	public String protocol;
+
+	/** the number of events after which a run ends. */
+	@Param({"200000"})
+	public long events;
+
+	/** the scenario of the next run. */
+	private BenchmarkScenario scenario;
+
+	/**
+	 * prepares the next run.
+	 *
+	 * @throws Exception if the configuration can not be read.
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		scenario = new BenchmarkScenario(config);
+		scenario.setMaxEvents(events);
+	}
+
+	/** removes the files of the run. */
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		scenario.close();
+	}
+
+	/**
+	 * @return the summary of the run.
+	 * @throws Exception if the configuration is invalid.
+	 */
+	@Benchmark
+	public Map<String, String> run() throws Exception {
+		return scenario.run(protocol);
+	}
+}
@@ -0,0 +1,144 @@
+package br.ufla.dcc.grubix.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufla.dcc.grubix.simulator.Address;
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.event.PhysicalPacket;
+import br.ufla.dcc.grubix.simulator.event.Transmission;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
+import br.ufla.dcc.grubix.simulator.node.Node;
+import br.ufla.dcc.grubix.simulator.physical.PhysicalModel;
+import br.ufla.dcc.grubix.simulator.physical.Reachability;
+
+/**
+ * Measures the distribution of a transmission to the receivers and its parts: the physical
+ * model applied to a sender and a receiver and the copy of the transmitted packet.
+ *
+ * Every node of the started scenario sends a broadcast in turn. The field grows with the number
+ * of nodes, so a transmission reaches about the same number of receivers in all sizes, and the
+ * costs should not grow with the number of nodes.
+ *
+ * The receivers schedule events and keep interferences for the transmissions, which are never
+ * delivered since the simulation does not advance. The scenario is started again for every
+ * iteration, so this state grows during one iteration only and all iterations measure the same.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransmissionBenchmark {
+
+	/** the size of the enclosed frame in bits. */
+	static final int FRAME_SIZE = 1024;
+
+	/** the number of nodes. */
+	@Param({"100", "1000", "10000"})
+	public int nodes;
+
+	/** the started scenario. */
+	private BenchmarkScenario scenario;
+
+	/** the kernel of the scenario. */
+	private SimulationManager manager;
+
+	/** the physical model of the scenario. */
+	private PhysicalModel physicalModel;
+
+	/** the nodes of the scenario. */
+	private Node[] all;
+
+	/** a broadcast of every node, sent with the default signal strength of 1.0. */
+	private Transmission[] transmissions;
+
+	/** the index of the next sender. */
+	private int next;
+
+	/**
+	 * starts the scenario and prepares a transmission for every node.
+	 *
+	 * @throws Exception if the scenario can not be started.
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		scenario = new BenchmarkScenario(BenchmarkScenario.DEFAULT_CONFIG);
+		scenario.setNodeCount(nodes);
+		manager = scenario.start();
+		physicalModel = Configuration.getInstance().getPhysicalModel();
+
+		List<Node> list = scenario.getNodes();
+		all = list.toArray(new Node[list.size()]);
+		transmissions = new Transmission[all.length];
+		for (int i = 0; i < all.length; i++) {
+			transmissions[i] = new Transmission(createPacket(all[i], manager.getCurrentTime()), 1.0);
+		}
+		next = 0;
+	}
+
+	/**
+	 * creates a broadcast of a node, enclosing a second packet like a MAC frame would do.
+	 * The transmission of the packet lasts one step.
+	 *
+	 * @param sender the sending node.
+	 * @param time   the time of the packet.
+	 * @return the physical packet.
+	 */
+	static PhysicalPacket createPacket(Node sender, double time) {
+		Address address = new Address(sender.getId(), LayerType.PHYSICAL);
+		PhysicalPacket frame = new PhysicalPacket(NodeId.ALLNODES, new Address(sender.getId(), LayerType.MAC));
+		frame.setHeaderLength(FRAME_SIZE);
+		PhysicalPacket packet = new PhysicalPacket(address, frame);
+
+		// one step per packet
+		packet.setBPS(packet.getTotalPacketSizeInBit());
+		packet.setTime(time);
+		packet.createReceiverLists();
+		return packet;
+	}
+
+	/** ends the scenario and drops the events and interferences of the iteration. */
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		scenario.close();
+	}
+
+	/** the next node sends its broadcast. */
+	@Benchmark
+	public void transmitPacket() {
+		manager.transmitPacket(transmissions[next]);
+		next = (next + 1) % transmissions.length;
+	}
+
+	/** @return the result of the physical model for the next node and its successor. */
+	@Benchmark
+	public Reachability applyPhysicalModel() {
+		Node sender = all[next];
+		next = (next + 1) % all.length;
+		return physicalModel.apply(all[next], sender, 1.0);
+	}
+
+	/** @return a copy of the transmission of the next node, as the kernel creates for the receivers. */
+	@Benchmark
+	public Object clonePacket() {
+		Object copy = transmissions[next].clone();
+		next = (next + 1) % transmissions.length;
+		return copy;
+	}
+}
@@ -0,0 +1,541 @@
+package br.ufla.dcc.grubix.debug.compactlogging;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+import org.apache.log4j.Logger;
+
+import br.ufla.dcc.grubix.simulator.Address;
+import br.ufla.dcc.grubix.simulator.DeviceType;
+import br.ufla.dcc.grubix.simulator.EventId;
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.event.Loggable;
+import br.ufla.dcc.grubix.simulator.kernel.AsyncHistoryLogger;
+import br.ufla.dcc.grubix.simulator.kernel.EventEnvelope;
+
+
+
+/**
+ * Logger which writes the history and statistics as binary records instead of text lines.
+ *
+ * The file starts with a header (int magic, short version, byte content type, long creation time,
+ * string simulator id). Every following record starts with a one byte record code, followed by its
+ * fields in fixed order. Numbers are written in their binary representation, event types, state names
+ * and axis labels are replaced by dictionary indices. The dictionary entries are written as own records before their first use, thus
+ * a file can be read in one pass. The description of an enqueued envelope is written as its fields (sender and receiver ids,
+ * layers or devices, enclosed id and data) if the envelope is an {@link AsyncHistoryLogger.Describable}; the converter
+ * creates the text from them like the envelope would. The records are collected in a direct {@link ByteBuffer} and
+ * written to a {@link FileChannel} whenever the buffer is full.
+ *
+ * Use {@link BinaryLogConverter} to convert the files to the compact or XML format for
+ * VisualGrubix and the other ShoX tools.
+ *
+ * The configuration part is built like in {@link CompactFileLogger}.
+ */
+public class BinaryFileLogger extends CompactFileLogger {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(BinaryFileLogger.class);
+	/**
+	 * Extension of log filenames created by this logger.
+	 */
+	public static final String BINARY_FILENAME_EXTENSION = ".shoxbin";
+	/**
+	 * Magic number at the beginning of every binary log file.
+	 */
+	static final int MAGIC = 0x53484F42;
+	/**
+	 * Version of the binary format.
+	 */
+	static final short VERSION = 2;
+	/**
+	 * Size of the write buffer in bytes.
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Record code: new entry of the type dictionary (int index, string).
+	 */
+	static final byte DEFINE_TYPE = 1;
+	/**
+	 * Record code: new entry of the name dictionary (int index, string).
+	 */
+	static final byte DEFINE_NAME = 2;
+	/**
+	 * Record code: configuration part (string).
+	 */
+	static final byte CONFIGURATION = 3;
+	/**
+	 * Record code: enqueue event (double time, int id, int receiver, int type, int priority, byte kind of description,
+	 * description). The description of {@link AsyncHistoryLogger#TO_LAYER} is (int sender, byte layer, int receiver,
+	 * byte layer, int enclosed id, data), of {@link AsyncHistoryLogger#TO_DEVICE} (int sender, byte device,
+	 * int receiver, byte device, data) and of {@link AsyncHistoryLogger#TEXT} the compact text as string.
+	 * The data is a byte 1 followed by the string, or a byte 0 if no data is logged.
+	 */
+	static final byte ENQUEUE = 4;
+	/**
+	 * Record code: dequeue event (double time, int id).
+	 */
+	static final byte DEQUEUE = 5;
+	/**
+	 * Record code: move event (int node, double x, double y, int priority, double time).
+	 */
+	static final byte MOVE = 6;
+	/**
+	 * Record code: link state (int node1, int node2, int name, int type, string value).
+	 */
+	static final byte LINKSTATE = 7;
+	/**
+	 * Record code: node state (int node, int name, int type, string value).
+	 */
+	static final byte NODESTATE = 8;
+	/**
+	 * Record code: text message (double time, int node, byte layer, int priority, string message).
+	 */
+	static final byte MESSAGE = 9;
+	/**
+	 * Record code: statistics entry (int node, byte layer, int xLabel, int yLabel, string x, string y).
+	 */
+	static final byte STATISTICS = 10;
+
+	/**
+	 * Output for the history.
+	 */
+	private Output hist;
+	/**
+	 * Output for the statistics.
+	 */
+	private Output statistics;
+
+	/**
+	 * Index of event types and state value types, shared by all outputs like the typeMap of the
+	 * {@link CompactFileLogger}, so the converter can write the same .map file.
+	 */
+	private final HashMap<String, Integer> typeMap = new HashMap<String, Integer>();
+
+	/**
+	 * Record, which receives the description of the enqueued envelopes.
+	 */
+	private final AsyncHistoryLogger.Record description = new AsyncHistoryLogger.Record();
+
+	/**
+	 * Binary log file with its own write buffer and name dictionary.
+	 */
+	private final class Output {
+		/**
+		 * Channel of the log file.
+		 */
+		private final FileChannel channel;
+		/**
+		 * Buffer collecting the records.
+		 */
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		/**
+		 * Index of the names (state names, axis labels) used in this file.
+		 */
+		private final HashMap<String, Integer> names = new HashMap<String, Integer>();
+
+		/**
+		 * Creates the file and writes the file header.
+		 *
+		 * @param filename name of the file
+		 * @param contentType {@link CompactLogInputSource#HISTORY} or {@link CompactLogInputSource#STATISTICS}
+		 * @throws IOException if the file could not be created
+		 */
+		Output(String filename, int contentType) throws IOException {
+			channel = new FileOutputStream(filename).getChannel();
+			buffer.putInt(MAGIC);
+			buffer.putShort(VERSION);
+			buffer.put((byte) contentType);
+			buffer.putLong(System.currentTimeMillis());
+			putString(getSimulatorId());
+		}
+
+		/**
+		 * Makes sure that at least <code>size</code> bytes fit into the buffer.
+		 *
+		 * @param size number of bytes to be written next
+		 */
+		void ensure(int size) {
+			if (buffer.remaining() < size) {
+				flush();
+			}
+		}
+
+		/**
+		 * Writes the content of the buffer to the file.
+		 */
+		void flush() {
+			buffer.flip();
+			try {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			} catch (IOException e) {
+				LOGGER.error("could not write binary log", e);
+			}
+			buffer.clear();
+		}
+
+		/**
+		 * Writes a string as int length followed by its UTF-8 bytes. ASCII strings, which are the
+		 * usual case, are copied into the buffer without creating a byte array.
+		 *
+		 * @param s the string to write, null is written as empty string
+		 */
+		void putString(String s) {
+			if (s == null) {
+				s = "";
+			}
+			int len = s.length();
+			boolean ascii = true;
+			for (int i = 0; ascii && (i < len); i++) {
+				ascii = s.charAt(i) < 0x80;
+			}
+
+			if (ascii && (len + 4 <= BUFFER_SIZE)) {
+				ensure(len + 4);
+				buffer.putInt(len);
+				for (int i = 0; i < len; i++) {
+					buffer.put((byte) s.charAt(i));
+				}
+			} else {
+				byte[] bytes = toUTF8(s);
+				ensure(4);
+				buffer.putInt(bytes.length);
+				int pos = 0;
+				while (pos < bytes.length) {
+					if (!buffer.hasRemaining()) {
+						flush();
+					}
+					int n = Math.min(buffer.remaining(), bytes.length - pos);
+					buffer.put(bytes, pos, n);
+					pos += n;
+				}
+			}
+		}
+
+		/**
+		 * Returns the dictionary index of a name, writing a new dictionary entry if necessary.
+		 * Has to be called before the record using the index is started.
+		 *
+		 * @param name the name to look up
+		 * @return the index of the name
+		 */
+		int getNameIndex(String name) {
+			Integer index = names.get(name);
+
+			if (index == null) {
+				index = names.size() + 1;
+				names.put(name, index);
+				ensure(5);
+				buffer.put(DEFINE_NAME);
+				buffer.putInt(index);
+				putString(name);
+			}
+			return index;
+		}
+
+		/**
+		 * Returns the index of a type, writing a new dictionary entry if necessary.
+		 * Has to be called before the record using the index is started.
+		 *
+		 * @param type the type name to look up
+		 * @return the index of the type
+		 */
+		int getTypeIndex(String type) {
+			Integer index = typeMap.get(type);
+
+			if (index == null) {
+				index = typeMap.size() + 1;
+				typeMap.put(type, index);
+				ensure(5);
+				buffer.put(DEFINE_TYPE);
+				buffer.putInt(index);
+				putString(type);
+			}
+			return index;
+		}
+
+		/**
+		 * Writes the buffer and closes the file.
+		 */
+		void close() {
+			flush();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				LOGGER.error("could not close binary log", e);
+			}
+		}
+	}
+
+	/**
+	 * Converts a string to its UTF-8 representation.
+	 *
+	 * @param s the string to convert
+	 * @return the UTF-8 bytes of the string
+	 */
+	private static byte[] toUTF8(String s) {
+		try {
+			return s.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new Error("UTF-8 not supported");
+		}
+	}
+
+	/**
+	 * Returns the one byte code of a layer.
+	 *
+	 * @param layer the layer, may be null
+	 * @return the ordinal of the layer, -1 for null
+	 */
+	static byte getLayerByte(LayerType layer) {
+		return (layer == null) ? -1 : (byte) layer.ordinal();
+	}
+
+	/**
+	 * Returns the one byte code of a device.
+	 *
+	 * @param device the device, may be null
+	 * @return the ordinal of the device, -1 for null
+	 */
+	static byte getDeviceByte(DeviceType device) {
+		return (device == null) ? -1 : (byte) device.ordinal();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initLogging(String historyFile, String statisticsFile, String simulatorId) throws IOException {
+		// the configuration part is collected by the super class, it does not write any file itself.
+		super.initLogging(null, null, simulatorId);
+
+		if (historyFile != null && !historyFile.equalsIgnoreCase("")) {
+			hist = new Output(historyFile + simulatorId + BINARY_FILENAME_EXTENSION, CompactLogInputSource.HISTORY);
+		}
+		if (statisticsFile != null && !statisticsFile.equalsIgnoreCase("")) {
+			statistics = new Output(statisticsFile + simulatorId + BINARY_FILENAME_EXTENSION,
+					CompactLogInputSource.STATISTICS);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void writeConfigurationPart(String configuration) {
+		if (hist != null) {
+			hist.ensure(1);
+			hist.buffer.put(CONFIGURATION);
+			hist.putString(configuration);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void finishLogging() {
+		super.finishLogging();
+		if (hist != null) {
+			hist.close();
+			hist = null;
+		}
+		if (statistics != null) {
+			statistics.close();
+			statistics = null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void logEnqueueEvent(EventEnvelope eventEnvelope, NodeId receiver, int priority) {
+		if (hist != null) {
+			if (isDoneConfiguration()) {
+				Loggable lgabl = (Loggable) eventEnvelope;
+				int type = hist.getTypeIndex(lgabl.getEventType());
+
+				int describedAs = AsyncHistoryLogger.TEXT;
+				AsyncHistoryLogger.Record d = description;
+
+				if (eventEnvelope instanceof AsyncHistoryLogger.Describable) {
+					((AsyncHistoryLogger.Describable) eventEnvelope).describe(d);
+					describedAs = d.getDescribedAs();
+				}
+
+				hist.ensure(45);
+				ByteBuffer b = hist.buffer;
+				b.put(ENQUEUE);
+				b.putDouble(eventEnvelope.getTime());
+				b.putInt(lgabl.getEventId().asInt());
+				b.putInt(receiver.asInt());
+				b.putInt(type);
+				b.putInt(priority);
+				b.put((byte) describedAs);
+
+				if (describedAs == AsyncHistoryLogger.TO_LAYER) {
+					b.putInt(d.getSenderId());
+					b.put(getLayerByte(d.getSenderLayer()));
+					b.putInt(d.getReceiverId());
+					b.put(getLayerByte(d.getReceiverLayer()));
+					b.putInt(d.getEnclosedId());
+					putData(d.getData());
+				} else if (describedAs == AsyncHistoryLogger.TO_DEVICE) {
+					b.putInt(d.getSenderId());
+					b.put(getDeviceByte(d.getSenderDevice()));
+					b.putInt(d.getReceiverId());
+					b.put(getDeviceByte(d.getReceiverDevice()));
+					putData(d.getData());
+				} else if (eventEnvelope instanceof AsyncHistoryLogger.Describable) {
+					hist.putString(d.getCompactText());
+				} else {
+					hist.putString(lgabl.log(Loggable.COMPACT));
+				}
+			} else {
+				LOGGER.fatal("logEnqueueEvent must be after doneConfiguration");
+			}
+		}
+	}
+
+	/**
+	 * Writes the optional data of an envelope description.
+	 *
+	 * @param data the data, null if it is not logged
+	 */
+	private void putData(String data) {
+		if (data == null) {
+			hist.buffer.put((byte) 0);
+		} else {
+			hist.buffer.put((byte) 1);
+			hist.putString(data);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void logDequeueEvent(double time, EventId event) {
+		if ((hist != null) && isDoneConfiguration()) {
+			hist.ensure(13);
+			hist.buffer.put(DEQUEUE);
+			hist.buffer.putDouble(time);
+			hist.buffer.putInt(event.asInt());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void logMoveEvent(NodeId node, double x, double y, double time, int priority) {
+		if ((hist != null) && isDoneConfiguration()) {
+			hist.ensure(33);
+			ByteBuffer b = hist.buffer;
+			b.put(MOVE);
+			b.putInt(node.asInt());
+			b.putDouble(x);
+			b.putDouble(y);
+			b.putInt(priority);
+			b.putDouble(time);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void logLinkStateEvent(NodeId node1, NodeId node2, String name, String type, String value) {
+		if ((hist != null) && isDoneConfiguration()) {
+			int nameIndex = hist.getNameIndex(name);
+			int typeIndex = hist.getTypeIndex(type);
+
+			hist.ensure(17);
+			ByteBuffer b = hist.buffer;
+			b.put(LINKSTATE);
+			b.putInt(node1.asInt());
+			b.putInt(node2.asInt());
+			b.putInt(nameIndex);
+			b.putInt(typeIndex);
+			hist.putString(value);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void logNodeStateEvent(NodeId node, String name, String type, String value) {
+		if ((hist != null) && isDoneConfiguration()) {
+			int nameIndex = hist.getNameIndex(name);
+			int typeIndex = hist.getTypeIndex(type);
+
+			hist.ensure(13);
+			ByteBuffer b = hist.buffer;
+			b.put(NODESTATE);
+			b.putInt(node.asInt());
+			b.putInt(nameIndex);
+			b.putInt(typeIndex);
+			hist.putString(value);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void logMessage(double time, Address sender, String message, int priority) {
+		if ((hist != null) && isDoneConfiguration()) {
+			hist.ensure(18);
+			ByteBuffer b = hist.buffer;
+			b.put(MESSAGE);
+			b.putDouble(time);
+			b.putInt(sender.getId().asInt());
+			b.put(getLayerByte(sender.getFromLayer()));
+			b.putInt(priority);
+			hist.putString(message);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void logStatistics(NodeId node, LayerType layer, String xAxisLabel, String yAxisLabel,
+			String xValue, String yValue) {
+		if (statistics != null) {
+			int xLabel = statistics.getNameIndex(xAxisLabel);
+			int yLabel = statistics.getNameIndex(yAxisLabel);
+
+			statistics.ensure(14);
+			ByteBuffer b = statistics.buffer;
+			b.put(STATISTICS);
+			b.putInt(node.asInt());
+			b.put(getLayerByte(layer));
+			b.putInt(xLabel);
+			b.putInt(yLabel);
+			statistics.putString(xValue);
+			statistics.putString(yValue);
+		}
+	}
+
+	/**
+	 * Returns the filename extension for a binary format logfile.
+	 *
+	 * @return {@link #BINARY_FILENAME_EXTENSION}
+	 */
+	@Override
+	public String getFilenameExtension() {
+		return BINARY_FILENAME_EXTENSION;
+	}
+}
@@ -0,0 +1,384 @@
+package br.ufla.dcc.grubix.debug.compactlogging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Date;
+import java.util.HashMap;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+
+import br.ufla.dcc.grubix.simulator.DeviceType;
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.event.Loggable;
+import br.ufla.dcc.grubix.simulator.kernel.AsyncHistoryLogger;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
+
+
+
+/**
+ * Converts a log file written by the {@link BinaryFileLogger} into the compact format of the
+ * {@link CompactFileLogger}, which is read by VisualGrubix and the other ShoX tools. Optionally the
+ * compact file is converted further into the XML format.
+ *
+ * Usage: <code>BinaryLogConverter file.shoxbin [-xml [fromTime toTime]]</code>. The output files get
+ * the name of the input file with the extensions .compact and .map (history only) resp. .xml. With a
+ * time window, the XML file of a history contains only the entries of this window, which are found
+ * via a {@link CompactLogIndex}.
+ */
+public final class BinaryLogConverter {
+
+	/**
+	 * Name of the binary input file.
+	 */
+	private final String inputFile;
+	/**
+	 * Name of the output files without extension.
+	 */
+	private final String outputPrefix;
+	/**
+	 * {@link CompactLogInputSource#HISTORY} or {@link CompactLogInputSource#STATISTICS}, read from the file header.
+	 */
+	private int contentType;
+	/**
+	 * Identification of the simulator which wrote the file.
+	 */
+	private String simulatorId;
+
+	/**
+	 * Creates a converter for the given binary log file.
+	 *
+	 * @param inputFile name of the binary log file
+	 */
+	public BinaryLogConverter(String inputFile) {
+		this.inputFile = inputFile;
+		if (inputFile.endsWith(BinaryFileLogger.BINARY_FILENAME_EXTENSION)) {
+			outputPrefix = inputFile.substring(0, inputFile.length()
+					- BinaryFileLogger.BINARY_FILENAME_EXTENSION.length());
+		} else {
+			outputPrefix = inputFile;
+		}
+	}
+
+	/**
+	 * Reads a length prefixed UTF-8 string.
+	 *
+	 * @param in the input
+	 * @return the string
+	 * @throws IOException on read errors
+	 */
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	/**
+	 * Returns the layer of a one byte layer code.
+	 *
+	 * @param code the code written by {@link BinaryFileLogger#getLayerByte(LayerType)}
+	 * @return the layer, null for -1
+	 */
+	private static LayerType getLayer(byte code) {
+		return (code < 0) ? null : LayerType.values()[code];
+	}
+
+	/**
+	 * Returns the device of a one byte device code.
+	 *
+	 * @param code the code written by {@link BinaryFileLogger#getDeviceByte(DeviceType)}
+	 * @return the device, null for -1
+	 */
+	private static DeviceType getDevice(byte code) {
+		return (code < 0) ? null : DeviceType.values()[code];
+	}
+
+	/**
+	 * Reads the optional data of an envelope description.
+	 *
+	 * @param in the input
+	 * @return the data, null if it was not logged
+	 * @throws IOException on read errors
+	 */
+	private static String readData(DataInputStream in) throws IOException {
+		return (in.readByte() == 0) ? null : readString(in);
+	}
+
+	/**
+	 * Reads the description of an enqueued envelope and creates its compact text, like the
+	 * envelope does itself.
+	 *
+	 * @param in the input positioned at the kind of description
+	 * @return the compact description
+	 * @throws IOException on read errors or unknown kinds of description
+	 */
+	private String readDescription(DataInputStream in) throws IOException {
+		int describedAs = in.readByte();
+
+		if (describedAs == AsyncHistoryLogger.TO_LAYER) {
+			int senderId = in.readInt();
+			LayerType senderLayer = getLayer(in.readByte());
+			int receiverId = in.readInt();
+			LayerType toLayer = getLayer(in.readByte());
+			int enclosedId = in.readInt();
+			return SimulationManager.describeToLayer(Loggable.COMPACT, senderId, senderLayer,
+					receiverId, toLayer, enclosedId, readData(in));
+		} else if (describedAs == AsyncHistoryLogger.TO_DEVICE) {
+			int senderId = in.readInt();
+			DeviceType senderDevice = getDevice(in.readByte());
+			int receiverId = in.readInt();
+			DeviceType toDevice = getDevice(in.readByte());
+			return SimulationManager.describeToDevice(Loggable.COMPACT, senderId, senderDevice,
+					receiverId, toDevice, readData(in));
+		} else if (describedAs == AsyncHistoryLogger.TEXT) {
+			return readString(in);
+		}
+		throw new IOException("unknown description " + describedAs + " in " + inputFile);
+	}
+
+	/**
+	 * Writes the compact log file and, for a history, its type map.
+	 *
+	 * @return name of the written compact file
+	 * @throws IOException on read or write errors or if the input is no binary ShoX log
+	 */
+	public String toCompact() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(inputFile), 1 << 16));
+		String compactFile = outputPrefix + CompactFileLogger.FILENAME_EXTENSION;
+		PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(compactFile), 1 << 16));
+
+		HashMap<Integer, String> names = new HashMap<Integer, String>();
+		HashMap<String, Integer> typeMap = new HashMap<String, Integer>();
+
+		try {
+			if (in.readInt() != BinaryFileLogger.MAGIC) {
+				throw new IOException(inputFile + " is no binary ShoX log file");
+			}
+			short version = in.readShort();
+			if (version != BinaryFileLogger.VERSION) {
+				throw new IOException("unsupported version " + version + " of " + inputFile);
+			}
+			contentType = in.readByte();
+			Date created = new Date(in.readLong());
+			simulatorId = readString(in);
+
+			if (contentType == CompactLogInputSource.HISTORY) {
+				out.print(CompactFileLogger.REMARK_SECTION + " ShoX logfile, created " + created + "\n");
+			} else {
+				out.print(CompactFileLogger.REMARK_SECTION + "ShoX statistics file, created " + created + "\n");
+			}
+
+			while (true) {
+				int code;
+				try {
+					code = in.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+				convertRecord(code, in, out, names, typeMap);
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+
+		if (contentType == CompactLogInputSource.HISTORY) {
+			CompactFileLogger.writeTypeMap(typeMap, simulatorId, outputPrefix + ".map");
+		}
+		return compactFile;
+	}
+
+	/**
+	 * Converts a single record into a line of the compact format.
+	 *
+	 * @param code the record code, already read
+	 * @param in the input positioned after the record code
+	 * @param out the compact output
+	 * @param names the name dictionary read so far
+	 * @param typeMap the type dictionary read so far
+	 * @throws IOException on read errors or unknown record codes
+	 */
+	private void convertRecord(int code, DataInputStream in, PrintWriter out,
+			HashMap<Integer, String> names, HashMap<String, Integer> typeMap) throws IOException {
+		switch (code) {
+		case BinaryFileLogger.DEFINE_TYPE: {
+			int index = in.readInt();
+			typeMap.put(readString(in), index);
+			break;
+		}
+		case BinaryFileLogger.DEFINE_NAME: {
+			int index = in.readInt();
+			names.put(index, readString(in));
+			break;
+		}
+		case BinaryFileLogger.CONFIGURATION:
+			out.print(CompactFileLogger.CONFIGURATION_SECTION + " " + CompactFileLogger.mask(readString(in)) + "\n");
+			break;
+		case BinaryFileLogger.ENQUEUE: {
+			double time = in.readDouble();
+			int id = in.readInt();
+			int receiver = in.readInt();
+			int type = in.readInt();
+			int priority = in.readInt();
+			out.print(CompactFileLogger.ENQUEUE_EVENT_CODE + " t" + time + " id" + id + " rId" + receiver
+					+ " t" + type + " pr" + priority + " " + readDescription(in) + "\n");
+			break;
+		}
+		case BinaryFileLogger.DEQUEUE: {
+			double time = in.readDouble();
+			out.print(CompactFileLogger.DEQUEUE_EVENT_CODE + " t" + time + " id" + in.readInt() + "\n");
+			break;
+		}
+		case BinaryFileLogger.MOVE: {
+			int node = in.readInt();
+			double x = in.readDouble();
+			double y = in.readDouble();
+			int priority = in.readInt();
+			double time = in.readDouble();
+			out.print(CompactFileLogger.MOVE_EVENT_CODE + " id" + node + " x" + x + " y" + y
+					+ " pr" + priority + " t" + time + "\n");
+			break;
+		}
+		case BinaryFileLogger.LINKSTATE: {
+			int node1 = in.readInt();
+			int node2 = in.readInt();
+			String name = names.get(in.readInt());
+			int type = in.readInt();
+			out.print(CompactFileLogger.LINKSTATE_EVENT_CODE + " a" + node1 + " b" + node2
+					+ " n" + CompactFileLogger.mask(name) + " tp" + type
+					+ " v" + CompactFileLogger.mask(readString(in)) + "\n");
+			break;
+		}
+		case BinaryFileLogger.NODESTATE: {
+			int node = in.readInt();
+			String name = names.get(in.readInt());
+			int type = in.readInt();
+			out.print(CompactFileLogger.NODESTATE_EVENT_CODE + " id" + node
+					+ " n" + CompactFileLogger.mask(name) + " tp" + type
+					+ " v" + CompactFileLogger.mask(readString(in)) + "\n");
+			break;
+		}
+		case BinaryFileLogger.MESSAGE: {
+			double time = in.readDouble();
+			int node = in.readInt();
+			LayerType layer = getLayer(in.readByte());
+			int priority = in.readInt();
+			out.print(CompactFileLogger.TEXT_MESSAGE + " t" + time + " n" + node
+					+ " ly" + ((layer == null) ? null : layer.getShortName()) + " pr" + priority
+					+ " m" + CompactFileLogger.mask(readString(in)) + "\n");
+			break;
+		}
+		case BinaryFileLogger.STATISTICS: {
+			int node = in.readInt();
+			LayerType layer = getLayer(in.readByte());
+			String xLabel = names.get(in.readInt());
+			String yLabel = names.get(in.readInt());
+			String xValue = readString(in);
+			out.print(CompactFileLogger.STATISTICS_ENTRY + " id" + node
+					+ " l" + CompactFileLogger.getLayerCode(layer)
+					+ " ax" + CompactFileLogger.mask(xLabel) + " ay" + CompactFileLogger.mask(yLabel)
+					+ " x" + CompactFileLogger.mask(xValue)
+					+ " y" + CompactFileLogger.mask(readString(in)) + "\n");
+			break;
+		}
+		default:
+			throw new IOException("unknown record code " + code + " in " + inputFile);
+		}
+	}
+
+	/**
+	 * Converts a compact log file written by {@link #toCompact()} into the XML format, using the
+	 * {@link CompactLogReader} which is also used by the ShoX tools to read compact files.
+	 *
+	 * @param compactFile name of the compact file
+	 * @return name of the written XML file
+	 * @throws IOException on read or write errors
+	 */
+	public String toXML(String compactFile) throws IOException {
+		int type = (contentType == CompactLogInputSource.HISTORY)
+				? CompactLogInputSource.HISTORY : CompactLogInputSource.STATISTICS;
+
+		return toXML(new CompactLogInputSource(compactFile, type, null));
+	}
+
+	/**
+	 * Converts the part of a compact history file written by {@link #toCompact()} between two
+	 * simulation times into the XML format.
+	 *
+	 * @param compactFile name of the compact file
+	 * @param fromTime first simulation time to convert
+	 * @param toTime last simulation time to convert
+	 * @return name of the written XML file
+	 * @throws IOException on read or write errors, or if the file is no history
+	 */
+	public String toXML(String compactFile, double fromTime, double toTime) throws IOException {
+		if (contentType != CompactLogInputSource.HISTORY) {
+			throw new IOException("time windows are supported for history files only");
+		}
+		CompactLogInputSource input = new CompactLogInputSource(compactFile, CompactLogInputSource.HISTORY, null);
+
+		input.setTimeWindow(fromTime, toTime);
+		return toXML(input);
+	}
+
+	/**
+	 * Converts a compact log file into the XML format.
+	 *
+	 * @param input the compact file to read
+	 * @return name of the written XML file
+	 * @throws IOException on read or write errors
+	 */
+	private String toXML(CompactLogInputSource input) throws IOException {
+		String compactFile = input.getSystemId() + CompactFileLogger.FILENAME_EXTENSION;
+		String xmlFile = outputPrefix + XMLFileLogger.FILENAME_EXTENSION;
+		FileOutputStream out = new FileOutputStream(xmlFile);
+
+		try {
+			Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			transformer.setOutputProperty(OutputKeys.ENCODING, "ISO-8859-1");
+			transformer.transform(new SAXSource(new CompactLogReader(), input), new StreamResult(out));
+		} catch (TransformerException e) {
+			IOException ioe = new IOException("could not convert " + compactFile + " to XML");
+			ioe.initCause(e);
+			throw ioe;
+		} finally {
+			out.close();
+		}
+		return xmlFile;
+	}
+
+	/**
+	 * Converts the given binary log file.
+	 *
+	 * @param args name of the binary log file, optionally followed by <code>-xml</code> and a time window
+	 * @throws IOException on read or write errors
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: BinaryLogConverter file" + BinaryFileLogger.BINARY_FILENAME_EXTENSION
+					+ " [-xml [fromTime toTime]]");
+			System.exit(1);
+		}
+		BinaryLogConverter converter = new BinaryLogConverter(args[0]);
+		String compactFile = converter.toCompact();
+		System.out.println("written " + compactFile);
+
+		if ((args.length > 3) && args[1].equalsIgnoreCase("-xml")) {
+			System.out.println("written " + converter.toXML(compactFile, Double.parseDouble(args[2]),
+					Double.parseDouble(args[3])));
+		} else if ((args.length > 1) && args[1].equalsIgnoreCase("-xml")) {
+			System.out.println("written " + converter.toXML(compactFile));
+		}
+	}
+}
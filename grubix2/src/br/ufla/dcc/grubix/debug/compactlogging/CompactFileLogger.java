@@ -543,14 +543,32 @@ public class CompactFileLogger implements ShoxLogger {
 			configurationPart = configurationPart.append("</" + XMLTags.CONFIGURATION + ">");
 			inConfiguration = false;
 			doneConfiguration = true;
-			if (hist != null) {
-				hist.printf("%s %s\n", CONFIGURATION_SECTION, mask(configurationPart.toString()));
-			}
+			writeConfigurationPart(configurationPart.toString());
 		} else {
 			LOGGER.fatal(" endConfiguration called outside limits ");
 		}
 	}
 	
+	/**
+	 * Writes the completed configuration part to the history file.
+	 * 
+	 * @param configuration the content of the configuration tag
+	 */
+	protected void writeConfigurationPart(String configuration) {
+		if (hist != null) {
+			hist.printf("%s %s\n", CONFIGURATION_SECTION, mask(configuration));
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code> if the configuration part is completed, i.e. events may be logged.
+	 * 
+	 * @return <code>true</code> if the configuration part is completed
+	 */
+	protected boolean isDoneConfiguration() {
+		return doneConfiguration;
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
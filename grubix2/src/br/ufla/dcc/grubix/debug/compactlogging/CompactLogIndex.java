@@ -0,0 +1,460 @@
+package br.ufla.dcc.grubix.debug.compactlogging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.log4j.Logger;
+
+
+
+/**
+ * Memory mapped compact history file with an index of the simulation time.
+ *
+ * The simulation time of an entry is the time of the last dequeue entry before it, as the
+ * times of enqueue entries are delivery times in the future. The index holds checkpoints of
+ * (time, byte offset) of dequeue entries, at most one per {@link #CHECKPOINT_INTERVAL} bytes.
+ * Seeking to a time is a binary search over the checkpoints followed by a short scan.
+ *
+ * The file is scanned on the mapped bytes, without creating strings for lines or tokens;
+ * only the lines actually read via {@link #readLine(long)} or {@link #readTokens(long)} are decoded. The index is stored
+ * next to the log file with the extension {@link #INDEX_EXTENSION} and rebuilt if the log
+ * file has changed.
+ */
+public class CompactLogIndex {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(CompactLogIndex.class);
+	/**
+	 * Extension of the index file, appended to the name of the compact file.
+	 */
+	public static final String INDEX_EXTENSION = ".idx";
+	/**
+	 * Minimal distance of two checkpoints in bytes.
+	 */
+	public static final long CHECKPOINT_INTERVAL = 1 << 18;
+	/**
+	 * Magic number at the beginning of every index file.
+	 */
+	private static final int MAGIC = 0x53484958;
+	/**
+	 * Version of the index format.
+	 */
+	private static final short VERSION = 1;
+	/**
+	 * A file is mapped in segments of 2^SEGMENT_BITS bytes, as a mapped buffer is limited to 2 GB.
+	 */
+	private static final int SEGMENT_BITS = 30;
+	/**
+	 * Mask to get the position within a segment.
+	 */
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+	/**
+	 * Name of the compact file.
+	 */
+	private final String fileName;
+	/**
+	 * The mapped segments of the file.
+	 */
+	private final MappedByteBuffer[] segments;
+	/**
+	 * Length of the file in bytes.
+	 */
+	private final long length;
+	/**
+	 * Offset of the configuration entry, -1 if there is none.
+	 */
+	private long configurationOffset = -1;
+	/**
+	 * Offset of the first entry after the remarks and the configuration.
+	 */
+	private long firstEntryOffset;
+	/**
+	 * Number of checkpoints.
+	 */
+	private int count;
+	/**
+	 * Times of the checkpoints, in ascending order.
+	 */
+	private double[] times = new double[64];
+	/**
+	 * Offsets of the checkpoints.
+	 */
+	private long[] offsets = new long[64];
+	/**
+	 * Reused buffer for decoding tokens and lines.
+	 */
+	private char[] chars = new char[256];
+
+	/**
+	 * Maps the given compact history file and loads or builds its index.
+	 *
+	 * @param fileName name of the compact history file
+	 * @throws IOException if the file could not be mapped
+	 */
+	public CompactLogIndex(String fileName) throws IOException {
+		this.fileName = fileName;
+
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			length = channel.size();
+			segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS)];
+			for (int i = 0; i < segments.length; i++) {
+				long start = (long) i << SEGMENT_BITS;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, 
+						Math.min(SEGMENT_MASK + 1, length - start));
+			}
+		} finally {
+			file.close();
+		}
+
+		if (!readIndex()) {
+			build();
+			writeIndex();
+		}
+	}
+
+	/**
+	 * @return the name of the index file.
+	 */
+	private String getIndexFileName() {
+		return fileName + INDEX_EXTENSION;
+	}
+
+	/**
+	 * Returns the byte at the given position.
+	 *
+	 * @param pos position in the file
+	 * @return the byte as unsigned value
+	 */
+	private int byteAt(long pos) {
+		return segments[(int) (pos >>> SEGMENT_BITS)].get((int) (pos & SEGMENT_MASK)) & 0xFF;
+	}
+
+	/**
+	 * Returns the end of the line starting at the given position.
+	 *
+	 * @param pos start of a line
+	 * @return position of the linefeed ending the line, or the file length
+	 */
+	public long lineEnd(long pos) {
+		while ((pos < length) && (byteAt(pos) != '\n')) {
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * Returns the start of the line following the line starting at the given position.
+	 *
+	 * @param pos start of a line
+	 * @return start of the next line, or the file length
+	 */
+	public long nextLine(long pos) {
+		long end = lineEnd(pos);
+		return (end < length) ? end + 1 : length;
+	}
+
+	/**
+	 * Checks whether the line at the given position starts with the given entry code.
+	 *
+	 * @param pos start of a line
+	 * @param code entry code, e.g. {@link CompactFileLogger#DEQUEUE_EVENT_CODE}
+	 * @return <code>true</code> if the line is an entry of this kind
+	 */
+	public boolean isEntry(long pos, String code) {
+		int n = code.length();
+		if (pos + n >= length) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			if (byteAt(pos + i) != code.charAt(i)) {
+				return false;
+			}
+		}
+		return byteAt(pos + n) == ' ';
+	}
+
+	/**
+	 * Checks whether the line at the given position is a dequeue entry.
+	 *
+	 * @param pos start of a line
+	 * @return <code>true</code> if the line is a dequeue entry
+	 */
+	public boolean isDequeue(long pos) {
+		return isEntry(pos, CompactFileLogger.DEQUEUE_EVENT_CODE);
+	}
+
+	/**
+	 * Returns the time of the dequeue entry at the given position.
+	 *
+	 * @param pos start of a dequeue entry (<code>dq tTIME idID</code>)
+	 * @return the time of the entry
+	 */
+	public double getDequeueTime(long pos) {
+		long p = pos + CompactFileLogger.DEQUEUE_EVENT_CODE.length() + 2; // skip "dq t"
+		int n = 0;
+		int b;
+
+		while ((p < length) && (n < chars.length) && ((b = byteAt(p)) != ' ') && (b != '\n')) {
+			chars[n++] = (char) b;
+			p++;
+		}
+		return Double.parseDouble(new String(chars, 0, n));
+	}
+
+	/**
+	 * Decodes the line starting at the given position.
+	 *
+	 * @param pos start of a line
+	 * @return the line without the linefeed
+	 */
+	public String readLine(long pos) {
+		return decode(pos, lineEnd(pos));
+	}
+
+	/**
+	 * Decodes the tokens of the line starting at the given position. The tokens are taken
+	 * from the mapped bytes like <code>readLine(pos).split(" ")</code> would return them,
+	 * without decoding the line first.
+	 *
+	 * @param pos start of a line
+	 * @return the tokens of the line, a single empty token for an empty line
+	 */
+	public String[] readTokens(long pos) {
+		long end = lineEnd(pos);
+
+		// trailing empty tokens are dropped, like String.split does
+		while ((end > pos) && (byteAt(end - 1) == ' ')) {
+			end--;
+		}
+		int n = 1;
+		for (long p = pos; p < end; p++) {
+			if (byteAt(p) == ' ') {
+				n++;
+			}
+		}
+
+		String[] tokens = new String[n];
+		long start = pos;
+		int t = 0;
+		for (long p = pos; p < end; p++) {
+			if (byteAt(p) == ' ') {
+				tokens[t++] = decode(start, p);
+				start = p + 1;
+			}
+		}
+		tokens[t] = decode(start, end);
+		return tokens;
+	}
+
+	/**
+	 * Decodes the bytes between two positions.
+	 *
+	 * @param from first position
+	 * @param to position after the last byte
+	 * @return the decoded string
+	 */
+	private String decode(long from, long to) {
+		int n = (int) (to - from);
+
+		if (n > chars.length) {
+			chars = new char[Math.max(n, 2 * chars.length)];
+		}
+		for (int i = 0; i < n; i++) {
+			chars[i] = (char) byteAt(from + i);
+		}
+		return new String(chars, 0, n);
+	}
+
+	/**
+	 * Adds a checkpoint.
+	 *
+	 * @param time the time of the dequeue entry
+	 * @param offset the offset of the dequeue entry
+	 */
+	private void addCheckpoint(double time, long offset) {
+		if (count == times.length) {
+			double[] t = new double[2 * count];
+			long[] o = new long[2 * count];
+			System.arraycopy(times, 0, t, 0, count);
+			System.arraycopy(offsets, 0, o, 0, count);
+			times = t;
+			offsets = o;
+		}
+		times[count] = time;
+		offsets[count] = offset;
+		count++;
+	}
+
+	/**
+	 * Scans the whole file and collects the checkpoints.
+	 */
+	private void build() {
+		long lastCheckpoint = -CHECKPOINT_INTERVAL;
+		long pos = 0;
+
+		firstEntryOffset = -1;
+		while (pos < length) {
+			if (isEntry(pos, CompactFileLogger.CONFIGURATION_SECTION)) {
+				configurationOffset = pos;
+			} else if (byteAt(pos) != '#') {
+				if (firstEntryOffset < 0) {
+					firstEntryOffset = pos;
+				}
+				if (isDequeue(pos) && (pos - lastCheckpoint >= CHECKPOINT_INTERVAL)) {
+					addCheckpoint(getDequeueTime(pos), pos);
+					lastCheckpoint = pos;
+				}
+			}
+			pos = nextLine(pos);
+		}
+		if (firstEntryOffset < 0) {
+			firstEntryOffset = length;
+		}
+		LOGGER.debug(count + " checkpoints for " + fileName);
+	}
+
+	/**
+	 * Reads the index file, if it belongs to the current version of the compact file.
+	 *
+	 * @return <code>true</code> if the index was read
+	 */
+	private boolean readIndex() {
+		File indexFile = new File(getIndexFileName());
+		if (!indexFile.exists()) {
+			return false;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			try {
+				if ((in.readInt() != MAGIC) || (in.readShort() != VERSION) || (in.readLong() != length)
+						|| (in.readLong() != new File(fileName).lastModified())) {
+					return false;
+				}
+				configurationOffset = in.readLong();
+				firstEntryOffset = in.readLong();
+				int n = in.readInt();
+				times = new double[Math.max(n, 1)];
+				offsets = new long[Math.max(n, 1)];
+				for (int i = 0; i < n; i++) {
+					times[i] = in.readDouble();
+					offsets[i] = in.readLong();
+				}
+				count = n;
+				return true;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			LOGGER.warn("could not read index " + indexFile + ", rebuilding it", e);
+			count = 0;
+			configurationOffset = -1;
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the index file. A failure is logged only, as the index can be rebuilt.
+	 */
+	private void writeIndex() {
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(getIndexFileName())));
+			try {
+				out.writeInt(MAGIC);
+				out.writeShort(VERSION);
+				out.writeLong(length);
+				out.writeLong(new File(fileName).lastModified());
+				out.writeLong(configurationOffset);
+				out.writeLong(firstEntryOffset);
+				out.writeInt(count);
+				for (int i = 0; i < count; i++) {
+					out.writeDouble(times[i]);
+					out.writeLong(offsets[i]);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			LOGGER.warn("could not write index " + getIndexFileName(), e);
+		}
+	}
+
+	/**
+	 * Returns the position of the first dequeue entry with a time not before the given time.
+	 * Reading from there replays the simulation from this time on. If there is no earlier
+	 * dequeue entry, the entries before the first dequeue (the initial state) are included.
+	 *
+	 * @param time simulation time to seek to
+	 * @return start of the dequeue entry, or the file length if there is none
+	 */
+	public long seek(double time) {
+		// binary search for the last checkpoint before the time
+		int low = 0;
+		int high = count - 1;
+		long pos = firstEntryOffset;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] < time) {
+				pos = offsets[mid];
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		// no dequeue entry before pos yet, as no checkpoint was found
+		boolean first = (pos == firstEntryOffset);
+		while (pos < length) {
+			if (isDequeue(pos)) {
+				if (getDequeueTime(pos) >= time) {
+					return first ? firstEntryOffset : pos;
+				}
+				first = false;
+			}
+			pos = nextLine(pos);
+		}
+		return length;
+	}
+
+	/**
+	 * @return offset of the configuration entry, -1 if there is none.
+	 */
+	public long getConfigurationOffset() {
+		return configurationOffset;
+	}
+
+	/**
+	 * @return offset of the first entry after the remarks and the configuration.
+	 */
+	public long getFirstEntryOffset() {
+		return firstEntryOffset;
+	}
+
+	/**
+	 * @return the length of the compact file in bytes.
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * @return the number of checkpoints of the index.
+	 */
+	public int getCheckpointCount() {
+		return count;
+	}
+}
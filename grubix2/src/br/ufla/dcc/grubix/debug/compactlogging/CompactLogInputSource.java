@@ -30,6 +30,14 @@ public class CompactLogInputSource extends InputSource {
 	 * Constant representing a ShoX statistic compact format log file.
 	 */
 	public static final int STATISTICS = 1;
+	/**
+	 * First simulation time to read from a history, {@link Double#NaN} to read the whole file.
+	 */
+	private double fromTime = Double.NaN;
+	/**
+	 * Last simulation time to read from a history.
+	 */
+	private double toTime = Double.NaN;
 	
 	/**
 	 * Constructor to define the location and type of compact log format log file.
@@ -76,6 +84,45 @@ public class CompactLogInputSource extends InputSource {
 			return null;
 		}
 	}
+	/**
+	 * Restricts the entries read from a history file to the ones between two simulation times.
+	 * The {@link CompactLogReader} then seeks to the first entry via a {@link CompactLogIndex}.
+	 * 
+	 * @param fromTime first simulation time to read
+	 * @param toTime last simulation time to read
+	 */
+	public void setTimeWindow(double fromTime, double toTime) {
+		if (!isHistory()) {
+			throw new IllegalArgumentException("time windows are supported for history files only");
+		}
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+	}
+	
+	/**
+	 * Returns <code>true</code> if only the entries of a time window are to be read.
+	 * @return <code>true</code> if a time window was set
+	 */
+	public boolean hasTimeWindow() {
+		return !Double.isNaN(fromTime);
+	}
+	
+	/**
+	 * Returns the first simulation time to read.
+	 * @return the start of the time window, NaN if there is none
+	 */
+	public double getFromTime() {
+		return fromTime;
+	}
+	
+	/**
+	 * Returns the last simulation time to read.
+	 * @return the end of the time window, NaN if there is none
+	 */
+	public double getToTime() {
+		return toTime;
+	}
+	
 	/**
 	 * Returns the <code>HISTORY</code> or <code>STATISTICS</code> constant determinating the contant of this log file.
 	 * @return <code>HISTORY</code> or <code>STATISTICS</code> int constant
@@ -117,18 +117,22 @@ public class CompactLogReader implements XMLReader, ContentHandler {
 	 * Parses a compact log file and creates SAX Reader XML calls like a {@link XMLReader}. 
 	 * <p>
 	 * Content of the log file is specified together with the location in the passed 
-	 * {@link CompactLogInputSource} parameter.  
+	 * {@link CompactLogInputSource} parameter. If it has a time window, only the
+	 * entries of this window are reported, see {@link #parse(CompactLogInputSource, double, double)}.
 	 * 
 	 * @param input description of the location of the compact log file
 	 * @throws IOException on error during file handling
 	 * @throws SAXException on error during parsing
 	 */
 	public void parse(CompactLogInputSource input) throws IOException, SAXException {
+		if (input.hasTimeWindow()) {
+			parse(input, input.getFromTime(), input.getToTime());
+			return;
+		}
 		
 		BufferedReader reader = new BufferedReader(input.getCharacterStream());
 		String line = null;
 		int lineCounter = 0;
-		String[] tokens; 
 		
 		if (input.isHistory()) {
 			typeMap = CompactFileLogger.readTypeMapByFilename(input.getHistoryFilenamePrefix());
@@ -146,43 +150,7 @@ public class CompactLogReader implements XMLReader, ContentHandler {
 		
 		while ((line = reader.readLine()) != null) {
 			lineCounter++;
-					
-			if (line.length() > 0) {
-				if (line.charAt(0) != '#') {	
-
-					tokens = line.split(" ");
-				
-					if (tokens != null && tokens.length > 0) {
-						// linkstate event
-						if (tokens[0].equalsIgnoreCase(CompactFileLogger.LINKSTATE_EVENT_CODE)) {
-							handleLinkState(tokens);
-						} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.DEQUEUE_EVENT_CODE)) {
-							handleDequeue(tokens);
-						} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.MOVE_EVENT_CODE)) {
-							handleMove(tokens);
-						} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.NODESTATE_EVENT_CODE)) {
-							handleNodeState(tokens);							
-						} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.ENQUEUE_EVENT_CODE)) {
-							handleEnqueue(tokens);
-						} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.TEXT_MESSAGE)) {
-							handleTextMessage(tokens);
-						} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.CONFIGURATION_SECTION)) {
-							String config = tokens[1]; // token is masked UTF-8
-							config = CompactFileLogger.unmask(config); // unmask to get original text
-							
-							// let XMLReader generate the SAX events, we just forward them							
-							XMLReader cRead = XMLReaderFactory.createXMLReader();
-							cRead.setContentHandler(this);
-							cRead.parse(new InputSource(new StringReader(config)));
-							
-							contentHandler.startElement("", XMLTags.SIMULATION, XMLTags.SIMULATION, EMPTY_ATTRIBUTES);
-							lf();
-						} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.STATISTICS_ENTRY)) {
-							handleStatistc(tokens);
-						}
-					}
-				} 				
-			}
+			handleLine(line);
 		}
 		
 		if (input.isHistory()) {
@@ -199,6 +167,113 @@ public class CompactLogReader implements XMLReader, ContentHandler {
 		LOGGER.debug(lineCounter + " lines read");
 	}
 	
+	/**
+	 * Parses the part of a compact history file between two simulation times and creates SAX Reader 
+	 * XML calls like {@link #parse(CompactLogInputSource)}. The configuration is always reported. 
+	 * <p>
+	 * The file is accessed via a {@link CompactLogIndex}, so only the requested part is read.
+	 * 
+	 * @param input description of the location of the compact history file
+	 * @param fromTime first simulation time to report
+	 * @param toTime last simulation time to report
+	 * @throws IOException on error during file handling
+	 * @throws SAXException on error during parsing, or if the input is no history
+	 */
+	public void parse(CompactLogInputSource input, double fromTime, double toTime) throws IOException, SAXException {
+		if (!input.isHistory()) {
+			throw new SAXException("time windows are supported for history files only");
+		}
+		if (input.getCharacterStream() != null) {
+			input.getCharacterStream().close();
+		}
+		CompactLogIndex index = new CompactLogIndex(input.getHistoryFilenamePrefix() 
+													+ CompactFileLogger.FILENAME_EXTENSION);
+		int lineCounter = 0;
+		
+		typeMap = CompactFileLogger.readTypeMapByFilename(input.getHistoryFilenamePrefix());
+		reversedTypeMap = CompactFileLogger.reverseHashMap(typeMap);
+		
+		contentHandler.startDocument();
+		contentHandler.startElement("", XMLTags.GLOBAL, XMLTags.GLOBAL, EMPTY_ATTRIBUTES);
+		lf();
+		
+		if (index.getConfigurationOffset() >= 0) {
+			handleTokens(index.readTokens(index.getConfigurationOffset()));
+		}
+		
+		long end = index.getLength();
+		for (long pos = index.seek(fromTime); pos < end; pos = index.nextLine(pos)) {
+			if (index.isDequeue(pos) && (index.getDequeueTime(pos) > toTime)) {
+				break;
+			}
+			lineCounter++;
+			// remarks and empty lines match no entry code
+			handleTokens(index.readTokens(pos));
+		}
+		
+		contentHandler.endElement("", XMLTags.SIMULATION, XMLTags.SIMULATION);
+		lf();
+		contentHandler.endElement("", XMLTags.GLOBAL, XMLTags.GLOBAL);
+		lf();
+		
+		contentHandler.endDocument();
+		LOGGER.debug(lineCounter + " lines read");
+	}
+	
+	/**
+	 * Emits all XML events for one line of a compact log file.
+	 * 
+	 * @param line the line, remarks and empty lines are ignored
+	 * @throws IOException on error during parsing the configuration
+	 * @throws SAXException on communication with content handler
+	 */
+	private void handleLine(String line) throws IOException, SAXException {
+		if (line.length() > 0) {
+			if (line.charAt(0) != '#') {	
+				handleTokens(line.split(" "));
+			} 				
+		}
+	}
+	
+	/**
+	 * Emits all XML events for the tokens of one entry of a compact log file.
+	 * 
+	 * @param tokens the tokens of the entry, the first one is the entry code
+	 * @throws IOException on error during parsing the configuration
+	 * @throws SAXException on communication with content handler
+	 */
+	private void handleTokens(String[] tokens) throws IOException, SAXException {
+		if (tokens != null && tokens.length > 0) {
+			// linkstate event
+			if (tokens[0].equalsIgnoreCase(CompactFileLogger.LINKSTATE_EVENT_CODE)) {
+				handleLinkState(tokens);
+			} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.DEQUEUE_EVENT_CODE)) {
+				handleDequeue(tokens);
+			} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.MOVE_EVENT_CODE)) {
+				handleMove(tokens);
+			} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.NODESTATE_EVENT_CODE)) {
+				handleNodeState(tokens);							
+			} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.ENQUEUE_EVENT_CODE)) {
+				handleEnqueue(tokens);
+			} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.TEXT_MESSAGE)) {
+				handleTextMessage(tokens);
+			} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.CONFIGURATION_SECTION)) {
+				String config = tokens[1]; // token is masked UTF-8
+				config = CompactFileLogger.unmask(config); // unmask to get original text
+				
+				// let XMLReader generate the SAX events, we just forward them							
+				XMLReader cRead = XMLReaderFactory.createXMLReader();
+				cRead.setContentHandler(this);
+				cRead.parse(new InputSource(new StringReader(config)));
+				
+				contentHandler.startElement("", XMLTags.SIMULATION, XMLTags.SIMULATION, EMPTY_ATTRIBUTES);
+				lf();
+			} else if (tokens[0].equalsIgnoreCase(CompactFileLogger.STATISTICS_ENTRY)) {
+				handleStatistc(tokens);
+			}
+		}
+	}
+	
 	/**
 	 * Emits all XML events needed to report an enqueue tag.
 	 * @param tokens enqueue entry
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -47,6 +48,11 @@ public class LogFilter {
 	 * Stores class names of events which are to log, together with their priority.
 	 */
 	private HashMap<String, Integer> acceptedEventTypes = null;	
+	/**
+	 * Priorities of the event classes queried so far, resolved once per class from 
+	 * {@link #acceptedEventTypes} and cleared whenever a priority changes.
+	 */
+	private final IdentityHashMap<Class< ? >, Integer> classPriorities = new IdentityHashMap<Class< ? >, Integer>();
 
 	/**
 	 * Description of the current filter.
@@ -248,6 +254,23 @@ public class LogFilter {
 		
 	}
 	
+	/**
+	 * Returns the priority for the given Event class, like {@link #getEventTypePriority(String)}. The
+	 * decision is made once per class, so this method is used for every logged event during a simulation.
+	 * 
+	 * @param classType Event class to query
+	 * @return int value priority 
+	 */
+	public int getEventTypePriority(Class< ? > classType) {
+		Integer priority = classPriorities.get(classType);
+		
+		if (priority == null) {
+			priority = getEventTypePriority(classType.getName());
+			classPriorities.put(classType, priority);
+		}
+		return priority;
+	}
+	
 	/**
 	 * Return the priority description of the given Event class. See {@link #PRIORITIES}.
 	 *  
@@ -270,6 +293,7 @@ public class LogFilter {
 	 */
 	public void setEventTypePriority(String classType, int priority) {
 		acceptedEventTypes.put(classType, priority);
+		classPriorities.clear();
 	}
 	
 	/**
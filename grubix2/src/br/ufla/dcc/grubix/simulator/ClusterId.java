@@ -18,6 +18,8 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator;
 
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
+
 /** 
  * Unique Ids for clusters in the node graph.
  * 
@@ -31,16 +33,10 @@ public class ClusterId extends UniqueId {
 	public static final ClusterId NOCLUSTER = new ClusterId(-1);
 	
 	/**
-	 * int value of the next free ClusterId.
-	 */
-	private static int nextFreeId = 1;
-
-	/**
-	 * Constructor of the class ClusterId.
+	 * Constructor of the class ClusterId, creates the next id of the current simulation.
 	 */
 	public ClusterId() {
-		super(nextFreeId);
-		nextFreeId++;
+		super(SimulationContext.current().nextClusterId());
 	}
 	
 	/**
@@ -18,6 +18,8 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator;
 
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
+
 /**
  * Factoryclass for EventIds. Produces EventId objects starting with ID 1.
  * 
@@ -25,12 +27,17 @@ package br.ufla.dcc.grubix.simulator;
  */
 public class EventId extends UniqueId {
 
-	/** int value of the next free EventId. */
-	private static int nextFreeId = 1;
-
-	/** Constructor of the class EventId. */
+	/** Constructor of the class EventId, creates the next id of the current simulation. */
 	public EventId() {
-		super(nextFreeId);
-		nextFreeId++;
+		this(SimulationContext.current());
+	}
+
+	/**
+	 * Constructor of the class EventId, creates the next id of the given simulation.
+	 * 
+	 * @param context the simulation the id belongs to.
+	 */
+	public EventId(SimulationContext context) {
+		super(context.nextEventId());
 	}
 }
@@ -19,20 +19,16 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 package br.ufla.dcc.grubix.simulator;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.List;
 
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
+
 /**
  * Factory class for NodeIds. Produces NodeId objects starting with ID 1.
  * @author Andreas Kumlehn
  */
 public class NodeId extends UniqueId implements Serializable {
 
-	/**
-	 * int value of the next free NodeId.
-	 */
-	private static int nextFreeId = 1;
-	
 	/** 
 	 * NodeId used for broadcasting messages to all receiving nodes.
 	 */
@@ -65,29 +61,15 @@ public class NodeId extends UniqueId implements Serializable {
 	 */
 	public static final NodeId CENTER = new NodeId(-6);
 	
-	/** 
-	 * Stores references to all (unique) NodeId objects ever created. This is needed to retrieve
-	 * nodes from hash tables which have NodeId as their key, since it is prohibited to create
-	 * NodeId objects with explicit IDs. Besides, even if it were possible, two NodeId objects
-	 * with the same Integer id value do not necessarily have the same hash code in Java.	 *  
-	 */
-	private static final HashMap<Integer, NodeId> ID_POOL = initIdPool();
-	 
 	/**
-	 * This method is executed only once! It ensures that the ID_POOL does also contain
-	 * the constants defined above. It becomes necessary to include this NodeId-Objects into the pool
-	 * because people might call {@link NodeId#get(int)} using the keys defined for the constants.
-	 * 
-	 * @return a newly created empty id pool.
+	 * The constants, which can also be retrieved by {@link NodeId#get(int)}. All other
+	 * node ids are stored by the SimulationContext they were created in.
 	 */
-	private static HashMap<Integer, NodeId> initIdPool() {
-		HashMap<Integer, NodeId> newPool = new HashMap<Integer, NodeId>();
-		newPool.put(ALLNODES.asInt(), ALLNODES);
-		newPool.put(FREE.asInt(), FREE);
-		newPool.put(USED.asInt(), USED);
-		newPool.put(BACKBONE.asInt(), BACKBONE);
-		newPool.put(BACKBONEBROADCAST.asInt(), BACKBONEBROADCAST);
-		return newPool;
+	private static final NodeId[] CONSTANTS = {ALLNODES, FREE, USED, BACKBONE, BACKBONEBROADCAST};
+
+	/** @return the constants, which can be retrieved by {@link NodeId#get(int)}. */
+	public static NodeId[] getConstants() {
+		return CONSTANTS.clone();
 	}
 		
 	/**
@@ -128,13 +110,19 @@ public class NodeId extends UniqueId implements Serializable {
 	}
 	
 	/**
-	 * Constructor of the class NodeId.
+	 * Constructor of the class NodeId, creates the next id of the current simulation.
 	 */
 	public NodeId() {
-		this(nextFreeId);
-		ID_POOL.put(nextFreeId, this);
-		nextFreeId++;
-		
+		this(SimulationContext.current());
+	}
+	
+	/**
+	 * Constructor of the class NodeId, creates the next id of the given simulation.
+	 * @param context the simulation the id belongs to.
+	 */
+	public NodeId(SimulationContext context) {
+		this(context.nextNodeId());
+		context.putNodeId(this);
 	}
 	
 	/**
@@ -152,7 +140,7 @@ public class NodeId extends UniqueId implements Serializable {
 	 * not available
 	 */
 	public static NodeId get(int i) {
-		return ID_POOL.get(i);
+		return SimulationContext.current().getNodeId(i);
 	}
 }
 
@@ -69,7 +69,7 @@ public class NetworkPacket extends Packet {
 	 * @return the NodeId of the receiver of the innermost enclosed NetworkPacket
 	 */
 	public NodeId getFinalNetworkPacketReceiver() {
-		Packet enclosedPacket2 = this.getEnclosedPacket();
+		Packet enclosedPacket2 = this.peekEnclosedPacket();
 
 		if (enclosedPacket2 != null && enclosedPacket2 instanceof NetworkPacket) {
 			NetworkPacket tmpPacket = (NetworkPacket) enclosedPacket2;
@@ -84,7 +84,7 @@ public class NetworkPacket extends Packet {
 	 * @return the NodeId of the sender of the innermost enclosed NetworkPacket
 	 */
 	public NodeId getInitialNetworkPacketSender() {
-		Packet enclosedPacket2 = this.getEnclosedPacket();
+		Packet enclosedPacket2 = this.peekEnclosedPacket();
 
 		if (enclosedPacket2 != null && enclosedPacket2 instanceof NetworkPacket) {
 			NetworkPacket tmpPacket = (NetworkPacket) enclosedPacket2;
@@ -122,6 +122,29 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	@NoHeaderData
 	private boolean isManuallySetHeaderLength = false;
 	
+	/**
+	 * true, if this packet and its enclosed packets must not be changed anymore,
+	 * since they are shared by the copies of all receivers. The setters throw an
+	 * IllegalStateException then.
+	 */
+	@NoHeaderData
+	private boolean frozen = false;
+	
+	/**
+	 * true, if the enclosed packet is still the frozen packet of the original. It is
+	 * copied, when it is accessed by getEnclosedPacket() or changed.
+	 */
+	@NoHeaderData
+	private boolean enclosedShared = false;
+	
+	/** the valid flag to set on the enclosed packet, when it is copied; null if unchanged. */
+	@NoHeaderData
+	private Boolean pendingValid = null;
+	
+	/** true, if the direction of the enclosed packet has to be flipped, when it is copied. */
+	@NoHeaderData
+	private boolean pendingFlip = false;
+	
 	/**
 	 * Default constructor of class Packet to create a terminal packet
 	 * with no enclosed packet.
@@ -192,12 +215,12 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 		receivers        = new ArrayList<NodeId>();
 		invalidReceivers = new ArrayList<NodeId>();
 		
-		Packet p = enclosedPacket;
+		Packet p = getEnclosedPacket();
 			
 		while (p != null) {
 			p.receivers        = receivers;
 			p.invalidReceivers = invalidReceivers;
-			p = p.enclosedPacket;
+			p = p.getEnclosedPacket();
 		}
 	}
 
@@ -250,6 +273,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	
 	/** this method resets the packet to prepare the packet for resending. */
 	public void reset() {
+		checkNotFrozen();
 		if (direction == Direction.UPWARDS) {
 			direction = Direction.DOWNWARDS;
 		}
@@ -257,6 +281,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 		changeable = true;
 		valid = true;
 		ber = -1.0;
+		copyEnclosed();
 		
 		if (enclosedPacket != null) {
 			enclosedPacket.reset();
@@ -265,6 +290,11 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 
 	/**
 	 * implements the clone method to duplicate packets.
+	 * 
+	 * The enclosed packets of a frozen packet are not copied at once, the clone shares
+	 * them until they are accessed via getEnclosedPacket() or changed. Thus a receiver,
+	 * which drops a packet at the physical or MAC layer, does not copy the whole chain.
+	 * 
 	 * @return a clone of the object.
 	 */
 	@Override
@@ -272,9 +302,16 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 		Packet obj;
 		try {
 			obj = (Packet) super.clone();
+			obj.frozen = false;
 			
 			if (enclosedPacket == null) {
 				obj.metaInfos = new MetaInformationContainer();
+			} else if (enclosedPacket.frozen) {
+				obj.enclosedShared = true;
+				obj.metaInfos      = new MetaInformationContainer();
+			} else if (enclosedShared) {
+				// share the same frozen packet with the same pending changes.
+				obj.metaInfos      = new MetaInformationContainer();
 			} else {
 				obj.enclosedPacket = (Packet) enclosedPacket.clone();
 				obj.metaInfos      = obj.enclosedPacket.metaInfos;
@@ -286,9 +323,52 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 		}
 	}
 	
+	/**
+	 * marks this packet and all enclosed packets as shared and unchangeable. Clones of
+	 * a frozen packet copy the enclosed packets only on demand.
+	 * This method is to be called in SimulationManager.transmitPacket only.
+	 */
+	public final void freeze() {
+		Packet p = this;
+		
+		while (p != null) {
+			p.frozen = true;
+			p = p.enclosedPacket;
+		}
+	}
+	
+	/** @throws IllegalStateException if the packet is frozen and thus shared by several receivers. */
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new IllegalStateException("packet is frozen");
+		}
+	}
+	
+	/** replaces a shared enclosed packet by an own copy, which gets the pending changes. */
+	private void copyEnclosed() {
+		if (enclosedShared) {
+			Packet copy = (Packet) enclosedPacket.clone();
+			
+			copy.metaInfos = metaInfos;
+			enclosedPacket = copy;
+			enclosedShared = false;
+			
+			if (pendingValid != null) {
+				copy.setValid(pendingValid.booleanValue());
+				pendingValid = null;
+			}
+			if (pendingFlip) {
+				copy.flipDirection();
+				pendingFlip = false;
+			}
+		}
+	}
+	
 	/** after a packet is added as inner packet to another packet the headerlength is locked. */
 	public void setWriteProtect() {
+		checkNotFrozen();
 		changeable = false;
+		copyEnclosed();
 		
 		if (enclosedPacket != null) {
 			enclosedPacket.setWriteProtect();
@@ -305,13 +385,16 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 
 	/** method to prepare the packet for the next hop. */
 	public final void flipDirection() {
+		checkNotFrozen();
 		if (direction == Direction.UPWARDS) {
 			direction = Direction.DOWNWARDS;
 		} else {
 			direction = Direction.UPWARDS;
 		}
 		
-		if (enclosedPacket != null) {
+		if (enclosedShared) {
+			pendingFlip = !pendingFlip;
+		} else if (enclosedPacket != null) {
 			enclosedPacket.flipDirection();
 		}
 	}
@@ -325,6 +408,18 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	
 	/**	@return Returns the enclosedPacket. */
 	public Packet getEnclosedPacket() {
+		copyEnclosed();
+		return enclosedPacket;
+	}
+	
+	/**
+	 * returns the enclosed packet without copying it, for callers which only read it.
+	 * The packet may be shared with other receivers and must not be changed; pending
+	 * changes of the valid flag and the direction are not applied to it yet.
+	 * 
+	 * @return the enclosed packet, null if there is none.
+	 */
+	public final Packet peekEnclosedPacket() {
 		return enclosedPacket;
 	}
 	
@@ -334,10 +429,14 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @param packet a new enclosed packet
 	 */
 	public void setEnclosedPacket(Packet packet) {
+		checkNotFrozen();
 		if (!changeable) {
 			throw new IllegalStateException("packet not changeable");
 		}
 		this.enclosedPacket = packet;
+		this.enclosedShared = false;
+		this.pendingValid = null;
+		this.pendingFlip = false;
 	}
 	
 	/** @return the layer type of the innermost enclosed packet.*/
@@ -356,7 +455,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @return the requested packet or null.
 	 */
 	public final Packet getEnclosedPacket(@SuppressWarnings("hiding") LayerType layer) {
-		Packet packet = enclosedPacket;
+		Packet packet = getEnclosedPacket();
 		
 		if ((packet == null) || (packet.getLayer().equals(layer))) {
 			return packet;
@@ -387,6 +486,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 
 	/** @param header the header to set. */
 	public final void setHeader(String header) {
+		checkNotFrozen();
 		if (changeable) {
 			this.header = header;
 			setHeaderLength(header.length());
@@ -415,6 +515,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @param headerLength the headerLength to set in bit.
 	 */
 	public final void setHeaderLength(int headerLength) {
+		checkNotFrozen();
 		if (changeable) {
 			this.headerLength = headerLength;
 			this.isManuallySetHeaderLength = true;
@@ -430,7 +531,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 		Packet currentPacket = this;
 		while (currentPacket != null) {
 			totalSize += currentPacket.getHeaderLength();
-			currentPacket = currentPacket.getEnclosedPacket();
+			currentPacket = currentPacket.enclosedPacket;
 		}
 		return totalSize; 
 	}
@@ -440,6 +541,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @param currentTime The current simulation time
 	 */
 	public final void setTime(double currentTime) {
+		checkNotFrozen();
 		timeStamp = currentTime;
 	}
 	
@@ -448,7 +550,9 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @param delta the time value, to change the timestamp by.
 	 */
 	public final void adjustTime(double delta) {
+		checkNotFrozen();
 		timeStamp += delta;
+		copyEnclosed();
 		
 		if (enclosedPacket != null) {
 			enclosedPacket.adjustTime(delta);
@@ -467,6 +571,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 
 	/** @param ber the ber to set. */
 	public final void setBER(double ber) {
+		checkNotFrozen();
 		this.ber = ber;
 	}
 
@@ -481,8 +586,11 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @param valid the valid to set. 
 	 */
 	public final void setValid(boolean valid) {
+		checkNotFrozen();
 		this.valid = valid;
-		if (this.getEnclosedPacket() != null) {
+		if (enclosedShared) {
+			pendingValid = Boolean.valueOf(valid);
+		} else if (this.getEnclosedPacket() != null) {
 			this.getEnclosedPacket().setValid(valid);
 		}
 	}
@@ -504,7 +612,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 		 if (this.getClass().equals(packetClass)) {
 			 return (T) this; // cast never fails
 		 }
-		 if (enclosedPacket != null) {
+		 if (getEnclosedPacket() != null) {
 			 return enclosedPacket.containsPacketType(packetClass);
 		 }
 		 return null;
@@ -521,7 +629,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @return the highest enclosed packet.
 	 */
 	public Packet getHighestEnclosedPacket() {
-		if (enclosedPacket == null) {
+		if (getEnclosedPacket() == null) {
 			return this;
 		}
 		return enclosedPacket.getHighestEnclosedPacket();
@@ -561,6 +669,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @param important use true, to set this packet to be important.
 	 */
 	public final void setImportant(boolean important) {
+		checkNotFrozen();
 		this.important = important;
 	}
 
@@ -603,6 +712,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	 * @param other the expected receiver of this packet.
 	 */
 	public final void addExpectedReceiver(NodeId other) {
+		checkNotFrozen();
 		if (!other.equals(NodeId.ALLNODES)) {
 			if (importantReceivers == null) {
 				importantReceivers = new ArrayList<NodeId>();
@@ -648,7 +758,9 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 	
 	/** This method clears the list of expected receivers. */
 	public final void clearExpectedReceivers() {
+		checkNotFrozen();
 		importantReceivers = null;
+		copyEnclosed();
 		
 		if (enclosedPacket != null) {
 			enclosedPacket.clearExpectedReceivers();
@@ -676,6 +788,7 @@ public abstract class Packet extends ToLayer implements TimedObject, Cloneable {
 
 	/** @param requestReceiverInformation use true to request to get the receiver information event. */
 	public void setRequestReceiverInformation(boolean requestReceiverInformation) {
+		checkNotFrozen();
 		this.requestReceiverInformation = requestReceiverInformation;
 	}
 	
@@ -114,8 +114,8 @@ public class PhysicalPacket extends Packet implements Cloneable {
 			// The physical layer should set the BPS. The current MAC802 implementation however does
 			// set the BPS for WlanFramePackets only. Due to the refactoring of this getDuration-method
 			// we have to get the BPS value from the wlanframe.
-			if (getEnclosedPacket() != null && getEnclosedPacket() instanceof WlanFramePacket) {
-				this.setBPS(((WlanFramePacket) getEnclosedPacket()).getBPS());
+			if (peekEnclosedPacket() != null && peekEnclosedPacket() instanceof WlanFramePacket) {
+				this.setBPS(((WlanFramePacket) peekEnclosedPacket()).getBPS());
 			}
 			if (bps == BPSUNSET) {
 				throw new SimulationFailedException("Bits per second not set for " + this);
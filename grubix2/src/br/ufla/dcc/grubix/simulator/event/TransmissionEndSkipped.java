@@ -0,0 +1,50 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.event;
+
+import br.ufla.dcc.grubix.simulator.Address;
+import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+
+/**
+ * WakeUpCall indicating that an incoming transmission, which was skipped since the
+ * receiver was not listening, has arrived completely. It takes the place of the
+ * TransmissionBeginIncoming and TransmissionEndIncoming events of the transmission.
+ */
+public class TransmissionEndSkipped extends WakeUpCall {
+
+	/** The transmission that was skipped. */
+	private Transmission trans;
+
+	/**
+	 * Constructor for this class.
+	 * @param sender The sending node/layer
+	 * @param trans The transmission that was skipped
+	 */
+	public TransmissionEndSkipped(Address sender, Transmission trans) {
+		super(sender, Configuration.getInstance().getPropagationDelay() + trans.getSendingTime());
+		this.trans = trans;
+	}
+
+	/**
+	 * @return The transmission that was skipped.
+	 */
+	public Transmission getTransmission() {
+		return this.trans;
+	}
+}
@@ -0,0 +1,751 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import br.ufla.dcc.grubix.debug.compactlogging.ShoxLogger;
+import br.ufla.dcc.grubix.simulator.Address;
+import br.ufla.dcc.grubix.simulator.DeviceType;
+import br.ufla.dcc.grubix.simulator.EventId;
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.event.Event;
+import br.ufla.dcc.grubix.simulator.event.Loggable;
+import br.ufla.dcc.grubix.simulator.movement.MovementManager;
+import br.ufla.dcc.grubix.simulator.node.Layer;
+import br.ufla.dcc.grubix.simulator.node.Node;
+import br.ufla.dcc.grubix.simulator.physical.PhysicalModel;
+
+/**
+ * History logger, which hands the log entries of the simulation over to a background thread.
+ *
+ * The simulation thread only copies the fields of an entry (time, ids, type, priority and
+ * the few fields the envelope description consists of) into the next record of a preallocated
+ * ring buffer. The writer thread creates the log entries from the records and passes them to
+ * the wrapped logger, which formats and writes them. The order of all entries is kept.
+ *
+ * If the ring buffer is full, the simulation thread either waits for the writer or drops the
+ * entry and counts it. The configuration part is passed on synchronously, as it refers to the
+ * nodes. finishLogging writes all outstanding entries before the wrapped logger is closed.
+ *
+ * Enabled by the <code>asyncBuffer</code> and <code>asyncBackPressure</code> elements of the
+ * logging section of the configuration.
+ */
+public class AsyncHistoryLogger implements ShoxLogger {
+
+	/** Logger of this class. */
+	private static final Logger LOGGER = Logger.getLogger(AsyncHistoryLogger.class);
+
+	/** back pressure policy, which lets the simulation wait for the writer. */
+	public static final String BLOCK = "block";
+
+	/** back pressure policy, which drops entries if the ring buffer is full. */
+	public static final String DROP = "drop";
+
+	/** record kind of an enqueued event. */
+	private static final int ENQUEUE = 1;
+	/** record kind of a dequeued event. */
+	private static final int DEQUEUE = 2;
+	/** record kind of a movement. */
+	private static final int MOVE = 3;
+	/** record kind of a link state. */
+	private static final int LINKSTATE = 4;
+	/** record kind of a node state. */
+	private static final int NODESTATE = 5;
+	/** record kind of a text message. */
+	private static final int MESSAGE = 6;
+	/** record kind of a statistics entry. */
+	private static final int STATISTICS = 7;
+
+	/** description of an envelope from layer to layer. */
+	public static final int TO_LAYER = 1;
+	/** description of an envelope from device to device. */
+	public static final int TO_DEVICE = 2;
+	/** description of another envelope, already formatted on the simulation thread. */
+	public static final int TEXT = 3;
+
+	/** how long the simulation thread parks before it checks the full ring buffer again. */
+	private static final long PARK_NANOS = 20000L;
+
+	/**
+	 * how long the idle writer parks before it checks the ring buffer again. It is woken up
+	 * earlier if the ring buffer is half full, so entries are written in large batches.
+	 */
+	private static final long IDLE_PARK_NANOS = 1000000L;
+
+	/**
+	 * Envelopes, which can copy the fields of their log description into a record.
+	 * The description is created later by SimulationManager.describeToLayer or describeToDevice.
+	 */
+	public interface Describable {
+		/**
+		 * copies the fields of the log description into the record.
+		 *
+		 * @param record the record to fill.
+		 */
+		void describe(Record record);
+	}
+
+	/**
+	 * One entry of the ring buffer. The records are created once and reused, the fields
+	 * used depend on the kind of the record. Other loggers may use a record to get the
+	 * fields of an envelope description from a {@link Describable}.
+	 */
+	public static final class Record {
+		/** the kind of the record, ENQUEUE etc. */
+		private int kind;
+		/** the time of the entry. */
+		private double time;
+		/** x coordinate of a movement. */
+		private double x;
+		/** y coordinate of a movement. */
+		private double y;
+		/** priority of the entry. */
+		private int priority;
+		/** the logged event of an enqueue entry, only handed over, never accessed by the writer. */
+		private Event event;
+		/** the event id. */
+		private EventId eventId;
+		/** the receiving or moving node, or the first node of a link. */
+		private NodeId node;
+		/** the second node of a link. */
+		private NodeId node2;
+		/** the sender of a message. */
+		private Address address;
+		/** the layer of a statistics entry. */
+		private LayerType layer;
+		/** the event type, state name or x axis label. */
+		private String name;
+		/** the value type or y axis label. */
+		private String type;
+		/** the value, message or x value. */
+		private String value;
+		/** the y value of a statistics entry. */
+		private String value2;
+
+		/** the kind of envelope description, TO_LAYER etc. */
+		private int describedAs;
+		/** the sending node of the envelope. */
+		private int senderId;
+		/** the sending layer or device. */
+		private Object senderUnit;
+		/** the receiving node of the envelope. */
+		private int receiverId;
+		/** the receiving layer or device. */
+		private Object receiverUnit;
+		/** the id of the enclosed packet. */
+		private int enclosedId;
+		/** the logged data of the event, or the XML description for TEXT. */
+		private String data;
+		/** the compact description for TEXT. */
+		private String compactText;
+
+		/** @return the kind of envelope description, {@link AsyncHistoryLogger#TO_LAYER} etc. */
+		public int getDescribedAs() {
+			return describedAs;
+		}
+
+		/** @return the id of the sending node. */
+		public int getSenderId() {
+			return senderId;
+		}
+
+		/** @return the sending layer of a TO_LAYER description. */
+		public LayerType getSenderLayer() {
+			return (LayerType) senderUnit;
+		}
+
+		/** @return the sending device of a TO_DEVICE description. */
+		public DeviceType getSenderDevice() {
+			return (DeviceType) senderUnit;
+		}
+
+		/** @return the id of the receiving node. */
+		public int getReceiverId() {
+			return receiverId;
+		}
+
+		/** @return the receiving layer of a TO_LAYER description. */
+		public LayerType getReceiverLayer() {
+			return (LayerType) receiverUnit;
+		}
+
+		/** @return the receiving device of a TO_DEVICE description. */
+		public DeviceType getReceiverDevice() {
+			return (DeviceType) receiverUnit;
+		}
+
+		/** @return the id of the enclosed packet, SimulationManager.NO_ID if there is none. */
+		public int getEnclosedId() {
+			return enclosedId;
+		}
+
+		/** @return the logged data, null if it is not logged, or the XML description for TEXT. */
+		public String getData() {
+			return data;
+		}
+
+		/** @return the compact description for TEXT. */
+		public String getCompactText() {
+			return compactText;
+		}
+
+		/**
+		 * describes an envelope from layer to layer.
+		 *
+		 * @param senderId    the id of the sending node.
+		 * @param senderLayer the sending layer.
+		 * @param receiverId  the id of the receiving node.
+		 * @param toLayer     the receiving layer.
+		 * @param enclosedId  the id of the enclosed packet, SimulationManager.NO_ID if there is none.
+		 * @param data        the data of the event, or null if it is not logged.
+		 */
+		void setToLayer(int senderId, LayerType senderLayer, int receiverId, LayerType toLayer,
+				int enclosedId, String data) {
+			this.describedAs = TO_LAYER;
+			this.senderId = senderId;
+			this.senderUnit = senderLayer;
+			this.receiverId = receiverId;
+			this.receiverUnit = toLayer;
+			this.enclosedId = enclosedId;
+			this.data = data;
+		}
+
+		/**
+		 * describes an envelope from device to device.
+		 *
+		 * @param senderId     the id of the sending node.
+		 * @param senderDevice the sending device.
+		 * @param receiverId   the id of the receiving node.
+		 * @param toDevice     the receiving device.
+		 * @param data         the data of the event, or null if it is not logged.
+		 */
+		void setToDevice(int senderId, DeviceType senderDevice, int receiverId, DeviceType toDevice,
+				String data) {
+			this.describedAs = TO_DEVICE;
+			this.senderId = senderId;
+			this.senderUnit = senderDevice;
+			this.receiverId = receiverId;
+			this.receiverUnit = toDevice;
+			this.data = data;
+		}
+
+		/** releases all references, so the writer does not keep objects of the simulation alive. */
+		private void clear() {
+			event = null;
+			eventId = null;
+			node = null;
+			node2 = null;
+			address = null;
+			layer = null;
+			name = null;
+			type = null;
+			value = null;
+			value2 = null;
+			senderUnit = null;
+			receiverUnit = null;
+			data = null;
+			compactText = null;
+		}
+	}
+
+	/**
+	 * Envelope handed to the wrapped logger, which creates its description from a record.
+	 */
+	private static final class RecordedEnvelope extends EventEnvelope implements Loggable, Describable {
+		/** the event id. */
+		private final EventId eventId;
+		/** the receiver of the event. */
+		private final NodeId receiver;
+		/** the class name of the event. */
+		private final String eventType;
+		/** the kind of description. */
+		private final int describedAs;
+		/** the sending node. */
+		private final int senderId;
+		/** the sending layer or device. */
+		private final Object senderUnit;
+		/** the receiving node. */
+		private final int receiverId;
+		/** the receiving layer or device. */
+		private final Object receiverUnit;
+		/** the id of the enclosed packet. */
+		private final int enclosedId;
+		/** the logged data, or the XML description for TEXT. */
+		private final String data;
+		/** the compact description for TEXT. */
+		private final String compactText;
+
+		/**
+		 * copies the fields of the record.
+		 *
+		 * @param r the record of the enqueued envelope.
+		 */
+		private RecordedEnvelope(Record r) {
+			super(r.event, r.time);
+			eventId = r.eventId;
+			receiver = r.node;
+			eventType = r.name;
+			describedAs = r.describedAs;
+			senderId = r.senderId;
+			senderUnit = r.senderUnit;
+			receiverId = r.receiverId;
+			receiverUnit = r.receiverUnit;
+			enclosedId = r.enclosedId;
+			data = r.data;
+			compactText = r.compactText;
+		}
+
+		/** @see br.ufla.dcc.grubix.simulator.kernel.EventEnvelope#deliver() */
+		@Override
+		protected void deliver() {
+			throw new UnsupportedOperationException("recorded envelopes are for logging only");
+		}
+
+		/**
+		 * @return String for debugging.
+		 */
+		@Override
+		public String toString() {
+			return getTime() + " RecordedEnvelope of " + eventType + " " + eventId;
+		}
+
+		/** {@inheritDoc} */
+		public EventId getEventId() {
+			return eventId;
+		}
+
+		/** {@inheritDoc} */
+		public String getEventType() {
+			return eventType;
+		}
+
+		/** {@inheritDoc} */
+		public NodeId getReceiver() {
+			return receiver;
+		}
+
+		/** {@inheritDoc} */
+		public void describe(Record record) {
+			record.describedAs = describedAs;
+			record.senderId = senderId;
+			record.senderUnit = senderUnit;
+			record.receiverId = receiverId;
+			record.receiverUnit = receiverUnit;
+			record.enclosedId = enclosedId;
+			record.data = data;
+			record.compactText = compactText;
+		}
+
+		/** {@inheritDoc} */
+		public String log(int logType) {
+			if (describedAs == TO_LAYER) {
+				return SimulationManager.describeToLayer(logType, senderId, (LayerType) senderUnit,
+						receiverId, (LayerType) receiverUnit, enclosedId, data);
+			} else if (describedAs == TO_DEVICE) {
+				return SimulationManager.describeToDevice(logType, senderId, (DeviceType) senderUnit,
+						receiverId, (DeviceType) receiverUnit, data);
+			} else if (logType == Loggable.XML) {
+				return data;
+			} else if (logType == Loggable.COMPACT) {
+				return compactText;
+			}
+			return null;
+		}
+	}
+
+	/** the logger, which formats and writes the entries. */
+	private final ShoxLogger delegate;
+
+	/** the ring buffer, its size is a power of two. */
+	private final Record[] ring;
+
+	/** mask to get the index of a sequence number in the ring buffer. */
+	private final int mask;
+
+	/** true, if entries are dropped instead of waiting for the writer. */
+	private final boolean dropWhenFull;
+
+	/** sequence number of the next record to fill, only used by the simulation thread. */
+	private long next;
+
+	/** number of records filled by the simulation thread. */
+	private volatile long published;
+
+	/** number of records processed by the writer thread. */
+	private volatile long consumed;
+
+	/** number of dropped entries. */
+	private volatile long dropped;
+
+	/** true, until finishLogging is called. */
+	private volatile boolean running;
+
+	/** the writer thread, null if not started. */
+	private Thread writer;
+
+	/**
+	 * creates the logger.
+	 *
+	 * @param delegate     the logger, which formats and writes the entries.
+	 * @param capacity     the minimal number of entries in the ring buffer.
+	 * @param backPressure {@link #BLOCK} or {@link #DROP}.
+	 */
+	public AsyncHistoryLogger(ShoxLogger delegate, int capacity, String backPressure) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.delegate = delegate;
+		this.ring = new Record[size];
+		for (int i = 0; i < size; i++) {
+			ring[i] = new Record();
+		}
+		this.mask = size - 1;
+		this.dropWhenFull = DROP.equalsIgnoreCase(backPressure);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void init() {
+		// the wrapped logger is already configured.
+	}
+
+	/**
+	 * claims the next record of the ring buffer.
+	 *
+	 * @param droppable true, if the entry may be dropped if the buffer is full.
+	 * @return the record to fill, or null if the entry is dropped.
+	 */
+	private Record claim(boolean droppable) {
+		if (writer == null) {
+			throw new IllegalStateException("initLogging has not been called");
+		}
+		if (next - consumed >= ring.length) {
+			if (droppable && dropWhenFull) {
+				dropped++;
+				return null;
+			}
+			LockSupport.unpark(writer);
+			while (next - consumed >= ring.length) {
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+		return ring[(int) (next & mask)];
+	}
+
+	/** hands the claimed record over to the writer thread. */
+	private void publish() {
+		next++;
+		published = next;
+		if (next - consumed == (ring.length >> 1)) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/** waits until the writer thread has processed all records. */
+	private void drain() {
+		if (writer != null) {
+			LockSupport.unpark(writer);
+		}
+		while (consumed < published) {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+	}
+
+	/** the loop of the writer thread. */
+	private void write() {
+		while (running || (consumed < published)) {
+			long available = published;
+
+			if (consumed == available) {
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+				continue;
+			}
+			for (long seq = consumed; seq < available; seq++) {
+				Record r = ring[(int) (seq & mask)];
+				try {
+					process(r);
+				} catch (RuntimeException e) {
+					LOGGER.error("could not write history entry", e);
+				}
+				r.clear();
+				consumed = seq + 1;
+			}
+		}
+	}
+
+	/**
+	 * passes a record to the wrapped logger.
+	 *
+	 * @param r the record.
+	 */
+	private void process(Record r) {
+		switch (r.kind) {
+		case ENQUEUE:
+			delegate.logEnqueueEvent(new RecordedEnvelope(r), r.node, r.priority);
+			break;
+		case DEQUEUE:
+			delegate.logDequeueEvent(r.time, r.eventId);
+			break;
+		case MOVE:
+			delegate.logMoveEvent(r.node, r.x, r.y, r.time, r.priority);
+			break;
+		case LINKSTATE:
+			delegate.logLinkStateEvent(r.node, r.node2, r.name, r.type, r.value);
+			break;
+		case NODESTATE:
+			delegate.logNodeStateEvent(r.node, r.name, r.type, r.value);
+			break;
+		case MESSAGE:
+			delegate.logMessage(r.time, r.address, r.value, r.priority);
+			break;
+		case STATISTICS:
+			delegate.logStatistics(r.node, r.layer, r.name, r.type, r.value, r.value2);
+			break;
+		default:
+			throw new IllegalStateException("unknown record kind " + r.kind);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logEnqueueEvent(EventEnvelope eventEnvelope, NodeId receiver, int priority) {
+		Record r = claim(true);
+
+		if (r != null) {
+			Loggable lgabl = (Loggable) eventEnvelope;
+
+			r.kind = ENQUEUE;
+			r.time = eventEnvelope.getTime();
+			r.priority = priority;
+			r.event = eventEnvelope.getEvent();
+			r.eventId = lgabl.getEventId();
+			r.node = receiver;
+			r.name = lgabl.getEventType();
+
+			if (eventEnvelope instanceof Describable) {
+				((Describable) eventEnvelope).describe(r);
+			} else {
+				r.describedAs = TEXT;
+				r.data = lgabl.log(Loggable.XML);
+				r.compactText = lgabl.log(Loggable.COMPACT);
+			}
+			publish();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logDequeueEvent(double time, EventId event) {
+		Record r = claim(true);
+
+		if (r != null) {
+			r.kind = DEQUEUE;
+			r.time = time;
+			r.eventId = event;
+			publish();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logMoveEvent(NodeId node, double x, double y, double time, int priority) {
+		Record r = claim(true);
+
+		if (r != null) {
+			r.kind = MOVE;
+			r.node = node;
+			r.x = x;
+			r.y = y;
+			r.time = time;
+			r.priority = priority;
+			publish();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logLinkStateEvent(NodeId node1, NodeId node2, String name, String type, String value) {
+		Record r = claim(false);
+
+		r.kind = LINKSTATE;
+		r.node = node1;
+		r.node2 = node2;
+		r.name = name;
+		r.type = type;
+		r.value = value;
+		publish();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logNodeStateEvent(NodeId node, String name, String type, String value) {
+		Record r = claim(false);
+
+		r.kind = NODESTATE;
+		r.node = node;
+		r.name = name;
+		r.type = type;
+		r.value = value;
+		publish();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logMessage(double time, Address sender, String message, int priority) {
+		Record r = claim(false);
+
+		r.kind = MESSAGE;
+		r.time = time;
+		r.address = sender;
+		r.value = message;
+		r.priority = priority;
+		publish();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logStatistics(NodeId node, LayerType layer, String xAxisLabel, String yAxisLabel,
+			String xValue, String yValue) {
+		Record r = claim(false);
+
+		r.kind = STATISTICS;
+		r.node = node;
+		r.layer = layer;
+		r.name = xAxisLabel;
+		r.type = yAxisLabel;
+		r.value = xValue;
+		r.value2 = yValue;
+		publish();
+	}
+
+	// ----------------------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void startConfigurationPart() {
+		drain();
+		delegate.startConfigurationPart();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logConfiguration(double fieldXSize, double fieldYSize, int stepsPerSecond, long simulationTime,
+			PhysicalModel physicalModel, MovementManager movementManager, String description) {
+		drain();
+		delegate.logConfiguration(fieldXSize, fieldYSize, stepsPerSecond, simulationTime, physicalModel,
+				movementManager, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logNodeSetup(int nodeCount, Class<? extends Layer> physical, Class<? extends Layer> mac,
+			Class<? extends Layer> loglink, Class<? extends Layer> net, Class<? extends Layer> app) {
+		drain();
+		delegate.logNodeSetup(nodeCount, physical, mac, loglink, net, app);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void logNodePlacement(Collection<Node> nodes) {
+		drain();
+		delegate.logNodePlacement(nodes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void endConfigurationPart() {
+		drain();
+		delegate.endConfigurationPart();
+	}
+
+	// ----------------------------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void initLogging(String historyFile, String statisticsFile, String simulatorId) throws IOException {
+		delegate.initLogging(historyFile, statisticsFile, simulatorId);
+
+		running = true;
+		writer = new Thread(new Runnable() {
+			public void run() {
+				write();
+			}
+		}, "history-writer-" + simulatorId);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Writes all outstanding entries, stops the writer thread and closes the wrapped logger.
+	 */
+	public void finishLogging() {
+		if (writer != null) {
+			running = false;
+			LockSupport.unpark(writer);
+			try {
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				drain();
+			}
+			writer = null;
+		}
+		if (dropped > 0) {
+			LOGGER.warn(dropped + " history entries dropped, the ring buffer of " + ring.length
+					+ " entries was full");
+		}
+		delegate.finishLogging();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getSimulatorId() {
+		return delegate.getSimulatorId();
+	}
+
+	/** @return the number of entries dropped since the ring buffer was full. */
+	public long getDroppedEntries() {
+		return dropped;
+	}
+}
@@ -30,8 +30,7 @@ public class BackboneConfigurationManager implements Serializable {
 	
 	private SortedMap<NodeId, BackboneConfiguration> allNodesConfigurations;
 	private Queue<Integer> testNodes;
-	private static BackboneConfigurationManager singleton;
-	private static transient int protocolType;
+	private transient int protocolType;
 
 	private static boolean usingFile;
 	
@@ -41,9 +40,13 @@ public class BackboneConfigurationManager implements Serializable {
 	}
 	
 	public static BackboneConfigurationManager getInstance(int protocolType) {
+		// one instance per simulation
+		SimulationContext context = SimulationContext.current();
+		BackboneConfigurationManager singleton = context.getShared(BackboneConfigurationManager.class);
 		if (singleton == null) {
-			loadConfiguration(protocolType);
-			BackboneConfigurationManager.protocolType = protocolType;
+			singleton = loadConfiguration(protocolType);
+			singleton.protocolType = protocolType;
+			context.putShared(BackboneConfigurationManager.class, singleton);
 		}
 		return singleton;
 	}
@@ -64,7 +67,7 @@ public class BackboneConfigurationManager implements Serializable {
 			file.createNewFile();
 			FileOutputStream fos = new FileOutputStream(file);
 			ObjectOutputStream oos = new ObjectOutputStream(fos);
-			oos.writeObject(singleton);
+			oos.writeObject(SimulationContext.current().getShared(BackboneConfigurationManager.class));
 			oos.close();
 			//System.err.println("SUCESSO!! OBJETO DE CONFIGURAÇÃO SALVO!");
 		} catch (Exception e) {
@@ -72,15 +75,16 @@ public class BackboneConfigurationManager implements Serializable {
 		}
 	}
 	
-	private static void loadConfiguration(int protocolType) {
+	private static BackboneConfigurationManager loadConfiguration(int protocolType) {
 		String fileName = "config" + ((protocolType == USAMAC_CONFIG) ? ("USAMac") : ("MXMac")) + ".dat";
 		try {
 			if (usingFile) {
 				FileInputStream fis = new FileInputStream(
 						new File(System.getProperty("user.dir") + "/backbone_config/" + fileName));
 				ObjectInputStream ois = new ObjectInputStream(fis);
-				singleton = (BackboneConfigurationManager) ois.readObject();
+				BackboneConfigurationManager singleton = (BackboneConfigurationManager) ois.readObject();
 				ois.close();
+				return singleton;
 				//loadTestNodes();
 				//System.err.println("SUCESSO!! Objeto de configuração foi carregado!");
 			} else {
@@ -88,11 +92,11 @@ public class BackboneConfigurationManager implements Serializable {
 			}
 		} catch (Exception e) {
 			if (protocolType == USAMAC_CONFIG) {
-				loadConfiguration(MXMAC_CONFIG);
+				return loadConfiguration(MXMAC_CONFIG);
 			} else {
 				System.err.println("No encontrei uma configurao de backbone, inicializando uma nova...");
 				//System.err.println("Exception thrown: " + e.getMessage());
-				singleton = new BackboneConfigurationManager();
+				return new BackboneConfigurationManager();
 			}
 		}
 	}
@@ -0,0 +1,590 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.PropertyConfigurator;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+
+import br.ufla.dcc.grubix.xml.ConfigurationReader;
+
+/**
+ * Runs many replications of a simulation concurrently within one JVM and
+ * collects a summary of every run into one CSV file.
+ * 
+ * The sweep is described by a properties file:
+ * <pre>
+ * # the base configuration
+ * config = TESTE_XMAC.xml
+ * # one replication per seed of the random generator
+ * seeds = 1 2 3 4
+ * # values of the param elements with the given name, all combinations are run
+ * param.cycleTime = 0.1 0.2
+ * # optional: MAC protocol name as for Simulator (default XMAC), number of
+ * # threads (default: number of processors) and output directory (default batch)
+ * protocol = XMAC
+ * threads = 4
+ * output = batch
+ * </pre>
+ * 
+ * For every run a configuration file run-N.xml is written to the output directory,
+ * with the seed and parameters set and the history, statistics and position files
+ * redirected into that directory. Everything the run prints to System.out goes
+ * to run-N.out, the summary of all runs to summary.csv.
+ * 
+ * The simulator keeps its state in static fields (SimulationManager, Configuration,
+ * id counters and the singletons of the protocols). Therefore every run loads the
+ * simulator classes (all of br.ufla.dcc) with its own class loader, which gives it
+ * its own copy of all these fields. Files written by protocols to fixed names in
+ * the working directory are still shared by all runs.
+ * 
+ * Usage: BatchRunner sweep.properties [log4j.properties]
+ */
+public final class BatchRunner {
+
+	/** prefix of the classes loaded separately for every run. */
+	private static final String ISOLATED_PACKAGE = "br.ufla.dcc.";
+
+	/** prefix of the parameter sweeps in the properties file. */
+	private static final String PARAM_PREFIX = "param.";
+
+	/** the summary columns reported by Simulator.run. */
+	private static final String[] SUMMARY_COLUMNS = {"nodes", "simulatedTime", "events"};
+
+	/** the base configuration file. */
+	private final String config;
+
+	/** the MAC protocol name passed to the simulator. */
+	private final String protocol;
+
+	/** the directory for all files written by the runs. */
+	private final File outputDir;
+
+	/** the number of concurrent runs. */
+	private final int threads;
+
+	/** the seeds, null for a single run with the seed of the configuration. */
+	private final List<String> seeds;
+
+	/** the swept parameters with their values, ordered by name. */
+	private final Map<String, List<String>> params = new LinkedHashMap<String, List<String>>();
+
+	/** the class path used for the isolated class loaders. */
+	private final URL[] classPath;
+
+	/**
+	 * creates a batch runner from a sweep description.
+	 * 
+	 * @param spec the sweep description.
+	 * @throws MalformedURLException if the class path is invalid.
+	 */
+	private BatchRunner(Properties spec) throws MalformedURLException {
+		config = spec.getProperty("config");
+		if (config == null) {
+			throw new IllegalArgumentException("the sweep needs a config entry");
+		}
+		protocol = spec.getProperty("protocol", "XMAC");
+		outputDir = new File(spec.getProperty("output", "batch"));
+		threads = Integer.parseInt(spec.getProperty("threads",
+				Integer.toString(Runtime.getRuntime().availableProcessors())).trim());
+
+		String seedList = spec.getProperty("seeds");
+		seeds = (seedList == null) ? null : split(seedList);
+
+		// Properties.stringPropertyNames is not available in Java 1.5.
+		TreeSet<String> keys = new TreeSet<String>();
+		for (Enumeration<?> names = spec.propertyNames(); names.hasMoreElements();) {
+			keys.add((String) names.nextElement());
+		}
+		for (String key : keys) {
+			if (key.startsWith(PARAM_PREFIX)) {
+				params.put(key.substring(PARAM_PREFIX.length()), split(spec.getProperty(key)));
+			}
+		}
+
+		String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+		classPath = new URL[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			classPath[i] = new File(entries[i]).toURI().toURL();
+		}
+	}
+
+	/**
+	 * @param values a list of values separated by blanks or commas.
+	 * @return the values.
+	 */
+	private static List<String> split(String values) {
+		List<String> result = new ArrayList<String>();
+
+		for (String value : values.trim().split("[\\s,]+")) {
+			if (value.length() > 0) {
+				result.add(value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * builds all combinations of seeds and parameter values.
+	 * 
+	 * @return the settings of every run, the seed under the key "seed".
+	 */
+	private List<Map<String, String>> createRuns() {
+		List<Map<String, String>> runs = new ArrayList<Map<String, String>>();
+		runs.add(new LinkedHashMap<String, String>());
+
+		if (seeds != null) {
+			runs = combine(runs, "seed", seeds);
+		}
+		for (Map.Entry<String, List<String>> param : params.entrySet()) {
+			runs = combine(runs, param.getKey(), param.getValue());
+		}
+		return runs;
+	}
+
+	/**
+	 * @param runs   the runs so far.
+	 * @param name   the name of a setting.
+	 * @param values the values of the setting.
+	 * @return every run combined with every value.
+	 */
+	private static List<Map<String, String>> combine(List<Map<String, String>> runs, String name,
+			List<String> values) {
+		List<Map<String, String>> result = new ArrayList<Map<String, String>>();
+
+		for (Map<String, String> run : runs) {
+			for (String value : values) {
+				Map<String, String> combined = new LinkedHashMap<String, String>(run);
+				combined.put(name, value);
+				result.add(combined);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * writes the configuration of one run.
+	 * 
+	 * @param number   the number of the run.
+	 * @param settings the seed and parameters of the run.
+	 * @return the name of the written configuration file.
+	 * @throws Exception if the base configuration can not be read or a parameter is missing.
+	 */
+	private String writeConfig(int number, Map<String, String> settings) throws Exception {
+		Document doc = new SAXBuilder().build(config);
+		Element root = doc.getRootElement();
+		String prefix = new File(outputDir, "run-" + number + "-").getPath();
+
+		for (Map.Entry<String, String> setting : settings.entrySet()) {
+			if (setting.getKey().equals("seed")) {
+				setSeed(root, setting.getValue());
+			} else if (!setParam(root, setting.getKey(), setting.getValue())) {
+				throw new IllegalArgumentException("no param " + setting.getKey() + " in " + config);
+			}
+		}
+
+		Element logging = root.getChild("logging");
+		if (logging != null) {
+			redirect(logging.getChild("nameHistoryFile"), prefix);
+			redirect(logging.getChild("nameStatisticsFile"), prefix);
+		}
+		Element positions = root.getChild("positions");
+		if ((positions != null) && (positions.getChild("generated") != null)) {
+			redirect(positions.getChild("generated").getChild("targetfile"), prefix);
+		}
+
+		File file = new File(outputDir, "run-" + number + ".xml");
+		OutputStream out = new FileOutputStream(file);
+		try {
+			new XMLOutputter(Format.getPrettyFormat().setEncoding("ISO-8859-1")).output(doc, out);
+		} finally {
+			out.close();
+		}
+		return file.getPath();
+	}
+
+	/**
+	 * sets the seed of the random generator, adds the generator if not configured.
+	 * 
+	 * @param root the configuration element.
+	 * @param seed the seed.
+	 */
+	private static void setSeed(Element root, String seed) {
+		Element generator = root.getChild(ConfigurationReader.RANDOM_GENERATOR);
+
+		if (generator == null) {
+			generator = new Element(ConfigurationReader.RANDOM_GENERATOR);
+			generator.addContent(new Element("class").setText(
+					"br.ufla.dcc.grubix.simulator.random.JavaRandomGenerator"));
+			root.addContent(generator);
+		}
+		Element paramsElement = generator.getChild("params");
+		if (paramsElement == null) {
+			paramsElement = new Element("params");
+			generator.addContent(paramsElement);
+		}
+		if (!setParam(generator, "seed", seed)) {
+			paramsElement.addContent(new Element("param").setAttribute("name", "seed").setText(seed));
+		}
+	}
+
+	/**
+	 * sets all param elements with the given name below the given element.
+	 * 
+	 * @param element the element to search.
+	 * @param name    the name of the parameter.
+	 * @param value   the new value.
+	 * @return true, if at least one param element was found.
+	 */
+	private static boolean setParam(Element element, String name, String value) {
+		List<Element> found = new ArrayList<Element>();
+
+		for (Iterator<?> it = element.getDescendants(); it.hasNext();) {
+			Object o = it.next();
+
+			if ((o instanceof Element) && ((Element) o).getName().equals("param")
+					&& name.equals(((Element) o).getAttributeValue("name"))) {
+				found.add((Element) o);
+			}
+		}
+		// not changed while iterating, setText replaces the children
+		for (Element param : found) {
+			param.setText(value);
+		}
+		return !found.isEmpty();
+	}
+
+	/**
+	 * prepends the given prefix to the file name in the element, if present.
+	 * 
+	 * @param element an element containing a file name, may be null.
+	 * @param prefix  the prefix.
+	 */
+	private static void redirect(Element element, String prefix) {
+		if ((element != null) && (element.getTextTrim().length() > 0)) {
+			element.setText(prefix + new File(element.getTextTrim()).getName());
+		}
+	}
+
+	/**
+	 * runs one replication in its own class loader.
+	 * 
+	 * @param number     the number of the run.
+	 * @param configFile the configuration file of the run.
+	 * @return the summary of the run.
+	 * @throws IOException if the output file can not be written.
+	 */
+	private Map<String, String> runReplication(int number, String configFile) throws IOException {
+		Map<String, String> summary = new LinkedHashMap<String, String>();
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(outputDir, "run-" + number + ".out")));
+		Thread thread = Thread.currentThread();
+		ClassLoader oldLoader = thread.getContextClassLoader();
+		ClassLoader loader = new IsolatingClassLoader(classPath, BatchRunner.class.getClassLoader());
+		long start = System.currentTimeMillis();
+
+		RunOutputStream.setTarget(out);
+		thread.setContextClassLoader(loader);
+		try {
+			Class<?> simulator = loader.loadClass(Simulator.class.getName());
+			Method run = simulator.getMethod("run", String.class, boolean.class, boolean.class, String.class);
+			@SuppressWarnings("unchecked")
+			Map<String, String> result = (Map<String, String>) run.invoke(null, configFile, false, false, protocol);
+
+			if (result == null) {
+				summary.put("status", "failed");
+			} else {
+				summary.put("status", "ok");
+				summary.putAll(result);
+			}
+		} catch (InvocationTargetException e) {
+			summary.put("status", "error: " + e.getCause());
+			e.getCause().printStackTrace(new PrintStream(out, true));
+		} catch (Exception e) {
+			summary.put("status", "error: " + e);
+		} finally {
+			thread.setContextClassLoader(oldLoader);
+			RunOutputStream.setTarget(null);
+			out.close();
+		}
+		summary.put("wallMillis", Long.toString(System.currentTimeMillis() - start));
+		return summary;
+	}
+
+	/**
+	 * runs all replications and writes the summary.
+	 * 
+	 * @throws Exception if a configuration can not be written.
+	 */
+	private void runAll() throws Exception {
+		if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+			throw new IOException("can not create " + outputDir);
+		}
+
+		final List<Map<String, String>> runs = createRuns();
+		List<Future<Map<String, String>>> results = new ArrayList<Future<Map<String, String>>>();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		final PrintStream console = RunOutputStream.getConsole();
+
+		for (int i = 0; i < runs.size(); i++) {
+			final int number = i + 1;
+			final String configFile = writeConfig(number, runs.get(i));
+
+			results.add(pool.submit(new Callable<Map<String, String>>() {
+				public Map<String, String> call() throws IOException {
+					Map<String, String> summary = runReplication(number, configFile);
+					console.println("run " + number + "/" + runs.size() + " " + summary.get("status")
+							+ " after " + summary.get("wallMillis") + " ms");
+					return summary;
+				}
+			}));
+		}
+		pool.shutdown();
+
+		List<String> columns = new ArrayList<String>();
+		columns.add("run");
+		if (seeds != null) {
+			columns.add("seed");
+		}
+		columns.addAll(params.keySet());
+		columns.add("status");
+		columns.addAll(Arrays.asList(SUMMARY_COLUMNS));
+		columns.add("wallMillis");
+
+		PrintWriter csv = new PrintWriter(new FileWriter(new File(outputDir, "summary.csv")));
+		try {
+			csv.println(join(columns));
+			for (int i = 0; i < runs.size(); i++) {
+				Map<String, String> row = new LinkedHashMap<String, String>(runs.get(i));
+				row.put("run", Integer.toString(i + 1));
+				try {
+					Map<String, String> summary = results.get(i).get();
+					summary.remove("seed"); // the configured seed is already in the row
+					row.putAll(summary);
+				} catch (ExecutionException e) {
+					row.put("status", "error: " + e.getCause());
+				}
+				List<String> values = new ArrayList<String>();
+				for (String column : columns) {
+					values.add(row.containsKey(column) ? row.get(column) : "");
+				}
+				csv.println(join(values));
+			}
+		} finally {
+			csv.close();
+		}
+	}
+
+	/**
+	 * @param values the values of a CSV line.
+	 * @return the line, values quoted if necessary.
+	 */
+	private static String join(List<String> values) {
+		StringBuilder sb = new StringBuilder();
+
+		for (String value : values) {
+			if (sb.length() > 0) {
+				sb.append(',');
+			}
+			if ((value.indexOf(',') >= 0) || (value.indexOf('"') >= 0) || (value.indexOf('\n') >= 0)) {
+				sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+			} else {
+				sb.append(value);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Main method of the batch runner.
+	 * 
+	 * @param args the sweep description file and optionally the log4j configuration.
+	 * @throws Exception if the sweep can not be run.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("usage: BatchRunner sweep.properties [log4j.properties]");
+			return;
+		}
+
+		Properties spec = new Properties();
+		InputStream in = new FileInputStream(args[0]);
+		try {
+			spec.load(in);
+		} finally {
+			in.close();
+		}
+
+		RunOutputStream.install();
+		PropertyConfigurator.configure(args.length >= 2 ? args[1] : "log4j.properties");
+
+		new BatchRunner(spec).runAll();
+	}
+
+	/**
+	 * Class loader that loads the simulator classes itself instead of asking its parent
+	 * first, so every run gets its own copy of all static fields.
+	 */
+	private static final class IsolatingClassLoader extends URLClassLoader {
+
+		/**
+		 * @param urls   the class path.
+		 * @param parent the class loader for all other classes (java, log4j, jdom, ...).
+		 */
+		private IsolatingClassLoader(URL[] urls, ClassLoader parent) {
+			super(urls, parent);
+		}
+
+		/**
+		 * @see java.lang.ClassLoader#loadClass(java.lang.String, boolean)
+		 * @param name    the name of the class.
+		 * @param resolve whether to resolve the class.
+		 * @return the class.
+		 * @throws ClassNotFoundException if the class does not exist.
+		 */
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.startsWith(ISOLATED_PACKAGE)) {
+				return super.loadClass(name, resolve);
+			}
+			Class<?> c = findLoadedClass(name);
+
+			if (c == null) {
+				try {
+					c = findClass(name);
+				} catch (ClassNotFoundException e) {
+					c = super.loadClass(name, false);
+				}
+			}
+			if (resolve) {
+				resolveClass(c);
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * Replacement of System.out, which sends the output of every thread to the
+	 * output file of the run it executes, or to the console otherwise.
+	 */
+	private static final class RunOutputStream extends OutputStream {
+
+		/** the output of the current run, inherited by threads started by the run. */
+		private static final InheritableThreadLocal<OutputStream> TARGET = new InheritableThreadLocal<OutputStream>();
+
+		/** the original System.out. */
+		private static PrintStream console = System.out;
+
+		/** replaces System.out. */
+		private static synchronized void install() {
+			if (!(System.out instanceof RoutedPrintStream)) {
+				console = System.out;
+				System.setOut(new RoutedPrintStream(new RunOutputStream()));
+			}
+		}
+
+		/** @return the original System.out. */
+		private static PrintStream getConsole() {
+			return console;
+		}
+
+		/** @param out the output of the run executed by the current thread, null for the console. */
+		private static void setTarget(OutputStream out) {
+			TARGET.set(out);
+		}
+
+		/** @return the output stream of the current thread. */
+		private static OutputStream target() {
+			OutputStream out = TARGET.get();
+			return (out == null) ? console : out;
+		}
+
+		/**
+		 * @see java.io.OutputStream#write(int)
+		 * @param b the byte to write.
+		 * @throws IOException if writing fails.
+		 */
+		@Override
+		public void write(int b) throws IOException {
+			target().write(b);
+		}
+
+		/**
+		 * @see java.io.OutputStream#write(byte[], int, int)
+		 * @param b   the bytes to write.
+		 * @param off the offset of the first byte.
+		 * @param len the number of bytes.
+		 * @throws IOException if writing fails.
+		 */
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			target().write(b, off, len);
+		}
+
+		/**
+		 * @see java.io.OutputStream#flush()
+		 * @throws IOException if flushing fails.
+		 */
+		@Override
+		public void flush() throws IOException {
+			target().flush();
+		}
+	}
+
+	/** marker class of the installed System.out replacement. */
+	private static final class RoutedPrintStream extends PrintStream {
+
+		/** @param out the routing output stream. */
+		private RoutedPrintStream(OutputStream out) {
+			super(out, true);
+		}
+	}
+}
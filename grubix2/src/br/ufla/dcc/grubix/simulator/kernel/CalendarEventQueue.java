@@ -0,0 +1,263 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import br.ufla.dcc.grubix.xml.ConfigurationException;
+import br.ufla.dcc.grubix.xml.ShoXParameter;
+
+/**
+ * Event queue based on a calendar queue (R. Brown, 1988).
+ *
+ * The time axis is divided into days of equal width. An envelope is put into the
+ * bucket of its day, modulo the number of buckets, thus a bucket holds the envelopes
+ * of the same day of several "years". The queue searches the buckets starting at the
+ * day of the last removed envelope, so in the usual case only a few small buckets are
+ * touched per operation. Each bucket is a small heap, which keeps the envelopes of a
+ * day ordered by time and enqueue counter, even if many of them share the same time.
+ *
+ * The number of buckets is doubled or halved with the number of envelopes. On every
+ * resize, the day width is estimated from the spacing of the earliest envelopes.
+ */
+public class CalendarEventQueue implements EventQueue {
+
+	/** the minimal number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** the number of envelopes used to estimate the day width. */
+	private static final int SAMPLE_SIZE = 25;
+
+	/** width of a day, i.e. the time span covered by one bucket per year. */
+	@ShoXParameter(defaultValue = "1.0", description = "initial time span of a bucket, adapted on resize")
+	private double bucketWidth;
+
+	/** the buckets, each holding the envelopes of its days. */
+	private PriorityQueue<EventEnvelope>[] buckets;
+
+	/** number of envelopes in the queue. */
+	private int size;
+
+	/** time of the last removed envelope, no envelope in the queue is earlier. */
+	private double lastTime;
+
+	/** the day of lastTime, the search for the next envelope starts here. */
+	private long currentDay;
+
+	/** creates an empty calendar queue. */
+	public CalendarEventQueue() {
+		bucketWidth = 1.0;
+		buckets = createBuckets(MIN_BUCKETS);
+	}
+
+	/**
+	 * @see br.ufla.dcc.grubix.xml.Configurable#init()
+	 * @throws ConfigurationException if the bucket width is not positive.
+	 */
+	public void init() throws ConfigurationException {
+		if (!(bucketWidth > 0.0) || Double.isInfinite(bucketWidth)) {
+			throw new ConfigurationException("bucketWidth must be positive");
+		}
+		currentDay = day(lastTime);
+	}
+
+	/**
+	 * @param count the number of buckets.
+	 * @return new empty buckets.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static PriorityQueue<EventEnvelope>[] createBuckets(int count) {
+		PriorityQueue<EventEnvelope>[] result = new PriorityQueue[count];
+
+		for (int i = 0; i < count; i++) {
+			result[i] = new PriorityQueue<EventEnvelope>();
+		}
+		return result;
+	}
+
+	/**
+	 * @param time a point in time.
+	 * @return the number of the day containing the time.
+	 */
+	private long day(double time) {
+		return (long) Math.floor(time / bucketWidth);
+	}
+
+	/**
+	 * @param day the number of a day.
+	 * @return the bucket of the day.
+	 */
+	private PriorityQueue<EventEnvelope> bucketOf(long day) {
+		return buckets[(int) (day % buckets.length)];
+	}
+
+	/**
+	 * @see br.ufla.dcc.grubix.simulator.kernel.EventQueue#add(br.ufla.dcc.grubix.simulator.kernel.EventEnvelope)
+	 * @param e the envelope to insert.
+	 */
+	public final void add(EventEnvelope e) {
+		double time = e.getTime();
+
+		bucketOf(day(time)).add(e);
+		size++;
+
+		if (time < lastTime) {
+			// an envelope in the past of the calendar, restart the search there.
+			lastTime = time;
+			currentDay = day(time);
+		}
+		if (size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	/**
+	 * @see br.ufla.dcc.grubix.simulator.kernel.EventQueue#poll()
+	 * @return the first envelope or null if the queue is empty.
+	 */
+	public final EventEnvelope poll() {
+		if (size == 0) {
+			return null;
+		}
+
+		for (int i = 0; i < buckets.length; i++) {
+			long d = currentDay + i;
+			PriorityQueue<EventEnvelope> bucket = bucketOf(d);
+			EventEnvelope head = bucket.peek();
+
+			// the head is the earliest envelope of the bucket. If it belongs to this
+			// day, it is the earliest of all, since no envelope is before currentDay.
+			if ((head != null) && (day(head.getTime()) <= d)) {
+				return remove(bucket);
+			}
+		}
+
+		// nothing within a whole year, search the earliest envelope directly.
+		PriorityQueue<EventEnvelope> first = null;
+
+		for (PriorityQueue<EventEnvelope> bucket : buckets) {
+			EventEnvelope head = bucket.peek();
+
+			if ((head != null) && ((first == null) || (head.compareTo(first.peek()) < 0))) {
+				first = bucket;
+			}
+		}
+		return remove(first);
+	}
+
+	/**
+	 * removes the earliest envelope of the given bucket.
+	 *
+	 * @param bucket the bucket containing the earliest envelope of the queue.
+	 * @return the removed envelope.
+	 */
+	private EventEnvelope remove(PriorityQueue<EventEnvelope> bucket) {
+		EventEnvelope e = bucket.poll();
+
+		size--;
+		lastTime = e.getTime();
+		currentDay = day(lastTime);
+
+		if ((size < buckets.length / 2) && (buckets.length > MIN_BUCKETS)) {
+			resize(buckets.length / 2);
+		}
+		return e;
+	}
+
+	/**
+	 * redistributes all envelopes into the given number of buckets, using
+	 * a newly estimated day width.
+	 *
+	 * @param count the new number of buckets.
+	 */
+	private void resize(int count) {
+		List<EventEnvelope> all = new ArrayList<EventEnvelope>(size);
+
+		for (PriorityQueue<EventEnvelope> bucket : buckets) {
+			all.addAll(bucket);
+		}
+
+		bucketWidth = estimateWidth(all);
+		buckets = createBuckets(count);
+		currentDay = day(lastTime);
+
+		for (EventEnvelope e : all) {
+			bucketOf(day(e.getTime())).add(e);
+		}
+	}
+
+	/**
+	 * estimates a good day width: three times the average spacing of the
+	 * earliest envelopes, ignoring unusually large gaps (as proposed by Brown).
+	 *
+	 * @param all all envelopes of the queue.
+	 * @return the new day width, the current one if no estimation is possible.
+	 */
+	private double estimateWidth(List<EventEnvelope> all) {
+		// keep the earliest envelopes, the latest of them at the head.
+		PriorityQueue<EventEnvelope> earliest =
+			new PriorityQueue<EventEnvelope>(SAMPLE_SIZE + 1, Collections.reverseOrder());
+
+		for (EventEnvelope e : all) {
+			earliest.add(e);
+			if (earliest.size() > SAMPLE_SIZE) {
+				earliest.poll();
+			}
+		}
+		if (earliest.size() < 2) {
+			return bucketWidth;
+		}
+
+		double[] times = new double[earliest.size()];
+		for (int i = times.length - 1; i >= 0; i--) {
+			times[i] = earliest.poll().getTime();
+		}
+
+		double average = (times[times.length - 1] - times[0]) / (times.length - 1);
+		double sum = 0.0;
+		int n = 0;
+
+		for (int i = 1; i < times.length; i++) {
+			double gap = times[i] - times[i - 1];
+
+			if (gap <= 2.0 * average) {
+				sum += gap;
+				n++;
+			}
+		}
+
+		double width = 3.0 * sum / n;
+
+		if (!(width > 0.0) || Double.isInfinite(width)) {
+			return bucketWidth;
+		}
+		return width;
+	}
+
+	/**
+	 * @see br.ufla.dcc.grubix.simulator.kernel.EventQueue#size()
+	 * @return the current number of envelopes in the queue.
+	 */
+	public final int size() {
+		return size;
+	}
+}
@@ -116,19 +116,16 @@ public final class Configuration implements Configurable, Serializable {
 	private static transient final Logger LOGGER = Logger.getLogger(Configuration.class);
 
 	/**
-	 * singleton configuration instance.
-	 */
-	private static Configuration configuration;
-
-	/**
-	 * access method to the singleton configuration instance.
+	 * access method to the configuration of the current simulation.
 	 * If no configuration is read from the file system, this call throws an {@link IllegalStateException}.
 	 * Before invoking getInstance the method readConfig must be called.
 	 * 
 	 * @see Configuration#readConfig(String)
-	 * @return the configuration singleton instance
+	 * @see SimulationContext#current()
+	 * @return the configuration of the current simulation
 	 */
 	public static Configuration getInstance() {
+		Configuration configuration = SimulationContext.current().getConfiguration();
 		if (configuration == null) {
 			throw new IllegalStateException("configuration not set yet");
 		}
@@ -138,7 +135,8 @@ public final class Configuration implements Configurable, Serializable {
 	/**
 	 * reads the whole configuration from an xml file.
 	 * 
-	 * A side effect of this method is that the configuration singleton instance is set.
+	 * A side effect of this method is that the configuration of the current simulation
+	 * context is set.
 	 * 
 	 * @param pathToConfig Path to the config xml file.
 	 * @return a new configuration object with parameters set.
@@ -150,7 +148,8 @@ public final class Configuration implements Configurable, Serializable {
 		LOGGER.info("Configuration attempts to read file from: " + pathToConfig
 				+ ".");
 		ConfigurationReader reader = new ConfigurationReader(pathToConfig);
-		configuration = reader.getNewConfiguration();
+		Configuration configuration = reader.getNewConfiguration();
+		SimulationContext.current().setConfiguration(configuration);
 
 		LOGGER.info("Configuration read.");
 		return configuration;
@@ -222,6 +221,12 @@ public final class Configuration implements Configurable, Serializable {
 	@ShoXParameter(required = true)
 	private long simulationTime;
 
+	/** 
+	 * The number of events after which the simulation ends, 0 for no limit. 
+	 */
+	@ShoXParameter(defaultValue = "0")
+	private long maxEvents;
+
 	/** 
 	 * The number of simulation steps per real-world second. This value represents
 	 * the "granularity" of the simulation.
@@ -265,6 +270,20 @@ public final class Configuration implements Configurable, Serializable {
 	@ShoXParameter(description = "suppresses the neighborhood detection", defaultValue="false")
 	private boolean suppressNeighborhoodDetection;
 
+	/**
+	 * lets the AirModule drop incoming transmissions at once, if the physical layer of the
+	 * receiver does not listen when the transmission starts at the sender (see
+	 * {@link br.ufla.dcc.grubix.simulator.node.PhysicalLayer#isListening()}). The channel
+	 * occupancy is still recorded for the carrier sense, and the physical layer learns about
+	 * it when the transmission has arrived, but the transmission is not received. A radio
+	 * switched on after the start at the sender misses the transmission, which it could
+	 * receive otherwise: within the propagation delay, if the AirModule checks the radio state
+	 * of the physical layer when the transmission begins, and up to the arrival, if the
+	 * physical layer keeps a radio state of its own and checks it in lowerSAP.
+	 */
+	@ShoXParameter(description = "drop transmissions to sleeping receivers at once", defaultValue="false")
+	private boolean skipSleepingReceivers;
+
 //	/**	
 //	 * Indicates whether the DATA of LoggableData objects should be logged, too. 
 //	 */
@@ -390,6 +409,57 @@ public final class Configuration implements Configurable, Serializable {
 	@ShoXParameter(description = "history logger", defaultClass = CompactFileLogger.class)
 	private ShoxLogger historyLogger;
 	
+	/**
+	 * size of the ring buffer for writing the history in a background thread,
+	 * 0 to write it in the simulation thread.
+	 */
+	@ShoXParameter(defaultValue = "0")
+	private int asyncBuffer;
+	
+	/**
+	 * what to do if the ring buffer of the background history writer is full,
+	 * "block" to wait for the writer or "drop" to skip the entry.
+	 */
+	@ShoXParameter(defaultValue = AsyncHistoryLogger.BLOCK)
+	private String asyncBackPressure;
+	
+	/**
+	 * whether to aggregate the statistics in the metrics registry of the simulation
+	 * and to write its summary at the end of the simulation.
+	 */
+	@ShoXParameter(defaultValue = "false")
+	private boolean metrics;
+	
+	/**
+	 * file for the summary of the metrics, the summary is logged if empty.
+	 */
+	@ShoXParameter(defaultValue = "")
+	private String metricsFile;
+	
+	/**
+	 * whether to write every statistics entry to the statistics log. 
+	 */
+	@ShoXParameter(defaultValue = "true")
+	private boolean rawStatistics;
+	
+	/**
+	 * whether to measure the time of the event deliveries, see {@link EventProfiler}.
+	 */
+	@ShoXParameter(defaultValue = "false")
+	private boolean profiling;
+	
+	/**
+	 * file for the profile report, the report is logged if empty.
+	 */
+	@ShoXParameter(defaultValue = "")
+	private String profilingFile;
+	
+	/**
+	 * whether to compute a checksum over the delivered events, see {@link EventTraceChecksum}.
+	 */
+	@ShoXParameter(defaultValue = "false")
+	private boolean traceChecksum;
+	
 	/**
 	 * Live logging filter.
 	 */
@@ -414,6 +484,13 @@ public final class Configuration implements Configurable, Serializable {
 	@ShoXParameter(description = "random number generator", defaultClass = JavaRandomGenerator.class)
 	private RandomGenerator randomGenerator;
 	
+	/**
+	 * factory for the data structure holding the pending events, every simulation
+	 * manager gets its own queue.
+	 */
+	@ShoXParameter(description = "event queue implementation", defaultClass = HeapEventQueue.class)
+	private ConfigurableFactory<EventQueue> eventQueueFactory;
+	
 	/** 
 	 * Private constructor of the class Configuration.  
 	 */
@@ -593,6 +670,15 @@ public final class Configuration implements Configurable, Serializable {
 		return simulationTime;
 	}
 
+	/**
+	 * Gets the number of events after which the simulation ends,
+	 * even if the simulation time is not reached yet.
+	 * @return the maximum number of delivered events, 0 for no limit
+	 */
+	public long getMaxEvents() {
+		return maxEvents;
+	}
+
 	/**
 	 * gets startPositions.
 	 * @return current startPositions
@@ -656,6 +742,10 @@ public final class Configuration implements Configurable, Serializable {
 	 */
 	public void init() {
 		propagationDelay = getSimulationSteps(1.0e-7); // artificial init value
+		
+		if ((asyncBuffer > 0) && (historyLogger != null)) {
+			historyLogger = new AsyncHistoryLogger(historyLogger, asyncBuffer, asyncBackPressure);
+		}
 	}
 
 	/**
@@ -666,6 +756,48 @@ public final class Configuration implements Configurable, Serializable {
 		return log;
 	}
 	
+	/**
+	 * @return true if the statistics are aggregated in the metrics registry.
+	 */
+	public boolean isMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * @return file for the summary of the metrics, empty to log the summary.
+	 */
+	public String getMetricsFile() {
+		return metricsFile;
+	}
+	
+	/**
+	 * @return true if every statistics entry is written to the statistics log.
+	 */
+	public boolean isRawStatistics() {
+		return rawStatistics;
+	}
+	
+	/**
+	 * @return true if the time of the event deliveries is measured.
+	 */
+	public boolean isProfiling() {
+		return profiling;
+	}
+	
+	/**
+	 * @return file for the profile report, empty to log the report.
+	 */
+	public String getProfilingFile() {
+		return profilingFile;
+	}
+	
+	/**
+	 * @return true if a checksum over the delivered events is computed.
+	 */
+	public boolean isTraceChecksum() {
+		return traceChecksum;
+	}
+	
 	/**
 	 * Returns the set simulator ID, if none is set by the configuration file, "default" is returned.
 	 * @return simulator ID, if none is set by the configuration file, "default" is returned
@@ -717,6 +849,14 @@ public final class Configuration implements Configurable, Serializable {
 		return randomGenerator;
 	}
 
+	/**
+	 * @return a new, empty instance of the data structure holding the pending events.
+	 * @throws ConfigurationException if the configured queue can not be created.
+	 */
+	public EventQueue createEventQueue() throws ConfigurationException {
+		return eventQueueFactory.newInstance();
+	}
+
 	/**
 	 * returns the simulation kernel.
 	 * @return the kernel
@@ -761,6 +901,13 @@ public final class Configuration implements Configurable, Serializable {
 		return suppressNeighborhoodDetection;
 	}
 
+	/**
+	 * @return the skipSleepingReceivers
+	 */
+	public boolean isSkipSleepingReceivers() {
+		return skipSleepingReceivers;
+	}
+
 	/**
 	 * @return the observerFactory
 	 */
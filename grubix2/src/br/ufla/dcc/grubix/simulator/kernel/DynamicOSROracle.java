@@ -19,9 +19,11 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 package br.ufla.dcc.grubix.simulator.kernel;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
 
 import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.node.Node;
@@ -30,17 +32,47 @@ import br.ufla.dcc.grubix.simulator.node.Node;
 
 
 /**
- * This class computes a shortest path between two nodes using Dijkstra's Shortest Path
- * algorithm. As such, it needs global knowledge about the whole network topology at a
- * given time which can be obtained from the SimulationManager. While the All-Pairs-Shortest-Path
- * Algorithm in StaticOSROracle is more efficient for static scenarios, this class is
+ * This class computes a shortest path between two nodes using a breadth first search,
+ * since all links count as one hop. As such, it needs global knowledge about the whole
+ * network topology at a given time which can be obtained from the SimulationManager.
+ * While the StaticOSROracle is more efficient for static scenarios, this class is
  * more efficient for dynamic cases.
+ * 
+ * The search trees of recently used sources are cached until the topology version of
+ * the SimulationManager changes, i.e. until some node moved. Among equally short paths
+ * the one using the predecessors with the smallest ids is chosen, which is the path the
+ * former Dijkstra implementation returned.
  * @author jlsx
  */
 public class DynamicOSROracle extends OSROracle {
 
+	/** maximum number of search trees kept in the cache. */
+	private static final int MAX_CACHED_SOURCES = 256;
+
+	/** marks an unknown predecessor or hop count. */
+	private static final int NONE = -1;
+
+	/** the search trees of the recently used sources, indexed by the int value of the source id. */
+	private final Map<Integer, int[]> cache = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+			return size() > MAX_CACHED_SOURCES;
+		}
+	};
+
+	/** the topology version the cached search trees belong to. */
+	private long topologyVersion = NONE;
+
+	/** number of hops from the current source, reused by every search. */
+	private int[] hops = new int[0];
+
+	/** queue of the breadth first search, reused by every search. */
+	private int[] queue = new int[0];
+
 	/**
-	 * Method to resolve the shortest path between two nodes according to Dijkstra.
+	 * Method to resolve the shortest path between two nodes.
 	 * @param from The starting node.
 	 * @param to   The end node.
 	 * @return The complete path, if it exists or null.
@@ -53,58 +85,91 @@ public class DynamicOSROracle extends OSROracle {
 			return path;
 		}
 		
-		Node source = SimulationManager.getInstance().queryNodeById(from);
-		Node dest = SimulationManager.getInstance().queryNodeById(to);
+		int[] previous = getSearchTree(from);
+		int target = to.asInt();
 		
-		if (source.getNeighbors().contains(dest)) {
-			ArrayList<NodeId> path = new ArrayList<NodeId>();
-			path.add(to);
-			return path;
+		if ((target >= previous.length) || (previous[target] == NONE)) {
+			// we do not have a connected path between from and to
+			return null;
 		}
 		
-		PriorityQueue<OSRDistance> pq = new PriorityQueue<OSRDistance>();
-		HashMap<NodeId, Integer> distMap = new HashMap<NodeId, Integer>();
-		HashMap<NodeId, NodeId> previous = new HashMap<NodeId, NodeId>();
-		for (Node n : SimulationManager.getAllNodes().values()) {
-			if (!n.equals(source)) {
-				OSRDistance osrDist = new OSRDistance(n, Integer.MAX_VALUE - 1);
-				pq.add(osrDist);
-				distMap.put(n.getId(), Integer.MAX_VALUE - 1);
-			}
+		ArrayList<NodeId> path = new ArrayList<NodeId>();
+		int current = target;
+		
+		while (current != from.asInt()) {
+			path.add(NodeId.get(current));
+			current = previous[current];
 		}
-		pq.add(new OSRDistance(source, 0));
-		distMap.put(source.getId(), 0);
 		
-		while (!pq.isEmpty()) {
-			OSRDistance dist = pq.poll();
-			Node u = dist.getNode();
-			if (u.getId().equals(to)) {
-				// we can terminate
-				ArrayList<NodeId> path = new ArrayList<NodeId>();
-				path.add(0, to);
-				NodeId currentNode = previous.get(to);
-				while (!(currentNode == null) && !currentNode.equals(from)) {
-					path.add(0, currentNode);
-					currentNode = previous.get(currentNode);
-				}
-				if (currentNode == null) {
-					// we do not have a connected path between from and to
-					return null;
-				}
-				return path;
-			} else {
-				for (Node v : u.getNeighbors()) {
-					int test = dist.getDistance() + 1;
-					int old = distMap.get(v.getId());
-					if (test < old) {
-						pq.remove(new OSRDistance(v, old));
-						pq.add(new OSRDistance(v, test));
-						distMap.put(v.getId(), test);
-						previous.put(v.getId(), u.getId());
-					}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * returns the search tree of the given source, computing it if not cached.
+	 * The cache is dropped first, if the topology has changed since it was filled.
+	 * 
+	 * @param from the source node.
+	 * @return the predecessor of every node on its shortest path from the source.
+	 */
+	private int[] getSearchTree(NodeId from) {
+		long version = SimulationManager.getInstance().getTopologyVersion();
+		
+		if (version != topologyVersion) {
+			cache.clear();
+			topologyVersion = version;
+		}
+		
+		int[] previous = cache.get(from.asInt());
+		
+		if (previous == null) {
+			previous = search(from);
+			cache.put(from.asInt(), previous);
+		}
+		return previous;
+	}
+
+	/**
+	 * breadth first search from the given node over the current neighbor lists.
+	 * 
+	 * @param from the source node.
+	 * @return the predecessor of every node on its shortest path from the source,
+	 *         NONE for the source and unreachable nodes.
+	 */
+	private int[] search(NodeId from) {
+		SimulationManager manager = SimulationManager.getInstance();
+		int size = SimulationManager.getAllNodes().lastKey().asInt() + 1;
+		
+		if (hops.length < size) {
+			hops = new int[size];
+			queue = new int[size];
+		}
+		Arrays.fill(hops, NONE);
+		
+		int[] previous = new int[size];
+		Arrays.fill(previous, NONE);
+		
+		int head = 0, tail = 0;
+		
+		hops[from.asInt()] = 0;
+		queue[tail++] = from.asInt();
+		
+		while (head < tail) {
+			int u = queue[head++];
+			Node node = manager.queryNodeById(NodeId.get(u));
+			
+			for (Node neighbor : node.getNeighbors()) {
+				int v = neighbor.getId().asInt();
+				
+				if (hops[v] == NONE) {
+					hops[v] = hops[u] + 1;
+					previous[v] = u;
+					queue[tail++] = v;
+				} else if ((hops[v] == hops[u] + 1) && (u < previous[v])) {
+					previous[v] = u;
 				}
 			}
 		}
-		return null;
+		return previous;
 	}
 }
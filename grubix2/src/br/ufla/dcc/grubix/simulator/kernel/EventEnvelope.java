@@ -18,7 +18,9 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator.kernel;
 
+import br.ufla.dcc.grubix.simulator.LayerType;
 import br.ufla.dcc.grubix.simulator.event.Event;
+import br.ufla.dcc.grubix.simulator.node.Node;
 
 /** 
  * Abstract superclass for all Envelopes.
@@ -35,7 +37,7 @@ import br.ufla.dcc.grubix.simulator.event.Event;
  * 
  * @author Andreas Kumlehn
  */
-public abstract class EventEnvelope implements Comparable<EventEnvelope> {
+public abstract class EventEnvelope implements Comparable<EventEnvelope>, EventHandle {
 	
 	/**
 	 * magic number for enqueueCounter to denote a not fully initized object state.
@@ -60,6 +62,9 @@ public abstract class EventEnvelope implements Comparable<EventEnvelope> {
 	 */ 
 	private long enqueueCounter;
 	
+	/** true, if the envelope was cancelled and is not to be delivered. */
+	private boolean cancelled;
+	
 	/**
 	 * Protected constructor of the class EventEnvelope.
 	 * 
@@ -89,6 +94,16 @@ public abstract class EventEnvelope implements Comparable<EventEnvelope> {
 		return event;
 	}
 
+	/** @return the node the event is delivered to, null if it is not delivered to a node. */
+	protected Node getTargetNode() {
+		return null;
+	}
+
+	/** @return the layer the event is delivered to, null if it is not delivered to a layer. */
+	protected LayerType getTargetLayer() {
+		return null;
+	}
+
 	/** @return The TIMESTAMP when the envelope should be delivered. */
 	public final double getTime() {
 		return time;
@@ -111,6 +126,20 @@ public abstract class EventEnvelope implements Comparable<EventEnvelope> {
 		return this.enqueueCounter;
 	}
 
+	/**
+	 * cancels the envelope, the EventEnvelopeQueue will drop it instead of returning it.
+	 */
+	public final void cancel() {
+		this.cancelled = true;
+	}
+	
+	/**
+	 * @return true, if the envelope was cancelled.
+	 */
+	public final boolean isCancelled() {
+		return this.cancelled;
+	}
+
 	/**
 	 * Implementation of Comparable<EventEnvelope> interface.
 	 * Needed for insertion into PriorityQueue.
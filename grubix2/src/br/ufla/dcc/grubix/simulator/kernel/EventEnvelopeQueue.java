@@ -18,19 +18,19 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator.kernel;
 
-import java.util.PriorityQueue;
-
 import br.ufla.dcc.grubix.debug.compactlogging.ShoxLogger;
 import br.ufla.dcc.grubix.debug.logging.LogFilter;
 import br.ufla.dcc.grubix.simulator.Position;
 import br.ufla.dcc.grubix.simulator.event.Loggable;
 import br.ufla.dcc.grubix.simulator.event.Movement;
+import br.ufla.dcc.grubix.xml.ConfigurationException;
+import br.ufla.dcc.grubix.xml.ConfigurationRuntimeException;
 
 
 
 /** 
  * Class to queue all events during SIMULATION.
- * This class encapsulates a priority queue.
+ * This class encapsulates the EventQueue chosen in the configuration.
  * The stored events are stored inside an EventEnvelope. An envelope
  * stores further DATA for an event. The key to organize is the TIMESTAMP of
  * an envelope. 
@@ -40,14 +40,14 @@ import br.ufla.dcc.grubix.simulator.event.Movement;
 public class EventEnvelopeQueue {
 	
 	/**
-	 * The encapsulated PriorityQueue.
+	 * Global configuration.
 	 */
-	private final PriorityQueue<EventEnvelope> queue;
+	private Configuration configuration = Configuration.getInstance();
 	
 	/**
-	 * Global configuration.
+	 * The encapsulated EventQueue.
 	 */
-	private Configuration configuration = Configuration.getInstance();
+	private final EventQueue queue;
 	/**
 	 * Live Log filter of global configuration.
 	 */
@@ -65,7 +65,11 @@ public class EventEnvelopeQueue {
 	 * @param history ShoxLogger for logging events.
 	 */
 	public EventEnvelopeQueue(ShoxLogger history) {
-		 this.queue = new PriorityQueue<EventEnvelope>();
+		 try {
+			 this.queue = configuration.createEventQueue();
+		 } catch (ConfigurationException e) {
+			 throw new ConfigurationRuntimeException("the event queue can not be created", e);
+		 }
 		 this.history = history;
 		 this.counter = 0;
 	}
@@ -86,7 +90,7 @@ public class EventEnvelopeQueue {
 					// is loggable
 					Loggable log = (Loggable) e;
 
-					int prio = liveLogFilter.getEventTypePriority(e.getEvent().getClass().getName());
+					int prio = liveLogFilter.getEventTypePriority(e.getEvent().getClass());
 
 					// class should be logged?		
 					if (prio != LogFilter.PRIORITY_OFF) {
@@ -111,16 +115,23 @@ public class EventEnvelopeQueue {
 	
 	/**
 	 * Retrieves and removes the head of this queue, or returns null if this queue is empty.
+	 * Cancelled envelopes are dropped on the way.
 	 * Non static therefore only access via reference and not from nodes.
 	 * 
 	 * @return Head of this queue or null if empty.
 	 */
 	public final EventEnvelope poll() {
-		return queue.poll();
+		EventEnvelope e = queue.poll();
+		
+		while ((e != null) && e.isCancelled()) {
+			e = queue.poll();
+		}
+		return e;
 	}
 	
 	/**
-	 * @return The current number of elements in the queue.
+	 * @return The current number of elements in the queue, including cancelled
+	 * ones not yet dropped.
 	 */
 	public final int getSize() {
 		return queue.size();
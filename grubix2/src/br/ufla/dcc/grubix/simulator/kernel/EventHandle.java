@@ -0,0 +1,36 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+/**
+ * Handle of an event placed in the event queue, e.g. a timeout sent via
+ * Layer.sendEventSelf. A cancelled event is dropped by the queue instead of
+ * being delivered, so outdated timeouts need not be checked and ignored by the
+ * receiving layer.
+ *
+ * Cancelling an event which was already delivered has no effect.
+ */
+public interface EventHandle {
+
+	/** cancels the event, it will not be delivered. */
+	void cancel();
+
+	/** @return true, if the event was cancelled. */
+	boolean isCancelled();
+}
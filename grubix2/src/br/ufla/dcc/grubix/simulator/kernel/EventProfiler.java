@@ -0,0 +1,341 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.metrics.TimeSeries;
+import br.ufla.dcc.grubix.simulator.node.Node;
+
+/**
+ * Measures the wall-clock time of the event deliveries of the simulation loop.
+ *
+ * The deliveries are grouped by event class, target layer and envelope class; for every group
+ * the count, the total and the maximum time are kept in primitive arrays. The time of a delivery
+ * includes everything done while delivering it, e.g. the deliveries of a transmission to the
+ * receivers within the physical layer of the sender. Additionally the time per node is summed
+ * up and the size of the event queue is sampled over the simulated time.
+ *
+ * The costs per event are two calls of System.nanoTime() and an identity hash lookup of the
+ * event class, so profiling can be left on for long runs. At the end of the simulation a
+ * report sorted by total time is written.
+ */
+public final class EventProfiler {
+
+	/** Logger of the class. */
+	private static final Logger LOGGER = Logger.getLogger(EventProfiler.class);
+
+	/** the queue size is sampled every 2^QUEUE_SAMPLE_BITS deliveries. */
+	private static final int QUEUE_SAMPLE_BITS = 10;
+
+	/** number of nodes listed in the report. */
+	private static final int REPORTED_NODES = 10;
+
+	/** the layers including null (for deliveries not to a layer) at index 0. */
+	private static final int LAYERS = LayerType.values().length + 1;
+
+	/**
+	 * the groups of one event class, one slot per target layer and envelope class.
+	 */
+	private static final class Groups {
+		/** the envelope class of the groups. */
+		private final Class< ? > envelopeClass;
+
+		/** index of the group per layer ordinal + 1, -1 if not created yet. */
+		private final int[] byLayer = new int[LAYERS];
+
+		/** groups of the same event class with another envelope class. */
+		private Groups next;
+
+		/**
+		 * @param envelopeClass the envelope class of the groups.
+		 */
+		private Groups(Class< ? > envelopeClass) {
+			this.envelopeClass = envelopeClass;
+			Arrays.fill(byLayer, -1);
+		}
+	}
+
+	/** groups by event class. */
+	private final IdentityHashMap<Class< ? >, Groups> groups = new IdentityHashMap<Class< ? >, Groups>();
+
+	/** number of groups. */
+	private int size;
+
+	/** event class per group. */
+	private Class< ? >[] eventClasses = new Class< ? >[16];
+
+	/** envelope class per group. */
+	private Class< ? >[] envelopeClasses = new Class< ? >[16];
+
+	/** target layer per group, null if none. */
+	private LayerType[] layers = new LayerType[16];
+
+	/** number of deliveries per group. */
+	private long[] counts = new long[16];
+
+	/** total time in nanoseconds per group. */
+	private long[] totals = new long[16];
+
+	/** maximum time in nanoseconds per group. */
+	private long[] maxima = new long[16];
+
+	/** number of deliveries per node id. */
+	private long[] nodeCounts = new long[64];
+
+	/** total time in nanoseconds per node id. */
+	private long[] nodeTotals = new long[64];
+
+	/** mean queue size over the simulated time. */
+	private final TimeSeries queueSizes;
+
+	/** number of recorded deliveries. */
+	private long deliveries;
+
+	/** start of the current delivery. */
+	private long start;
+
+	/**
+	 * @param simulationTime the simulated time in steps, for the queue size series.
+	 */
+	public EventProfiler(double simulationTime) {
+		queueSizes = new TimeSeries(Math.max(simulationTime, 1.0) / TimeSeries.DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * to be called immediately before an envelope is delivered.
+	 * 
+	 * @param time the current simulation time.
+	 * @param queue the event queue, sampled from time to time.
+	 */
+	public void begin(double time, EventEnvelopeQueue queue) {
+		if ((deliveries & ((1 << QUEUE_SAMPLE_BITS) - 1)) == 0) {
+			queueSizes.add(time, queue.getSize());
+		}
+		start = System.nanoTime();
+	}
+
+	/**
+	 * to be called immediately after an envelope was delivered.
+	 * 
+	 * @param envelope the delivered envelope.
+	 */
+	public void end(EventEnvelope envelope) {
+		long nanos = System.nanoTime() - start;
+		deliveries++;
+
+		LayerType layer = envelope.getTargetLayer();
+		int group = getGroup(envelope.getEvent().getClass(), envelope.getClass(), layer);
+		counts[group]++;
+		totals[group] += nanos;
+		if (nanos > maxima[group]) {
+			maxima[group] = nanos;
+		}
+
+		Node node = envelope.getTargetNode();
+		if (node != null) {
+			int id = node.getId().asInt();
+			if (id >= nodeCounts.length) {
+				int length = Math.max(id + 1, 2 * nodeCounts.length);
+				nodeCounts = grow(nodeCounts, length);
+				nodeTotals = grow(nodeTotals, length);
+			}
+			if (id >= 0) {
+				nodeCounts[id]++;
+				nodeTotals[id] += nanos;
+			}
+		}
+	}
+
+	/**
+	 * @param array  the array to copy.
+	 * @param length the length of the copy, not smaller than the length of the array.
+	 * @return a longer copy of the array.
+	 */
+	private static long[] grow(long[] array, int length) {
+		long[] copy = new long[length];
+		
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	/**
+	 * returns the index of a group, creating it if necessary.
+	 * 
+	 * @param eventClass class of the event.
+	 * @param envelopeClass class of the envelope.
+	 * @param layer target layer, may be null.
+	 * @return the index of the group.
+	 */
+	private int getGroup(Class< ? > eventClass, Class< ? > envelopeClass, LayerType layer) {
+		Groups g = groups.get(eventClass);
+		if (g == null) {
+			g = new Groups(envelopeClass);
+			groups.put(eventClass, g);
+		}
+		while (g.envelopeClass != envelopeClass) {
+			if (g.next == null) {
+				g.next = new Groups(envelopeClass);
+			}
+			g = g.next;
+		}
+		int slot = (layer == null) ? 0 : layer.ordinal() + 1;
+		int group = g.byLayer[slot];
+		if (group < 0) {
+			group = addGroup(eventClass, envelopeClass, layer);
+			g.byLayer[slot] = group;
+		}
+		return group;
+	}
+
+	/**
+	 * adds a group.
+	 * 
+	 * @param eventClass class of the event.
+	 * @param envelopeClass class of the envelope.
+	 * @param layer target layer, may be null.
+	 * @return the index of the new group.
+	 */
+	private int addGroup(Class< ? > eventClass, Class< ? > envelopeClass, LayerType layer) {
+		if (size == counts.length) {
+			int length = 2 * size;
+			Class< ? >[] events = new Class< ? >[length];
+			Class< ? >[] envelopes = new Class< ? >[length];
+			LayerType[] targets = new LayerType[length];
+			
+			System.arraycopy(eventClasses, 0, events, 0, size);
+			System.arraycopy(envelopeClasses, 0, envelopes, 0, size);
+			System.arraycopy(layers, 0, targets, 0, size);
+			eventClasses = events;
+			envelopeClasses = envelopes;
+			layers = targets;
+			counts = grow(counts, length);
+			totals = grow(totals, length);
+			maxima = grow(maxima, length);
+		}
+		eventClasses[size] = eventClass;
+		envelopeClasses[size] = envelopeClass;
+		layers[size] = layer;
+		return size++;
+	}
+
+	/** @return the number of recorded deliveries. */
+	public long getDeliveries() {
+		return deliveries;
+	}
+
+	/**
+	 * sorts indices by the given values, largest first.
+	 * 
+	 * @param values the values.
+	 * @param n number of used values.
+	 * @return the sorted indices.
+	 */
+	private static List<Integer> sortDescending(final long[] values, int n) {
+		List<Integer> order = new ArrayList<Integer>(n);
+		for (int i = 0; i < n; i++) {
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				long va = values[a];
+				long vb = values[b];
+				return (va > vb) ? -1 : ((va == vb) ? a.compareTo(b) : 1);
+			}
+		});
+		return order;
+	}
+
+	/**
+	 * @return the lines of the report.
+	 */
+	public List<String> getReport() {
+		List<String> lines = new ArrayList<String>();
+		long all = 0;
+		for (int i = 0; i < size; i++) {
+			all += totals[i];
+		}
+		lines.add("profile: " + deliveries + " deliveries, " + (all / 1000000) + " ms");
+		lines.add("     total ms      share       count     mean us      max us  event / layer / envelope");
+		for (int i : sortDescending(totals, size)) {
+			lines.add(String.format("%13.1f %9.1f%% %11d %11.2f %11.1f  %s / %s / %s", 
+					totals[i] / 1e6, (all > 0) ? 100.0 * totals[i] / all : 0.0, counts[i],
+					totals[i] / 1e3 / counts[i], maxima[i] / 1e3, eventClasses[i].getSimpleName(),
+					(layers[i] == null) ? "-" : layers[i].getShortName(), 
+					envelopeClasses[i].getSimpleName()));
+		}
+
+		List<Integer> nodes = sortDescending(nodeTotals, nodeTotals.length);
+		lines.add("     total ms      share       count  node");
+		for (int i = 0; (i < REPORTED_NODES) && (i < nodes.size()); i++) {
+			int id = nodes.get(i);
+			if (nodeCounts[id] > 0) {
+				lines.add(String.format("%13.1f %9.1f%% %11d  %d", nodeTotals[id] / 1e6, 
+						(all > 0) ? 100.0 * nodeTotals[id] / all : 0.0, nodeCounts[id], id));
+			}
+		}
+
+		StringBuilder queue = new StringBuilder("mean queue size per ");
+		queue.append(queueSizes.getWidth()).append(" steps:");
+		for (int i = 0; i < queueSizes.getBucketCount(); i++) {
+			long n = queueSizes.getCount(i);
+			queue.append(' ').append((n == 0) ? "-" : String.valueOf(Math.round(queueSizes.getSum(i) / n)));
+		}
+		lines.add(queue.toString());
+		return lines;
+	}
+
+	/**
+	 * Writes the report to the given file, or to the log if no file name is given.
+	 * 
+	 * @param fileName name of the file, empty or null to log the report
+	 */
+	public void writeReport(String fileName) {
+		List<String> lines = getReport();
+		if ((fileName == null) || (fileName.length() == 0)) {
+			for (String line : lines) {
+				LOGGER.info(line);
+			}
+			return;
+		}
+		try {
+			PrintWriter out = new PrintWriter(new FileWriter(fileName));
+			try {
+				for (String line : lines) {
+					out.println(line);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			LOGGER.error("could not write the profile to " + fileName, e);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import br.ufla.dcc.grubix.xml.Configurable;
+
+/**
+ * Data structure holding the pending event envelopes of the simulation.
+ *
+ * Implementations have to return the envelopes in the order defined by
+ * EventEnvelope.compareTo, i.e. by time and, for equal times, by the enqueue
+ * counter. This keeps the simulation deterministic, whatever implementation is
+ * chosen. The EventEnvelopeQueue sets the enqueue counter before an envelope is added.
+ *
+ * The implementation is selected in the configuration file by the element
+ * <code>eventqueue</code>, the default is the HeapEventQueue.
+ */
+public interface EventQueue extends Configurable {
+
+	/**
+	 * inserts an envelope.
+	 *
+	 * @param e the envelope to insert, never null.
+	 */
+	void add(EventEnvelope e);
+
+	/**
+	 * retrieves and removes the first envelope.
+	 *
+	 * @return the first envelope or null if the queue is empty.
+	 */
+	EventEnvelope poll();
+
+	/** @return the current number of envelopes in the queue. */
+	int size();
+}
@@ -0,0 +1,73 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.node.Node;
+
+/**
+ * A checksum over the sequence of delivered events: their time, the event class and the
+ * target node and layer. Two runs with the same checksum delivered the same events in the
+ * same order, so it detects changes of the behaviour of a simulation without writing a log.
+ *
+ * Only values which are stable between runs are used, the class names but not the
+ * identity hash codes of the classes.
+ */
+public final class EventTraceChecksum {
+
+	/** the multiplier of the 64 bit FNV hash. */
+	private static final long PRIME = 0x100000001b3L;
+
+	/** the current checksum. */
+	private long checksum = 0xcbf29ce484222325L;
+
+	/**
+	 * adds a delivered envelope to the checksum.
+	 *
+	 * @param envelope the envelope, before its delivery.
+	 */
+	public void update(EventEnvelope envelope) {
+		add(Double.doubleToLongBits(envelope.getTime()));
+		add(envelope.getEvent().getClass().getName().hashCode());
+
+		Node node = envelope.getTargetNode();
+		add((node == null) ? -1 : node.getId().asInt());
+		LayerType layer = envelope.getTargetLayer();
+		add((layer == null) ? -1 : layer.ordinal());
+	}
+
+	/**
+	 * adds a value to the checksum.
+	 *
+	 * @param value the value.
+	 */
+	private void add(long value) {
+		checksum = (checksum ^ value) * PRIME;
+	}
+
+	/** @return the checksum of the events delivered so far. */
+	public long getChecksum() {
+		return checksum;
+	}
+
+	/** @return the checksum as hexadecimal string. */
+	public String toString() {
+		return Long.toHexString(checksum);
+	}
+}
@@ -0,0 +1,65 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.util.PriorityQueue;
+
+import br.ufla.dcc.grubix.xml.ConfigurationException;
+
+/**
+ * Event queue based on a binary heap (java.util.PriorityQueue).
+ * This is the default event queue of the simulation.
+ */
+public class HeapEventQueue implements EventQueue {
+
+	/** the encapsulated PriorityQueue. */
+	private final PriorityQueue<EventEnvelope> queue = new PriorityQueue<EventEnvelope>();
+
+	/**
+	 * @see br.ufla.dcc.grubix.xml.Configurable#init()
+	 * @throws ConfigurationException never.
+	 */
+	public void init() throws ConfigurationException {
+		// nothing to do
+	}
+
+	/**
+	 * @see br.ufla.dcc.grubix.simulator.kernel.EventQueue#add(br.ufla.dcc.grubix.simulator.kernel.EventEnvelope)
+	 * @param e the envelope to insert.
+	 */
+	public final void add(EventEnvelope e) {
+		queue.add(e);
+	}
+
+	/**
+	 * @see br.ufla.dcc.grubix.simulator.kernel.EventQueue#poll()
+	 * @return the first envelope or null if the queue is empty.
+	 */
+	public final EventEnvelope poll() {
+		return queue.poll();
+	}
+
+	/**
+	 * @see br.ufla.dcc.grubix.simulator.kernel.EventQueue#size()
+	 * @return the current number of envelopes in the queue.
+	 */
+	public final int size() {
+		return queue.size();
+	}
+}
@@ -0,0 +1,221 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SortedMap;
+
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.Position;
+import br.ufla.dcc.grubix.simulator.node.Node;
+import br.ufla.dcc.grubix.simulator.physical.PhysicalModel;
+import br.ufla.dcc.grubix.simulator.physical.Reachability;
+
+/**
+ * Keeps the link budget of every sender, i.e. the receivers it reaches or interferes with
+ * and the reachability computed by the physical model for each of them. The links of a
+ * sender are computed on its first transmission and reused by the later ones, as long as
+ * the sender uses the same signal strength and no node near it moves.
+ *
+ * The physical models compute the reachability from the positions and the signal strength
+ * only and nobody modifies it afterwards, so the receivers of a transmission may share the
+ * reachability objects with earlier transmissions. The receivers are kept in the order of
+ * the candidates, i.e. of their ids, so the simulation run does not change.
+ */
+class LinkBudgetCache {
+
+	/**
+	 * The receivers of a sender for one signal strength.
+	 */
+	static final class Links {
+		
+		/** the signal strength the links were computed for. */
+		private final double signalStrength;
+		
+		/** the receivers, which are reached or interfered with, in ascending order of their ids. */
+		private final Node[] receivers;
+		
+		/** the reachability of each receiver. */
+		private final Reachability[] reachabilities;
+		
+		/** the number of receivers. */
+		private final int size;
+		
+		/**
+		 * @param signalStrength the signal strength the links were computed for.
+		 * @param receivers      the receivers.
+		 * @param reachabilities the reachability of each receiver.
+		 * @param size           the number of receivers.
+		 */
+		private Links(double signalStrength, Node[] receivers, Reachability[] reachabilities, int size) {
+			this.signalStrength = signalStrength;
+			this.receivers = receivers;
+			this.reachabilities = reachabilities;
+			this.size = size;
+		}
+		
+		/** @return the number of receivers. */
+		int getSize() {
+			return size;
+		}
+		
+		/**
+		 * @param i the index of the receiver, between 0 and {@link #getSize()} - 1.
+		 * @return the receiver.
+		 */
+		Node getReceiver(int i) {
+			return receivers[i];
+		}
+		
+		/**
+		 * @param i the index of the receiver, between 0 and {@link #getSize()} - 1.
+		 * @return the reachability of the receiver.
+		 */
+		Reachability getReachability(int i) {
+			return reachabilities[i];
+		}
+	}
+	
+	/** all nodes of the simulation. */
+	private final SortedMap<NodeId, Node> allNodes;
+
+	/** spatial index of all nodes, may be null. */
+	private final SpatialGrid grid;
+
+	/** the range of the physical model for the strongest signal of any node. */
+	private final double range;
+	
+	/** the links of every sender, indexed by the int value of its id, null if not computed. */
+	private Links[] links = new Links[0];
+	
+	/**
+	 * creates an empty cache.
+	 *
+	 * @param allNodes all nodes of the simulation.
+	 * @param grid     spatial index of the nodes, or null to consider all nodes.
+	 * @param range    the range of the physical model for the strongest signal of any node.
+	 */
+	LinkBudgetCache(SortedMap<NodeId, Node> allNodes, SpatialGrid grid, double range) {
+		this.allNodes = allNodes;
+		this.grid = grid;
+		this.range = range;
+	}
+	
+	/**
+	 * returns the links of a sender, which are computed, if there are none for the signal strength.
+	 *
+	 * @param sender         the sending node.
+	 * @param signalStrength the signal strength of the transmission.
+	 * @return the receivers, which are reached or interfered with.
+	 */
+	Links getLinks(Node sender, double signalStrength) {
+		int id = sender.getId().asInt();
+		
+		if (id >= links.length) {
+			Links[] grown = new Links[Math.max(id + 1, 2 * links.length)];
+			
+			System.arraycopy(links, 0, grown, 0, links.length);
+			links = grown;
+		}
+		
+		Links res = links[id];
+		
+		if ((res == null) || (res.signalStrength != signalStrength)) {
+			res = computeLinks(sender, signalStrength);
+			links[id] = res;
+		}
+		return res;
+	}
+	
+	/**
+	 * @param sender         the sending node.
+	 * @param signalStrength the signal strength of the transmission.
+	 * @return the receivers, which are reached or interfered with.
+	 */
+	private Links computeLinks(Node sender, double signalStrength) {
+		PhysicalModel pm = Configuration.getInstance().getPhysicalModel();
+		Collection<Node> candidates = allNodes.values();
+		
+		if (grid != null) {
+			double senderRange = pm.getMaximumRange(signalStrength);
+			
+			if (!Double.isInfinite(senderRange)) {
+				candidates = grid.getNodesInRange(sender.getPosition(), senderRange);
+			}
+		}
+		
+		Node[] receivers = new Node[candidates.size()];
+		Reachability[] reachabilities = new Reachability[candidates.size()];
+		int size = 0;
+		
+		for (Node receiver : candidates) {
+			if (!sender.equals(receiver)) {
+				Reachability reachability = pm.apply(receiver, sender, signalStrength);
+				
+				if (reachability.isInterfering() || reachability.isReachable()) {
+					receivers[size] = receiver;
+					reachabilities[size] = reachability;
+					size++;
+				}
+			}
+		}
+		Node[] reached = new Node[size];
+		Reachability[] reachedBy = new Reachability[size];
+		
+		System.arraycopy(receivers, 0, reached, 0, size);
+		System.arraycopy(reachabilities, 0, reachedBy, 0, size);
+		return new Links(signalStrength, reached, reachedBy, size);
+	}
+	
+	/**
+	 * drops the links of a moved node and of all senders around its old and its new position.
+	 * Without a grid, all links are dropped. The spatial grid has to be updated already.
+	 *
+	 * @param node        the moved node.
+	 * @param oldPosition the position of the node before the move.
+	 */
+	void nodeMoved(Node node, Position oldPosition) {
+		if ((grid == null) || Double.isInfinite(range)) {
+			Arrays.fill(links, null);
+			return;
+		}
+		
+		invalidate(node);
+		for (Node n : grid.getNodesInRange(oldPosition, range)) {
+			invalidate(n);
+		}
+		for (Node n : grid.getNodesInRange(node.getPosition(), range)) {
+			invalidate(n);
+		}
+	}
+	
+	/**
+	 * drops the links of a sender.
+	 *
+	 * @param sender the sending node.
+	 */
+	private void invalidate(Node sender) {
+		int id = sender.getId().asInt();
+		
+		if (id < links.length) {
+			links[id] = null;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.Position;
+import br.ufla.dcc.grubix.simulator.event.PhysicalLayerState;
+import br.ufla.dcc.grubix.simulator.node.Node;
+import br.ufla.dcc.grubix.simulator.node.PhysicalLayer;
+import br.ufla.dcc.grubix.simulator.node.RadioState;
+import br.ufla.dcc.grubix.simulator.physical.PhysicalModel;
+import br.ufla.dcc.grubix.simulator.physical.Reachability;
+
+/**
+ * Keeps the neighbor lists of all nodes up to date.
+ *
+ * The neighbors of a node are the nodes it reaches with its current signal strength.
+ * All lists are built once at startup, using the spatial grid to consider only
+ * nearby nodes. When a node moves, only the nodes around its old and its new
+ * position are re-evaluated: each of them may gain or lose the moved node as a
+ * neighbor, and the list of the moved node itself is rebuilt.
+ *
+ * The lists are only changed via Node.addNeighbor, removeNeighbor and clearNeighbours.
+ * Without a grid (unbounded physical model) all nodes are considered, as before.
+ */
+class NeighborhoodMaintainer {
+
+	/** all nodes of the simulation. */
+	private final SortedMap<NodeId, Node> allNodes;
+
+	/** spatial index of all nodes, may be null. */
+	private final SpatialGrid grid;
+
+	/** the range of the physical model for the strongest signal of any node. */
+	private final double range;
+
+	/**
+	 * creates a new maintainer.
+	 *
+	 * @param allNodes all nodes of the simulation.
+	 * @param grid     spatial index of the nodes, or null to consider all nodes.
+	 * @param range    the range of the physical model for the strongest signal of any node.
+	 */
+	NeighborhoodMaintainer(SortedMap<NodeId, Node> allNodes, SpatialGrid grid, double range) {
+		this.allNodes = allNodes;
+		this.grid = grid;
+		this.range = range;
+	}
+
+	/**
+	 * @param pos the center of interest.
+	 * @return all nodes, which may be within range of the given position.
+	 */
+	private Collection<Node> getCandidates(Position pos) {
+		if ((grid == null) || Double.isInfinite(range)) {
+			return allNodes.values();
+		}
+		return grid.getNodesInRange(pos, range);
+	}
+
+	/**
+	 * @param node a node.
+	 * @return the current state of its physical layer.
+	 */
+	private static PhysicalLayerState getPhyState(Node node) {
+		return (PhysicalLayerState) node.getLayerState(LayerType.PHYSICAL);
+	}
+
+	/**
+	 * @param node a node.
+	 * @return true, if the node ignores the radio state on neighborhood detection.
+	 */
+	private static boolean isIgnoreRadioState(Node node) {
+		return ((PhysicalLayer) node.getLayer(LayerType.PHYSICAL)).isIgnoreRadioStateOnNeighborhoodDetection();
+	}
+
+	/** builds the neighbor lists of all nodes. */
+	void detectAll() {
+		for (Node node : allNodes.values()) {
+			detect(node);
+		}
+	}
+
+	/**
+	 * rebuilds the neighbor list of a node.
+	 *
+	 * @param sender the node, which neighborhood should be detected.
+	 */
+	void detect(Node sender) {
+		if (sender.isSuspended()) {
+			// node is suspended, so it has no neighbors.
+			return;
+		}
+
+		boolean ig = isIgnoreRadioState(sender);
+
+		sender.clearNeighbours();
+
+		PhysicalLayerState phyState = getPhyState(sender);
+		double signalStrength = phyState.getCurrentSignalStrength();
+
+		if (ig || (phyState.getRadioState() != RadioState.OFF)) {
+			PhysicalModel pm = Configuration.getInstance().getPhysicalModel();
+
+			for (Node receiver : getCandidates(sender.getPosition())) {
+				if (!receiver.isSuspended() && (sender.getId().asInt() != receiver.getId().asInt())
+						&& (ig || (getPhyState(receiver).getRadioState() != RadioState.OFF))) {
+					Reachability reachability = pm.apply(receiver, sender, signalStrength);
+
+					if (reachability.isReachable()) {
+						sender.addNeighbor(receiver);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * checks, whether node <code>toBeChecked</code> is still a neighbor of node
+	 * <code>checker</code>. If not, it is removed from the neighbor list of the latter.
+	 *
+	 * @param checker     The node which is to check its neighborhood
+	 * @param toBeChecked The node which is to be checked as a neighbor
+	 */
+	void check(Node checker, Node toBeChecked) {
+		PhysicalLayerState phyState = getPhyState(checker);
+		PhysicalLayerState recPhyState = getPhyState(toBeChecked);
+
+		PhysicalModel pm = Configuration.getInstance().getPhysicalModel();
+		Reachability reachability = pm.apply(toBeChecked, checker, phyState.getCurrentSignalStrength());
+
+		boolean remove = !isIgnoreRadioState(checker);
+
+		if (remove) {
+			remove = (phyState.getRadioState() == RadioState.OFF) || (recPhyState.getRadioState() == RadioState.OFF);
+		}
+
+		if (!reachability.isReachable() || toBeChecked.isSuspended() || remove) {
+			checker.removeNeighbor(toBeChecked);
+		}
+	}
+
+	/**
+	 * adds node <code>toBeChecked</code> to the neighbor list of node <code>checker</code>,
+	 * if the latter reaches it now.
+	 *
+	 * @param checker     The node which is to check its neighborhood
+	 * @param toBeChecked The node which is to be checked as a neighbor
+	 */
+	private void checkNew(Node checker, Node toBeChecked) {
+		if (checker.isSuspended() || toBeChecked.isSuspended()) {
+			return;
+		}
+
+		boolean ig = isIgnoreRadioState(checker);
+		PhysicalLayerState phyState = getPhyState(checker);
+
+		if (!ig && ((phyState.getRadioState() == RadioState.OFF)
+				|| (getPhyState(toBeChecked).getRadioState() == RadioState.OFF))) {
+			return;
+		}
+
+		PhysicalModel pm = Configuration.getInstance().getPhysicalModel();
+		Reachability reachability = pm.apply(toBeChecked, checker, phyState.getCurrentSignalStrength());
+
+		if (reachability.isReachable()) {
+			checker.addNeighbor(toBeChecked);
+		}
+	}
+
+	/**
+	 * updates the neighborhood after a node has moved (or has been suspended or resumed).
+	 * The spatial grid has to be updated already.
+	 *
+	 * @param node        the moved node.
+	 * @param oldPosition the position of the node before the move.
+	 */
+	void nodeMoved(Node node, Position oldPosition) {
+		SortedMap<NodeId, Node> affected = new TreeMap<NodeId, Node>();
+
+		for (Node n : node.getNeighbors()) {
+			affected.put(n.getId(), n);
+		}
+		for (Node n : getCandidates(oldPosition)) {
+			affected.put(n.getId(), n);
+		}
+		for (Node n : getCandidates(node.getPosition())) {
+			affected.put(n.getId(), n);
+		}
+		affected.remove(node.getId());
+
+		for (Node other : affected.values()) {
+			List<Node> neighbors = other.getNeighbors();
+
+			if (neighbors.contains(node)) {
+				check(other, node);
+			} else {
+				checkNew(other, node);
+			}
+		}
+
+		detect(node);
+	}
+}
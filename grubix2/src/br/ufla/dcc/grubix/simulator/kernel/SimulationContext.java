@@ -0,0 +1,284 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.metrics.MetricsRegistry;
+import br.ufla.dcc.grubix.simulator.random.RandomGenerator;
+
+/**
+ * State of one simulation run: the configuration, the simulation manager with the
+ * clock and the event queue, the random generator and the counters for node, event
+ * and cluster ids.
+ *
+ * Nodes, layers and the kernel keep a reference to the context they were created in
+ * and use it directly. The static accessors (SimulationManager.getInstance(),
+ * Configuration.getInstance(), NodeId.get(), new EventId(), ...) are kept for
+ * compatibility and use the current context, which is the context bound to the
+ * calling thread, or the last created context if none is bound. So a single
+ * simulation behaves as before, while several simulations in one process only have
+ * to run in different threads, each of which has bound its own context.
+ *
+ * As long as only one context is bound and no other context was created after it, the
+ * shims return it without consulting the thread local binding, because they are called
+ * very often.
+ */
+public final class SimulationContext {
+
+	/** Logger of the class. */
+	private static final Logger LOGGER = Logger.getLogger(SimulationContext.class);
+
+	/** the context bound to a thread. */
+	private static final ThreadLocal<SimulationContext> BOUND = new ThreadLocal<SimulationContext>();
+
+	/** the last created context, used by threads without a bound context. */
+	private static volatile SimulationContext latest;
+
+	/** the contexts bound to any thread, one entry per binding thread. */
+	private static final List<SimulationContext> BINDINGS = new ArrayList<SimulationContext>();
+
+	/** the only bound context, null if none or several contexts are bound. */
+	private static volatile SimulationContext solo;
+
+	/** the configuration of the run, set when read. */
+	private Configuration configuration;
+
+	/** the simulation manager of the run. */
+	private SimulationManager manager;
+
+	/** int value of the next free NodeId. */
+	private int nextNodeId = 1;
+
+	/** int value of the next free EventId. */
+	private int nextEventId = 1;
+
+	/** int value of the next free ClusterId. */
+	private int nextClusterId = 1;
+
+	/** all node ids created in this run and the constants, to look them up by their int value. */
+	private final Map<Integer, NodeId> nodeIds = new HashMap<Integer, NodeId>();
+
+	/** objects shared by all nodes of the run, e.g. statistics of a protocol, by their class. */
+	private final Map<Class<?>, Object> shared = new HashMap<Class<?>, Object>();
+
+	/** the metrics of the run, created on first use. */
+	private MetricsRegistry metrics;
+
+	/** creates a new, empty context and makes it the current context of threads without a bound one. */
+	public SimulationContext() {
+		for (NodeId constant : NodeId.getConstants()) {
+			nodeIds.put(constant.asInt(), constant);
+		}
+		latest = this;
+	}
+
+	/**
+	 * @return the context bound to the calling thread or else the last created one,
+	 *         a new context if there is none yet.
+	 */
+	public static SimulationContext current() {
+		SimulationContext context = solo;
+
+		// threads without a binding get the last created context, which may be another one.
+		if ((context != null) && (context == latest)) {
+			return context;
+		}
+		context = BOUND.get();
+
+		if (context == null) {
+			context = latest;
+			if (context == null) {
+				synchronized (SimulationContext.class) {
+					if (latest == null) {
+						new SimulationContext();
+					}
+					context = latest;
+				}
+			}
+		}
+		return context;
+	}
+
+	/** binds this context to the calling thread, until unbind() is called. */
+	public void bind() {
+		unbind();
+		BOUND.set(this);
+		synchronized (BINDINGS) {
+			BINDINGS.add(this);
+			updateSolo();
+		}
+	}
+
+	/** removes the binding of the calling thread. */
+	public static void unbind() {
+		SimulationContext context = BOUND.get();
+
+		if (context != null) {
+			BOUND.remove();
+			synchronized (BINDINGS) {
+				BINDINGS.remove(context);
+				updateSolo();
+			}
+		}
+	}
+
+	/** sets the only bound context after a change of the bindings. */
+	private static void updateSolo() {
+		SimulationContext only = null;
+
+		for (SimulationContext context : BINDINGS) {
+			if ((only != null) && (only != context)) {
+				only = null;
+				break;
+			}
+			only = context;
+		}
+		solo = only;
+	}
+
+	/** @return the configuration of the run, null if not read yet. */
+	public Configuration getConfiguration() {
+		return configuration;
+	}
+
+	/** @param configuration the configuration of the run. */
+	void setConfiguration(Configuration configuration) {
+		this.configuration = configuration;
+	}
+
+	/** @return the simulation manager of the run, null if not created yet. */
+	public SimulationManager getManager() {
+		return manager;
+	}
+
+	/** @param manager the simulation manager of the run. */
+	void setManager(SimulationManager manager) {
+		this.manager = manager;
+	}
+
+	/** @return the current simulation time. */
+	public double getCurrentTime() {
+		return manager.getCurrentTime();
+	}
+
+	/** @return the interface of the nodes to the simulation. */
+	public SimulationKernel getKernel() {
+		return configuration.getKernel();
+	}
+
+	/** @return the random generator of the run. */
+	public RandomGenerator getRandom() {
+		return configuration.getRandomGenerator();
+	}
+
+	/** @return the int value of the next node id. */
+	public int nextNodeId() {
+		return nextNodeId++;
+	}
+
+	/**
+	 * stores a newly created node id for lookups.
+	 *
+	 * @param id the node id.
+	 */
+	public void putNodeId(NodeId id) {
+		nodeIds.put(id.asInt(), id);
+	}
+
+	/**
+	 * @param i the int value of a node id.
+	 * @return the node id, null if no such id was created.
+	 */
+	public NodeId getNodeId(int i) {
+		return nodeIds.get(i);
+	}
+
+	/** @return the int value of the next event id. */
+	public int nextEventId() {
+		return nextEventId++;
+	}
+
+	/** @return the int value of the next cluster id. */
+	public int nextClusterId() {
+		return nextClusterId++;
+	}
+
+	/**
+	 * returns the metrics of the run, the buckets of time series are one second wide initially.
+	 *
+	 * @return the metrics registry of the run.
+	 */
+	public synchronized MetricsRegistry getMetrics() {
+		if (metrics == null) {
+			metrics = new MetricsRegistry(configuration.getSimulationSteps(1.0));
+		}
+		return metrics;
+	}
+
+	/**
+	 * returns an object shared by all nodes of the run, replacement for JVM-wide singletons.
+	 *
+	 * @param <T>  the type of the object.
+	 * @param type the class of the object.
+	 * @return the object, null if none was stored yet.
+	 */
+	public synchronized <T> T getShared(Class<T> type) {
+		return type.cast(shared.get(type));
+	}
+
+	/**
+	 * stores an object shared by all nodes of the run.
+	 *
+	 * @param <T>    the type of the object.
+	 * @param type   the class of the object.
+	 * @param object the object, null to remove it.
+	 */
+	public synchronized <T> void putShared(Class<T> type, T object) {
+		shared.put(type, object);
+	}
+
+	/**
+	 * closes the shared objects which are Closeable, e.g. trace files of a protocol.
+	 * Called by the simulation manager at the end of the run; a failure is logged only.
+	 */
+	public void closeShared() {
+		List<Object> objects;
+		synchronized (this) {
+			objects = new ArrayList<Object>(shared.values());
+		}
+		for (Object object : objects) {
+			if (object instanceof Closeable) {
+				try {
+					((Closeable) object).close();
+				} catch (IOException e) {
+					LOGGER.error("could not close " + object.getClass().getName(), e);
+				}
+			}
+		}
+	}
+}
@@ -43,8 +43,9 @@ public interface SimulationKernel extends Configurable {
 	 * @param layer sending the event
 	 * @param event The event to place inside the queue.
 	 * @param toLayer Specific layer which should receive the event.
+	 * @return the handle to cancel the event.
 	 */
-	void enqueueEvent(Layer layer, ToLayer event, LayerType toLayer);
+	EventHandle enqueueEvent(Layer layer, ToLayer event, LayerType toLayer);
 
 	/**
 	 * @return the current simulation time
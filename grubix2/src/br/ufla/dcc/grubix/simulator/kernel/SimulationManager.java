@@ -20,6 +20,7 @@ package br.ufla.dcc.grubix.simulator.kernel;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -41,6 +42,7 @@ import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.Position;
 import br.ufla.dcc.grubix.simulator.TimedObject;
 import br.ufla.dcc.grubix.simulator.event.AppState;
+import br.ufla.dcc.grubix.simulator.event.Event;
 import br.ufla.dcc.grubix.simulator.event.Finalize;
 import br.ufla.dcc.grubix.simulator.event.Initialize;
 import br.ufla.dcc.grubix.simulator.event.Interference;
@@ -59,11 +61,11 @@ import br.ufla.dcc.grubix.simulator.event.ToLayer;
 import br.ufla.dcc.grubix.simulator.event.TrafficGeneration;
 import br.ufla.dcc.grubix.simulator.event.TrafficGeneratorEvent;
 import br.ufla.dcc.grubix.simulator.event.Transmission;
+import br.ufla.dcc.grubix.simulator.metrics.Gauge;
+import br.ufla.dcc.grubix.simulator.metrics.MetricsRegistry;
 import br.ufla.dcc.grubix.simulator.movement.NoMovement;
 import br.ufla.dcc.grubix.simulator.node.ApplicationState;
 import br.ufla.dcc.grubix.simulator.node.Node;
-import br.ufla.dcc.grubix.simulator.node.PhysicalLayer;
-import br.ufla.dcc.grubix.simulator.node.RadioState;
 import br.ufla.dcc.grubix.simulator.nodestartup.NodeStartupManager;
 import br.ufla.dcc.grubix.simulator.physical.PhysicalModel;
 import br.ufla.dcc.grubix.simulator.physical.Reachability;
@@ -76,12 +78,24 @@ import br.ufla.dcc.grubix.xml.XMLTags;
  * and controls the whole flow.
  * Eventhandling for the SIMULATION is done here.
  * 
+ * The events are processed strictly sequentially. A conservative parallel
+ * execution (spatial partitions synchronized with the propagation delay as
+ * lookahead) would not give the same results as this loop for the same seed:
+ * all nodes draw from the one random generator of the configuration, event ids
+ * are numbered in creation order and appear in the history log, and several
+ * protocols read the state of remote nodes directly via shared objects (e.g. the
+ * "Onisciente" classes) instead of via packets. To use several cores, run
+ * independent replications in parallel with the {@link BatchRunner}.
+ * 
  * @author Andreas Kumlehn
  */
 public class SimulationManager {
 
 	/** Logger for the class SimulationManager. */
 	private static final Logger LOGGER = Logger.getLogger(SimulationManager.class.getName());
+	
+	/** marks a missing enclosed packet in the log entries of events. */
+	public static final int NO_ID = Integer.MIN_VALUE;
 
 	/**
 	 * Logger for all history related entries.
@@ -92,8 +106,11 @@ public class SimulationManager {
 	/** The thread which executes this simulation manager within the ShoX GUI. */
 	private SimulationRunner runner;
 
-	/** Singleton to allow nodes to enqueue and transmit packets. */
-	private static SimulationManager instance = null;
+	/** The simulation this manager belongs to. */
+	private final SimulationContext context;
+
+	/** The configuration of the simulation. */
+	private final Configuration configuration;
 
 	/** Boolean whether simulation is running. */
 	private boolean running = true;
@@ -101,6 +118,9 @@ public class SimulationManager {
 	/** The current time of the simulation. */
 	private double currentTime = 0.0;
 
+	/** The number of delivered events. */
+	private long processedEvents = 0;
+
 	/** The writer for the statistics file. */
 	private ShoxLogger statisticsWriter;
 
@@ -114,26 +134,79 @@ public class SimulationManager {
 	private final EventEnvelopeQueue queue;
 
 	/**
-	 * Constructor of the class SimulationManager.
+	 * Spatial index of the node positions to find the possible receivers of a transmission.
+	 * Null, if the physical model can not bound its range.
+	 */
+	private SpatialGrid grid;
+
+	/** Keeps the neighbor lists of the nodes up to date. */
+	private NeighborhoodMaintainer neighborhood;
+
+	/** The receivers of every sender, null if the nodes may move. */
+	private LinkBudgetCache linkCache;
+
+	/** Counts the changes of the topology, i.e. of node positions and neighbor lists. */
+	private long topologyVersion = 0;
+
+	/** Measures the event deliveries, null if profiling is disabled. */
+	private EventProfiler profiler;
+
+	/** the checksum over the delivered events, null if not configured. */
+	private EventTraceChecksum checksum;
+
+	/** the metrics of the simulation, fetched by the first numeric statistic. */
+	private MetricsRegistry metrics;
+
+	/** the gauges of the logged statistics by node, layer and axis labels. */
+	private final Map<StatisticKey, Gauge> statisticGauges = new HashMap<StatisticKey, Gauge>();
+
+	/** key for the lookups in statisticGauges, reused so that logging a value allocates nothing. */
+	private final StatisticKey statisticProbe = new StatisticKey();
+
+	/**
+	 * Constructor of the class SimulationManager for the current simulation context.
 	 * 
 	 * @param history XMLWriter for logging the SIMULATION. Null if logging disabled.
 	 * @param allNodes A map containg all nodes of the SIMULATION.
 	 */
 	public SimulationManager(ShoxLogger history, SortedMap<NodeId, Node> allNodes) {
+		this(SimulationContext.current(), history, allNodes);
+	}
+
+	/**
+	 * Constructor of the class SimulationManager.
+	 * The configuration of the context has to be read already.
+	 * 
+	 * @param context the simulation this manager belongs to.
+	 * @param history XMLWriter for logging the SIMULATION. Null if logging disabled.
+	 * @param allNodes A map containg all nodes of the SIMULATION.
+	 */
+	public SimulationManager(SimulationContext context, ShoxLogger history, SortedMap<NodeId, Node> allNodes) {
+		this.context = context;
+		this.configuration = context.getConfiguration();
 		this.history = history;
 		this.statisticsWriter = history;
 
 		this.allNodes = allNodes;
 		this.queue = new EventEnvelopeQueue(history);
-		//Singleton pattern to ensure uniqeness
-		if (SimulationManager.instance == null) {
-			SimulationManager.instance = this;
+		//only one manager per simulation
+		if (context.getManager() == null) {
+			context.setManager(this);
 		}
 	}
 
-	/** @return the one and only instance of the SimulationManager.	*/
+	/**
+	 * compatibility accessor, prefer the context given to the nodes and layers.
+	 * 
+	 * @return the SimulationManager of the current simulation context.
+	 */
 	public static SimulationManager getInstance() {
-		return instance;
+		return SimulationContext.current().getManager();
+	}
+
+	/** @return the simulation this manager belongs to. */
+	public final SimulationContext getContext() {
+		return context;
 	}
 
 	/**
@@ -147,15 +220,24 @@ public class SimulationManager {
 
 	/** Method to start the SIMULATION after all stuff is set up. Proceeds the events. */
 	public final void runSimulation() {
-		final Configuration configuration = Configuration.getInstance();
+		double range = getMaximumRange(configuration);
+		grid = createGrid(configuration, range);
+		neighborhood = new NeighborhoodMaintainer(allNodes, grid, range);
 
-		for (Node node : allNodes.values()) {
-			// precomputation of the neighbourhood only makes sense 
-			// in case of constant signal strength.
-			if (!configuration.isSuppressNeighborhoodDetection()) {
-				detectNeighbors(node);				
-			}
+		// the link budgets only pay off, if the nodes keep their positions.
+		if (configuration.getMovementManager() instanceof NoMovement) {
+			linkCache = new LinkBudgetCache(allNodes, grid, range);
+		} else {
+			linkCache = null;
+		}
+
+		// precomputation of the neighbourhood only makes sense 
+		// in case of constant signal strength.
+		if (!configuration.isSuppressNeighborhoodDetection()) {
+			neighborhood.detectAll();
+		}
 
+		for (Node node : allNodes.values()) {
 			Initialize init = new Initialize(node.getId(), 1.0, allNodes.size());
 			SimulationStateEnvelope initenv = new SimulationStateEnvelope(init);
 			queue.add(initenv);
@@ -188,6 +270,13 @@ public class SimulationManager {
 		
 		double lastTime = this.currentTime;
 
+		if (configuration.isProfiling()) {
+			profiler = new EventProfiler(configuration.getSimulationTime());
+		}
+		if (configuration.isTraceChecksum()) {
+			checksum = new EventTraceChecksum();
+		}
+
 		while (this.running) {
 			EventEnvelope envelope = queue.poll();
 			if (envelope == null) {
@@ -208,7 +297,7 @@ public class SimulationManager {
 				LOGGER.debug("Processing event: " + envelope.toString());
 			}
 
-			logDequeue(envelope);
+			logDequeued(envelope);
 			
 			if (envelope.getTime() < this.currentTime) {
 				throw new InvalidEnvelopeTimeException(
@@ -224,34 +313,101 @@ public class SimulationManager {
 				this.endSimulation();
 				return;
 			}
+
+			if ((configuration.getMaxEvents() > 0) && (processedEvents >= configuration.getMaxEvents())) {
+				LOGGER.info("Event limit reached. SimulationManager quits!");
+				this.endSimulation();
+				return;
+			}
 			
 			MDC.put("time", this.currentTime);
 			
-			envelope.deliver();
+			processedEvents++;
+			if (checksum != null) {
+				checksum.update(envelope);
+			}
+			if (profiler == null) {
+				envelope.deliver();
+			} else {
+				profiler.begin(this.currentTime, queue);
+				envelope.deliver();
+				profiler.end(envelope);
+			}
 		}
 		LOGGER.info("Running boolean false. SimulationManager quits!");
 		this.endSimulation();
 	}
 
+	/** @return the number of events delivered so far. */
+	public final long getProcessedEvents() {
+		return processedEvents;
+	}
+
+	/** @return the checksum over the events delivered so far, null if not configured. */
+	public final EventTraceChecksum getTraceChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * determines the range of the physical model for the strongest signal any node can use.
+	 * 
+	 * @param configuration the configuration of the simulation.
+	 * @return the maximum range, may be Double.POSITIVE_INFINITY.
+	 */
+	private double getMaximumRange(Configuration configuration) {
+		PhysicalModel pm = configuration.getPhysicalModel();
+		double range = 0.0;
+
+		for (Node node : allNodes.values()) {
+			PhysicalLayerState phyState = (PhysicalLayerState) node.getLayerState(LayerType.PHYSICAL);
+			range = Math.max(range, pm.getMaximumRange(phyState.getMaximumSignalStrength()));
+		}
+		return range;
+	}
+
+	/**
+	 * creates the spatial index of all nodes, with cells as large as the given range.
+	 * 
+	 * @param configuration the configuration of the simulation.
+	 * @param range the maximum range of the physical model.
+	 * @return the filled grid or null, if the physical model has no bounded range.
+	 */
+	private SpatialGrid createGrid(Configuration configuration, double range) {
+		if (!(range > 0.0) || Double.isInfinite(range)) {
+			LOGGER.info("Physical model has no bounded range, spatial grid disabled.");
+			return null;
+		}
+
+		SpatialGrid newGrid = new SpatialGrid(configuration.getXSize(), configuration.getYSize(),
+				range, Math.max(16, 4 * allNodes.size()));
+		newGrid.addAll(allNodes.values());
+		return newGrid;
+	}
+
 	/**
 	 * Log the dequeue of an event envelope from the simulation queue.
 	 * @param envelope The envelope which is dequeued and to be logged
 	 */
 	public static void logDequeue(EventEnvelope envelope) {
-		Configuration configuration = Configuration.getInstance();
-		
+		getInstance().logDequeued(envelope);
+	}
+
+	/**
+	 * Log the dequeue of an event envelope from the simulation queue.
+	 * @param envelope The envelope which is dequeued and to be logged
+	 */
+	private void logDequeued(EventEnvelope envelope) {
 		if (configuration.isLogging() && envelope instanceof Loggable) {
-			int prio = configuration.getLiveLogFilter().getEventTypePriority(envelope.getEvent().getClass().getName());
+			int prio = configuration.getLiveLogFilter().getEventTypePriority(envelope.getEvent().getClass());
 
 			if (prio != LogFilter.PRIORITY_OFF) {
-				instance.history.logDequeueEvent(envelope.getTime(), envelope.getEvent().getId());
+				history.logDequeueEvent(envelope.getTime(), envelope.getEvent().getId());
 			}
 		}
 	}
 
 	/** Invoked internally at the end of the simulation so nodes can perform some final cleanup. */
 	private void endSimulation() {
-		Configuration configuration = Configuration.getInstance();
 		Map<ApplicationState, Integer> result = new LinkedHashMap<ApplicationState, Integer>();
 		for (ApplicationState state : ApplicationState.values()) {
 			result.put(state, 0);
@@ -319,6 +475,16 @@ public class SimulationManager {
 		if (configuration.getTrafficGenerator() != null) {
 			configuration.getTrafficGenerator().endSimulation();
 		}
+		
+		if (configuration.isMetrics()) {
+			context.getMetrics().writeSummary(configuration.getMetricsFile());
+		}
+
+		context.closeShared();
+
+		if (profiler != null) {
+			profiler.writeReport(configuration.getProfilingFile());
+		}
 	}
 
 	/**
@@ -345,7 +511,7 @@ public class SimulationManager {
 	 */
 	public List<NodeId> resolvePath(NodeId from, NodeId to) {
 		if (osrOracle == null) {
-			if (Configuration.getInstance().getMovementManager() instanceof NoMovement) {
+			if (configuration.getMovementManager() instanceof NoMovement) {
 				osrOracle = new StaticOSROracle(allNodes);
 			} else {
 				osrOracle = new DynamicOSROracle();
@@ -386,32 +552,42 @@ public class SimulationManager {
 		 * the time the transmission started reaching the receiver(s).
 		 */
 		receiverTransmission.getPacket().adjustTime(
-				Configuration.getInstance().getPropagationDelay());
+				configuration.getPropagationDelay());
+		
+		/*
+		 * The receivers share this packet. Their bit mangling models clone it, but the
+		 * enclosed packets are only copied, if a receiver really accesses them.
+		 */
+		receiverTransmission.getPacket().freeze();
 
 		if (!sender.isEmpty()) {
-			Position senderPos = sender.getPosition();
-
 			List<Node> outNode = new ArrayList<Node>();
-			for (Node receiver : allNodes.values()) {
-				Position receiverPos = receiver.getPosition();
-				
-				if (!sender.equals(receiver)) {
-					PhysicalModel pm = Configuration.getInstance().getPhysicalModel();
-					reachability = pm.apply(receiver, sender,
-							receiverTransmission.getSignalStrength());
-
-					if (reachability.isInterfering()) {
-						/*
-						 * No BitManglingModel is allowed to modify interference
-						 * packets, therefore we don`t have to clone the packet.
-						 */
-						Interference interference = new Interference(receiverTransmission, reachability);
-						receiver.processEvent(interference, LayerType.AIR);
+
+			if (linkCache != null) {
+				LinkBudgetCache.Links links = linkCache.getLinks(sender, receiverTransmission.getSignalStrength());
+
+				for (int i = 0; i < links.getSize(); i++) {
+					passTransmission(links.getReceiver(i), links.getReachability(i), receiverTransmission, outNode);
+				}
+			} else {
+				Position senderPos = sender.getPosition();
+				PhysicalModel pm = configuration.getPhysicalModel();
+
+				Collection<Node> candidates = allNodes.values();
+				if (grid != null) {
+					double range = pm.getMaximumRange(receiverTransmission.getSignalStrength());
+
+					if (!Double.isInfinite(range)) {
+						candidates = grid.getNodesInRange(senderPos, range);
 					}
+				}
+
+				for (Node receiver : candidates) {
+					if (!sender.equals(receiver)) {
+						reachability = pm.apply(receiver, sender,
+								receiverTransmission.getSignalStrength());
 
-					if (reachability.isReachable()) {					
-						outNode.add(receiver);
-						receiver.incPacketCount(false, LayerType.AIR);
+						passTransmission(receiver, reachability, receiverTransmission, outNode);
 					}
 				}
 			}
@@ -422,6 +598,32 @@ public class SimulationManager {
 		}
 	}
 
+	/**
+	 * hands the interference of a transmission to a receiver and notes the receiver,
+	 * if it is reached.
+	 * 
+	 * @param receiver             the receiving node.
+	 * @param reachability         the reachability of the receiver.
+	 * @param receiverTransmission the transmission as seen by the receivers.
+	 * @param outNode              the reached receivers, to get the transmission later.
+	 */
+	private void passTransmission(Node receiver, Reachability reachability, 
+			Transmission receiverTransmission, List<Node> outNode) {
+		if (reachability.isInterfering()) {
+			/*
+			 * No BitManglingModel is allowed to modify interference
+			 * packets, therefore we don`t have to clone the packet.
+			 */
+			Interference interference = new Interference(receiverTransmission, reachability);
+			receiver.processEvent(interference, LayerType.AIR);
+		}
+
+		if (reachability.isReachable()) {					
+			outNode.add(receiver);
+			receiver.incPacketCount(false, LayerType.AIR);
+		}
+	}
+
 	/**
 	 * detects the neighborhood of a node.
 	 * 
@@ -431,38 +633,8 @@ public class SimulationManager {
 	 * @param sender the node, which neighborhood should be detected.
 	 */
 	public final void detectNeighbors(Node sender) {
-		if (sender.isSuspended()) {
-			// node is suspended, so it has no neighbors.
-			return;
-		}
-		
-		boolean ig = ((PhysicalLayer) sender.getLayer(LayerType.PHYSICAL)).isIgnoreRadioStateOnNeighborhoodDetection();
-		
-		Reachability reachability;
-		Position     senderPos = sender.getPosition();
-		sender.clearNeighbours();
-
-		PhysicalLayerState phyState = (PhysicalLayerState) sender.getLayerState(LayerType.PHYSICAL);
-		double signalStrength = phyState.getCurrentSignalStrength();
-
-		if (ig || (phyState.getRadioState() != RadioState.OFF)) {
-			for (Node receiver : allNodes.values()) {
-				PhysicalLayerState recPhyState = (PhysicalLayerState) receiver.getLayerState(LayerType.PHYSICAL);
-				if (!receiver.isSuspended() && (ig || (recPhyState.getRadioState() != RadioState.OFF))) {
-	
-					Position receiverPos = receiver.getPosition();
-	
-					if (sender.getId().asInt() != receiver.getId().asInt()) {
-						PhysicalModel pm = Configuration.getInstance().getPhysicalModel();
-						reachability = pm.apply(receiver, sender, signalStrength);
-	
-						if (reachability.isReachable()) {					
-							sender.addNeighbor(receiver);
-						}
-					}
-				}
-			}
-		}
+		topologyVersion++;
+		neighborhood.detect(sender);
 	}
 
 	/**
@@ -476,26 +648,19 @@ public class SimulationManager {
 	 * @param toBeChecked The node which is to be checked as a neighbor
 	 */
 	public final void checkNeighbor(Node checker, Node toBeChecked) {
-		Reachability reachability;
-		Position     checkerPos = checker.getPosition();
-		Position toBeCheckedPos = toBeChecked.getPosition();
-
-		PhysicalLayerState phyState = (PhysicalLayerState) checker.getLayerState(LayerType.PHYSICAL);
-		PhysicalLayerState recPhyState = (PhysicalLayerState) toBeChecked.getLayerState(LayerType.PHYSICAL);
-		double signalStrength = phyState.getCurrentSignalStrength();
-
-		PhysicalModel pm = Configuration.getInstance().getPhysicalModel();
-		reachability = pm.apply(toBeChecked, checker, signalStrength);
-
-		boolean remove = !((PhysicalLayer) checker.getLayer(LayerType.PHYSICAL)).isIgnoreRadioStateOnNeighborhoodDetection();
+		topologyVersion++;
+		neighborhood.check(checker, toBeChecked);
+	}
 
-		if (remove) {
-			remove = (phyState.getRadioState() == RadioState.OFF) || (recPhyState.getRadioState() == RadioState.OFF);
-		}
-		
-		if (!reachability.isReachable() || toBeChecked.isSuspended() || remove) {					
-			checker.removeNeighbor(toBeChecked);
-		}
+	/**
+	 * The topology version is increased whenever a node moves or a neighbor list may
+	 * have changed. Results derived from the topology, like shortest paths, remain
+	 * valid as long as the version stays the same.
+	 * 
+	 * @return the current topology version.
+	 */
+	public final long getTopologyVersion() {
+		return topologyVersion;
 	}
 
 	/**
@@ -504,6 +669,10 @@ public class SimulationManager {
 	 * This implies, that for each xAxisLabel/yAxisLabel combination, the xValues must be
 	 * unique. This way, different statistics can be logged in one simulation run and later
 	 * visualized. Statistics are only written if Configuration.log is enabled.
+	 * If Configuration.metrics is enabled, numeric y values are also aggregated in the gauge
+	 * (node, layer, "yAxisLabel over xAxisLabel") of the metrics registry, which is summarized
+	 * at the end of the simulation; the statistics log can then be turned off by
+	 * Configuration.rawStatistics.
 	 * 
 	 * @param node NodeId of the Node that wants to log something.
 	 * @param layer LayerType of the Layer that wants to log something.
@@ -515,10 +684,69 @@ public class SimulationManager {
 	public static final void logStatistic(NodeId node, LayerType layer, String xAxisLabel, 
 			String yAxisLabel, String xValue, String yValue) {
 		Configuration configuration = Configuration.getInstance();
-		if (configuration.isLogging()) {
-			SimulationManager.instance.statisticsWriter.logStatistics(
+		if (configuration.isLogging() && configuration.isRawStatistics()) {
+			getInstance().statisticsWriter.logStatistics(
 					node, layer, xAxisLabel, yAxisLabel, xValue, yValue);			
 		}
+		if (configuration.isMetrics()) {
+			double value = parseStatistic(yValue);
+			if (!Double.isNaN(value)) {
+				getInstance().statisticGauge(node, layer, xAxisLabel, yAxisLabel).set(value);
+			}
+		}
+	}
+
+	/**
+	 * returns the gauge of a logged statistic. The gauges are cached by the manager, so that
+	 * only the first value of a statistic creates a metric key and takes the registry.
+	 * 
+	 * @param node NodeId of the Node that logs the statistic.
+	 * @param layer LayerType of the Layer that logs the statistic.
+	 * @param xAxisLabel Label of the x-axis
+	 * @param yAxisLabel Label of the y-axis
+	 * @return the gauge of the statistic
+	 */
+	private Gauge statisticGauge(NodeId node, LayerType layer, String xAxisLabel, String yAxisLabel) {
+		Gauge gauge = statisticGauges.get(statisticProbe.set(node, layer, xAxisLabel, yAxisLabel));
+		if (gauge == null) {
+			if (metrics == null) {
+				metrics = context.getMetrics();
+			}
+			gauge = metrics.gauge(node, layer, yAxisLabel + " over " + xAxisLabel);
+			statisticGauges.put(new StatisticKey().set(node, layer, xAxisLabel, yAxisLabel), gauge);
+		}
+		return gauge;
+	}
+
+	/**
+	 * parses the y value of a statistic. Most logged values are numbers, but some are not, so
+	 * the characters are checked first instead of relying on the exception of the parser.
+	 * 
+	 * @param value the logged value, may be null
+	 * @return the value, NaN if it is not a decimal number
+	 */
+	static double parseStatistic(String value) {
+		if (value == null) {
+			return Double.NaN;
+		}
+		boolean digits = false;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if ((c >= '0') && (c <= '9')) {
+				digits = true;
+			} else if ((c != '.') && (c != '-') && (c != '+') && (c != 'e') && (c != 'E') && (c != ' ')) {
+				return Double.NaN;
+			}
+		}
+		if (!digits) {
+			return Double.NaN;
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			// e.g. "1-2", which passes the check above
+			return Double.NaN;
+		}
 	}
 
 	/**
@@ -533,8 +761,9 @@ public class SimulationManager {
 	 * @param value The value of the state to be logged
 	 */
 	public static final void logNodeState(NodeId node, String name, String type, String value) {
-		if (SimulationManager.instance != null && Configuration.getInstance().isLogging()) {
-			SimulationManager.instance.history.logNodeStateEvent(node, name, type, value);
+		SimulationManager sim = getInstance();
+		if (sim != null && sim.configuration.isLogging()) {
+			sim.history.logNodeStateEvent(node, name, type, value);
 		}
 	}
 
@@ -551,8 +780,9 @@ public class SimulationManager {
 	 * @param value The value of the state to be logged
 	 */
 	public static final void logLinkState(NodeId node1, NodeId node2, String name, String type, String value) {
-		if (SimulationManager.instance != null && Configuration.getInstance().isLogging()) {
-			SimulationManager.instance.history.logLinkStateEvent(node1, node2, name, type, value);
+		SimulationManager sim = getInstance();
+		if (sim != null && sim.configuration.isLogging()) {
+			sim.history.logLinkStateEvent(node1, node2, name, type, value);
 		}
 	}
 
@@ -566,8 +796,9 @@ public class SimulationManager {
 	 * @param message The actual message to be displayed in the ShoX Monitor
 	 */
 	public static final void logMessage(Address sender, int priority, String message) {
-		if (SimulationManager.instance != null && Configuration.getInstance().isLogging()) {
-			SimulationManager.instance.history.logMessage(SimulationManager.instance.getCurrentTime(),
+		SimulationManager sim = getInstance();
+		if (sim != null && sim.configuration.isLogging()) {
+			sim.history.logMessage(sim.getCurrentTime(),
 					sender, message, priority);
 		}
 	}
@@ -585,11 +816,12 @@ public class SimulationManager {
 	 * @param event The event to place inside the queue.
 	 * @param receiver NodeId of the receiver (internal). 
 	 * @param toLayer Specific layer which should receive the event.
+	 * @return the handle to cancel the event.
 	 */
-	public static void enqueue(ToLayer event,
+	public static EventHandle enqueue(ToLayer event,
 			NodeId receiver, LayerType toLayer) {
 		//delegation to have nonstatic references for SimMana
-		SimulationManager.instance.enqueueEvent(event, receiver, toLayer);
+		return getInstance().enqueueEvent(event, receiver, toLayer);
 	}
 
 
@@ -599,11 +831,12 @@ public class SimulationManager {
 	 * 
 	 * @param event The event to place inside the queue, which helds destination informaton
 	 * @param toDevice The device to which to send the event
+	 * @return the handle to cancel the event.
 	 */
 
-	public static void enqueue(ToDevice event, DeviceType toDevice) {
+	public static EventHandle enqueue(ToDevice event, DeviceType toDevice) {
 		//delegation to have nonstatic references for SimMana
-		SimulationManager.instance.enqueueEvent(event, toDevice);
+		return getInstance().enqueueEvent(event, toDevice);
 	}
 
 	/**
@@ -611,8 +844,9 @@ public class SimulationManager {
 	 * 
 	 * @param event The event to place inside the queue
 	 * @param toDevice The device to which to send the event
+	 * @return the envelope of the event.
 	 */
-	private void enqueueEvent(ToDevice event, DeviceType toDevice) {
+	private EventHandle enqueueEvent(ToDevice event, DeviceType toDevice) {
 		if (event == null) {
 			throw new IllegalArgumentException("event");
 		}
@@ -627,15 +861,18 @@ public class SimulationManager {
 
 		NodeInternalToDeviceEnvelope env = new NodeInternalToDeviceEnvelope(event, node, toDevice);
 		queue.add(env);
+		return env;
 	}
 
 	/**
-	 * Private method for internal communication. Only called locally.
+	 * Method for internal communication. Only called locally and by the kernel.
 	 * 
 	 * @param event The event to place inside the queue.
 	 * @param receiver NodeId of the receiver (internal). 
-	 * @param toLayer Specific layer which should receive the event.	 */
-	private void enqueueEvent(ToLayer event, NodeId receiver, LayerType toLayer) {
+	 * @param toLayer Specific layer which should receive the event.
+	 * @return the envelope of the event.
+	 */
+	EventHandle enqueueEvent(ToLayer event, NodeId receiver, LayerType toLayer) {
 		if (event == null) {
 			throw new IllegalArgumentException("event");
 		}
@@ -652,17 +889,163 @@ public class SimulationManager {
 
 		NodeInternalEnvelope env = new NodeInternalEnvelope(event, node, toLayer);
 		queue.add(env);
+		return env;
 	}
 
 	/* Specific envelopes as inner classes to have access to SimulationManager internal things!*/
 
+	/**
+	 * @param event an event to be logged.
+	 * @return the data of the event, if it is to be logged, otherwise null.
+	 */
+	private String getLogData(Event event) {
+		if (configuration.getLiveLogFilter().isLogData() && event instanceof LoggableData) {
+			return ((LoggableData) event).getData();
+		}
+		return null;
+	}
+
+	/**
+	 * @param event an event to be logged.
+	 * @return the id of the packet enclosed in the event, NO_ID if there is none.
+	 */
+	private static int getEnclosedId(Event event) {
+		if (event instanceof Packet) {
+			Packet pack = ((Packet) event).peekEnclosedPacket();
+			if (pack != null) {
+				return pack.getId().asInt();
+			}
+		}
+		return NO_ID;
+	}
+
+	/**
+	 * Creates the log entry of an event sent from one device to another.
+	 * 
+	 * @param logType      Loggable.XML or Loggable.COMPACT.
+	 * @param senderId     the id of the sending node.
+	 * @param senderDevice the sending device.
+	 * @param receiverId   the id of the receiving node.
+	 * @param toDevice     the receiving device.
+	 * @param data         the data of the event, or null if it is not logged.
+	 * @return the log entry, null for an unknown log type.
+	 */
+	public static String describeToDevice(int logType, int senderId, DeviceType senderDevice, int receiverId, 
+			DeviceType toDevice, String data) {
+		String datastr = "";
+		
+		if (logType == Loggable.XML) {
+			
+			if (data != null) {
+				datastr = "<" + XMLTags.DATA + ">" + data + "</" + XMLTags.DATA + ">\n";
+			}
+			
+			return "<" + XMLTags.TODEVICE + ">\n" 
+					
+					+ "<" + XMLTags.SENDERID + ">" + String.valueOf(senderId) 
+					+ "<" + XMLTags.SENDERID + ">\n"
+					
+					+ "<" + XMLTags.SENDERDEVICE + ">" + String.valueOf(senderDevice.toString()) 
+					+ "<" + XMLTags.SENDERDEVICE + ">\n"
+					
+					+ "<" + XMLTags.ENVELOPERECEIVERID + ">" + String.valueOf(receiverId) 
+					+ "<" + XMLTags.ENVELOPERECEIVERID + ">\n"
+					
+					+ "<" + XMLTags.ENVELOPERECEIVERDEVICE + ">" + String.valueOf(toDevice.toString()) 
+					+ "<" + XMLTags.ENVELOPERECEIVERDEVICE + ">\n"
+					
+					+ datastr
+														
+					+ "</" + XMLTags.TODEVICE + ">"; 
+					
+		} else if (logType == Loggable.COMPACT) {
+			
+			if (data != null) {
+				datastr = " data" + CompactFileLogger.mask(data);
+			}
+			
+			return "toDev" 
+					+ " sID" + String.valueOf(senderId) 
+					+ " sDv" + String.valueOf(senderDevice.toString()) 
+					+ " rID" + String.valueOf(receiverId) 
+					+ " rDv" + String.valueOf(toDevice.toString()) 
+					+ datastr;
+					
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the log entry of an event sent from one layer to another.
+	 * 
+	 * @param logType     Loggable.XML or Loggable.COMPACT.
+	 * @param senderId    the id of the sending node.
+	 * @param senderLayer the sending layer.
+	 * @param receiverId  the id of the receiving node.
+	 * @param toLayer     the receiving layer.
+	 * @param enclosedId  the id of the enclosed packet, NO_ID if there is none.
+	 * @param data        the data of the event, or null if it is not logged.
+	 * @return the log entry, null for an unknown log type.
+	 */
+	public static String describeToLayer(int logType, int senderId, LayerType senderLayer, int receiverId, 
+			LayerType toLayer, int enclosedId, String data) {
+		String dataString = "";
+		
+		if (logType == Loggable.XML) {
+			
+			if (data != null) {
+				dataString = "<" + XMLTags.DATA + ">" + data + "</" + XMLTags.DATA + ">\n";
+			}
+			
+			String enclosedEventId = "";
+			if (enclosedId != NO_ID) {
+				enclosedEventId = "<" + XMLTags.ENCLOSEDEVENTID + ">" + enclosedId 
+								+ "</" + XMLTags.ENCLOSEDEVENTID + ">\n";  
+			}
+			
+			return "<" + XMLTags.TOLAYER + ">\n"
+					+ "<" + XMLTags.SENDERID + ">" + senderId + "</" + XMLTags.SENDERID + ">\n"
+					+ "<" + XMLTags.SENDERLAYER + ">" + senderLayer + "</" + XMLTags.SENDERLAYER + ">\n"
+					+ "<" + XMLTags.ENVELOPERECEIVERID + ">" + receiverId 
+																+ "</" + XMLTags.ENVELOPERECEIVERID + ">\n"
+					+ "<" + XMLTags.ENVELOPERECEIVERLAYER + ">" + toLayer.toString() 
+																+ "</" + XMLTags.ENVELOPERECEIVERLAYER + ">\n"
+					+ dataString
+					+ enclosedEventId
+					+ "</" + XMLTags.TOLAYER + ">";
+			
+		} else if (logType == Loggable.COMPACT) {
+			
+			if (data != null) {
+				dataString = " data" + CompactFileLogger.mask(data);
+			}
+			
+			String enclosedEventId = "";
+			if (enclosedId != NO_ID) {
+				enclosedEventId = " eId" + enclosedId;
+			}
+			
+			return "intEnv" 
+					+ " sId" + senderId
+					+ " sLy" + CompactFileLogger.getLayerCode(senderLayer)
+					+ " rId" + receiverId
+					+ " rLy" + CompactFileLogger.getLayerCode(toLayer)
+					+ enclosedEventId
+					+ dataString;
+		} else {
+			return null;
+		}
+	}
+
 	/**
 	 * Class NodeInternalToDeviceEnvelope to handle events between devices/component.
 	 * Examples are EnergyManagerWakeUpCall
 	 * 
 	 * @author Florian Rittmeier
 	 */
-	private final class NodeInternalToDeviceEnvelope extends EventEnvelope implements Loggable {
+	private final class NodeInternalToDeviceEnvelope extends EventEnvelope 
+			implements Loggable, AsyncHistoryLogger.Describable {
 
 		/** The receiver of the event inside envelope. */
 		private final Node node;
@@ -691,6 +1074,12 @@ public class SimulationManager {
 			this.node.processEvent(event, toDevice);
 		}
 
+		/** @see br.ufla.dcc.grubix.simulator.kernel.EventEnvelope#getTargetNode() */
+		@Override
+		protected Node getTargetNode() {
+			return node;
+		}
+
 		
 //		/**
 //		 * @see br.ufla.dcc.grubix.simulator.event.Loggable#log(br.ufla.dcc.grubix.xml.XMLWriter)
@@ -749,51 +1138,20 @@ public class SimulationManager {
 		}
 
 		public String log(int logType) {
-			Configuration configuration = Configuration.getInstance();
 			ToDevice event = (ToDevice) this.getEvent();
-			String datastr = "";
 			
-			if (logType == Loggable.XML) {
-				
-				if (configuration.getLiveLogFilter().isLogData() && event instanceof LoggableData) {
-					LoggableData data = (LoggableData) event;
-					datastr = "<" + XMLTags.DATA + ">" + data.getData() + "</" + XMLTags.DATA + ">\n";
-				}
-				
-				return "<" + XMLTags.TODEVICE + ">\n" 
-						
-						+ "<" + XMLTags.SENDERID + ">" + String.valueOf(event.getSender().asInt()) 
-						+ "<" + XMLTags.SENDERID + ">\n"
-						
-						+ "<" + XMLTags.SENDERDEVICE + ">" + String.valueOf(event.getSenderDevice().toString()) 
-						+ "<" + XMLTags.SENDERDEVICE + ">\n"
-						
-						+ "<" + XMLTags.ENVELOPERECEIVERID + ">" + String.valueOf(this.node.getId().asInt()) 
-						+ "<" + XMLTags.ENVELOPERECEIVERID + ">\n"
-						
-						+ "<" + XMLTags.ENVELOPERECEIVERDEVICE + ">" + String.valueOf(this.toDevice.toString()) 
-						+ "<" + XMLTags.ENVELOPERECEIVERDEVICE + ">\n"
-						
-						+ datastr
-															
-						+ "</" + XMLTags.TODEVICE + ">"; 
-						
-			} else if (logType == Loggable.COMPACT) {
-				
-				if (configuration.getLiveLogFilter().isLogData() && event instanceof LoggableData) {
-					datastr = " data" + CompactFileLogger.mask(((LoggableData) event).getData());
-				}
-				
-				return "toDev" 
-						+ " sID" + String.valueOf(event.getSender().asInt()) 
-						+ " sDv" + String.valueOf(event.getSenderDevice().toString()) 
-						+ " rID" + String.valueOf(this.node.getId().asInt()) 
-						+ " rDv" + String.valueOf(this.toDevice.toString()) 
-						+ datastr;
-						
-			} else {
-				return null;
-			}
+			return describeToDevice(logType, event.getSender().asInt(), event.getSenderDevice(), 
+					node.getId().asInt(), toDevice, getLogData(event));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void describe(AsyncHistoryLogger.Record record) {
+			ToDevice event = (ToDevice) this.getEvent();
+			
+			record.setToDevice(event.getSender().asInt(), event.getSenderDevice(), 
+					node.getId().asInt(), toDevice, getLogData(event));
 		}
 	}
 
@@ -804,7 +1162,8 @@ public class SimulationManager {
 	 * 
 	 * @author Andreas Kumlehn
 	 */
-	private final class NodeInternalEnvelope extends EventEnvelope implements Loggable {
+	private final class NodeInternalEnvelope extends EventEnvelope 
+			implements Loggable, AsyncHistoryLogger.Describable {
 
 		/** The receiver of the event inside envelope. */
 		private final Node node;
@@ -837,6 +1196,18 @@ public class SimulationManager {
 			MDC.put("layer", event.getSender().getFromLayer().getShortName());
 			this.node.processEvent(event, toLayer);
 		}
+
+		/** @see br.ufla.dcc.grubix.simulator.kernel.EventEnvelope#getTargetNode() */
+		@Override
+		protected Node getTargetNode() {
+			return node;
+		}
+
+		/** @see br.ufla.dcc.grubix.simulator.kernel.EventEnvelope#getTargetLayer() */
+		@Override
+		protected LayerType getTargetLayer() {
+			return toLayer;
+		}
 		
 //		/**
 //		 * @see br.ufla.dcc.grubix.simulator.event.Loggable#log(br.ufla.dcc.grubix.xml.XMLWriter)
@@ -918,63 +1289,20 @@ public class SimulationManager {
 		}
 
 		public String log(int logType) {
-			Configuration configuration = Configuration.getInstance();
 			ToLayer event = (ToLayer) this.getEvent();
-			String dataString = "";
 			
-			if (logType == Loggable.XML) {
-				
-				if (configuration.getLiveLogFilter().isLogData() && event instanceof LoggableData) {
-					LoggableData data = (LoggableData) event;
-					dataString = "<" + XMLTags.DATA + ">" + data.getData() + "</" + XMLTags.DATA + ">\n";
-				}
-				
-				String enclosedEventId = "";
-				if (event instanceof Packet) {
-					Packet pack = ((Packet) event).getEnclosedPacket();
-					if (pack != null) {
-						enclosedEventId = "<" + XMLTags.ENCLOSEDEVENTID + ">" +	pack.getId().asInt() 
-										+ "</" + XMLTags.ENCLOSEDEVENTID + ">\n";  
-					}
-				}
-				
-				return "<" + XMLTags.TOLAYER + ">\n"
-						+ "<" + XMLTags.SENDERID + ">" + event.getSender().getId() + "</" + XMLTags.SENDERID + ">\n"
-						+ "<" + XMLTags.SENDERLAYER + ">" + event.getSender().getFromLayer() 
-																+ "</" + XMLTags.SENDERLAYER + ">\n"
-						+ "<" + XMLTags.ENVELOPERECEIVERID + ">" + this.node.getId().asInt() 
-																	+ "</" + XMLTags.ENVELOPERECEIVERID + ">\n"
-						+ "<" + XMLTags.ENVELOPERECEIVERLAYER + ">" + this.toLayer.toString() 
-																	+ "</" + XMLTags.ENVELOPERECEIVERLAYER + ">\n"
-						+ dataString
-						+ enclosedEventId
-						+ "</" + XMLTags.TOLAYER + ">";
-				
-			} else if (logType == Loggable.COMPACT) {
-				
-				if (configuration.getLiveLogFilter().isLogData() && event instanceof LoggableData) {
-					LoggableData data = (LoggableData) event;				
-					dataString = " data" + CompactFileLogger.mask(data.getData());
-				}
-				
-				String enclosedId = "";
-				if (event instanceof Packet) {
-					Packet pack = ((Packet) event).getEnclosedPacket();
-					if (pack != null) {
-						enclosedId = " eId" + pack.getId();
-					}
-				}
-				
-				return "intEnv" 
-						+ " sId" + event.getSender().getId()
-						+ " sLy" + CompactFileLogger.getLayerCode(event.getSender().getFromLayer())
-						+ " rId" + node.getId()
-						+ " rLy" + CompactFileLogger.getLayerCode(toLayer)
-						+ enclosedId
-						+ dataString;
-			} else {
-				return null;
-			}
+			return describeToLayer(logType, event.getSender().getId().asInt(), event.getSender().getFromLayer(), 
+					node.getId().asInt(), toLayer, getEnclosedId(event), getLogData(event));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void describe(AsyncHistoryLogger.Record record) {
+			ToLayer event = (ToLayer) this.getEvent();
+			
+			record.setToLayer(event.getSender().getId().asInt(), event.getSender().getFromLayer(), 
+					node.getId().asInt(), toLayer, getEnclosedId(event), getLogData(event));
 		}
 	}
 
@@ -1048,6 +1376,7 @@ public class SimulationManager {
 			Movement move = (Movement) this.getEvent();
 			Node node = move.getNode();
 			Position position = move.getNewPosition();
+			Position oldPosition = node.getPosition();
 			
 			//deliver MovedEvent to the moved node
 			if (move.isNodeFailure() && !node.isSuspended()) {
@@ -1061,13 +1390,19 @@ public class SimulationManager {
 				node.processEvent(moved);				
 			}
 
-			// update the node list of the moved node and all of its neighbors
-			if (!Configuration.getInstance().isSuppressNeighborhoodDetection()) {
-				List<Node> nl = node.getNeighbors();
-				for (Node n : nl) {
-					SimulationManager.this.checkNeighbor(n, node);
-				}
-				SimulationManager.this.detectNeighbors(node);				
+			topologyVersion++;
+
+			if (grid != null) {
+				grid.update(node);
+			}
+
+			if (linkCache != null) {
+				linkCache.nodeMoved(node, oldPosition);
+			}
+
+			// update the node list of the moved node and all nodes around it
+			if (!configuration.isSuppressNeighborhoodDetection()) {
+				neighborhood.nodeMoved(node, oldPosition);
 			}
 		}
 
@@ -1133,7 +1468,7 @@ public class SimulationManager {
 		@Override
 		protected void deliver() {
 			TrafficGeneration tg = (TrafficGeneration) this.getEvent();
-			Node node = instance.allNodes.get(tg.getSource());
+			Node node = allNodes.get(tg.getSource());
 			//deliver TrafficGenerationEvent to the corresonding node
 			node.processEvent(tg);
 		}
@@ -1170,8 +1505,6 @@ public class SimulationManager {
 		/** @see br.ufla.dcc.grubix.simulator.kernel.EventEnvelope#deliver() */
 		@Override
 		protected void deliver() {
-			Configuration configuration = Configuration.getInstance();
-			
 			// manager creates all moves
 			Collection<Movement> newMoves = configuration.getMovementManager().createMoves(allNodes
 					.values());
@@ -1245,8 +1578,6 @@ public class SimulationManager {
 		/** @see br.ufla.dcc.grubix.simulator.kernel.EventEnvelope#deliver() */
 		@Override
 		protected void deliver() {
-			Configuration configuration = Configuration.getInstance();
-			
 			// manager gives all NodeIds which to be started now
 			Collection<NodeId> newStartupNodes = configuration.getNodeStartupManager().getStartupNodes();
 			
@@ -1321,8 +1652,6 @@ public class SimulationManager {
 		/** @see br.ufla.dcc.grubix.simulator.kernel.EventEnvelope#deliver() */
 		@Override
 		protected void deliver() {
-			Configuration configuration = Configuration.getInstance();
-			
 			// manager creates all traffic
 			Collection<TrafficGeneration> newTraffic = configuration.getTrafficGenerator().generateTraffic(allNodes
 					.values(), currentTime);
@@ -1375,6 +1704,73 @@ public class SimulationManager {
 		}
 	}
 
+	/**
+	 * Key of a logged statistic, i.e. node, layer and both axis labels. The key is mutable,
+	 * so that one instance can be reused for the lookups; keys put into a map are not changed.
+	 */
+	private static final class StatisticKey {
+
+		/** the node of the statistic. */
+		private NodeId node;
+
+		/** the layer of the statistic. */
+		private LayerType layer;
+
+		/** label of the x-axis. */
+		private String xAxisLabel;
+
+		/** label of the y-axis. */
+		private String yAxisLabel;
+
+		/** the hash code of the current values. */
+		private int hash;
+
+		/**
+		 * @param node the node of the statistic.
+		 * @param layer the layer of the statistic.
+		 * @param xAxisLabel label of the x-axis.
+		 * @param yAxisLabel label of the y-axis.
+		 * @return this key
+		 */
+		private StatisticKey set(NodeId node, LayerType layer, String xAxisLabel, String yAxisLabel) {
+			this.node = node;
+			this.layer = layer;
+			this.xAxisLabel = xAxisLabel;
+			this.yAxisLabel = yAxisLabel;
+			int h = (node == null) ? 0 : node.hashCode();
+			h = 31 * h + ((layer == null) ? 0 : layer.hashCode());
+			h = 31 * h + ((xAxisLabel == null) ? 0 : xAxisLabel.hashCode());
+			this.hash = 31 * h + ((yAxisLabel == null) ? 0 : yAxisLabel.hashCode());
+			return this;
+		}
+
+		/**
+		 * @param a an object or null
+		 * @param b an object or null
+		 * @return true if both are null or equal
+		 */
+		private static boolean same(Object a, Object b) {
+			return (a == b) || ((a != null) && a.equals(b));
+		}
+
+		/** @see java.lang.Object#equals(java.lang.Object) */
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof StatisticKey)) {
+				return false;
+			}
+			StatisticKey other = (StatisticKey) o;
+			return (hash == other.hash) && (layer == other.layer) && same(node, other.node)
+				&& same(xAxisLabel, other.xAxisLabel) && same(yAxisLabel, other.yAxisLabel);
+		}
+
+		/** @see java.lang.Object#hashCode() */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
 	/** @return the current simulationtime */
 	public final double getCurrentTime() {
 		return currentTime;
@@ -1382,7 +1778,7 @@ public class SimulationManager {
 
 	/** @return All nodes in the simulation. */
 	public static final SortedMap<NodeId, Node> getAllNodes() {
-		return instance.allNodes;
+		return getInstance().allNodes;
 	}
 
 	/**
@@ -1393,7 +1789,7 @@ public class SimulationManager {
 	 */
 	public static final void setCurrentTime(TimedObject obj) {
 		if (obj instanceof Packet) {
-			obj.setTime(instance.currentTime);
+			obj.setTime(getInstance().currentTime);
 		}
 	}
 }
@@ -26,18 +26,21 @@ import br.ufla.dcc.grubix.simulator.random.RandomGenerator;
 
 /**
  * Default implementation of the SimulationKernel interface that
- * delegates the date to the SimulationManager singleton instance.
+ * delegates the date to the SimulationManager of the simulation context
+ * in which the kernel was created.
  * @author dmeister
  *
  */
 public class SimulationManagerKernel implements SimulationKernel {
 
+	/** the simulation this kernel belongs to. */
+	private final SimulationContext context = SimulationContext.current();
 
 	/**
 	 * @return the current simulation time
 	 */
 	public double getCurrentTime() {
-		return SimulationManager.getInstance().getCurrentTime();
+		return context.getManager().getCurrentTime();
 	}
 
 	/**
@@ -47,10 +50,10 @@ public class SimulationManagerKernel implements SimulationKernel {
 	 * @param layer sending the event
 	 * @param event The event to place inside the queue.
 	 * @param toLayer Specific layer which should receive the event.
+	 * @return the handle to cancel the event.
 	 */
-	public void enqueueEvent(Layer layer, ToLayer event, LayerType toLayer) {
-		SimulationManager.enqueue(event, layer.getNode().getId(), toLayer);
-
+	public EventHandle enqueueEvent(Layer layer, ToLayer event, LayerType toLayer) {
+		return context.getManager().enqueueEvent(event, layer.getNode().getId(), toLayer);
 	}
 
 	/**
@@ -59,7 +62,7 @@ public class SimulationManagerKernel implements SimulationKernel {
 	 * @param trans Packet and all transmission parameters as Transmission object.
 	 */
 	public void transmitPacket(Transmission trans) {
-		SimulationManager.getInstance().transmitPacket(trans);
+		context.getManager().transmitPacket(trans);
 	}
 
 	/**
@@ -75,7 +78,7 @@ public class SimulationManagerKernel implements SimulationKernel {
 	 * @return returns the random generator
 	 */
 	public RandomGenerator getRandomGenerator() {
-		return Configuration.getInstance().getRandomGenerator();
+		return context.getRandom();
 	}
 
 }
@@ -98,9 +98,11 @@ public class SimulationRunner extends Thread {
 	 */
 	@Override
 	public void run() {
+		SimulationContext context = new SimulationContext();
+		context.bind();
+		ShoxLogger writer = null;
 		try {
 			Configuration configuration = Configuration.readConfig(configurationFile);
-			ShoxLogger writer = null;
 			if (configuration.isLogging()) {
 				try {
 					
@@ -112,6 +114,7 @@ public class SimulationRunner extends Thread {
 					configuration.logConfig(writer);
 				} catch (IOException e) {
 					this.simMessageArea.append("Setup of ShoXLogger failed! Quitting!\n");
+					writer = null;
 					return;
 				}
 			}
@@ -120,7 +123,7 @@ public class SimulationRunner extends Thread {
 			//to create AirModules for Nodes.
 			SortedMap<NodeId, Node> allNodes = new TreeMap<NodeId, Node>();
 			//get SimulationManager
-			this.sim = new SimulationManager(writer, allNodes);
+			this.sim = new SimulationManager(context, writer, allNodes);
 			this.sim.setRunner(this);
 			NodeGenerator.generateNodes(configuration, allNodes);
 			if (configuration.isLogging() && (writer != null)) {
@@ -136,6 +139,7 @@ public class SimulationRunner extends Thread {
 			this.sim.runSimulation();
 			if (configuration.isLogging() && (writer != null)) {
 				writer.finishLogging();
+				writer = null;
 			}
 			
 			this.simMessageArea.append("Network Simulator is ending the SIMULATION. Good Bye!\n");
@@ -144,6 +148,12 @@ public class SimulationRunner extends Thread {
 			this.simMessageArea.append("An exception occured during simulation: " + e + "seed: " + seed + "\n");
 			this.simMessageArea.append("Network Simulator is aborting the SIMULATION. Good Bye!\n");
 			e.printStackTrace();
+		} finally {
+			if (writer != null) {
+				// drains the history entries still queued by an AsyncHistoryLogger.
+				writer.finishLogging();
+			}
+			SimulationContext.unbind();
 		}
 		this.simProgress.setValue(100);
 		this.simCancelButton.setEnabled(false);
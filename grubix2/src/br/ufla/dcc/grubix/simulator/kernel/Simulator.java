@@ -19,6 +19,8 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 package br.ufla.dcc.grubix.simulator.kernel;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -68,76 +70,126 @@ public final class Simulator {
 				return;
 			}
 
-			BackboneConfigurationManager.startup(Boolean.parseBoolean(args[2]));
+			run(args[0], Boolean.parseBoolean(args[1]), Boolean.parseBoolean(args[2]), args[3]);
 			
-			Configuration configuration = Configuration.readConfig(args[0]);
-			
-			ShoxLogger writer = null;
-
-			if (configuration.isLogging()) {
-				try {
-					writer = configuration.getHistoryLogger();
+			//System.err.println("SIMULAÇÃO TERMINADA COM SUCESSO!");
+		} catch (ConfigurationException e) {
+			LOGGER.error("Network Simlator has no valid configuration", e);
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * runs one simulation. Logging (log4j) has to be configured already.
+	 * 
+	 * @param configFile       the XML config file name.
+	 * @param saveBackbone     whether the backbone configuration is saved at the end.
+	 * @param backboneFromFile whether the backbone configuration is read from a file.
+	 * @param protocol         the name of the MAC protocol, e.g. XMAC, USAMAC or MXMAC.
+	 * @return a summary of the run (seed, nodes, simulated time, processed events and the
+	 *         checksum over them, if configured),
+	 *         or null if the history logger could not be set up.
+	 * @throws ConfigurationException if the configuration is invalid.
+	 */
+	public static Map<String, String> run(String configFile, boolean saveBackbone, boolean backboneFromFile,
+			String protocol) throws ConfigurationException {
+		SimulationContext context = new SimulationContext();
+		context.bind();
+		try {
+			return run(context, configFile, saveBackbone, backboneFromFile, protocol);
+		} finally {
+			SimulationContext.unbind();
+		}
+	}
+	
+	/**
+	 * runs one simulation in the given context, which is bound to the calling thread.
+	 * 
+	 * @param context          the context of the simulation.
+	 * @param configFile       the XML config file name.
+	 * @param saveBackbone     whether the backbone configuration is saved at the end.
+	 * @param backboneFromFile whether the backbone configuration is read from a file.
+	 * @param protocol         the name of the MAC protocol, e.g. XMAC, USAMAC or MXMAC.
+	 * @return a summary of the run, or null if the history logger could not be set up.
+	 * @throws ConfigurationException if the configuration is invalid.
+	 */
+	private static Map<String, String> run(SimulationContext context, String configFile, boolean saveBackbone,
+			boolean backboneFromFile, String protocol) throws ConfigurationException {
+		BackboneConfigurationManager.startup(backboneFromFile);
+		
+		Configuration configuration = Configuration.readConfig(configFile);
+		
+		ShoxLogger writer = null;
 
-					writer.initLogging(configuration.getNameHistoryLogfile(),
-							configuration.getNameStatisticsLogfile(),
-							configuration.getSimulatorId());
+		if (configuration.isLogging()) {
+			try {
+				writer = configuration.getHistoryLogger();
 
-					writer.startConfigurationPart();
-					configuration.logConfig(writer);
-				} catch (IOException e) {
-					LOGGER.warn("Setup of XML Writer failed! Quitting!");
-					return;
-				}
+				writer.initLogging(configuration.getNameHistoryLogfile(),
+						configuration.getNameStatisticsLogfile(),
+						configuration.getSimulatorId());
 
+				writer.startConfigurationPart();
+				configuration.logConfig(writer);
+			} catch (IOException e) {
+				LOGGER.warn("Setup of XML Writer failed! Quitting!");
+				return null;
 			}
-			
-			// create empty map to fill later because NodeGenerator needs a
-			// SimulationManager reference to be able
-			// to create AirModules for Nodes.
-			SortedMap<NodeId, Node> allNodes = getNodes(configuration.getPositionGenerator() instanceof FromFileStartPositions);
-			// get SimulationManager
-
-			SimulationManager sim = new SimulationManager(writer, allNodes);
-			NodeGenerator.generateNodes(configuration, allNodes);
-			if (configuration.isLogging() && (writer != null)) {
-				NodeGenerator.log(configuration, writer);
 
-				// log all starting positions
-				writer.logNodePlacement(allNodes.values());
+		}
+		
+		// create empty map to fill later because NodeGenerator needs a
+		// SimulationManager reference to be able
+		// to create AirModules for Nodes.
+		SortedMap<NodeId, Node> allNodes = getNodes(configuration.getPositionGenerator() instanceof FromFileStartPositions);
+		// get SimulationManager
 
-				writer.endConfigurationPart();
-			}
-			LOGGER.info("Network Simulator is starting the SIMULATION...");
-			try {
-				sim.runSimulation();
-			} catch (SimulationFailedException e) {
-				LOGGER.fatal("Simulation failed", e);
-				e.printStackTrace();
-			}
+		SimulationManager sim = new SimulationManager(context, writer, allNodes);
+		NodeGenerator.generateNodes(configuration, allNodes);
+		if (configuration.isLogging() && (writer != null)) {
+			NodeGenerator.log(configuration, writer);
+
+			// log all starting positions
+			writer.logNodePlacement(allNodes.values());
+
+			writer.endConfigurationPart();
+		}
+		LOGGER.info("Network Simulator is starting the SIMULATION...");
+		try {
+			sim.runSimulation();
+		} catch (SimulationFailedException e) {
+			LOGGER.fatal("Simulation failed", e);
+			e.printStackTrace();
+		} finally {
+			// also drains the history entries still queued by an AsyncHistoryLogger.
 			if (configuration.isLogging() && (writer != null)) {
 				writer.finishLogging();
 			}
-			
-			long seed = Configuration.getInstance().getRandomGenerator()
-					.getSeed();
+		}
+		
+		long seed = context.getRandom().getSeed();
 
-			LOGGER.info("Network Simulator is ending the SIMULATION. Good Bye! (seed: "
-					+ seed + ")");
-			
-			// Salva a configuração dos backbones. ÚTIL APENAS AO PROJETO EXMac!!!!
-			int protocol = -1;
-			if (args[3].equals("USAMAC")) {
-				protocol = BackboneConfigurationManager.USAMAC_CONFIG;
-			} else if (args[3].equals("MXMAC")) {
-				protocol = BackboneConfigurationManager.MXMAC_CONFIG;
-			}
-			BackboneConfigurationManager.close(Boolean.parseBoolean(args[1]), protocol);
-			
-			//System.err.println("SIMULAÇÃO TERMINADA COM SUCESSO!");
-		} catch (ConfigurationException e) {
-			LOGGER.error("Network Simlator has no valid configuration", e);
-			e.printStackTrace();
+		LOGGER.info("Network Simulator is ending the SIMULATION. Good Bye! (seed: "
+				+ seed + ")");
+		
+		// Salva a configuração dos backbones. ÚTIL APENAS AO PROJETO EXMac!!!!
+		int backboneProtocol = -1;
+		if (protocol.equals("USAMAC")) {
+			backboneProtocol = BackboneConfigurationManager.USAMAC_CONFIG;
+		} else if (protocol.equals("MXMAC")) {
+			backboneProtocol = BackboneConfigurationManager.MXMAC_CONFIG;
+		}
+		BackboneConfigurationManager.close(saveBackbone, backboneProtocol);
+		
+		Map<String, String> summary = new LinkedHashMap<String, String>();
+		summary.put("seed", Long.toString(seed));
+		summary.put("nodes", Integer.toString(allNodes.size()));
+		summary.put("simulatedTime", Double.toString(sim.getCurrentTime()));
+		summary.put("events", Long.toString(sim.getProcessedEvents()));
+		if (sim.getTraceChecksum() != null) {
+			summary.put("traceChecksum", sim.getTraceChecksum().toString());
 		}
+		return summary;
 	}
 	
 	private static SortedMap<NodeId, Node> getNodes(boolean loadedFromFile) {
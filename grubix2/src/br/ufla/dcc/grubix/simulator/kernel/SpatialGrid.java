@@ -0,0 +1,224 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import br.ufla.dcc.grubix.simulator.Position;
+import br.ufla.dcc.grubix.simulator.node.Node;
+
+/**
+ * Uniform grid over the playing ground to look up the nodes near a given position.
+ *
+ * The cell size should be the maximum range of the physical model, so a range
+ * query only has to visit the cell of the center and its direct neighbors. Nodes
+ * outside of the playing ground are kept in the nearest border cell, thus the grid
+ * never misses a node, it only returns more candidates than necessary.
+ *
+ * The candidates are always returned in ascending order of their ids, which is the
+ * order of the sorted node map of the SimulationManager. This keeps the order in
+ * which receivers are processed (and thus the simulation run) unchanged.
+ */
+public class SpatialGrid {
+
+	/** orders nodes by their ids, like the node map of the SimulationManager. */
+	private static final Comparator<Node> ID_ORDER = new Comparator<Node>() {
+		public int compare(Node n1, Node n2) {
+			return n1.getId().compareTo(n2.getId());
+		}
+	};
+
+	/** relative safety margin added to the query range against rounding errors. */
+	private static final double MARGIN = 1.0e-9;
+
+	/** edge length of a (square) cell. */
+	private final double cellSize;
+
+	/** number of cells in x direction. */
+	private final int columns;
+
+	/** number of cells in y direction. */
+	private final int rows;
+
+	/** the nodes of every cell, indexed by row * columns + column. */
+	private final List<Node>[] cells;
+
+	/** the current cell of every node, indexed by the int value of its id. */
+	private int[] cellOfNode;
+
+	/**
+	 * creates an empty grid for the given playing ground.
+	 *
+	 * @param xSize    size of the playing ground in x direction.
+	 * @param ySize    size of the playing ground in y direction.
+	 * @param cellSize the desired edge length of a cell, usually the maximum range of the physical model.
+	 * @param maxCells upper bound for the number of cells, the cells are enlarged if necessary.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public SpatialGrid(double xSize, double ySize, double cellSize, int maxCells) {
+		if (!(cellSize > 0.0) || Double.isInfinite(cellSize)) {
+			throw new IllegalArgumentException("cellSize");
+		}
+		double size = cellSize;
+		int cols = cellCount(xSize, size);
+		int rws = cellCount(ySize, size);
+
+		while ((long) cols * rws > Math.max(1, maxCells)) {
+			size *= 2.0;
+			cols = cellCount(xSize, size);
+			rws = cellCount(ySize, size);
+		}
+
+		this.cellSize = size;
+		this.columns = cols;
+		this.rows = rws;
+		this.cells = new List[cols * rws];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new ArrayList<Node>();
+		}
+		this.cellOfNode = new int[0];
+	}
+
+	/**
+	 * calculates the number of cells needed to cover the given length.
+	 *
+	 * @param length the length to cover.
+	 * @param size   the edge length of a cell.
+	 * @return the number of cells, at least one.
+	 */
+	private static int cellCount(double length, double size) {
+		return Math.max(1, (int) Math.ceil(length / size));
+	}
+
+	/**
+	 * calculates the column or row of a coordinate, clamped to the grid.
+	 *
+	 * @param coord the x or y coordinate.
+	 * @param max   the number of columns or rows.
+	 * @return the column or row containing the coordinate.
+	 */
+	private int index(double coord, int max) {
+		double i = Math.floor(coord / cellSize);
+		if (i < 0) {
+			return 0;
+		}
+		if (i >= max) {
+			return max - 1;
+		}
+		return (int) i;
+	}
+
+	/**
+	 * @param pos a position.
+	 * @return the index of the cell which contains the position.
+	 */
+	private int cellOf(Position pos) {
+		return index(pos.getYCoord(), rows) * columns + index(pos.getXCoord(), columns);
+	}
+
+	/**
+	 * adds all given nodes at their current positions.
+	 *
+	 * @param nodes the nodes to add.
+	 */
+	public void addAll(Collection<Node> nodes) {
+		for (Node node : nodes) {
+			add(node);
+		}
+	}
+
+	/**
+	 * adds a node at its current position.
+	 *
+	 * @param node the node to add.
+	 */
+	public void add(Node node) {
+		int id = node.getId().asInt();
+
+		if (id >= cellOfNode.length) {
+			int[] grown = new int[Math.max(id + 1, cellOfNode.length * 2)];
+			System.arraycopy(cellOfNode, 0, grown, 0, cellOfNode.length);
+			for (int i = cellOfNode.length; i < grown.length; i++) {
+				grown[i] = -1;
+			}
+			cellOfNode = grown;
+		}
+		if (cellOfNode[id] >= 0) {
+			throw new IllegalStateException("node " + id + " is already in the grid");
+		}
+		int cell = cellOf(node.getPosition());
+		cells[cell].add(node);
+		cellOfNode[id] = cell;
+	}
+
+	/**
+	 * moves the node into the cell of its current position.
+	 * Has to be called whenever the position of a node has changed.
+	 *
+	 * @param node the (probably) moved node.
+	 */
+	public void update(Node node) {
+		int id = node.getId().asInt();
+
+		if ((id >= cellOfNode.length) || (cellOfNode[id] < 0)) {
+			add(node);
+			return;
+		}
+		int cell = cellOf(node.getPosition());
+		if (cell != cellOfNode[id]) {
+			cells[cellOfNode[id]].remove(node);
+			cells[cell].add(node);
+			cellOfNode[id] = cell;
+		}
+	}
+
+	/**
+	 * collects all nodes which may be within the given distance of a position.
+	 * The result may contain nodes farther away, but never misses a node in range.
+	 *
+	 * @param center the position of the center, e.g. the sender.
+	 * @param range  the maximum distance of interest.
+	 * @return the candidates in ascending order of their ids.
+	 */
+	public List<Node> getNodesInRange(Position center, double range) {
+		double r = range * (1.0 + MARGIN) + MARGIN;
+		int minCol = index(center.getXCoord() - r, columns);
+		int maxCol = index(center.getXCoord() + r, columns);
+		int minRow = index(center.getYCoord() - r, rows);
+		int maxRow = index(center.getYCoord() + r, rows);
+
+		List<Node> result = new ArrayList<Node>();
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int col = minCol; col <= maxCol; col++) {
+				result.addAll(cells[row * columns + col]);
+			}
+		}
+		Collections.sort(result, ID_ORDER);
+		return result;
+	}
+
+	/** @return the edge length of a cell. */
+	public final double getCellSize() {
+		return cellSize;
+	}
+}
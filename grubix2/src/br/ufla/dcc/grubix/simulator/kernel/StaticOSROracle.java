@@ -19,7 +19,10 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 package br.ufla.dcc.grubix.simulator.kernel;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 
 import br.ufla.dcc.grubix.simulator.NodeId;
@@ -32,8 +35,15 @@ import br.ufla.dcc.grubix.simulator.node.Node;
  * Class to to store all routes between two nodes.
  * This only makes sense in stationary setups.
  * 
- * This class needs the precomputed neighbourhood of each node to
- * compute all shortest path with the Floyd-Warshall algorithm.
+ * This class needs the precomputed neighbourhood of each node. The
+ * neighbourhood is copied once into compact adjacency arrays. The routes
+ * starting at a node are computed on demand by a breadth first search and
+ * kept in a size bounded cache, so only the sources actually used are ever
+ * computed and the memory does not grow quadratic with the number of nodes.
+ * 
+ * The search breaks ties between equally short paths exactly like the
+ * Floyd-Warshall algorithm used before: the chosen path minimizes the
+ * largest node index used as intermediate hop. Thus all routes are the same.
  * 
  * The case, where the destination is the source or the broadcast ID
  * is now handled seperately, like in DynamicOSROracle.
@@ -42,14 +52,38 @@ import br.ufla.dcc.grubix.simulator.node.Node;
  */
 public class StaticOSROracle extends OSROracle {
 	
+	/** upper bound for the number of route entries kept in the cache (two ints each). */
+	private static final long CACHE_ENTRIES = 4L * 1024 * 1024;
+	
+	/** marks an unknown hop count, next hop or intermediate node. */
+	private static final int NONE = -1;
+	
 	/** number nodes. */
 	private final int count;
-	/** infinity number of hops resolfe to.... */
-	private final int inf;
-	/** array to store the current shortest path between node i and node j. */
-	private final int[][] hc;
-	/** array to store the next hop on the path between node i and node j. */
-	private final int[][] p;
+	/** index of the first neighbour of node i in targets, the last is at offsets[i + 1] - 1. */
+	private final int[] offsets;
+	/** the neighbours of all nodes, as node indices. */
+	private final int[] targets;
+	/** the routes of the recently used sources, least recently used first. */
+	private final Map<Integer, Routes> cache;
+	
+	/** the hop counts and next hops of all routes starting at one node. */
+	private static final class Routes {
+		/** number of hops to node j, or NONE if not reachable. */
+		private final int[] hops;
+		/** index of the next hop to node j, or NONE if there is none. */
+		private final int[] next;
+		
+		/**
+		 * @param count number of nodes.
+		 */
+		private Routes(int count) {
+			hops = new int[count];
+			next = new int[count];
+			Arrays.fill(hops, NONE);
+			Arrays.fill(next, NONE);
+		}
+	}
 	
 	/**
 	 * default constructor using the given nodes with precomputed 1-hop neighbourhood.
@@ -57,45 +91,101 @@ public class StaticOSROracle extends OSROracle {
 	 */
 	public StaticOSROracle(SortedMap<NodeId, Node> allNodes) {
 		count = allNodes.size();
-		inf = count * count + 1;
-		
-		hc = new int[count][count];
-		p = new int[count][count];
+		offsets = new int[count + 1];
 		
+		for (Node node : allNodes.values()) {
+			offsets[node.getId().asInt()] = node.getNeighbors().size();
+		}
 		for (int i = 0; i < count; i++) {
-			for (int j = 0; j < count; j++) {
-				if (i == j) {
-					hc[i][j] = 0; // I'm already there
-				} else {
-					hc[i][j] = inf; // infinite hop count
-				}
-				p[i][j] = count;  // no path known yet
-			}
+			offsets[i + 1] += offsets[i];
 		}
 		
+		targets = new int[offsets[count]];
+		
 		for (Node node : allNodes.values()) {
-			int i = node.getId().asInt() - 1;
+			int k = offsets[node.getId().asInt() - 1];
 			
 			for (Node other : node.getNeighbors()) {
-				int j = other.getId().asInt() - 1;
-				
-				hc[i][j] = 1;
-				p[i][j] = j;
+				targets[k++] = other.getId().asInt() - 1;
 			}
 		}
 		
-		for (int k = 0; k < count; k++) {
-			for (int j = 0; j < count; j++) {
-				for (int i = 0; i < count; i++) {
-					int s = hc[i][k] + hc[k][j];
-
-					if (s < hc[i][j]) {
-						hc[i][j] = s;
-		                p[i][j] = p[i][k];
-					}
+		final int maxSources = (int) Math.max(1, Math.min(count, CACHE_ENTRIES / Math.max(1, count)));
+		
+		cache = new LinkedHashMap<Integer, Routes>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Routes> eldest) {
+				return size() > maxSources;
+			}
+		};
+	}
+	
+	/**
+	 * returns the routes starting at the given node, computing them if not cached.
+	 * 
+	 * @param source index of the starting node.
+	 * @return the routes from this node to all others.
+	 */
+	private Routes getRoutes(int source) {
+		Routes routes = cache.get(source);
+		
+		if (routes == null) {
+			routes = computeRoutes(source);
+			cache.put(source, routes);
+		}
+		return routes;
+	}
+	
+	/**
+	 * breadth first search from the given node.
+	 * 
+	 * Besides the hop count, the search keeps for every node the smallest possible
+	 * "largest intermediate hop" of all shortest paths to it. The next hop towards
+	 * node j then is j itself, if that intermediate is NONE (direct neighbour), or
+	 * the next hop towards the intermediate node. This is the route Floyd-Warshall
+	 * chooses, since it only accepts strictly shorter paths while adding the
+	 * intermediate nodes in ascending order.
+	 * 
+	 * @param source index of the starting node.
+	 * @return the routes from this node to all others.
+	 */
+	private Routes computeRoutes(int source) {
+		Routes routes = new Routes(count);
+		int[] hops = routes.hops;
+		int[] next = routes.next;
+		int[] via = new int[count];
+		int[] queue = new int[count];
+		int head = 0, tail = 0;
+		
+		hops[source] = 0;
+		via[source] = NONE;
+		queue[tail++] = source;
+		
+		while (head < tail) {
+			int u = queue[head++];
+			int viaU = NONE;
+			
+			if (u != source) {
+				// all predecessors of u are already processed, so via[u] is final.
+				next[u] = (via[u] == NONE) ? u : next[via[u]];
+				viaU = Math.max(via[u], u);
+			}
+			
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				
+				if (hops[v] == NONE) {
+					hops[v] = hops[u] + 1;
+					via[v] = viaU;
+					queue[tail++] = v;
+				} else if ((hops[v] == hops[u] + 1) && (viaU < via[v])) {
+					via[v] = viaU;
 				}
 			}
 		}
+		return routes;
 	}
 	
 	/**
@@ -107,12 +197,8 @@ public class StaticOSROracle extends OSROracle {
 	 */
 	public final int getHopCount(NodeId from, NodeId to) {
 		int i = from.asInt() - 1, j = to.asInt() - 1;
-		int res = hc[i][j];
 		
-		if (res == inf) {
-			res = -1;
-		}
-		return res;
+		return getRoutes(i).hops[j];
 	}
 	
 	/**
@@ -124,10 +210,10 @@ public class StaticOSROracle extends OSROracle {
 	 */
 	public final NodeId getNextHop(NodeId from, NodeId to) {
 		int i = from.asInt() - 1, j = to.asInt() - 1;
-		int k = p[i][j] + 1;
+		int k = getRoutes(i).next[j];
 		
-		if (k <= count) {
-			return NodeId.get(k);
+		if (k != NONE) {
+			return NodeId.get(k + 1);
 		} else {
 			return null;
 		}
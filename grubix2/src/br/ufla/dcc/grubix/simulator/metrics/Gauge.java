@@ -0,0 +1,112 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.metrics;
+
+/**
+ * Metric of a value which is set from time to time, e.g. a queue length or the remaining energy.
+ * Keeps the last value, the extremes and the running mean and variance (Welford's method).
+ */
+public final class Gauge extends Metric {
+
+	/** number of set values. */
+	private long count;
+
+	/** the last set value. */
+	private double last = Double.NaN;
+
+	/** the smallest set value. */
+	private double min = Double.POSITIVE_INFINITY;
+
+	/** the largest set value. */
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/** the mean of the set values. */
+	private double mean;
+
+	/** sum of the squared differences to the mean. */
+	private double squares;
+
+	/**
+	 * @param value the new value of the gauge.
+	 */
+	public void set(double value) {
+		count++;
+		last = value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+		double delta = value - mean;
+		mean += delta / count;
+		squares += delta * (value - mean);
+	}
+
+	/** @return number of set values. */
+	public long getCount() {
+		return count;
+	}
+
+	/** @return the last set value, NaN if none. */
+	public double getLast() {
+		return last;
+	}
+
+	/** @return the smallest set value. */
+	public double getMin() {
+		return min;
+	}
+
+	/** @return the largest set value. */
+	public double getMax() {
+		return max;
+	}
+
+	/** @return the mean of the set values. */
+	public double getMean() {
+		return mean;
+	}
+
+	/** @return the standard deviation of the set values. */
+	public double getStandardDeviation() {
+		return (count > 1) ? Math.sqrt(squares / (count - 1)) : 0.0;
+	}
+
+	/** @return "gauge". */
+	@Override
+	public String getKind() {
+		return "gauge";
+	}
+
+	/**
+	 * @param out the buffer to append to
+	 */
+	@Override
+	public void summarize(StringBuilder out) {
+		append(out, "n", count);
+		if (count > 0) {
+			append(out, "last", last);
+			append(out, "min", min);
+			append(out, "max", max);
+			append(out, "mean", mean);
+			append(out, "sd", getStandardDeviation());
+		}
+	}
+}
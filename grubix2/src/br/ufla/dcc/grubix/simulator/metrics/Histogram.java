@@ -0,0 +1,167 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.metrics;
+
+/**
+ * Metric of the distribution of non negative values, e.g. latencies. Like a HDR histogram the
+ * values are counted in log-linear buckets: every power of two is split into 2^{@link #SUB_BITS}
+ * buckets of equal width, so quantiles have a relative error of at most 2^-{@link #SUB_BITS}.
+ * The buckets of a power of two are allocated when the first value falls into it, the memory
+ * is bounded by the range of exponents from {@link #MIN_EXPONENT} to {@link #MAX_EXPONENT}.
+ * Count, sum and extremes are exact.
+ */
+public final class Histogram extends Metric {
+
+	/** number of bits of the sub buckets per power of two. */
+	public static final int SUB_BITS = 5;
+
+	/** smallest distinguished exponent, smaller values are counted as zero. */
+	public static final int MIN_EXPONENT = -32;
+
+	/** largest distinguished exponent, larger values are counted in the largest bucket. */
+	public static final int MAX_EXPONENT = 63;
+
+	/** number of sub buckets per power of two. */
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** the buckets, per exponent, null if no value of this power of two was recorded. */
+	private final long[][] buckets = new long[MAX_EXPONENT - MIN_EXPONENT + 1][];
+
+	/** number of values smaller than 2^MIN_EXPONENT, including zero and negative values. */
+	private long zeros;
+
+	/** number of recorded values. */
+	private long count;
+
+	/** sum of the recorded values. */
+	private double sum;
+
+	/** the smallest recorded value. */
+	private double min = Double.POSITIVE_INFINITY;
+
+	/** the largest recorded value. */
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * @param value the value to record.
+	 */
+	public void record(double value) {
+		count++;
+		sum += value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+
+		// the unbiased exponent and the leading bits of the mantissa of the IEEE 754 value.
+		long bits = Double.doubleToRawLongBits(value);
+		int exponent = (value > 0.0) ? (int) ((bits >>> 52) & 0x7FF) - 1023 : Integer.MIN_VALUE;
+		if (exponent < MIN_EXPONENT) {
+			zeros++;
+			return;
+		}
+		int sub;
+		if (exponent > MAX_EXPONENT) {
+			exponent = MAX_EXPONENT;
+			sub = SUB_BUCKETS - 1;
+		} else {
+			sub = (int) (bits >>> (52 - SUB_BITS)) & (SUB_BUCKETS - 1);
+		}
+		long[] bucket = buckets[exponent - MIN_EXPONENT];
+		if (bucket == null) {
+			bucket = new long[SUB_BUCKETS];
+			buckets[exponent - MIN_EXPONENT] = bucket;
+		}
+		bucket[sub]++;
+	}
+
+	/**
+	 * Returns the value below or at which the given fraction of the recorded values lies.
+	 * 
+	 * @param quantile fraction between 0 and 1, e.g. 0.99
+	 * @return the value, NaN if no value was recorded
+	 */
+	public double getQuantile(double quantile) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * count));
+		long seen = zeros;
+		if (seen >= rank) {
+			return Math.max(min, Math.min(0.0, max));
+		}
+		for (int e = 0; e < buckets.length; e++) {
+			long[] bucket = buckets[e];
+			if (bucket != null) {
+				for (int sub = 0; sub < SUB_BUCKETS; sub++) {
+					seen += bucket[sub];
+					if (seen >= rank) {
+						double value = (1.0 + (sub + 0.5) / SUB_BUCKETS) * Math.pow(2.0, e + MIN_EXPONENT);
+						return Math.max(min, Math.min(value, max));
+					}
+				}
+			}
+		}
+		return max;
+	}
+
+	/** @return number of recorded values. */
+	public long getCount() {
+		return count;
+	}
+
+	/** @return the mean of the recorded values, NaN if none. */
+	public double getMean() {
+		return (count > 0) ? sum / count : Double.NaN;
+	}
+
+	/** @return the smallest recorded value. */
+	public double getMin() {
+		return min;
+	}
+
+	/** @return the largest recorded value. */
+	public double getMax() {
+		return max;
+	}
+
+	/** @return "histogram". */
+	@Override
+	public String getKind() {
+		return "histogram";
+	}
+
+	/**
+	 * @param out the buffer to append to
+	 */
+	@Override
+	public void summarize(StringBuilder out) {
+		append(out, "n", count);
+		if (count > 0) {
+			append(out, "min", min);
+			append(out, "mean", getMean());
+			append(out, "p50", getQuantile(0.5));
+			append(out, "p90", getQuantile(0.9));
+			append(out, "p99", getQuantile(0.99));
+			append(out, "max", max);
+		}
+	}
+}
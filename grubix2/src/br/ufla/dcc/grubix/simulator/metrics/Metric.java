@@ -0,0 +1,64 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.metrics;
+
+/**
+ * Base class of the metrics of a {@link MetricsRegistry}. A metric aggregates its values online
+ * and in constant memory, so that only a summary is written at the end of a simulation.
+ */
+public abstract class Metric {
+
+	/**
+	 * @return short name of the kind of metric, used in the summary.
+	 */
+	public abstract String getKind();
+
+	/**
+	 * Appends the aggregated values as space separated name=value pairs.
+	 * 
+	 * @param out the buffer to append to
+	 */
+	public abstract void summarize(StringBuilder out);
+
+	/**
+	 * Appends a name=value pair.
+	 * 
+	 * @param out the buffer to append to
+	 * @param name name of the value
+	 * @param value the value
+	 */
+	protected static void append(StringBuilder out, String name, double value) {
+		out.append(' ').append(name).append('=');
+		appendNumber(out, value);
+	}
+
+	/**
+	 * Appends a number, integral values without fraction, others with float precision.
+	 * 
+	 * @param out the buffer to append to
+	 * @param value the value
+	 */
+	protected static void appendNumber(StringBuilder out, double value) {
+		if ((value == Math.rint(value)) && !Double.isInfinite(value)) {
+			out.append((long) value);
+		} else {
+			out.append((float) value);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.metrics;
+
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.NodeId;
+
+/**
+ * Identifies a metric by node, layer and name. Node and layer may be null for metrics
+ * of the whole simulation resp. of the whole node.
+ */
+public final class MetricKey implements Comparable<MetricKey> {
+
+	/** the node, null for the whole simulation. */
+	private final NodeId node;
+
+	/** the layer, null for the whole node. */
+	private final LayerType layer;
+
+	/** the name of the metric. */
+	private final String name;
+
+	/**
+	 * @param node the node, null for the whole simulation.
+	 * @param layer the layer, null for the whole node.
+	 * @param name the name of the metric.
+	 */
+	public MetricKey(NodeId node, LayerType layer, String name) {
+		if (name == null) {
+			throw new IllegalArgumentException("name");
+		}
+		this.node = node;
+		this.layer = layer;
+		this.name = name;
+	}
+
+	/** @return the node, null for the whole simulation. */
+	public NodeId getNode() {
+		return node;
+	}
+
+	/** @return the layer, null for the whole node. */
+	public LayerType getLayer() {
+		return layer;
+	}
+
+	/** @return the name of the metric. */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 * @param o the object to compare to
+	 * @return true if node, layer and name are equal
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof MetricKey)) {
+			return false;
+		}
+		MetricKey other = (MetricKey) o;
+		return name.equals(other.name) && (layer == other.layer)
+			&& ((node == null) ? other.node == null : node.equals(other.node));
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 * @return the hash code
+	 */
+	@Override
+	public int hashCode() {
+		int result = name.hashCode();
+		result = 31 * result + ((layer == null) ? 0 : layer.hashCode());
+		return 31 * result + ((node == null) ? 0 : node.hashCode());
+	}
+
+	/**
+	 * orders by name, then layer, then node, with null before the other values.
+	 * 
+	 * @param o the key to compare to
+	 * @return negative, zero or positive as usual
+	 */
+	public int compareTo(MetricKey o) {
+		int c = name.compareTo(o.name);
+		if (c == 0) {
+			c = ((layer == null) ? -1 : layer.ordinal()) - ((o.layer == null) ? -1 : o.layer.ordinal());
+		}
+		if (c == 0) {
+			long a = (node == null) ? Long.MIN_VALUE : node.asInt();
+			long b = (o.node == null) ? Long.MIN_VALUE : o.node.asInt();
+			c = (a < b) ? -1 : ((a == b) ? 0 : 1);
+		}
+		return c;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 * @return name, layer and node separated by spaces, "-" for null
+	 */
+	@Override
+	public String toString() {
+		return name.replace(' ', '_') + " " + ((layer == null) ? "-" : layer.getShortName()) 
+			+ " " + ((node == null) ? "-" : String.valueOf(node.asInt()));
+	}
+}
@@ -0,0 +1,187 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.metrics;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.NodeId;
+
+/**
+ * Registry of the metrics of one simulation, keyed by node, layer and name. The metrics
+ * aggregate their values while the simulation runs, so that the end-of-run figures do not
+ * need the statistics log and no list of raw values is kept. At the end of the simulation
+ * one line per metric is written (see {@link #writeSummary(String)}).
+ * 
+ * The lookup creates a key, so code which records values often should keep the returned metric.
+ * A key belongs to one kind of metric; asking for another kind with the same key fails.
+ */
+public final class MetricsRegistry {
+
+	/** Logger of the class. */
+	private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class);
+
+	/** the metrics by their key. */
+	private final Map<MetricKey, Metric> metrics = new HashMap<MetricKey, Metric>();
+
+	/** initial width of the buckets of new time series in simulation steps. */
+	private final double seriesWidth;
+
+	/**
+	 * @param seriesWidth initial width of the buckets of new time series in simulation steps.
+	 */
+	public MetricsRegistry(double seriesWidth) {
+		this.seriesWidth = seriesWidth;
+	}
+
+	/**
+	 * returns the metric of the given key, creating it if necessary.
+	 * 
+	 * @param <T> the kind of the metric
+	 * @param key key of the metric
+	 * @param kind the kind of the metric
+	 * @return the metric
+	 */
+	private <T extends Metric> T get(MetricKey key, Class<T> kind) {
+		Metric metric = metrics.get(key);
+		if (metric == null) {
+			if (kind == Counter.class) {
+				metric = new Counter();
+			} else if (kind == Gauge.class) {
+				metric = new Gauge();
+			} else if (kind == Histogram.class) {
+				metric = new Histogram();
+			} else {
+				metric = new TimeSeries(seriesWidth);
+			}
+			metrics.put(key, metric);
+		} else if (metric.getClass() != kind) {
+			throw new IllegalArgumentException(key + " is a " + metric.getKind());
+		}
+		return kind.cast(metric);
+	}
+
+	/**
+	 * @param node the node, null for the whole simulation
+	 * @param layer the layer, null for the whole node
+	 * @param name name of the metric
+	 * @return the counter of the key
+	 */
+	public Counter counter(NodeId node, LayerType layer, String name) {
+		return get(new MetricKey(node, layer, name), Counter.class);
+	}
+
+	/**
+	 * @param node the node, null for the whole simulation
+	 * @param layer the layer, null for the whole node
+	 * @param name name of the metric
+	 * @return the gauge of the key
+	 */
+	public Gauge gauge(NodeId node, LayerType layer, String name) {
+		return get(new MetricKey(node, layer, name), Gauge.class);
+	}
+
+	/**
+	 * @param node the node, null for the whole simulation
+	 * @param layer the layer, null for the whole node
+	 * @param name name of the metric
+	 * @return the histogram of the key
+	 */
+	public Histogram histogram(NodeId node, LayerType layer, String name) {
+		return get(new MetricKey(node, layer, name), Histogram.class);
+	}
+
+	/**
+	 * @param node the node, null for the whole simulation
+	 * @param layer the layer, null for the whole node
+	 * @param name name of the metric
+	 * @return the time series of the key
+	 */
+	public TimeSeries series(NodeId node, LayerType layer, String name) {
+		return get(new MetricKey(node, layer, name), TimeSeries.class);
+	}
+
+	/**
+	 * @param key key of a metric
+	 * @return the metric, null if there is none
+	 */
+	public Metric getMetric(MetricKey key) {
+		return metrics.get(key);
+	}
+
+	/** @return number of metrics. */
+	public int size() {
+		return metrics.size();
+	}
+
+	/**
+	 * Returns one line per metric, sorted by name, layer and node:
+	 * <code>kind name layer node value=... </code>, with "-" for a missing layer or node.
+	 * 
+	 * @return the lines of the summary
+	 */
+	public List<String> getSummary() {
+		List<String> lines = new ArrayList<String>(metrics.size());
+		StringBuilder line = new StringBuilder();
+		for (Map.Entry<MetricKey, Metric> entry : new TreeMap<MetricKey, Metric>(metrics).entrySet()) {
+			line.setLength(0);
+			line.append(entry.getValue().getKind()).append(' ').append(entry.getKey());
+			entry.getValue().summarize(line);
+			lines.add(line.toString());
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes the summary to the given file, or to the log if no file name is given.
+	 * A failure is logged only, as the simulation is over anyway.
+	 * 
+	 * @param fileName name of the file, empty or null to log the summary
+	 */
+	public void writeSummary(String fileName) {
+		List<String> lines = getSummary();
+		if ((fileName == null) || (fileName.length() == 0)) {
+			for (String line : lines) {
+				LOGGER.info(line);
+			}
+			return;
+		}
+		try {
+			PrintWriter out = new PrintWriter(new FileWriter(fileName));
+			try {
+				for (String line : lines) {
+					out.println(line);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			LOGGER.error("could not write the metrics to " + fileName, e);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.metrics;
+
+/**
+ * Metric of values over the simulation time, e.g. the throughput per second. The values are
+ * summed up in a fixed number of buckets of equal width, starting at time 0. If a value lies
+ * beyond the last bucket, neighboring buckets are merged and the width is doubled, so the
+ * memory stays constant however long the simulation runs.
+ */
+public final class TimeSeries extends Metric {
+
+	/** default number of buckets. */
+	public static final int DEFAULT_BUCKETS = 64;
+
+	/** number of values per bucket. */
+	private final long[] counts;
+
+	/** sum of the values per bucket. */
+	private final double[] sums;
+
+	/** width of a bucket in simulation steps. */
+	private double width;
+
+	/** index of the last bucket with a value, -1 if none. */
+	private int last = -1;
+
+	/**
+	 * @param width initial width of a bucket in simulation steps.
+	 * @param buckets number of buckets, has to be even.
+	 */
+	public TimeSeries(double width, int buckets) {
+		if ((width <= 0.0) || (buckets < 2) || (buckets % 2 != 0)) {
+			throw new IllegalArgumentException("width " + width + " buckets " + buckets);
+		}
+		this.width = width;
+		this.counts = new long[buckets];
+		this.sums = new double[buckets];
+	}
+
+	/**
+	 * @param width initial width of a bucket in simulation steps.
+	 */
+	public TimeSeries(double width) {
+		this(width, DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * @param time the simulation time of the value.
+	 * @param value the value to add to the bucket of the time.
+	 */
+	public void add(double time, double value) {
+		int index = (time > 0.0) ? (int) Math.min(time / width, Integer.MAX_VALUE) : 0;
+		while (index >= counts.length) {
+			merge();
+			index = (int) Math.min(time / width, Integer.MAX_VALUE);
+		}
+		counts[index]++;
+		sums[index] += value;
+		if (index > last) {
+			last = index;
+		}
+	}
+
+	/** merges every two neighboring buckets and doubles the width. */
+	private void merge() {
+		int half = counts.length / 2;
+		for (int i = 0; i < half; i++) {
+			counts[i] = counts[2 * i] + counts[2 * i + 1];
+			sums[i] = sums[2 * i] + sums[2 * i + 1];
+		}
+		for (int i = half; i < counts.length; i++) {
+			counts[i] = 0;
+			sums[i] = 0.0;
+		}
+		width *= 2.0;
+		last = (last < 0) ? -1 : last / 2;
+	}
+
+	/** @return the current width of a bucket in simulation steps. */
+	public double getWidth() {
+		return width;
+	}
+
+	/** @return number of buckets up to the last one with a value. */
+	public int getBucketCount() {
+		return last + 1;
+	}
+
+	/**
+	 * @param index index of the bucket, starting at time index * width.
+	 * @return number of values in the bucket.
+	 */
+	public long getCount(int index) {
+		return counts[index];
+	}
+
+	/**
+	 * @param index index of the bucket, starting at time index * width.
+	 * @return sum of the values in the bucket.
+	 */
+	public double getSum(int index) {
+		return sums[index];
+	}
+
+	/** @return "series". */
+	@Override
+	public String getKind() {
+		return "series";
+	}
+
+	/**
+	 * appends the width and the counts and sums of the buckets, separated by commas.
+	 * 
+	 * @param out the buffer to append to
+	 */
+	@Override
+	public void summarize(StringBuilder out) {
+		append(out, "width", width);
+		out.append(" counts=");
+		for (int i = 0; i <= last; i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			out.append(counts[i]);
+		}
+		out.append(" sums=");
+		for (int i = 0; i <= last; i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			appendNumber(out, sums[i]);
+		}
+	}
+}
@@ -52,6 +52,7 @@ import br.ufla.dcc.grubix.simulator.event.Transmission;
 import br.ufla.dcc.grubix.simulator.event.TransmissionBeginIncoming;
 import br.ufla.dcc.grubix.simulator.event.TransmissionEndIncoming;
 import br.ufla.dcc.grubix.simulator.event.TransmissionEndOutgoing;
+import br.ufla.dcc.grubix.simulator.event.TransmissionEndSkipped;
 import br.ufla.dcc.grubix.simulator.event.WakeUpCall;
 import br.ufla.dcc.grubix.simulator.event.genericcarriersense.CarrierSenseCarrierFreeCheck;
 import br.ufla.dcc.grubix.simulator.event.genericcarriersense.CarrierSenseDurationEnd;
@@ -177,10 +178,14 @@ public class AirModule extends Layer implements StateIO {
 	 */
 	private double lastTimeOnlyCarrierSensing;
 	
+	/** drop transmissions at once, if the physical layer does not listen. */
+	private final boolean skipSleepingReceivers;
+	
 	/** Constructor of the class AirModule. */
 	public AirModule() {
 		super(LayerType.AIR);
 		this.bmm = Configuration.getInstance().getBitManglingModel();
+		this.skipSleepingReceivers = Configuration.getInstance().isSkipSleepingReceivers();
 		this.currentIncomingTransmissions = new HashMap<EventId, Transmission>();
 		this.interQueue = new InterferenceQueue(bmm);
 		this.isOnlyCarrierSensing = false;
@@ -195,6 +200,7 @@ public class AirModule extends Layer implements StateIO {
 	public AirModule(BitManglingModel bmm) {
 		super(LayerType.AIR);
 		this.bmm = bmm;
+		this.skipSleepingReceivers = Configuration.getInstance().isSkipSleepingReceivers();
 		this.currentIncomingTransmissions = new HashMap<EventId, Transmission>();
 		this.interQueue = new InterferenceQueue(bmm);
 		this.isOnlyCarrierSensing = false;
@@ -254,6 +260,8 @@ public class AirModule extends Layer implements StateIO {
 			processTransmissionEndIncoming((TransmissionEndIncoming) event);
 		} else if (event instanceof TransmissionEndOutgoing) {
 			processTransmissionEndOutgoing((TransmissionEndOutgoing) event);
+		} else if (event instanceof TransmissionEndSkipped) {
+			processTransmissionEndSkipped((TransmissionEndSkipped) event);
 		} else if (event instanceof AirLogTransmission) { 
 			processAirLogTransmission((AirLogTransmission) event); 
 		} else if (event instanceof AirPerformCarrierSense) {
@@ -289,6 +297,20 @@ public class AirModule extends Layer implements StateIO {
 		
 		updateLastInterference(trans, false);
 		
+		/*
+		 * A sleeping receiver would drop the transmission, so it is not received
+		 * at all. Only a single wake up call is scheduled, which tells the physical
+		 * layer about the occupied channel, when the transmission has arrived.
+		 * The interferences for the carrier sense come as separate events and are
+		 * not affected.
+		 */
+		if (skipSleepingReceivers 
+				&& !((PhysicalLayer) node.getLayer(LayerType.PHYSICAL)).isListening()) {
+			dropPacket(trans.getPacket());
+			sendEventSelf(new TransmissionEndSkipped(sender, trans));
+			return;
+		}
+		
 		WakeUpCall wuc = new TransmissionBeginIncoming(sender, trans);
 		sendEventSelf(wuc);
 	}	
@@ -352,11 +374,29 @@ public class AirModule extends Layer implements StateIO {
 														trans.getId(), originator, packetID);
 			sendEventSelf(wuc);
 		} else {
-			if (packet.isImportant() && packet.getReceiver().equals(id)) {
-				LOGGER.warn(id + " dropped important packet from " + originator);
-			}
-			droppedPacket++;
+			dropPacket(packet);
+		}
+	}
+	
+	/**
+	 * Part of processEvent, to process the end of skipped incoming transmissions.
+	 * @param transEnd the to be processed event.
+	 */
+	private void processTransmissionEndSkipped(TransmissionEndSkipped transEnd) {
+		PhysicalLayer phy = (PhysicalLayer) node.getLayer(LayerType.PHYSICAL);
+		
+		phy.channelOccupied(transEnd.getTransmission().getPacket());
+	}
+	
+	/**
+	 * counts an incoming packet, which is not received.
+	 * @param packet the dropped packet.
+	 */
+	private void dropPacket(Packet packet) {
+		if (packet.isImportant() && packet.getReceiver().equals(id)) {
+			LOGGER.warn(id + " dropped important packet from " + packet.getSender().getId());
 		}
+		droppedPacket++;
 	}
 	
 	/**
@@ -822,40 +862,28 @@ public class AirModule extends Layer implements StateIO {
 			CarrierSenseInformation carrierSenseInfo) {
 
 
-		ArrayList<Interference> allInterferences  = interQueue.getInterferences();
 		boolean foundMatchingInterference = false;
 		double currentTime = SimulationManager.getInstance().getCurrentTime();
 		
 		/* 
 		 * Check if there are interferences which match the current time.
+		 * 
+		 * This code assumes that interference.getSimStartTime()
+		 * is the time where the transmission of the interference
+		 * started leaving the antenna of the sending node.
 		 */
-		
-		for (Interference interference : allInterferences) {
-			/*
-			 * This code assumes that interference.getSimStartTime()
-			 * is the time where the transmission of the interference
-			 * started leaving the antenna of the sending node.
-			 */
-			double timeInterferenceReachedThisNode = interference.getSimStartTime();
-			double timeInterferencePassedThisNode = timeInterferenceReachedThisNode
-					+ interference.getSendingTime();
-			
-			if (timeInterferenceReachedThisNode <= currentTime
-					&& currentTime < timeInterferencePassedThisNode) {
-		
-				// found an interference matching to the current time 
-				foundMatchingInterference = true;
+		if (interQueue.getBusyUntil(currentTime) > currentTime) {
+	
+			// found an interference matching to the current time 
+			foundMatchingInterference = true;
 
-				// inform the layer who registered the carrier sense about the result
-				CarrierSenseResult theResult =
-					new CarrierSenseResult(sender,
-							carrierSenseInfo.getRegistrant().getId(),
-							true, carrierSenseInfo);
-				
-				sendEventTo(theResult, carrierSenseInfo.getRegistrant().getFromLayer());
-				
-				break;
-			}
+			// inform the layer who registered the carrier sense about the result
+			CarrierSenseResult theResult =
+				new CarrierSenseResult(sender,
+						carrierSenseInfo.getRegistrant().getId(),
+						true, carrierSenseInfo);
+			
+			sendEventTo(theResult, carrierSenseInfo.getRegistrant().getFromLayer());
 		}
 		
 		/* 
@@ -975,7 +1003,6 @@ public class AirModule extends Layer implements StateIO {
 		}
 
 		// Check if there are interferences which match the current time
-		ArrayList<Interference> allInterferences  = interQueue.getInterferences();
 		CarrierSenseInformation theCarrierSenseInfo = beacon.getCarrierSenseInfo();
 		boolean foundMatchingInterference = false;
 		double currentTime = SimulationManager.getInstance().getCurrentTime();
@@ -984,29 +1011,16 @@ public class AirModule extends Layer implements StateIO {
 		 * The time the last interference has passed the node so that
 		 * the node gets free if between now and then no new
 		 * interference is started.
+		 * 
+		 * This code assumes that interference.getSimStartTime()
+		 * is the time where the transmission of the interference
+		 * started reaching the antenna of the receiving node.
 		 */ 
-		double timeLastInterferencePassed = 0.0;
-		
+		double timeLastInterferencePassed = interQueue.getBusyUntil(currentTime);
 		
-		for (Interference interference : allInterferences) {
-			/*
-			 * This code assumes that interference.getSimStartTime()
-			 * is the time where the transmission of the interference
-			 * started reaching the antenna of the receiving node.
-			 */
-			double timeInterferenceReachedThisNode = interference.getSimStartTime();
-			double timeInterferencePassedThisNode = timeInterferenceReachedThisNode + interference.getSendingTime();
-			
-			if (timeInterferenceReachedThisNode <= currentTime
-					&& currentTime < timeInterferencePassedThisNode) {
-				// found an interference matching to the current time 
-				foundMatchingInterference = true;
-
-				// determine the last interference
-				if (timeInterferencePassedThisNode > timeLastInterferencePassed) {
-					timeLastInterferencePassed = timeInterferencePassedThisNode; 
-				}
-			}
+		if (timeLastInterferencePassed > currentTime) {
+			// found an interference matching to the current time 
+			foundMatchingInterference = true;
 		}
 		
 		/**
@@ -37,6 +37,8 @@ import br.ufla.dcc.grubix.simulator.event.StartSimulation;
 import br.ufla.dcc.grubix.simulator.event.ToLayer;
 import br.ufla.dcc.grubix.simulator.event.WakeUpCall;
 import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.EventHandle;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationKernel;
 import br.ufla.dcc.grubix.simulator.random.RandomGenerator;
 import br.ufla.dcc.grubix.xml.Configurable;
@@ -94,6 +96,9 @@ public abstract class Layer implements Configurable, StateIO {
 	
 	/** shortcut to access Configuration.getInstance(). */
 	private Configuration config;
+	
+	/** the simulation the layer belongs to, the one it was created in until set by setNode. */
+	private SimulationContext context = SimulationContext.current();
 
 	/**
 	 * flag is the layer is suspended.
@@ -194,13 +199,18 @@ public abstract class Layer implements Configurable, StateIO {
 	 * method to send an event to the same layer.
 	 * 
 	 * If the layer is suspended, a warning is logged and the event is dropped.
+	 * 
+	 * The returned handle can be used to cancel the event, e.g. a timeout which
+	 * became outdated by a state change, so it is not delivered at all.
 	 *  
 	 * @param event the to be processed event.
+	 * @return the handle to cancel the event, or null if the event was dropped.
 	 */
-	public void sendEventSelf(ToLayer event) {
+	public EventHandle sendEventSelf(ToLayer event) {
 		if (checkNotSuspended(event)) {
-			getKernel().enqueueEvent(this, event, getLayerType());
+			return getKernel().enqueueEvent(this, event, getLayerType());
 		}
+		return null;
 	}
 	
 	/**
@@ -365,6 +375,7 @@ public abstract class Layer implements Configurable, StateIO {
 		
 		if (result) {
 			this.node = node;
+			this.context = node.getContext();
 			this.id = node.getId();
 			this.sender = new Address(node.getId(), getLayerType());
 			
@@ -377,6 +388,11 @@ public abstract class Layer implements Configurable, StateIO {
 		return result;
 	}
 	
+	/** @return the simulation the layer belongs to. */
+	public SimulationContext getContext() {
+		return context;
+	}
+	
 	/**
 	 * returns the configuration of the current simulation run.
 	 * This value is available after the call of initConfiguration().
@@ -18,6 +18,8 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator.node;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -53,6 +55,7 @@ import br.ufla.dcc.grubix.simulator.event.ToDevice;
 import br.ufla.dcc.grubix.simulator.event.ToLayer;
 import br.ufla.dcc.grubix.simulator.event.TrafficGeneration;
 import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
 import br.ufla.dcc.grubix.simulator.node.energy.BasicEnergyManager;
 import br.ufla.dcc.grubix.simulator.node.energy.EnergyManager;
@@ -97,6 +100,9 @@ public class Node implements Configurable, Serializable {
 	/** The unique ID of the node. */
 	private final NodeId id;
 	
+	/** The simulation the node belongs to, the current one after deserialization. */
+	private transient SimulationContext context;
+	
 	/** The type of node (may be used differently by varios applications */
 	private int typeOfNode=0;
 	
@@ -203,10 +209,20 @@ public class Node implements Configurable, Serializable {
 	private boolean DirectionX = true;
 	
 	/**
-	 * Constructor of the class Node.
+	 * Constructor of the class Node, creates a node of the current simulation.
 	 */
 	public Node() {
-		this.id = new NodeId();
+		this(SimulationContext.current());
+	}
+	
+	/**
+	 * Constructor of the class Node.
+	 * 
+	 * @param context the simulation the node belongs to.
+	 */
+	public Node(SimulationContext context) {
+		this.context = context;
+		this.id = new NodeId(context);
 		this.movedObserver = new HashSet<Layer>();
 		
 		inPackets = new LinkedHashMap<LayerType, Integer>();
@@ -289,7 +305,7 @@ public class Node implements Configurable, Serializable {
 	 * @param layer LayerType of the goal layer of the given event.
 	 */
 	public void processEvent(Event event, LayerType layer) {
-		setCurrentTime(SimulationManager.getInstance().getCurrentTime()); // for debugging purposes
+		setCurrentTime(context.getCurrentTime()); // for debugging purposes
 
 		if (isEmpty()) {
 			LOGGER.warn("Node " + getId() + " is powered down [" + event + "]");
@@ -340,7 +356,7 @@ public class Node implements Configurable, Serializable {
 	 */
 	public void processEvent(Event event, DeviceType toDevice) {
 		// for debugging purposes (copied from processEvent(Event, LayerType)
-		setCurrentTime(SimulationManager.getInstance().getCurrentTime());
+		setCurrentTime(context.getCurrentTime());
 
 		if (isEmpty()) {
 			LOGGER.warn("Node " + getId() + " is powered down [" + event + "]");
@@ -406,7 +422,7 @@ public class Node implements Configurable, Serializable {
 			if (simState instanceof StartSimulation) {
 				LOGGER.info("Starting node " + getId().toString()
 						+ " at "
-						+ SimulationManager.getInstance().getCurrentTime());
+						+ context.getCurrentTime());
 			}
 			
 			List<LayerType> layers = Arrays.asList(LayerType.values());
@@ -492,7 +508,7 @@ public class Node implements Configurable, Serializable {
 		/*	TODO Replace this by a clock simulation with adjustable error and
 		 * 		 drift and use the currentTime field.
 		 */
-		return SimulationManager.getInstance().getCurrentTime(); 
+		return context.getCurrentTime(); 
 	}
 	
 	/**
@@ -553,6 +569,22 @@ public class Node implements Configurable, Serializable {
 		return this.id.equals(n.id);
 	}
 
+	/** @return the simulation the node belongs to. */
+	public SimulationContext getContext() {
+		return context;
+	}
+
+	/**
+	 * reads a serialized node, which belongs to the current simulation afterwards.
+	 * @param in the stream to read from.
+	 * @throws IOException if the stream can not be read.
+	 * @throws ClassNotFoundException if a class of the node is unknown.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		context = SimulationContext.current();
+	}
+
 	/**@return the configuration. */
 	public Configuration getConfig() {
 		return cfg;
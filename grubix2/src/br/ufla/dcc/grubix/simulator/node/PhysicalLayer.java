@@ -24,6 +24,7 @@ import br.ufla.dcc.grubix.simulator.LayerType;
 import br.ufla.dcc.grubix.simulator.event.Initialize;
 import br.ufla.dcc.grubix.simulator.event.LayerState;
 import br.ufla.dcc.grubix.simulator.event.PhysicalLayerState;
+import br.ufla.dcc.grubix.simulator.event.PhysicalPacket;
 import br.ufla.dcc.grubix.simulator.event.SimulationState;
 import br.ufla.dcc.grubix.simulator.node.devices.transceiver.GenericTransceiver;
 import br.ufla.dcc.grubix.simulator.node.energy.BasicEnergyManager;
@@ -169,6 +170,36 @@ public abstract class PhysicalLayer extends Layer {
 		this.setState(theState);
 	}
 
+	/**
+	 * Tells the AirModule, whether incoming transmissions have to be delivered to this layer.
+	 * Only used, if the sleeping receivers are skipped (see
+	 * {@link br.ufla.dcc.grubix.simulator.kernel.Configuration#isSkipSleepingReceivers()}).
+	 * 
+	 * Layers, which keep a radio state of their own, answer from it. If they observe the
+	 * channel while their radio is off, e.g. for their own carrier sense, they do this in
+	 * {@link #channelOccupied(PhysicalPacket)}.
+	 * 
+	 * @return true if the radio is listening or receiving.
+	 */
+	public boolean isListening() {
+		return (radioState == RadioState.LISTENING) || (radioState == RadioState.RECEIVING);
+	}
+
+	/**
+	 * Called by the AirModule instead of delivering an incoming packet, which was skipped
+	 * since this layer was not listening when the transmission started at the sender (see
+	 * {@link #isListening()}). The call takes place when the packet has arrived, at the
+	 * time lowerSAP would have got it, even if the layer is listening by then. The packet
+	 * is not checked against interferences and must not be passed up.
+	 * 
+	 * Layers, which track the occupancy of the channel themselves, update it here.
+	 * 
+	 * @param packet the incoming packet.
+	 */
+	public void channelOccupied(PhysicalPacket packet) {
+		// nothing to do
+	}
+
 	/** @return the ignoreRadioStateOnNeighborhoodDetection. */
 	public final boolean isIgnoreRadioStateOnNeighborhoodDetection() {
 		return ignoreRadioStateOnNeighborhoodDetection;
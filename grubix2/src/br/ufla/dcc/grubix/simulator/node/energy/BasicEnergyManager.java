@@ -3,8 +3,8 @@
  */
 package br.ufla.dcc.grubix.simulator.node.energy;
 
-import java.util.LinkedList;
-
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.apache.log4j.Logger;
 
@@ -14,13 +14,12 @@ import br.ufla.dcc.grubix.simulator.NodeId;
 import br.ufla.dcc.grubix.simulator.SimulationFailedException;
 import br.ufla.dcc.grubix.simulator.event.EnergyManagerWakeUpCallEvent;
 import br.ufla.dcc.grubix.simulator.kernel.Configuration;
+import br.ufla.dcc.grubix.simulator.kernel.EventHandle;
 import br.ufla.dcc.grubix.simulator.kernel.SimulationManager;
 import br.ufla.dcc.grubix.simulator.node.Node;
 import br.ufla.dcc.grubix.simulator.node.devices.transceiver.GenericTransceiver;
 import br.ufla.dcc.grubix.simulator.node.energy.units.Joule;
-import br.ufla.dcc.grubix.simulator.node.energy.units.SIUnit;
 import br.ufla.dcc.grubix.simulator.node.energy.units.Watt;
-import br.ufla.dcc.grubix.simulator.util.Pair;
 import br.ufla.dcc.grubix.xml.ConfigurationException;
 import br.ufla.dcc.grubix.xml.ShoXParameter;
 
@@ -48,6 +47,11 @@ public class BasicEnergyManager implements EnergyManager {
 	 */
 	private static final Logger LOGGER = Logger.getLogger(BasicEnergyManager.class.getName());
 
+	/**
+	 * Initial capacity of the arrays of the registered callbacks.
+	 */
+	private static final int INITIAL_CALLBACKS = 4;
+
 	/**
 	 * A reference to the configuration of the current system run.
 	 */
@@ -114,23 +118,52 @@ public class BasicEnergyManager implements EnergyManager {
 	 */
 	private EventId lastSendWakeUpCallId;
 	
+	/**
+	 * Handle of the last EnergyManagerWakeUpCall being send, to cancel it
+	 * as soon as it is outdated.
+	 */
+	private EventHandle lastSendWakeUpCall;
+	
 	/**
 	 * This is the banner which is prepended to all log / debug output of the BasicEnergyManager.
 	 */
 	private String energyManagerBanner = "";
 	
 	/**
-	 * A list of callbacks, which can be used to be informed when
-	 * a certain level of power is reached.
+	 * The levels of the registered callbacks in ascending order. The callbacks
+	 * with the highest levels, which are reached first, are at the end.
+	 */
+	private long[] callbackLevels = new long[INITIAL_CALLBACKS];
+
+	/**
+	 * The callbacks, which can be used to be informed when a certain level
+	 * of power is reached, in the order of {@link #callbackLevels}.
+	 */
+	private PowerLevelCallback[] registeredCallbacks = new PowerLevelCallback[INITIAL_CALLBACKS];
+
+	/**
+	 * The number of registered callbacks.
 	 */
-	private LinkedList<Pair<Long, PowerLevelCallback> > registeredCallbacks =
-								new LinkedList<Pair<Long, PowerLevelCallback> >();
+	private int callbackCount = 0;
 
 	/**
 	 * A list of information about all active (or not yet removed) one time consumptions.
 	 */
-	private LinkedList<OneTimeConsumptionInformation> activeOneTimeConsumptionInformation =
-								new LinkedList<OneTimeConsumptionInformation>();
+	private ArrayList<OneTimeConsumptionInformation> activeOneTimeConsumptionInformation =
+								new ArrayList<OneTimeConsumptionInformation>();
+
+	/**
+	 * The average consumption of all consumers (internal value), summed up
+	 * when it was requested the first time after a change.
+	 */
+	private long averageConsumption;
+
+	/**
+	 * Flag if a consumer has changed its consumption since the average consumption
+	 * was summed up. The consumers announce every change by
+	 * {@link PowerConsumerFeedback#afterUpdate()}.
+	 */
+	private boolean consumptionChanged = true;
 	
 	/**
 	 * feedback object for PowerConsumers.
@@ -142,6 +175,7 @@ public class BasicEnergyManager implements EnergyManager {
 		}
 
 		public void afterUpdate() {
+			consumptionChanged = true;
 			updatePowerCallBacks();
 		}
 
@@ -186,9 +220,32 @@ public class BasicEnergyManager implements EnergyManager {
 			level = 0;
 		}
 		
-		LOGGER.debug(this.energyManagerBanner
-					 + "Adding EnergyManager callback to call back at level " + level);
-		registeredCallbacks.add(new Pair<Long, PowerLevelCallback>(level, clb));
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(this.energyManagerBanner
+						 + "Adding EnergyManager callback to call back at level " + level);
+		}
+		
+		if (callbackCount == registeredCallbacks.length) {
+			long[] levels = new long[2 * callbackCount];
+			PowerLevelCallback[] callbacks = new PowerLevelCallback[2 * callbackCount];
+			
+			System.arraycopy(callbackLevels, 0, levels, 0, callbackCount);
+			System.arraycopy(registeredCallbacks, 0, callbacks, 0, callbackCount);
+			callbackLevels = levels;
+			registeredCallbacks = callbacks;
+		}
+		
+		// insert behind all callbacks with the same or a lower level
+		int pos = callbackCount;
+		while (pos > 0 && callbackLevels[pos - 1] > level) {
+			pos--;
+		}
+		System.arraycopy(callbackLevels, pos, callbackLevels, pos + 1, callbackCount - pos);
+		System.arraycopy(registeredCallbacks, pos, registeredCallbacks, pos + 1, callbackCount - pos);
+		callbackLevels[pos] = level;
+		registeredCallbacks[pos] = clb;
+		callbackCount++;
+		
 		updatePowerCallBacks();
 	}
 
@@ -197,12 +254,11 @@ public class BasicEnergyManager implements EnergyManager {
 	 * {@inheritDoc}
 	 */
 	public void checkPowerLevelCallbacks() {
-		LinkedList<Pair<Long, PowerLevelCallback> > thisTimeFiredCallbacks =
-								new LinkedList<Pair<Long, PowerLevelCallback> >();
-		
-		LOGGER.debug(this.energyManagerBanner 
-					 + "checkPowerLevelCallbacks() called at step "
-					 + config.getKernel().getCurrentTime());
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(this.energyManagerBanner 
+						 + "checkPowerLevelCallbacks() called at step "
+						 + config.getKernel().getCurrentTime());
+		}
 		
 		/* If node resp. energy manager is suspended,
 		 * keep in mind that a check regarding WakeUpCalls
@@ -218,33 +274,34 @@ public class BasicEnergyManager implements EnergyManager {
 		
 		long level = getPowerLevel();
 	
-		// check callbacks and collect those which have to fire
-		LinkedList<PowerLevelCallback> collectedCallbacks = new LinkedList<PowerLevelCallback>();
+		// the callbacks which have to fire are those with the highest levels at the end
+		int first = callbackCount;
+		while (first > 0 && level <= callbackLevels[first - 1]) {
+			first--;
+		}
 		
-		for (Pair<Long, PowerLevelCallback> clbpair : registeredCallbacks) {
+		if (first < callbackCount) {
+			PowerLevelCallback[] collectedCallbacks = new PowerLevelCallback[callbackCount - first];
 			
-			if (level <= clbpair.first) {
-				// execute the callback
-				collectedCallbacks.add(clbpair.second);
-				thisTimeFiredCallbacks.add(clbpair);
-			}
+			System.arraycopy(registeredCallbacks, first, collectedCallbacks, 0, collectedCallbacks.length);
 			
-		}
-		
-		/* callbacks which will fired, will not be fired again
-		 * and have to be removed from the list before beeing fired,
-		 * because other wise we get stuck in a loop...
-		 */
-		for (Pair<Long, PowerLevelCallback> clbpair : thisTimeFiredCallbacks) {
-			LOGGER.debug(this.energyManagerBanner
-						  + "Removing already fired callback at level " + clbpair.first);
+			/* callbacks which will fired, will not be fired again
+			 * and have to be removed from the list before beeing fired,
+			 * because other wise we get stuck in a loop...
+			 */
+			if (LOGGER.isDebugEnabled()) {
+				for (int i = first; i < callbackCount; i++) {
+					LOGGER.debug(this.energyManagerBanner
+								  + "Removing already fired callback at level " + callbackLevels[i]);
+				}
+			}
+			Arrays.fill(registeredCallbacks, first, callbackCount, null);
+			callbackCount = first;
 			
-			registeredCallbacks.remove(clbpair);
-		}
-		
-		// and now, fire all collected callbacks
-		for (PowerLevelCallback callback : collectedCallbacks) {
-			callback.performed(theNode, level);
+			// and now, fire all collected callbacks, starting with the lowest level
+			for (PowerLevelCallback callback : collectedCallbacks) {
+				callback.performed(theNode, level);
+			}
 		}
 		
 		if (!isEmpty) {
@@ -256,18 +313,13 @@ public class BasicEnergyManager implements EnergyManager {
 	 * Removes OneTimeConsumptionInformation whos enddate is now or already passed.
 	 */
 	private void removeOldOneTimeConsumptionInformation() {
-		LinkedList<OneTimeConsumptionInformation> outdated = new LinkedList<OneTimeConsumptionInformation>();
 		double currentTime = config.getKernel().getCurrentTime();
 		
-		for (OneTimeConsumptionInformation information : activeOneTimeConsumptionInformation) {
-			if (information.endtime <= currentTime) {
-				outdated.add(information);
+		for (int i = activeOneTimeConsumptionInformation.size() - 1; i >= 0; i--) {
+			if (activeOneTimeConsumptionInformation.get(i).endtime <= currentTime) {
+				activeOneTimeConsumptionInformation.remove(i);
 			}
 		}
-		
-		for (OneTimeConsumptionInformation information : outdated) {
-			activeOneTimeConsumptionInformation.remove(information);
-		}
 	}
 	
 	/**
@@ -276,28 +328,22 @@ public class BasicEnergyManager implements EnergyManager {
 	 * If no callback is registered, checks when node runs out of power.
 	 */
 	private void updatePowerCallBacks() {
-		LOGGER.debug(this.energyManagerBanner 
-					 + "updatePowerCallBacks() called at step "
-					 + config.getKernel().getCurrentTime());
-		
 		removeOldOneTimeConsumptionInformation();
 		
 		/*
 		 * for printing debug information
 		 */
 		if (LOGGER.isDebugEnabled()) {
-
-			Pair<Joule, Joule> erSupData = getSumOfERSupplierData();
-			Joule curLevel = erSupData.first;
-			Joule maxCap = erSupData.second;
-			
+			LOGGER.debug(this.energyManagerBanner 
+						 + "updatePowerCallBacks() called at step "
+						 + config.getKernel().getCurrentTime());
 			LOGGER.debug(this.energyManagerBanner
-						 + "curLevel(sum): " + curLevel.getUserFriendlyString());
+						 + "curLevel(sum): " + new Joule(getSumOfERSupplierLevels()).getUserFriendlyString());
 			LOGGER.debug(this.energyManagerBanner
-					 	 + "maxCap(sum): " + maxCap.getUserFriendlyString());
+					 	 + "maxCap(sum): " + new Joule(getSumOfERSupplierCapacities()).getUserFriendlyString());
 			LOGGER.debug(this.energyManagerBanner
 					 	 + "remainRequest(sum): "
-					 	 + getPowerRequiredFromEnergyReservoirSuppliers().getUserFriendlyString());
+					 	 + new Joule(getPowerRequiredFromEnergyReservoirSuppliers()).getUserFriendlyString());
 			LOGGER.debug(this.energyManagerBanner
 						 + "relLevel(sum): " + getPowerLevel());
 		}
@@ -323,11 +369,13 @@ public class BasicEnergyManager implements EnergyManager {
 		}
 
 		if (Double.isNaN(wakeupStep)) {
-				
-			LOGGER.info(this.energyManagerBanner 
-						+ "UpdatePowerCallBacks stopped, "
-						+ "no remaining request or pending change at step " + config.getKernel().getCurrentTime());
-				
+			
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info(this.energyManagerBanner 
+							+ "UpdatePowerCallBacks stopped, "
+							+ "no remaining request or pending change at step " + config.getKernel().getCurrentTime());
+			}
+			
 			return;
 		}
 	
@@ -343,7 +391,8 @@ public class BasicEnergyManager implements EnergyManager {
 	private double getWakeUpTimeForEndOfNextOneTimeConsumption() {
 		double wakeUpTime = Double.NaN;
 		
-		for (OneTimeConsumptionInformation information : activeOneTimeConsumptionInformation) {
+		for (int i = 0; i < activeOneTimeConsumptionInformation.size(); i++) {
+			OneTimeConsumptionInformation information = activeOneTimeConsumptionInformation.get(i);
 			if (Double.isNaN(wakeUpTime) || wakeUpTime > information.getEndtime()) {
 				wakeUpTime = information.getEndtime();
 			}
@@ -357,13 +406,13 @@ public class BasicEnergyManager implements EnergyManager {
 	 * @return the simulation step or Double.NaN if node will never power down
 	 */
 	private double getWakeUpTimeForPowerDown() {
-		long availableEnergy = getSumOfERSupplierData().first.getValue(); // curLevel
-		long requiredEnergy = getAveragePowerConsumption().getJoule(1).getValue()
-						      + getActiveOneTimeConsumption().getJoule(1).getValue()
-							  - getSumOfPSSupplierData().getValue();
+		long availableEnergy = getSumOfERSupplierLevels();
+		long requiredEnergy = getAveragePowerConsumption()
+						      + getActiveOneTimeConsumption()
+							  - getSumOfPSSupplierData();
 		
-		// node will never power down
-		if (requiredEnergy == 0) {
+		// node will never power down, the power scavenging suppliers cover the consumption
+		if (requiredEnergy <= 0) {
 			return Double.NaN;
 		}
 		
@@ -377,15 +426,9 @@ public class BasicEnergyManager implements EnergyManager {
 	 * @return the simulation step or Double.NaN if no callback registered or no request from energy reservoirs 
 	 */
 	private double getWakeUpTimeForNextCallback() {
-		long highestlevel = -1;  
-		
-		for (Pair<Long, PowerLevelCallback> clbpair : registeredCallbacks) {
-			if (clbpair.first > highestlevel) {
-				highestlevel = clbpair.first;
-			}
-		}
-
-		if (highestlevel != -1) {
+		if (callbackCount > 0) {
+			long highestlevel = callbackLevels[callbackCount - 1];
+			
 			// levels till interesting level is reached
 			double deltaLevel = getPowerLevel() - highestlevel;
 			
@@ -404,14 +447,14 @@ public class BasicEnergyManager implements EnergyManager {
 			}
 			
 			// request per second
-			long remainReq = getPowerRequiredFromEnergyReservoirSuppliers().getValue();
+			long remainReq = getPowerRequiredFromEnergyReservoirSuppliers();
 			
 			// return no wakeup time, cause we will not run out of reservoir energy
 			if (remainReq == 0) {
 				return Double.NaN;
 			}
 
-			double powerPerPercent = (double) getSumOfERSupplierData().second.getValue() / 100;
+			double powerPerPercent = (double) getSumOfERSupplierCapacities() / 100;
 
 			double remainingLevelTime = (deltaLevel * powerPerPercent  / remainReq);
 			
@@ -429,13 +472,20 @@ public class BasicEnergyManager implements EnergyManager {
 	private void sendWakeupEvent(double offsetInSteps) {
 		EnergyManagerWakeUpCallEvent wakeup = new EnergyManagerWakeUpCallEvent(theNode.getId(), offsetInSteps);
 		lastSendWakeUpCallId = wakeup.getId();
+		
+		if (lastSendWakeUpCall != null) {
+			// the previous one is outdated now, so it need not be delivered at all.
+			lastSendWakeUpCall.cancel();
+		}
 
-		LOGGER.debug(this.energyManagerBanner
-				     + "Sending WakeUpEvent for calling back in "
-				     + config.getSeconds(offsetInSteps) + " seconds " 
-					 + "(" + offsetInSteps + " steps)");
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(this.energyManagerBanner
+					     + "Sending WakeUpEvent for calling back in "
+					     + config.getSeconds(offsetInSteps) + " seconds " 
+						 + "(" + offsetInSteps + " steps)");
+		}
 		
-		SimulationManager.enqueue(wakeup, DeviceType.POWERMANAGEMENT);
+		lastSendWakeUpCall = SimulationManager.enqueue(wakeup, DeviceType.POWERMANAGEMENT);
 	}
 
 	/**
@@ -448,19 +498,19 @@ public class BasicEnergyManager implements EnergyManager {
 		double diffSeconds = config.getSeconds(curTime - lastEnergyUpdateTime);
 		
 		lastEnergyUpdateTime = curTime;
-		Joule thePowerFromERS = getPowerRequiredFromEnergyReservoirSuppliers(); 
+		long thePowerFromERS = getPowerRequiredFromEnergyReservoirSuppliers(); 
 		
 		/*
 		 * Check if we did not have been run out of power already
 		 */
-		if (thePowerFromERS.getValue() > 0 && getSumOfERSupplierData().first.getValue() == 0) {
+		if (thePowerFromERS > 0 && getSumOfERSupplierLevels() == 0) {
 			switchTheNodeOff();			
 		}
 		
 		/*
 		 * Reduce the energy reservoirs
 		 */
-		double rawEnergyToSubstract = diffSeconds * thePowerFromERS.getValue();
+		double rawEnergyToSubstract = diffSeconds * thePowerFromERS;
 		long energyToSubstract;
 		
 		/* if the amount of energy is too small to be greater than zero
@@ -472,9 +522,7 @@ public class BasicEnergyManager implements EnergyManager {
 			energyToSubstract = (long) rawEnergyToSubstract;
 		}
 		
-		Joule amount = new Joule(energyToSubstract);
-
-		genericUpdateUsedEnergy(amount);
+		genericUpdateUsedEnergy(energyToSubstract);
 	}
 
 	/**
@@ -491,15 +539,15 @@ public class BasicEnergyManager implements EnergyManager {
 	 * Updates EnergyReservoirSuppliers fill state according
 	 * to the given amount of consumption.
 	 * This may switch of the node if no more power is left.
-	 * @param amount the usage this function call should satisfy
+	 * @param amount the usage this function call should satisfy (internal value)
 	 */
-	private void genericUpdateUsedEnergy(Joule amount) {
+	private void genericUpdateUsedEnergy(long amount) {
 		for (EnergyReservoirSupplier erSupplier : supplierER) {
 			amount = erSupplier.reduceEnergy(amount);
 		}
 		
 		// if there is some amount of energy which could not be satisfied by the energy reservoirs
-		if (amount.getValue() > 0) {
+		if (amount > 0) {
 			switchTheNodeOff();			
 		}
 	}
@@ -507,35 +555,27 @@ public class BasicEnergyManager implements EnergyManager {
 	/**
 	 * Determines the amount of Energy which is required
 	 * from EnergyReservoirSuppliers each second.
-	 * @return the calculated amount of Energy
+	 * @return the calculated amount of Energy (internal value)
 	 */
-	private Joule getPowerRequiredFromEnergyReservoirSuppliers() {
-		Watt suppliedPS = new Watt();
-		for (PowerScavengingSupplier psSupplier : supplierPS) {
-			suppliedPS.addWatt(psSupplier.currentOutput());
-		}
-		
-		Watt restReq = new Watt();
-		restReq.addWatt(getAveragePowerConsumption());
-		restReq.addWatt(getActiveOneTimeConsumption());
-		restReq.substractWatt(suppliedPS);
+	private long getPowerRequiredFromEnergyReservoirSuppliers() {
+		long restReq = getAveragePowerConsumption() + getActiveOneTimeConsumption() - getSumOfPSSupplierData();
 		
-		if (restReq.getValue() < 0) {
-			restReq = new Watt();
+		if (restReq < 0) {
+			restReq = 0;
 		}
 
-		return restReq.getJoule(1.0);
+		return restReq;
 	}
 
 	/**
 	 * Calculates the sum of consumption of all active one time consumptions.
-	 * @return the sum of all one time consumptions 
+	 * @return the sum of all one time consumptions (internal value)
 	 */
-	private Watt getActiveOneTimeConsumption() {
-		Watt activeConsumption = new Watt();
+	private long getActiveOneTimeConsumption() {
+		long activeConsumption = 0;
 
-		for (OneTimeConsumptionInformation information : activeOneTimeConsumptionInformation) {
-			activeConsumption.addWatt(information.getConsumption());
+		for (int i = 0; i < activeOneTimeConsumptionInformation.size(); i++) {
+			activeConsumption += activeOneTimeConsumptionInformation.get(i).getConsumption().getValue();
 		}
 		
 		return activeConsumption;
@@ -543,84 +583,97 @@ public class BasicEnergyManager implements EnergyManager {
 
 	/**
 	 * Sums up the maximum average output of all power scavenging suppliers of this node.
-	 * @return combined maximum average output
+	 * @return combined maximum average output (internal value)
 	 */
-	private Watt getSumOfPSSupplierData() {
-		Watt suppliedPS = new Watt();
+	private long getSumOfPSSupplierData() {
+		long suppliedPS = 0;
 		
 		for (PowerScavengingSupplier psSupplier : supplierPS) {
-			suppliedPS.addWatt(psSupplier.currentOutput());
+			suppliedPS += psSupplier.getOutputValue();
 		}
 		
 		return suppliedPS;
 	}
 	
 	/**
-	 * Returns information of all EnergyReservoirSuppliers
-	 * combined to one information, as if it would be
-	 * one EnergyReservoirSupplier.
-	 * @return the aggregated information
+	 * Sums up the fill levels of all EnergyReservoirSuppliers,
+	 * as if they were one EnergyReservoirSupplier.
+	 * @return the combined fill level (internal value)
+	 */
+	private long getSumOfERSupplierLevels() {
+		long curLevel = 0;
+		
+		for (EnergyReservoirSupplier erSupplier : supplierER) {
+			curLevel += erSupplier.getCurrentLevelValue();
+		}
+
+		return curLevel;
+	}
+	
+	/**
+	 * Sums up the capacities of all EnergyReservoirSuppliers,
+	 * as if they were one EnergyReservoirSupplier.
+	 * @return the combined capacity (internal value)
 	 */
-	private Pair<Joule, Joule> getSumOfERSupplierData() {
-		Joule maxCap = new Joule();
-		Joule curLevel = new Joule();
+	private long getSumOfERSupplierCapacities() {
+		long maxCap = 0;
 		
 		for (EnergyReservoirSupplier erSupplier : supplierER) {
-			maxCap.addJoule(erSupplier.getCapacity());
-			curLevel.addJoule(erSupplier.getCurrentLevel());
+			maxCap += erSupplier.getCapacityValue();
 		}
 
-		return new Pair<Joule, Joule>(curLevel, maxCap);
+		return maxCap;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	public long getPowerLevel() {
-		Pair<Joule, Joule> erSupData = getSumOfERSupplierData();
-		
-		SIUnit curLevel = erSupData.first;
-		SIUnit maxCap =  erSupData.second;
+		long curLevelInternal = getSumOfERSupplierLevels();
+		long maxCapInternal = getSumOfERSupplierCapacities();
 		
 		/* INFO This is a design decision, cause choosing zero
 		 * 		instead would make less sense for the default
 		 * 	 	case without any energy management.
 		 */
-		if (maxCap.getValue() == 0) {
+		if (maxCapInternal == 0) {
 			return 100;
 		}
 		
-		if (curLevel.getValue() > maxCap.getValue()) {
+		if (curLevelInternal > maxCapInternal) {
 			throw new SimulationFailedException("maximum capacity of energy reservoirs "
 					+ "can never be less then current level");
 		}
 		
-		long curLevelInternal = curLevel.getValue();
-		long maxCapInternal = maxCap.getValue();
-		
 		return (long) Math.floor(((double) curLevelInternal / maxCapInternal) * 100);	
 	}
 	
 	/**
 	 * Determines the average amount of power consumed by all components.
-	 * @return average consumption
+	 * The sum is kept until a consumer announces a change.
+	 * @return average consumption (internal value)
 	 */
-	private Watt getAveragePowerConsumption() {
-		Watt avgConsumption = new Watt();
-	
-		if (consumerController != null) {
-			avgConsumption.addWatt(consumerController.getAveragePowerConsumption());
-		}
+	private long getAveragePowerConsumption() {
+		if (consumptionChanged) {
+			long avgConsumption = 0;
 		
-		if (consumerTransceiver != null) {
-			avgConsumption.addWatt(consumerTransceiver.getAveragePowerConsumption());
-		}
-		
-		for (PowerConsumer consumer : consumerOtherDevices) {
-			avgConsumption.addWatt(consumer.getAveragePowerConsumption());
+			if (consumerController != null) {
+				avgConsumption += consumerController.getAveragePowerConsumption().getValue();
+			}
+			
+			if (consumerTransceiver != null) {
+				avgConsumption += consumerTransceiver.getAveragePowerConsumption().getValue();
+			}
+			
+			for (PowerConsumer consumer : consumerOtherDevices) {
+				avgConsumption += consumer.getAveragePowerConsumption().getValue();
+			}
+			
+			averageConsumption = avgConsumption;
+			consumptionChanged = false;
 		}
 
-		return avgConsumption;
+		return averageConsumption;
 	}
 	
 	/**
@@ -671,7 +724,8 @@ public class BasicEnergyManager implements EnergyManager {
 						 + "Using PowerScavengingSup.: " + supplier.toString());
 			supplier.initConfiguration(configuration);
 		}
-				
+		
+		consumptionChanged = true;
 	}
 	
 	/**
@@ -723,6 +777,7 @@ public class BasicEnergyManager implements EnergyManager {
 	 * @param suspended defines the suspend state for the devices
 	 */
 	private void changeSuspendStateOfDevices(boolean suspended) {
+		consumptionChanged = true;
 		
 		if (this.consumerController != null) {
 			this.consumerController.suspend(suspended);
@@ -777,6 +832,7 @@ public class BasicEnergyManager implements EnergyManager {
 	 */
 	public void setConsumerController(PowerConsumer consumerCPU) {
 		this.consumerController = consumerCPU;
+		this.consumptionChanged = true;
 	}
 
 	/**
@@ -791,6 +847,7 @@ public class BasicEnergyManager implements EnergyManager {
 	 */
 	public void setConsumerTransceiver(GenericTransceiver consumerTransceiver) {
 		this.consumerTransceiver = consumerTransceiver;
+		this.consumptionChanged = true;
 	}
 
 	/**
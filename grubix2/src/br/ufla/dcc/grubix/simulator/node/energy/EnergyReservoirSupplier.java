@@ -46,6 +46,20 @@ public abstract class EnergyReservoirSupplier implements PowerSupplier {
 		return (Joule) this.currentLevel.clone();
 	}
 
+	/**
+	 * @return the internal value of the maximum capacity, without copying it
+	 */
+	public long getCapacityValue() {
+		return this.capacity.getValue();
+	}
+
+	/**
+	 * @return the internal value of the fill level, without copying it
+	 */
+	public long getCurrentLevelValue() {
+		return this.currentLevel.getValue();
+	}
+
 	/**
 	 * Reduces the amount of energy this energy reservoir can provide.
 	 * 
@@ -53,15 +67,24 @@ public abstract class EnergyReservoirSupplier implements PowerSupplier {
 	 * @return how much of the request could not be satisfied because the reservoir collapsed
 	 */
 	public Joule reduceEnergy(Joule amountOfEnergy) {
-		if (currentLevel.getValue() > amountOfEnergy.getValue()) {
-			currentLevel.substractJoule(amountOfEnergy);
-			return new Joule();
+		return new Joule(reduceEnergy(amountOfEnergy.getValue()));
+	}
+
+	/**
+	 * Reduces the amount of energy this energy reservoir can provide.
+	 * 
+	 * @param amountOfEnergy internal value of the energy which should be subtracted / used
+	 * @return internal value of the request which could not be satisfied because the reservoir collapsed
+	 */
+	public long reduceEnergy(long amountOfEnergy) {
+		if (currentLevel.getValue() > amountOfEnergy) {
+			currentLevel.substractValue(amountOfEnergy);
+			return 0;
 		} else {
 			/* this energy reservoir collapse,
 			 * some amount of Energy cannot be satisfied
 			 */
-			Joule delta = (Joule) amountOfEnergy.clone();
-			delta.substractJoule(currentLevel);
+			long delta = amountOfEnergy - currentLevel.getValue();
 			currentLevel = new Joule();
 			return delta;
 		}
@@ -30,6 +30,13 @@ public abstract class PowerScavengingSupplier implements PowerSupplier {
 		return (Watt) this.maximumOutput.clone();
 	}
 
+	/**
+	 * @return the internal value of the production, without copying it
+	 */
+	public long getOutputValue() {
+		return this.maximumOutput.getValue();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
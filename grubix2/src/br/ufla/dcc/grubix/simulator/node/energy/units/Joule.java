@@ -69,5 +69,13 @@ public class Joule extends SIUnit {
 	public void substractJoule(Joule pw) {
 		this.value -= pw.value;
 	}
+
+	/**
+	 * Subtracts an amount given as internal value.
+	 * @param amount the internal value to subtract
+	 */
+	public void substractValue(long amount) {
+		this.value -= amount;
+	}
 	
 }
@@ -42,6 +42,9 @@ public final class AddedNoiseMangler extends BitManglingModel {
 	@ShoXParameter(description = "Stop on the first aggregated noise, which is too intense.", defaultValue = "true")
 	private boolean quickEvaluation;
 	
+	/** the noise vector, evaluated again for every packet. */
+	private final NoiseVector noiseVector = new NoiseVector();
+	
 	/** default constructor of this class. */
 	public AddedNoiseMangler() {
 	}
@@ -66,20 +69,16 @@ public final class AddedNoiseMangler extends BitManglingModel {
 		p.setValid(true);
 		
 		if (inter.getSize() > 0) {
-			NoiseVector nv;
-			Noise  n        = null;		
 			double maxNoise = inter.getSelfReachability().getSsAtReceiver() / minSNRlevel;
 			double duration = trans.getSendingTime();
 			
 			if (quickEvaluation) {
-				nv = new NoiseVector(transStartTime, duration, inter, maxNoise);
+				noiseVector.evaluate(transStartTime, duration, inter, maxNoise);
 			} else {
-				nv = new NoiseVector(transStartTime, duration, inter, 0.0);
+				noiseVector.evaluate(transStartTime, duration, inter, 0.0);
 			}
 			
-			n = nv.getMostSignificantNoise();
-			
-			if ((n != null) && (n.getRssi() > maxNoise)) {
+			if ((noiseVector.getSize() > 0) && (noiseVector.getMaxRssi() > maxNoise)) {
 				p.setValid(false);
 			}
 		}
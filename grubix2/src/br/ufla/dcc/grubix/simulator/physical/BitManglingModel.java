@@ -82,7 +82,8 @@ public abstract class BitManglingModel implements Configurable {
 	 * otherwise packets will produce errors when later processed. 
 	 * @param transStartTime Time when the transmission of trans started
 	 * @param trans          The transmission object which contains the current data packet
-	 * @param inter          the affecting interferences.
+	 * @param inter          the affecting interferences. The queue is reused by the caller, it
+	 * 						 must not be kept beyond this call.
 	 * @return The resulting data packet which is damaged if interference occured during transmission
 	 */
 	public abstract PhysicalPacket getResultingDataPacket(double transStartTime, Transmission trans, 
@@ -0,0 +1,115 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.physical;
+
+/**
+ * Keeps the sum of the signal strengths of all interferences, which are currently present
+ * at a node, and the end of the latest of them. The state is advanced to the time of a query,
+ * moving the interferences which have begun meanwhile from the pending to the active ones and
+ * dropping the ended ones. Since the simulation time never decreases, every interference is
+ * moved and dropped once, and queries at an unchanged state cost nothing.
+ * 
+ * An interference is present at time t, if it started before t and ends after t.
+ */
+class InterferenceAccumulator {
+
+	/** the interferences which have not begun yet, by start time (with end and strength). */
+	private final SignalHeap pending = new SignalHeap();
+	
+	/** the present interferences, by end time (with strength). */
+	private final SignalHeap active = new SignalHeap();
+	
+	/** the sum of the signal strengths of the present interferences. */
+	private double power = 0.0;
+	
+	/** the latest end of all interferences, which have begun. */
+	private double maxEnd = Double.NEGATIVE_INFINITY;
+	
+	/** the time the state was advanced to. */
+	private double time = Double.NEGATIVE_INFINITY;
+	
+	/**
+	 * adds an interference.
+	 * @param start    the time the interference starts at the node.
+	 * @param end      the time the interference ends at the node.
+	 * @param strength the signal strength of the interference.
+	 */
+	void add(double start, double end, double strength) {
+		pending.push(start, end, strength);
+	}
+	
+	/**
+	 * advances the state to the given time.
+	 * @param now the time of the query.
+	 * @return false, if the state is already later than the given time and can not answer queries for it.
+	 */
+	boolean advance(double now) {
+		if (now < time) {
+			return false;
+		}
+		time = now;
+		
+		while ((pending.size > 0) && (pending.keys[0] < now)) {
+			double end = pending.first[0], strength = pending.second[0];
+			
+			pending.pop();
+			
+			if (end > maxEnd) {
+				maxEnd = end;
+			}
+			if (end > now) {
+				active.push(end, strength, 0.0);
+				power += strength;
+			}
+		}
+		
+		if ((active.size > 0) && (active.keys[0] <= now)) {
+			do {
+				active.pop();
+			} while ((active.size > 0) && (active.keys[0] <= now));
+			
+			// sum up again instead of subtracting, which would leave rounding errors.
+			power = active.sumFirst();
+		}
+		return true;
+	}
+	
+	/**
+	 * To be called after {@link #advance(double)} with the same time.
+	 * @return the sum of the signal strengths of the present interferences.
+	 */
+	double getPower() {
+		return power;
+	}
+	
+	/**
+	 * To be called after {@link #advance(double)} with the same time. Other than the
+	 * present interferences, this includes the interferences starting right now.
+	 * @return the latest end of all interferences, which started before or at the current 
+	 *   time and end after it, or the current time, if there is none.
+	 */
+	double getBusyUntil() {
+		double res = time;
+		
+		if ((active.size > 0) && (maxEnd > res)) {
+			res = maxEnd;
+		}
+		return pending.maxFirstOf(0, time, res);
+	}
+}
@@ -18,8 +18,8 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator.physical;
 
-import static java.util.Collections.sort;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import br.ufla.dcc.grubix.simulator.EventId;
 import br.ufla.dcc.grubix.simulator.SimulationFailedException;
@@ -37,11 +37,20 @@ import br.ufla.dcc.grubix.simulator.node.metainf.UpwardsPhysicalMetaInfo;
  * Currently, we assume that all nodes share the same frequency and the data signal can be
  * distinguished from the interfering signals precisely. The transmitted data packets are
  * damaged on a byte level according to the accumulated signal strengths of the interfering signals. 
+ * 
+ * The interferences are kept in arrays ordered by their start time and duration. Since the
+ * signals arrive mostly in this order, adding one is usually an append. The start time and the
+ * duration of an interference are read once when it is added, computing the duration of a
+ * packet is not cheap. Use {@link #getSize()} and {@link #getInterference(int)} to iterate
+ * over the queue without allocations.
  * @author dirk_held
  *
  */
 public class InterferenceQueue {
 	
+	/** initial capacity of the arrays. */
+	private static final int INITIAL_CAPACITY = 16;
+	
 	/**
 	 * contains for simple queues (= results of interference computations) the reachability
 	 * information of the to be interfered signal. 
@@ -53,11 +62,6 @@ public class InterferenceQueue {
 	 */
 	private boolean simple;
 	
-	/**
-	 * is true, if the ArrayList is sorted.
-	 */
-    private boolean sorted;
-	
     /** contains the longest duration of all added interferences to ease searching. */
     private double currentMaxDuration;
 
@@ -67,10 +71,29 @@ public class InterferenceQueue {
 	/** contains the end of the latest interference. */
 	private double maxTime; 
 	
+	/** contains the earliest end of the stored interferences, nothing is outdated before. */
+	private double minEndTime;
+	
 	/**
-	 * contains all occurred interferences.
+	 * contains all occurred interferences, ordered by start time and duration
+	 * if this is not a simple InterferenceQueue.
 	 */
-	private ArrayList<Interference> interferences = new ArrayList<Interference>();
+	private Interference[] interferences = new Interference[INITIAL_CAPACITY];
+	
+	/** the start times of the interferences. */
+	private double[] startTimes = new double[INITIAL_CAPACITY];
+	
+	/** the durations (sending times) of the interferences. */
+	private double[] durations = new double[INITIAL_CAPACITY];
+	
+	/** the number of stored interferences. */
+	private int size;
+	
+	/** the simple queue, which is reused for the results of the intersection queries. */
+	private InterferenceQueue intersections;
+	
+	/** the running state of the present interferences, if this is not a simple InterferenceQueue. */
+	private InterferenceAccumulator accumulator;
 
 	/**
 	 * the used BitManglingModel to mangle Packets, if this not a simple InterferenceQueue.
@@ -84,23 +107,55 @@ public class InterferenceQueue {
 	public InterferenceQueue(BitManglingModel bmm) {
 		this.bmm = bmm;
 		simple             = (bmm == null);
-		sorted             = !simple; 
 		currentMaxDuration = 0.0;
 		maxDuration        = 0.0;
 		maxTime            = 0.0;
+		minEndTime         = Double.POSITIVE_INFINITY;
+		
+		if (!simple) {
+			accumulator = new InterferenceAccumulator();
+		}
+	}
+	
+	/**
+	 * compares a stored interference with an interval, as 
+	 * {@link Interference#compareTo(double, double)} does.
+	 * @param index    index of the stored interference.
+	 * @param time     starting time of the interval
+	 * @param duration duration of the interval.
+	 * @return the standard compare result out of {-1,0,1}
+	 */
+	private int compare(int index, double time, double duration) {
+		if (startTimes[index] < time) {
+			return -1;
+		} else if (startTimes[index] == time) {
+			if (durations[index] < duration) {
+				return -1;
+			} else if (durations[index] == duration) {
+				return 0;
+			} else {
+				return 1;
+			}
+		} else {
+			return 1;
+		}
 	}
 	
 	/**
-	 * called, if a sorted ArrayList is needed and the state is unclear.
-	 * The sorting operation is then performed, if necessarry.
-	 *
+	 * returns true, if the stored interference intersects with the given interval, 
+	 * as {@link Interference#intersects(double, double)} does.
+	 * @param index    index of the stored interference.
+	 * @param time     the starting time of the interval
+	 * @param duration the length of the interval
+	 * @return true, if an intersection occurred.
 	 */
-	@SuppressWarnings("unchecked")
-	private void checkSorted() {
-		if (!simple && !sorted) {
-			sort(interferences);
-			sorted = true;
+	private boolean intersects(int index, double time, double duration) {
+		if (time + duration <= startTimes[index]) {
+			return false;
+		} else if (startTimes[index] + durations[index] <= time) {
+			return false;
 		}
+		return true;
 	}
 	
 	/**
@@ -112,7 +167,7 @@ public class InterferenceQueue {
 	 * @return an index into interferences, or -1.
 	 */
 	private int locate(double time, double duration, boolean exact) {
-		int low = 0, high = interferences.size() - 1, mid = 0, cmp;
+		int low = 0, high = size - 1, mid = 0, cmp;
 		
 		if (simple) {
 			if (exact || (high < 0)) {
@@ -121,15 +176,13 @@ public class InterferenceQueue {
 				return 0;
 			}
 		} else {
-			// if method public: checkSorted();
-			
 			while (low <= high) {
 				mid = (low + high) >> 1;
-				cmp = interferences.get(mid).compareTo(time, duration);
+				cmp = compare(mid, time, duration);
 			
-				if (cmp < 0) {        // interferences.get(mid) < [time,duration]
+				if (cmp < 0) {        // interferences[mid] < [time,duration]
 					low = mid + 1;
-				} else if (cmp > 0) { // interferences.get(mid) > [time,duration]
+				} else if (cmp > 0) { // interferences[mid] > [time,duration]
 					high = mid - 1;
 				} else {
 					return mid;
@@ -153,13 +206,12 @@ public class InterferenceQueue {
 	 * @return a intersecting interval index or -1
 	 */
 	private int findAIntersection(double time, double duration) {
-		int pos, pos2, pos3, size = interferences.size();
+		int pos, pos2, pos3;
 		
 		// TODO comparing of floats is dangerous, improve this
 		
-//		 if method public: checkSorted();
 		if (simple || (size == 0) || (maxTime < time) 
-				|| ((time + duration) < interferences.get(0).getSimStartTime())) { 
+				|| ((time + duration) < startTimes[0])) { 
 			return -1;
 		} else {
 			pos = locate(time, duration, false);
@@ -169,16 +221,16 @@ public class InterferenceQueue {
 	 		* for an intersection. return -1, if no intersection was found.
 	 		*/
 			
-			if (!interferences.get(pos).intersects(time, duration)) {
+			if (!intersects(pos, time, duration)) {
 				pos2 = pos + 1;
 											
-				if (pos2 == size || !interferences.get(pos2).intersects(time, duration)) {
+				if (pos2 == size || !intersects(pos2, time, duration)) {
 					pos2 = -1; // no intersection at the right neighbor
 				} else {
 					pos3 = pos - 1;
 					
-					while ((pos3 >= 0) && (interferences.get(pos3).getSimStartTime() + currentMaxDuration > time)) {
-						if (interferences.get(pos3).intersects(time, duration)) { 
+					while ((pos3 >= 0) && (startTimes[pos3] + currentMaxDuration > time)) {
+						if (intersects(pos3, time, duration)) { 
 							pos2 = pos3; // found a intersecting left neighbor
 							pos3 = 0;
 						}
@@ -193,6 +245,7 @@ public class InterferenceQueue {
 	
 	/**
 	 * returns for a given interval the subset of the affected interferences.
+	 * The returned queue is reused by the next call.
 	 * @param time of the requested interference interval.
 	 * @param trans if != null, the affected transmission.
 	 * @return the interfering intervals.
@@ -203,7 +256,11 @@ public class InterferenceQueue {
 		double duration; 
 		EventId selfPacketID;
 		
-		InterferenceQueue res = new InterferenceQueue(null);
+		if (intersections == null) {
+			intersections = new InterferenceQueue(null);
+		}
+		InterferenceQueue res = intersections;
+		res.clear();
 		
 		if (trans == null) {
 			duration = 0.0;
@@ -215,26 +272,24 @@ public class InterferenceQueue {
 
 		rightT = time + duration;
 		
-		if (interferences.size() > 0) {
-			checkSorted();
-		
+		if (size > 0) {
 			pos = findAIntersection(time, duration);
 		
 			if (pos >= 0) {
-				res.addInterferingSignal(interferences.get(pos), selfPacketID);
+				res.addInterferingSignal(this, pos, selfPacketID);
 				left = pos - 1;
 				pos++;
 				
-				while ((left >= 0) && (interferences.get(left).getSimStartTime() + currentMaxDuration > time)) {
-					if (interferences.get(left).intersects(time, duration)) {
-						res.addInterferingSignal(interferences.get(left), selfPacketID);
+				while ((left >= 0) && (startTimes[left] + currentMaxDuration > time)) {
+					if (intersects(left, time, duration)) {
+						res.addInterferingSignal(this, left, selfPacketID);
 					}
 					left--;
 				}
 				
-				while ((pos < interferences.size()) && (interferences.get(pos).getSimStartTime() < rightT)) {
-					if (interferences.get(pos).intersects(time, duration)) { // maybe obsolete
-						res.addInterferingSignal(interferences.get(pos), selfPacketID);
+				while ((pos < size) && (startTimes[pos] < rightT)) {
+					if (intersects(pos, time, duration)) { // maybe obsolete
+						res.addInterferingSignal(this, pos, selfPacketID);
 					}
 					pos++;
 				}
@@ -244,26 +299,57 @@ public class InterferenceQueue {
 	}
 	
 	/**
+	 * Sums up the signal strengths of all interferences, which started before and end after the
+	 * given time. For the current simulation time, this is read from the running state.
 	 * @param currentTime the current simulation time.
 	 * @return the current interference.
 	 */
 	public final double getCurrentInterference(double currentTime) {
 		double res = 0.0;
 		
-		InterferenceQueue inter = getIntersections(currentTime, null);
+		if ((accumulator != null) && accumulator.advance(currentTime)) {
+			return accumulator.getPower();
+		}
 		
-		for (Interference i : inter.getInterferences()) {
-			res += i.getSignalStrength();
+		for (int i = 0; i < size; i++) {
+			if (intersects(i, currentTime, 0.0)) {
+				res += interferences[i].getSignalStrength();
+			}
+		}
+		return res;
+	}
+	
+	/**
+	 * Determines, how long the carrier is busy by the interferences, which started before or 
+	 * at the given time and end after it. For the current simulation time, this is read from
+	 * the running state.
+	 * @param currentTime the current simulation time.
+	 * @return the latest end of these interferences, or currentTime, if there is none.
+	 */
+	public final double getBusyUntil(double currentTime) {
+		double res = currentTime;
+		
+		if ((accumulator != null) && accumulator.advance(currentTime)) {
+			return accumulator.getBusyUntil();
+		}
+		
+		for (int i = 0; i < size; i++) {
+			double end = startTimes[i] + durations[i];
+			
+			if ((startTimes[i] <= currentTime) && (currentTime < end) && (end > res)) {
+				res = end;
+			}
 		}
 		return res;
 	}
 	
 	/**
 	 * method, to update maxDuration and maxTime, if necessary.
-	 * @param inter the to be checked interference.
+	 * @param start    the start time of the to be checked interference.
+	 * @param duration the duration of the to be checked interference.
 	 */
-	private void checkMax(Interference inter) {
-		double t = inter.getSendingTime();
+	private void checkMax(double start, double duration) {
+		double t = duration;
 		
 		if (t > maxDuration) {
 			maxDuration = t;
@@ -273,11 +359,57 @@ public class InterferenceQueue {
 			currentMaxDuration = t;
 		}
 		
-		t += inter.getSimStartTime();
+		t += start;
 			
 		if (t > maxTime) {
 			maxTime = t;
 		}
+		
+		if (t < minEndTime) {
+			minEndTime = t;
+		}
+	}
+	
+	/**
+	 * makes room for one more interference at the given position.
+	 * @param pos the position of the new interference.
+	 */
+	private void openGap(int pos) {
+		if (size == interferences.length) {
+			int capacity = 2 * size;
+			
+			Interference[] inter = new Interference[capacity];
+			double[] starts      = new double[capacity];
+			double[] lengths     = new double[capacity];
+			
+			System.arraycopy(interferences, 0, inter, 0, size);
+			System.arraycopy(startTimes, 0, starts, 0, size);
+			System.arraycopy(durations, 0, lengths, 0, size);
+			interferences = inter;
+			startTimes    = starts;
+			durations     = lengths;
+		}
+		
+		if (pos < size) {
+			System.arraycopy(interferences, pos, interferences, pos + 1, size - pos);
+			System.arraycopy(startTimes, pos, startTimes, pos + 1, size - pos);
+			System.arraycopy(durations, pos, durations, pos + 1, size - pos);
+		}
+		size++;
+	}
+	
+	/**
+	 * stores an interference at the given position.
+	 * @param pos      the position of the new interference.
+	 * @param inter    the interference.
+	 * @param start    its start time.
+	 * @param duration its duration.
+	 */
+	private void insert(int pos, Interference inter, double start, double duration) {
+		openGap(pos);
+		interferences[pos] = inter;
+		startTimes[pos]    = start;
+		durations[pos]     = duration;
 	}
 	
 	/**
@@ -286,91 +418,111 @@ public class InterferenceQueue {
 	 * @param selfPacketID if != null, stopps this interference from beeing added.
 	 */
 	public final void addInterferingSignal(Interference inter, EventId selfPacketID) {
+		double start    = inter.getSimStartTime();
+		double duration = inter.getSendingTime();
+		
 		if (simple) {
 			if ((selfPacketID == null) || (inter.getPacket().getId() != selfPacketID)) { 
-				this.interferences.add(inter);
+				insert(size, inter, start, duration);
 			} else {
 				selfReachability = inter.getReachability();
 			}
 		} else {
-			this.interferences.add(inter);
-			checkMax(inter);
+			/* 
+			 * insert behind all interferences, which are not greater, thus equal
+			 * interferences keep the order in which they were added. 
+			 */
+			int low = 0, high = size;
+			
+			if ((size > 0) && (compare(size - 1, start, duration) > 0)) {
+				high = size - 1;
+				
+				while (low < high) {
+					int mid = (low + high) >>> 1;
+					
+					if (compare(mid, start, duration) > 0) {
+						high = mid;
+					} else {
+						low = mid + 1;
+					}
+				}
+			}
+			insert(high, inter, start, duration);
+			checkMax(start, duration);
+			accumulator.add(start, start + duration, inter.getSignalStrength());
+		}
+	}
+	
+	/**
+	 * adds an interference of another queue to this simple queue, without reading
+	 * its start time and duration again.
+	 * @param source       the queue containing the interference.
+	 * @param index        the index of the interference in the source queue.
+	 * @param selfPacketID if != null, stopps this interference from beeing added.
+	 */
+	private void addInterferingSignal(InterferenceQueue source, int index, EventId selfPacketID) {
+		Interference inter = source.interferences[index];
+		
+		if ((selfPacketID == null) || (inter.getPacket().getId() != selfPacketID)) { 
+			insert(size, inter, source.startTimes[index], source.durations[index]);
+		} else {
+			selfReachability = inter.getReachability();
 		}
-		sorted = false;
+	}
+	
+	/** removes all interferences and the self reachability. */
+	private void clear() {
+		Arrays.fill(interferences, 0, size, null);
+		size = 0;
+		selfReachability = null;
+		currentMaxDuration = 0.0;
+		minEndTime = Double.POSITIVE_INFINITY;
 	}
 
 	/**
-	 * used to cleanup outdated interferences.
+	 * used to cleanup outdated interferences. Same as {@link #garbageCollect(double)}.
 	 * @param currentTime flush old inteferring signals
 	 */
 	public final void garbageCollect2(double currentTime) {
-		int i;
-		boolean init = true;
-		Interference inter;
-		
-		i = interferences.size() - 1;
-		
-		if (i >= 0) {
-			checkSorted();
-		
-			if (maxTime < currentTime) {
-				interferences.clear();
-				currentMaxDuration = 0.0;
-			} else {
-				// TODO implement faster version, by using maxDuration;
-		
-				while (i >= 0) {
-					inter = interferences.get(i);
-			
-					if (inter.getSimStartTime() + inter.getSendingTime() < currentTime) {
-						interferences.remove(i);
-					} else {
-						if (init) {
-							init = false;
-							currentMaxDuration = 0.0;
-						}
-						checkMax(inter);
-					}
-					i--;
-				}
-			}
-		}
+		garbageCollect(currentTime);
 	}
 	
 
 	/**
-	 * used to cleanup outdated interferences.
+	 * used to cleanup outdated interferences. All interferences ending before the
+	 * current time are removed at once.
 	 * @param currentTime flush old inteferring signals
 	 */
 	public final void garbageCollect(double currentTime) {
-		int i,count,pos;
-		Interference inter;
+		int i, pos;
 		
-		count = interferences.size();
+		if (accumulator != null) {
+			// drop the ended interferences of the running state, too.
+			accumulator.advance(currentTime);
+		}
 		
-		if (count >= 0) {
-			checkSorted();
-			
-			pos = 0;
-			
-			for (i = 0; i < count; i++) {
-				inter = interferences.get(pos);
-				
-				if (inter.getSimStartTime() + inter.getSendingTime() < currentTime) {
-					interferences.remove(pos);
-				} else {
-					pos++;
-				}
-			}
-			
-			currentMaxDuration = 0.0;
-			//maxTime = 0.0; we need to know, when the last interference has occurred.
-			
-			for (i = 0; i < interferences.size(); i++) {
-				inter = interferences.get(i);
-				checkMax(inter);
+		// nothing ends before the current time, the queue remains unchanged.
+		if (minEndTime >= currentTime) {
+			return;
+		}
+		
+		currentMaxDuration = 0.0;
+		minEndTime = Double.POSITIVE_INFINITY;
+		//maxTime = 0.0; we need to know, when the last interference has occurred.
+		pos = 0;
+		
+		for (i = 0; i < size; i++) {
+			if (startTimes[i] + durations[i] >= currentTime) {
+				interferences[pos] = interferences[i];
+				startTimes[pos]    = startTimes[i];
+				durations[pos]     = durations[i];
+				checkMax(startTimes[pos], durations[pos]);
+				pos++;
 			}
 		}
+		
+		Arrays.fill(interferences, pos, size, null);
+		size = pos;
 	}
 	
 
@@ -409,16 +561,40 @@ public class InterferenceQueue {
 		}
 	}
 
-	/** @return the interferences. */
+	/** @return a copy of the interferences, in the order of the queue. */
 	public final ArrayList<Interference> getInterferences() {
-		return interferences;
+		return new ArrayList<Interference>(Arrays.asList(interferences).subList(0, size));
+	}
+	
+	/**
+	 * @param index the index of the interference, between 0 and {@link #getSize()} - 1.
+	 * @return the interference at the given index.
+	 */
+	public final Interference getInterference(int index) {
+		return interferences[index];
+	}
+	
+	/**
+	 * @param index the index of the interference, between 0 and {@link #getSize()} - 1.
+	 * @return the start time of the interference at the given index, as it was when added.
+	 */
+	public final double getStartTime(int index) {
+		return startTimes[index];
+	}
+	
+	/**
+	 * @param index the index of the interference, between 0 and {@link #getSize()} - 1.
+	 * @return the duration of the interference at the given index, as it was when added.
+	 */
+	public final double getSendingTime(int index) {
+		return durations[index];
 	}
 
 	/**
-	 * @return the sorted
+	 * @return true, if the interferences are ordered by start time and duration.
 	 */
 	public final boolean isSorted() {
-		return sorted;
+		return !simple;
 	}
 
 	/**
@@ -456,6 +632,6 @@ public class InterferenceQueue {
 
 	/** @return the size of the interference queue. */
 	public final int getSize() {
-		return interferences.size();
+		return size;
 	}
 }
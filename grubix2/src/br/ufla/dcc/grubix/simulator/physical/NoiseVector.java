@@ -18,16 +18,8 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator.physical;
 
-import static java.util.Collections.sort;
-
 import java.util.ArrayList;
 
-import br.ufla.dcc.grubix.simulator.Interval;
-import br.ufla.dcc.grubix.simulator.event.Interference;
-
-
-
-
 /**
  * This class is used to construct a vector of non-intersecting single noise events
  * from multiple interferences. This vector can afterwards be used, to mangle a packet.
@@ -39,113 +31,145 @@ import br.ufla.dcc.grubix.simulator.event.Interference;
  * a minimal noise intensity may be used, such that the evaluation will be stopped, if
  * the noise exceeds this value somewhere. After The evaluation, all (so far) processed
  * noises and the (so far) most significant noise can be accessed.
+ * 
+ * The interferences are flattened in one sweep over their start and end times, which are
+ * ordered by two heaps. The noises are kept in primitive arrays, so a vector, which is
+ * evaluated again for every received packet, allocates nothing once it is large enough.
  *  
  * @author Dirk Held
  */
 public class NoiseVector {
 
-	/** The flattened vector of all disturbances, affecting a transmission. */
-	private ArrayList<Noise> noise;
+	/** initial capacity of the noise arrays. */
+	private static final int INITIAL_CAPACITY = 8;
+	
+	/** the starts of the flattened disturbances, in ascending order. */
+	private double[] starts = new double[INITIAL_CAPACITY];
+	
+	/** the ends of the flattened disturbances. */
+	private double[] ends = new double[INITIAL_CAPACITY];
+	
+	/** the accumulated intensities of the flattened disturbances. */
+	private double[] rssis = new double[INITIAL_CAPACITY];
+	
+	/** the number of flattened disturbances. */
+	private int size;
 	
-	/** Contains the most significant (found) disturbance. */ 
-	private Noise mostSignificantNoise;
+	/** Index of the most significant (found) disturbance, -1 if there is none. */ 
+	private int mostSignificant;
+	
+	/** the interferences which have not begun yet, by start (with end and intensity). */
+	private final SignalHeap pending = new SignalHeap();
+	
+	/** the present interferences, by end (with intensity). */
+	private final SignalHeap active = new SignalHeap();
 	
 	/**
-	 * Method to add a new noise event to the noise vector.
+	 * Method to append a flattened disturbance to the noise vector. If the evaluation is not
+	 * stopped prematurely, it is joined with the last one, when both adjoin with the same
+	 * intensity.
 	 * 
-	 * @param n         The to be added noise event.
-	 * @param pos       The position, where the event is inserted.
+	 * @param start      The start of the disturbance.
+	 * @param end        The end of the disturbance.
+	 * @param rssi       The accumulated intensity of the disturbance.
 	 * @param noiseLevel The noise intensity, where true is returned, or 0.0, when 
 	 * 					no premature stop of the evaluation should be performed. 
 	 * @return true, if a significant noise was found (the most 
 	 *   intense disturbance may be more intense than this one).
 	 */
-	private boolean checkNoise(Noise n, double noiseLevel) {
-		if ((mostSignificantNoise == null) || (mostSignificantNoise.getRssi() < n.getRssi())) {
-			mostSignificantNoise = n;
+	private boolean addNoise(double start, double end, double rssi, double noiseLevel) {
+		if ((noiseLevel == 0.0) && (size > 0) && (ends[size - 1] == start) && (rssis[size - 1] == rssi)) {
+			ends[size - 1] = end;
+			return false;
+		}
+		
+		if (size == starts.length) {
+			double[] s = new double[2 * size];
+			double[] e = new double[2 * size];
+			double[] r = new double[2 * size];
+			
+			System.arraycopy(starts, 0, s, 0, size);
+			System.arraycopy(ends, 0, e, 0, size);
+			System.arraycopy(rssis, 0, r, 0, size);
+			starts = s;
+			ends   = e;
+			rssis  = r;
 		}
+		starts[size] = start;
+		ends[size]   = end;
+		rssis[size]  = rssi;
 		
-		if ((noiseLevel > 0.0) && (mostSignificantNoise.getRssi() >= noiseLevel)) {
-			return true;
+		if ((mostSignificant < 0) || (rssis[mostSignificant] < rssi)) {
+			mostSignificant = size;
 		}
+		size++;
 		
-		return false;
+		return (noiseLevel > 0.0) && (rssi >= noiseLevel);
 	}
 	
-	private void flattenInterferences(Interval t, InterferenceQueue inter, double noiseLevel) {
-		if (inter.getSize() == 0) return;
-			
-		for (Interference i : inter.getInterferences()) {
-			Noise n = new Noise(i);
-			
-			if (n.getStart() < t.getStart()) {
-				n.trimStart(t.getStart());
-			}
+	/**
+	 * Method to flatten the interferences of the queue, trimmed to the given interval.
+	 * 
+	 * @param start      The start of the disturbed transmission.
+	 * @param end        The end of the disturbed transmission.
+	 * @param inter      The queue, containing all to be processed interferences.
+	 * @param noiseLevel If a value > 0.0 is given, stop the flattening, when noise  
+	 * 					 with this intensity is found.
+	 */
+	private void flattenInterferences(double start, double end, InterferenceQueue inter, double noiseLevel) {
+		pending.clear();
+		active.clear();
+		
+		for (int k = 0; k < inter.getSize(); k++) {
+			double s = Math.max(inter.getStartTime(k), start);
+			double e = Math.min(inter.getStartTime(k) + inter.getSendingTime(k), end);
 			
-			if (n.getEnd() > t.getEnd()) {
-				n.trimEnd(t.getEnd());
+			if (e > s) {
+				pending.push(s, e, inter.getInterference(k).getReachability().getSsAtReceiver());
 			}
-			
-			noise.add(n);
-			
-			if (checkNoise(n, noiseLevel)) return;
 		}
 		
-		ArrayList<Noise> tNoise = noise;
+		double time = 0.0, rssi = 0.0;
 		
-		noise = new ArrayList<Noise>();
-
-		while (tNoise.size() > 1) {
-			sort(tNoise);
-	
-			Noise n  = tNoise.remove(0);
-			Noise n2 = tNoise.get(0);
+		while ((pending.size > 0) || (active.size > 0)) {
+			double next;
 			
-			if (n.intersects(n2)) {
-				tNoise.remove(0);
-				
-				Noise n3 = n.intersect(n2);
-				
-				if (n2.getDuration() > 0) {
-					tNoise.add(0, n2);
-					
-					if (checkNoise(n2, noiseLevel)) return;
-				}
-				
-				if (n3 != null) {
-					tNoise.add(0, n3);
-					
-					if (checkNoise(n3, noiseLevel)) return;
-				}
-				
-				if (n.getDuration() > 0) {
-					tNoise.add(0, n);
-					
-					if (checkNoise(n, noiseLevel)) return;
-				}
+			if ((active.size == 0) || ((pending.size > 0) && (pending.keys[0] < active.keys[0]))) {
+				next = pending.keys[0];
 			} else {
-				noise.add(n);
+				next = active.keys[0];
 			}
-		}
-		
-		if (tNoise.size() > 0) noise.add(tNoise.get(0));
-		
-		if ((noiseLevel == 0.0) && (noise.size() > 1)) {
-			int i = 1;
 			
-			while (i < noise.size()) {
-				Noise n1 = noise.get(i - 1);
-				Noise n2 = noise.get(i);
+			if ((active.size > 0) && (next > time)) {
+				if (addNoise(time, next, rssi, noiseLevel)) return;
+			}
+			time = next;
+			
+			if ((active.size > 0) && (active.keys[0] <= time)) {
+				do {
+					active.pop();
+				} while ((active.size > 0) && (active.keys[0] <= time));
 				
-				if ((n1.getEnd() == n2.getStart()) && (n1.getRssi() == n2.getRssi())) {
-					noise.remove(i);
-				} else {
-					i++;
-				}
+				// sum up again instead of subtracting, which would leave rounding errors.
+				rssi = active.sumFirst();
+			}
+			
+			while ((pending.size > 0) && (pending.keys[0] <= time)) {
+				active.push(pending.first[0], pending.second[0], 0.0);
+				rssi += pending.second[0];
+				pending.pop();
 			}
 		}
 	}
 	
+	/**
+	 * Constructor of an empty vector, which is to be filled by 
+	 * {@link #evaluate(double, double, InterferenceQueue, double)}.
+	 */
+	public NoiseVector() {
+		mostSignificant = -1;
+	}
+	
 	/**
 	 * Default constructor of this class.
 	 *  
@@ -158,19 +182,80 @@ public class NoiseVector {
 	 * 					 from the queue will be put into the NoiseVector.
 	 */
 	public NoiseVector(double startTime, double duration, InterferenceQueue inter, double noiseLevel) {
-		mostSignificantNoise = null;
-		noise = new ArrayList<Noise>();
-
-		flattenInterferences(new Interval(startTime, duration), inter, noiseLevel);
+		evaluate(startTime, duration, inter, noiseLevel);
+	}
+	
+	/**
+	 * Replaces the content of this vector by the flattened interferences of the given queue.
+	 *  
+	 * @param startTime  The starting time to trim all processed interferences to.
+	 * @param duration   The disturbed transmission, to get the duration from, to
+	 * 					 also trim all processed interferences.
+	 * @param inter      The queue, containing all to be processed interferences.
+	 * @param noiseLevel If a value > 0.0 is given, stop the flattening, when noise  
+	 * 					 with this intensity is found. Thus not all interferences 
+	 * 					 from the queue will be put into the NoiseVector.
+	 */
+	public final void evaluate(double startTime, double duration, InterferenceQueue inter, double noiseLevel) {
+		size = 0;
+		mostSignificant = -1;
+		
+		flattenInterferences(startTime, startTime + duration, inter, noiseLevel);
+	}
+	
+	/** @return the number of flattened disturbances. */
+	public final int getSize() {
+		return size;
+	}
+	
+	/**
+	 * @param i the index of the disturbance, between 0 and {@link #getSize()} - 1.
+	 * @return the start of the disturbance.
+	 */
+	public final double getStart(int i) {
+		return starts[i];
 	}
 	
-	/** @return the noise. */
+	/**
+	 * @param i the index of the disturbance, between 0 and {@link #getSize()} - 1.
+	 * @return the end of the disturbance.
+	 */
+	public final double getEnd(int i) {
+		return ends[i];
+	}
+	
+	/**
+	 * @param i the index of the disturbance, between 0 and {@link #getSize()} - 1.
+	 * @return the accumulated intensity of the disturbance.
+	 */
+	public final double getRssi(int i) {
+		return rssis[i];
+	}
+	
+	/** @return the intensity of the most significant disturbance, 0.0 if there is none. */
+	public final double getMaxRssi() {
+		if (mostSignificant < 0) {
+			return 0.0;
+		}
+		return rssis[mostSignificant];
+	}
+	
+	/** @return a new list of the flattened disturbances. */
 	public final ArrayList<Noise> getNoise() {
+		ArrayList<Noise> noise = new ArrayList<Noise>(size);
+		
+		for (int i = 0; i < size; i++) {
+			noise.add(new Noise(starts[i], ends[i] - starts[i], rssis[i]));
+		}
 		return noise;
 	}
 
-	/** @return the mostSignificantNoise. */
+	/** @return a new noise of the most significant disturbance, or null if there is none. */
 	public final Noise getMostSignificantNoise() {
-		return mostSignificantNoise;
+		if (mostSignificant < 0) {
+			return null;
+		}
+		return new Noise(starts[mostSignificant], ends[mostSignificant] - starts[mostSignificant], 
+				rssis[mostSignificant]);
 	}
 }
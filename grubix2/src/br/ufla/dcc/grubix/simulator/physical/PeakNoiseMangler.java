@@ -18,7 +18,6 @@ Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
 
 package br.ufla.dcc.grubix.simulator.physical;
 
-import br.ufla.dcc.grubix.simulator.event.Interference;
 import br.ufla.dcc.grubix.simulator.event.Packet;
 import br.ufla.dcc.grubix.simulator.event.PhysicalPacket;
 import br.ufla.dcc.grubix.simulator.event.Transmission;
@@ -61,18 +60,18 @@ public final class PeakNoiseMangler extends BitManglingModel {
 		
 		p.setValid(true);
 		
-		for (Interference i : inter.getInterferences()) {
-			double l = i.getSimStartTime();
+		for (int k = 0; k < inter.getSize(); k++) {
+			double l = inter.getStartTime(k);
 			
 			if (r2 < l) {
 				break;
 			}
 			
-			if ((l + i.getSendingTime()) < transStartTime) {
+			if ((l + inter.getSendingTime(k)) < transStartTime) {
 				break;
 			}
 			
-			double snr = rssi / i.getReachability().getSsAtReceiver();
+			double snr = rssi / inter.getInterference(k).getReachability().getSsAtReceiver();
 			
 			if (snr < minSNRlevel) {
 				p.setValid(false);
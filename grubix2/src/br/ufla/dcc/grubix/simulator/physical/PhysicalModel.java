@@ -80,4 +80,16 @@ public abstract class PhysicalModel implements Configurable {
      * @return the resulting attenuation and whether the receiver is reachable at all 
      */
 	public abstract Reachability apply(Node receiver, Node sender, double signalStrength);
+
+	/**
+	 * returns an upper bound for the distance, up to which a sender using the given
+	 * signal strength may still reach or interfere with a receiver. The SimulationManager
+	 * uses this bound to pass only nearby nodes to apply.
+	 * 
+	 * @param signalStrength the used signal strength
+	 * @return the maximum distance, or Double.POSITIVE_INFINITY, if the model has no such bound.
+	 */
+	public double getMaximumRange(double signalStrength) {
+		return Double.POSITIVE_INFINITY;
+	}
 }
@@ -0,0 +1,137 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+package br.ufla.dcc.grubix.simulator.physical;
+
+
+/**
+ * A binary min heap of keys with two values per entry, used to sweep over the interferences
+ * at a node in the order of their start or end times. The entries are kept in primitive arrays,
+ * which grow as needed and are reused when the heap is emptied.
+ */
+final class SignalHeap {
+
+	/** initial capacity of the heap. */
+	private static final int INITIAL_CAPACITY = 4;
+	
+	/** the keys, the smallest at index 0. */
+	double[] keys = new double[INITIAL_CAPACITY];
+	
+	/** the first value of the entries. */
+	double[] first = new double[INITIAL_CAPACITY];
+	
+	/** the second value of the entries. */
+	double[] second = new double[INITIAL_CAPACITY];
+	
+	/** the number of entries. */
+	int size;
+	
+	/**
+	 * adds an entry.
+	 * @param key the key of the entry.
+	 * @param v1  the first value.
+	 * @param v2  the second value.
+	 */
+	void push(double key, double v1, double v2) {
+		if (size == keys.length) {
+			double[] k = new double[2 * size];
+			double[] f = new double[2 * size];
+			double[] s = new double[2 * size];
+			
+			System.arraycopy(keys, 0, k, 0, size);
+			System.arraycopy(first, 0, f, 0, size);
+			System.arraycopy(second, 0, s, 0, size);
+			keys   = k;
+			first  = f;
+			second = s;
+		}
+		
+		int pos = size++;
+		
+		while (pos > 0) {
+			int parent = (pos - 1) >> 1;
+			
+			if (keys[parent] <= key) {
+				break;
+			}
+			keys[pos]   = keys[parent];
+			first[pos]  = first[parent];
+			second[pos] = second[parent];
+			pos = parent;
+		}
+		keys[pos]   = key;
+		first[pos]  = v1;
+		second[pos] = v2;
+	}
+	
+	/** removes the entry with the smallest key. */
+	void pop() {
+		size--;
+		
+		double key = keys[size], v1 = first[size], v2 = second[size];
+		int pos = 0, child;
+		
+		while ((child = 2 * pos + 1) < size) {
+			if ((child + 1 < size) && (keys[child + 1] < keys[child])) {
+				child++;
+			}
+			if (key <= keys[child]) {
+				break;
+			}
+			keys[pos]   = keys[child];
+			first[pos]  = first[child];
+			second[pos] = second[child];
+			pos = child;
+		}
+		keys[pos]   = key;
+		first[pos]  = v1;
+		second[pos] = v2;
+	}
+	
+	/** removes all entries. */
+	void clear() {
+		size = 0;
+	}
+	
+	/** @return the sum of the first values of all entries. */
+	double sumFirst() {
+		double sum = 0.0;
+		
+		for (int i = 0; i < size; i++) {
+			sum += first[i];
+		}
+		return sum;
+	}
+	
+	/**
+	 * @param pos  the entry to start the search at.
+	 * @param key  the key to look for.
+	 * @param max  the result so far.
+	 * @return the maximum of max and the first values of all entries with the given key.
+	 */
+	double maxFirstOf(int pos, double key, double max) {
+		if ((pos < size) && (keys[pos] == key)) {
+			if (first[pos] > max) {
+				max = first[pos];
+			}
+			max = maxFirstOf(2 * pos + 1, key, max);
+			max = maxFirstOf(2 * pos + 2, key, max);
+		}
+		return max;
+	}
+}
@@ -71,9 +71,9 @@ public final class ThresholdPacketMangler extends BitManglingModel {
 		
 		p.setValid(true);
 		
-		for (Transmission i : inter.getInterferences()) {
-			l = i.getSimStartTime();
-			r = l + i.getSendingTime();
+		for (int k = 0; k < inter.getSize(); k++) {
+			l = inter.getStartTime(k);
+			r = l + inter.getSendingTime(k);
 			r2 = transStartTime + trans.getSendingTime();
 				
 			// the lower bound of the intersection;
@@ -70,14 +70,24 @@ public class UnitDisc extends PhysicalModel {
 		reachability.setSignalStrength(signalStrength);
 		reachability.setPositions(receiver.getPosition(), sender.getPosition());
 
-		reachability.setReachable(reachability.getSquaredDistance() <= Math.pow(reachableDistance,2));
-		reachability.setInterfering(reachability.getSquaredDistance() <= Math.pow(interferenceDistance,2));
+		reachability.setReachable(reachability.getSquaredDistance() <= reachableDistance * reachableDistance);
+		reachability.setInterfering(reachability.getSquaredDistance() <= interferenceDistance * interferenceDistance);
 		reachability.setAttenuation(0.0);
 		reachability.setSsAtReceiver(signalStrength);
 		
 		return reachability;
 	}
 
+	/**
+	 * the unit disc neither reaches nor interferes beyond the larger of both distances.
+	 * @param signalStrength the used signal strength (ignored)
+	 * @return the maximum of reachableDistance and interferenceDistance
+	 */
+	@Override
+	public double getMaximumRange(double signalStrength) {
+		return Math.max(reachableDistance, interferenceDistance);
+	}
+
 	/* (non-Javadoc)
 	 * @see br.ufla.dcc.grubix.simulator.physical.PhysicalModel#initConfiguration(br.ufla.dcc.grubix.simulator.kernel.Configuration)
 	 */
@@ -82,6 +82,17 @@ public class VariableDisc extends PhysicalModel {
 		return reachability;
 	}
 
+	/**
+	 * by the free space model, the range would be sqrt(signalStrength / interferenceThreshold).
+	 * Since apply does not use the real positions of the nodes yet, every node is in range.
+	 * @param signalStrength the used signal strength
+	 * @return Double.POSITIVE_INFINITY until apply uses the node positions
+	 */
+	@Override
+	public double getMaximumRange(double signalStrength) {
+		return Double.POSITIVE_INFINITY;
+	}
+
 	/* (non-Javadoc)
 	 * @see br.ufla.dcc.grubix.simulator.physical.PhysicalModel#initConfiguration(br.ufla.dcc.grubix.simulator.kernel.Configuration)
 	 */
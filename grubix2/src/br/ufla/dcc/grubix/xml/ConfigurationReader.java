@@ -62,6 +62,11 @@ public class ConfigurationReader {
 	 */
 	public static final String RANDOM_GENERATOR = "randomgenerator";
 	
+	/**
+	 * XML tag name for the event queue.
+	 */
+	public static final String EVENT_QUEUE = "eventqueue";
+	
 	/**
 	 * XML tag name for the physical model.
 	 */
@@ -140,6 +145,38 @@ public class ConfigurationReader {
 	 * XML tag name for the logging switch.
 	 */
 	public static final String ISLOGGING = "log";
+	/**
+	 * XML tag name for the size of the ring buffer of the background history writer.
+	 */
+	public static final String ASYNCBUFFER = "asyncBuffer";
+	/**
+	 * XML tag name for the policy if the ring buffer of the background history writer is full.
+	 */
+	public static final String ASYNCBACKPRESSURE = "asyncBackPressure";
+	/**
+	 * XML tag name for aggregating the statistics in the metrics registry.
+	 */
+	public static final String METRICS = "metrics";
+	/**
+	 * XML tag name for the name of the metrics summary file.
+	 */
+	public static final String METRICSFILE = "metricsFile";
+	/**
+	 * XML tag name for writing every statistics entry to the statistics log.
+	 */
+	public static final String RAWSTATISTICS = "rawStatistics";
+	/**
+	 * XML tag name for profiling the event deliveries.
+	 */
+	public static final String PROFILING = "profiling";
+	/**
+	 * XML tag name for the name of the profile report file.
+	 */
+	public static final String PROFILINGFILE = "profilingFile";
+	/**
+	 * XML tag name for the checksum over the delivered events.
+	 */
+	public static final String TRACECHECKSUM = "traceChecksum";
 	/**
 	 * XML tag name for the simulator/job ID. Used only if simulation is executed from a {@link Worker} instance.
 	 */
@@ -228,6 +265,12 @@ public class ConfigurationReader {
 			factory.putConfiguration("randomGenerator", randomGeneratorFactory);
 		}
 		
+		Element eventQueueElement = configurationElement.getChild(EVENT_QUEUE);
+		if (eventQueueElement != null) {
+			ConfigurableFactory<?> eventQueueFactory = parseParamSetElement(eventQueueElement);
+			factory.putConfiguration("eventQueueFactory", eventQueueFactory);
+		}
+		
 		ConfigurableFactory physicalModelFactory =
 			parseParamSetElement(configurationElement.getChild(PHYSICAL_MODEL));
 		factory.putConfiguration("physicalModel", physicalModelFactory);
@@ -277,6 +320,10 @@ public class ConfigurationReader {
 		if (neighborhoodDetection != null) {
 			factory.putConfiguration("suppressNeighborhoodDetection", neighborhoodDetection);
 		}
+		String sleepingReceivers = suppressElement.getChildText("sleepingReceivers");
+		if (sleepingReceivers != null) {
+			factory.putConfiguration("skipSleepingReceivers", sleepingReceivers);
+		}
 	}
 
 	/**
@@ -291,6 +338,14 @@ public class ConfigurationReader {
 		String logHistoryFilename = null;
 		String logStatisticsFilename = null;
 		String simId = null;
+		String asyncBuffer = null;
+		String asyncBackPressure = null;
+		String metrics = null;
+		String metricsFile = null;
+		String rawStatistics = null;
+		String profiling = null;
+		String profilingFile = null;
+		String traceChecksum = null;
 		Element logLiveFilter = null;
 		
 		if (loggingElement != null) {
@@ -299,6 +354,14 @@ public class ConfigurationReader {
 			logHistoryFilename = loggingElement.getChildText(NAMEHISTORYFILE);
 			logStatisticsFilename = loggingElement.getChildText(NAMESTATISTICSFILE);
 			simId = loggingElement.getChildText(SIMULATORID);
+			asyncBuffer = loggingElement.getChildText(ASYNCBUFFER);
+			asyncBackPressure = loggingElement.getChildText(ASYNCBACKPRESSURE);
+			metrics = loggingElement.getChildText(METRICS);
+			metricsFile = loggingElement.getChildText(METRICSFILE);
+			rawStatistics = loggingElement.getChildText(RAWSTATISTICS);
+			profiling = loggingElement.getChildText(PROFILING);
+			profilingFile = loggingElement.getChildText(PROFILINGFILE);
+			traceChecksum = loggingElement.getChildText(TRACECHECKSUM);
 			logLiveFilter = loggingElement.getChild(LogFilter.TAG_FILTER);
 		}
 		 
@@ -322,6 +385,38 @@ public class ConfigurationReader {
 			factory.putConfiguration("historyLogger", logClass);
 		}
 		
+		if (asyncBuffer != null) {
+			factory.putConfiguration(ASYNCBUFFER, asyncBuffer);
+		}
+		
+		if (asyncBackPressure != null) {
+			factory.putConfiguration(ASYNCBACKPRESSURE, asyncBackPressure);
+		}
+		
+		if (metrics != null) {
+			factory.putConfiguration(METRICS, metrics);
+		}
+		
+		if (metricsFile != null) {
+			factory.putConfiguration(METRICSFILE, metricsFile);
+		}
+		
+		if (rawStatistics != null) {
+			factory.putConfiguration(RAWSTATISTICS, rawStatistics);
+		}
+		
+		if (profiling != null) {
+			factory.putConfiguration(PROFILING, profiling);
+		}
+		
+		if (profilingFile != null) {
+			factory.putConfiguration(PROFILINGFILE, profilingFile);
+		}
+		
+		if (traceChecksum != null) {
+			factory.putConfiguration(TRACECHECKSUM, traceChecksum);
+		}
+		
 		if (logLiveFilter != null) {
 			factory.putConfiguration("liveFilter", new LogFilter(logLiveFilter, true));
 		} else {
@@ -587,6 +682,11 @@ public class ConfigurationReader {
 		factory.putConfiguration("stepsPerSecond", stepsPerSecond);
 		factory.putConfiguration("simulationTime", simulationTime);
 		factory.putConfiguration("simIntervalType", timeBase);
+
+		String maxEvents = simulationTimeElement.getAttributeValue("maxevents");
+		if (maxEvents != null) {
+			factory.putConfiguration("maxEvents", Long.parseLong(maxEvents.trim()));
+		}
 	}
 
 	/**
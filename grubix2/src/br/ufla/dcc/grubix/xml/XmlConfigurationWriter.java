@@ -163,13 +163,21 @@ public class XmlConfigurationWriter {
 	 * @throws ConfigurationException
 	 */
 	private void setupSuppressElement(Element config) throws ConfigurationException {
+		Element suppress = new Element("suppress");
+		
 		if (configuration.getValue("suppressNeighborhoodDetection", null) != null) {
-			Element suppress = new Element("suppress");
-			
 			Element neighborhoodDetection = new Element("neighborhoodDetection");
 			neighborhoodDetection.setText(configuration.getValue("suppressNeighborhoodDetection").toString());
 			
 			suppress.addContent(neighborhoodDetection);
+		}
+		if (configuration.getValue("skipSleepingReceivers", null) != null) {
+			Element sleepingReceivers = new Element("sleepingReceivers");
+			sleepingReceivers.setText(configuration.getValue("skipSleepingReceivers").toString());
+			
+			suppress.addContent(sleepingReceivers);
+		}
+		if (suppress.getContentSize() > 0) {
 			config.addContent(suppress);
 		}
 		
@@ -0,0 +1,186 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+
+package br.ufla.dcc.grubix.simulator.kernel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import br.ufla.dcc.grubix.simulator.event.Event;
+
+/**
+ * Compares the CalendarEventQueue with the HeapEventQueue, which keeps the order
+ * of the simulation runs so far. Both queues get the same envelopes and have to
+ * return them in the same order.
+ */
+public class CalendarEventQueueTest {
+
+	/** the queue under test. */
+	private CalendarEventQueue calendar;
+
+	/** the reference queue. */
+	private HeapEventQueue heap;
+
+	/** the enqueue counter, as set by the EventEnvelopeQueue. */
+	private long counter;
+
+	/** the time of the last polled envelope, no envelope is added before. */
+	private double now;
+
+	/**
+	 * creates both queues for a new simulation.
+	 * @throws Exception if the calendar queue cannot be initialized.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		new SimulationContext();
+		calendar = new CalendarEventQueue();
+		calendar.init();
+		heap = new HeapEventQueue();
+		counter = 0;
+		now = 0.0;
+	}
+
+	/**
+	 * adds an envelope to both queues.
+	 * @param time the time of the envelope.
+	 */
+	private void add(double time) {
+		EventEnvelope e = new TestEnvelope(time);
+
+		e.setEnqueueCounter(counter++);
+		calendar.add(e);
+		heap.add(e);
+		assertEquals(heap.size(), calendar.size());
+	}
+
+	/** polls both queues once and compares the results. */
+	private void poll() {
+		EventEnvelope expected = heap.poll();
+
+		assertSame(expected, calendar.poll());
+		assertEquals(heap.size(), calendar.size());
+		if (expected != null) {
+			now = expected.getTime();
+		}
+	}
+
+	/** polls both queues until they are empty. */
+	private void drain() {
+		while (heap.size() > 0) {
+			poll();
+		}
+		assertNull(calendar.poll());
+	}
+
+	/** envelopes with equal times leave in the order they were added. */
+	@Test
+	public void equalTimes() {
+		for (int i = 0; i < 100; i++) {
+			add(5.0);
+			add(3.0);
+		}
+		drain();
+	}
+
+	/** a burst lets the queue grow and shrink again, far future envelopes are kept. */
+	@Test
+	public void burstsAndFarFuture() {
+		add(1.0E9);
+		add(1.0E6);
+		for (int i = 0; i < 5000; i++) {
+			add(i * 0.001);
+		}
+		for (int i = 0; i < 4990; i++) {
+			poll();
+		}
+		add(now);
+		add(now + 1.0E-9);
+		drain();
+	}
+
+	/** random workloads, as the hold model of a simulation produces them. */
+	@Test
+	public void randomHold() {
+		Random random = new Random(1);
+
+		for (int run = 0; run < 20; run++) {
+			int steps = 1 + random.nextInt(5000);
+
+			for (int i = 0; i < steps; i++) {
+				switch (random.nextInt(6)) {
+				case 0:
+					add(now);
+					break;
+				case 1:
+					add(now + random.nextInt(4) * 0.25);
+					break;
+				case 2:
+					add(now + random.nextDouble() * 1.0E-3);
+					break;
+				case 3:
+					add(now + random.nextDouble() * 1.0E4);
+					break;
+				default:
+					poll();
+				}
+			}
+			drain();
+		}
+	}
+
+	/** an envelope without any behavior. */
+	private static final class TestEnvelope extends EventEnvelope {
+
+		/** @param time the time of the envelope. */
+		TestEnvelope(double time) {
+			super(new TestEvent(), time);
+		}
+
+		/** does nothing. */
+		protected void deliver() {
+			// nothing to deliver
+		}
+
+		/** @return the time of the envelope. */
+		public String toString() {
+			return "TestEnvelope at " + getTime();
+		}
+	}
+
+	/** an event without delay. */
+	private static final class TestEvent extends Event {
+
+		/** @return 0.0 */
+		public double getDelay() {
+			return 0.0;
+		}
+
+		/** @return the name of the event. */
+		public String toString() {
+			return "TestEvent";
+		}
+	}
+}
@@ -0,0 +1,346 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+
+package br.ufla.dcc.grubix.simulator.physical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import br.ufla.dcc.grubix.simulator.event.Interference;
+import br.ufla.dcc.grubix.simulator.event.PhysicalPacket;
+import br.ufla.dcc.grubix.simulator.event.Transmission;
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
+
+/**
+ * Compares the InterferenceQueue with the previous implementation, which kept the
+ * interferences in an ArrayList sorted on demand. The order of the queue, the result of
+ * the garbage collection and the intersections, including their order, have to be the same.
+ */
+public class InterferenceQueueTest {
+
+	/** the queue under test. */
+	private InterferenceQueue queue;
+
+	/** the previous implementation. */
+	private PreviousQueue previous;
+
+	/** the intersections passed to the bit mangling model by the last query. */
+	private List<Interference> captured;
+
+	/** the current time of the test. */
+	private double now;
+
+	/** creates both queues for a new simulation. */
+	@Before
+	public void setUp() {
+		new SimulationContext();
+		queue = new InterferenceQueue(new CapturingModel());
+		previous = new PreviousQueue();
+		now = 0.0;
+	}
+
+	/**
+	 * adds an interference to both queues.
+	 * @param start    the start time of the interference.
+	 * @param duration the sending time of the interference.
+	 * @param rssi     the signal strength at the receiver.
+	 */
+	private void add(double start, double duration, double rssi) {
+		Interference inter = TestSignals.create(start, duration, rssi);
+
+		queue.addInterferingSignal(inter, null);
+		previous.add(inter);
+	}
+
+	/** compares the content of both queues, including the order. */
+	private void assertSameQueue() {
+		assertEquals(previous.sorted(), queue.getInterferences());
+		assertEquals(previous.currentMaxDuration, queue.getCurrentMaxDuration(), 0.0);
+		assertEquals(previous.maxTime, queue.getMaxTime(), 0.0);
+	}
+
+	/**
+	 * queries the intersections of a stored interference of both queues and compares them.
+	 * @param self the interference, whose transmission is received.
+	 */
+	private void assertSameIntersections(Interference self) {
+		List<Interference> expected = previous.getIntersections(self.getSimStartTime(), self.getSendingTime());
+
+		expected.remove(self);
+		queue.getResultingDataPacket(self);
+		assertEquals(expected, captured);
+	}
+
+	/**
+	 * compares the current interference with the sum over all interferences present at the
+	 * given time. The previous lookup missed a long interference, when a later, shorter one
+	 * had already ended, thus this is not compared with the previous implementation.
+	 * @param time the queried time.
+	 */
+	private void assertCurrentInterference(double time) {
+		double expected = 0.0;
+
+		for (Interference inter : previous.sorted()) {
+			if (inter.intersects(time, 0.0)) {
+				expected += inter.getSignalStrength();
+			}
+		}
+		assertEquals(expected, queue.getCurrentInterference(time), 1.0E-9 * (1.0 + expected));
+	}
+
+	/** equal interferences keep the order, in which they were added. */
+	@Test
+	public void order() {
+		for (int i = 0; i < 20; i++) {
+			add(3.0 - (i % 4), 1.0 + (i % 3), i);
+		}
+		assertSameQueue();
+	}
+
+	/** the garbage collection removes the interferences, which ended before the given time. */
+	@Test
+	public void garbageCollect() {
+		for (int i = 0; i < 50; i++) {
+			add(0.5 * (i % 10), 0.5 * (1 + i % 7), 1.0);
+		}
+		for (double time = 0.0; time < 10.0; time += 0.25) {
+			queue.garbageCollect(time);
+			previous.garbageCollect(time);
+			assertSameQueue();
+		}
+		assertEquals(0, queue.getSize());
+	}
+
+	/**
+	 * random arrivals, garbage collections and queries, as a node sees them. The time never
+	 * decreases and no interference starts before the current time.
+	 */
+	@Test
+	public void randomTraffic() {
+		Random random = new Random(1);
+
+		for (int step = 0; step < 20000; step++) {
+			switch (random.nextInt(8)) {
+			case 0:
+				now += random.nextInt(4) * 0.25;
+				queue.garbageCollect(now);
+				previous.garbageCollect(now);
+				assertSameQueue();
+				break;
+			case 1:
+				if (queue.getSize() > 0) {
+					assertSameIntersections(queue.getInterference(random.nextInt(queue.getSize())));
+				}
+				break;
+			case 2:
+				assertCurrentInterference(now);
+				break;
+			case 3:
+				now += random.nextDouble() * 0.25;
+				assertCurrentInterference(now);
+				break;
+			case 4:
+				add(now + random.nextDouble(), random.nextDouble() * 2.0, random.nextDouble());
+				break;
+			default:
+				add(now + random.nextInt(4) * 0.25, (1 + random.nextInt(8)) * 0.25, random.nextDouble());
+			}
+		}
+		assertSameQueue();
+	}
+
+	/** a model, which only keeps a copy of the intersections. */
+	private final class CapturingModel extends BitManglingModel {
+
+		/**
+		 * @param transStartTime the start time of the data transmission.
+		 * @param trans          the affected transmission.
+		 * @param inter          the affecting interferences.
+		 * @return the packet of the transmission.
+		 */
+		public PhysicalPacket getResultingDataPacket(double transStartTime, Transmission trans,
+				InterferenceQueue inter) {
+			assertTrue(inter.getSelfReachability() != null);
+			captured = inter.getInterferences();
+			return trans.getPacket();
+		}
+	}
+
+	/**
+	 * The previous implementation of the InterferenceQueue, reduced to the sorting,
+	 * the garbage collection and the search of intersections.
+	 */
+	private static final class PreviousQueue {
+
+		/** contains all occurred interferences. */
+		private final ArrayList<Interference> interferences = new ArrayList<Interference>();
+
+		/** contains the longest duration of all added interferences to ease searching. */
+		private double currentMaxDuration;
+
+		/** contains the end of the latest interference. */
+		private double maxTime;
+
+		/**
+		 * @param inter the interference to add.
+		 */
+		void add(Interference inter) {
+			interferences.add(inter);
+			checkMax(inter);
+		}
+
+		/**
+		 * @param inter the interference to check.
+		 */
+		private void checkMax(Interference inter) {
+			double t = inter.getSendingTime();
+
+			if (t > currentMaxDuration) {
+				currentMaxDuration = t;
+			}
+			t += inter.getSimStartTime();
+			if (t > maxTime) {
+				maxTime = t;
+			}
+		}
+
+		/** @return the interferences, sorted as before every query. */
+		@SuppressWarnings("unchecked")
+		List<Interference> sorted() {
+			Collections.sort(interferences);
+			return interferences;
+		}
+
+		/**
+		 * @param currentTime the interferences ending before are removed.
+		 */
+		void garbageCollect(double currentTime) {
+			int count = interferences.size(), pos = 0;
+
+			sorted();
+			for (int i = 0; i < count; i++) {
+				Interference inter = interferences.get(pos);
+
+				if (inter.getSimStartTime() + inter.getSendingTime() < currentTime) {
+					interferences.remove(pos);
+				} else {
+					pos++;
+				}
+			}
+			currentMaxDuration = 0.0;
+			for (Interference inter : interferences) {
+				checkMax(inter);
+			}
+		}
+
+		/**
+		 * @param time     starting time of the interval
+		 * @param duration duration of the interval.
+		 * @return the nearest index found by binary search.
+		 */
+		private int locate(double time, double duration) {
+			int low = 0, high = interferences.size() - 1, mid = 0, cmp;
+
+			while (low <= high) {
+				mid = (low + high) >> 1;
+				cmp = interferences.get(mid).compareTo(time, duration);
+
+				if (cmp < 0) {
+					low = mid + 1;
+				} else if (cmp > 0) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return mid;
+		}
+
+		/**
+		 * @param time     the starting time of the interval
+		 * @param duration the length of the interval
+		 * @return a intersecting interval index or -1
+		 */
+		private int findAIntersection(double time, double duration) {
+			int pos, pos2, pos3, size = interferences.size();
+
+			if ((size == 0) || (maxTime < time) || ((time + duration) < interferences.get(0).getSimStartTime())) {
+				return -1;
+			}
+			pos = locate(time, duration);
+			if (!interferences.get(pos).intersects(time, duration)) {
+				pos2 = pos + 1;
+				if (pos2 == size || !interferences.get(pos2).intersects(time, duration)) {
+					pos2 = -1;
+				} else {
+					pos3 = pos - 1;
+					while ((pos3 >= 0) && (interferences.get(pos3).getSimStartTime() + currentMaxDuration > time)) {
+						if (interferences.get(pos3).intersects(time, duration)) {
+							pos2 = pos3;
+							pos3 = 0;
+						}
+						pos3--;
+					}
+				}
+				pos = pos2;
+			}
+			return pos;
+		}
+
+		/**
+		 * @param time     of the requested interference interval.
+		 * @param duration the length of the interval.
+		 * @return the intersecting interferences, in the order they were found.
+		 */
+		List<Interference> getIntersections(double time, double duration) {
+			List<Interference> res = new ArrayList<Interference>();
+			double rightT = time + duration;
+
+			sorted();
+			int pos = findAIntersection(time, duration);
+
+			if (pos >= 0) {
+				res.add(interferences.get(pos));
+				int left = pos - 1;
+				pos++;
+				while ((left >= 0) && (interferences.get(left).getSimStartTime() + currentMaxDuration > time)) {
+					if (interferences.get(left).intersects(time, duration)) {
+						res.add(interferences.get(left));
+					}
+					left--;
+				}
+				while ((pos < interferences.size()) && (interferences.get(pos).getSimStartTime() < rightT)) {
+					if (interferences.get(pos).intersects(time, duration)) {
+						res.add(interferences.get(pos));
+					}
+					pos++;
+				}
+			}
+			return res;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+
+package br.ufla.dcc.grubix.simulator.physical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import br.ufla.dcc.grubix.simulator.kernel.SimulationContext;
+
+/**
+ * Compares the noise profile of the NoiseVector with the sums of the signal strengths of all 
+ * interferences, which cover the pieces between two consecutive start or end times.
+ */
+public class NoiseVectorTest {
+
+	/** the allowed rounding error of a sum. */
+	private static final double EPSILON = 1.0E-9;
+
+	/** the interferences. */
+	private InterferenceQueue queue;
+
+	/** the vector under test, reused for all evaluations as the AddedNoiseMangler does. */
+	private NoiseVector vector;
+
+	/** the start and end times of the trimmed interferences, ascending and distinct. */
+	private double[] times;
+
+	/** the summed signal strengths between times[i] and times[i + 1]. */
+	private double[] sums;
+
+	/** creates an empty queue for a new simulation. */
+	@Before
+	public void setUp() {
+		new SimulationContext();
+		queue = new InterferenceQueue(null);
+		vector = new NoiseVector();
+	}
+
+	/**
+	 * adds an interference.
+	 * @param start    the start time of the interference.
+	 * @param duration the sending time of the interference.
+	 * @param rssi     the signal strength at the receiver.
+	 */
+	private void add(double start, double duration, double rssi) {
+		queue.addInterferingSignal(TestSignals.create(start, duration, rssi), null);
+	}
+
+	/**
+	 * sums up the signal strengths of the interferences trimmed to the given interval piece by piece.
+	 * @param start the start of the interval.
+	 * @param end   the end of the interval.
+	 */
+	private void sumUp(double start, double end) {
+		double[] all = new double[2 * queue.getSize()];
+		int count = 0;
+
+		for (int k = 0; k < queue.getSize(); k++) {
+			double s = Math.max(queue.getStartTime(k), start);
+			double e = Math.min(queue.getStartTime(k) + queue.getSendingTime(k), end);
+
+			if (e > s) {
+				all[count++] = s;
+				all[count++] = e;
+			}
+		}
+		Arrays.sort(all, 0, count);
+
+		int distinct = 0;
+
+		for (int i = 0; i < count; i++) {
+			if ((distinct == 0) || (all[i] > all[distinct - 1])) {
+				all[distinct++] = all[i];
+			}
+		}
+		times = new double[distinct];
+		System.arraycopy(all, 0, times, 0, distinct);
+		sums = new double[Math.max(distinct - 1, 0)];
+
+		for (int k = 0; k < queue.getSize(); k++) {
+			double s = Math.max(queue.getStartTime(k), start);
+			double e = Math.min(queue.getStartTime(k) + queue.getSendingTime(k), end);
+
+			for (int i = 0; i < sums.length; i++) {
+				if ((s <= times[i]) && (times[i + 1] <= e)) {
+					sums[i] += queue.getInterference(k).getReachability().getSsAtReceiver();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param time a point in time.
+	 * @return the index of the disturbance of the vector containing the time, or -1.
+	 */
+	private int find(double time) {
+		for (int i = 0; i < vector.getSize(); i++) {
+			if ((vector.getStart(i) <= time) && (time < vector.getEnd(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * evaluates the vector completely and compares it with the sums.
+	 * @param start    the start of the transmission.
+	 * @param duration the duration of the transmission.
+	 */
+	private void assertProfile(double start, double duration) {
+		vector.evaluate(start, duration, queue, 0.0);
+		sumUp(start, start + duration);
+
+		double max = 0.0;
+
+		for (int i = 0; i < vector.getSize(); i++) {
+			assertTrue(vector.getStart(i) < vector.getEnd(i));
+			assertTrue((i == 0) || (vector.getEnd(i - 1) <= vector.getStart(i)));
+		}
+		for (int i = 0; i < sums.length; i++) {
+			int piece = find(0.5 * (times[i] + times[i + 1]));
+
+			if (sums[i] == 0.0) {
+				assertEquals(-1, piece);
+			} else {
+				assertEquals(sums[i], vector.getRssi(piece), EPSILON);
+				max = Math.max(max, sums[i]);
+			}
+		}
+		assertEquals(max, vector.getMaxRssi(), EPSILON);
+		if (vector.getSize() == 0) {
+			assertNull(vector.getMostSignificantNoise());
+		}
+		assertEquals(vector.getSize(), vector.getNoise().size());
+	}
+
+	/**
+	 * evaluates the vector up to the given noise level and compares it with the sums. The 
+	 * covered pieces are not joined and the evaluation ends with the first piece exceeding the level.
+	 * @param start      the start of the transmission.
+	 * @param duration   the duration of the transmission.
+	 * @param noiseLevel the noise level, which ends the evaluation.
+	 */
+	private void assertQuickProfile(double start, double duration, double noiseLevel) {
+		vector.evaluate(start, duration, queue, noiseLevel);
+		sumUp(start, start + duration);
+
+		int piece = 0;
+
+		for (int i = 0; (i < sums.length) && ((piece == 0) || (vector.getRssi(piece - 1) < noiseLevel)); i++) {
+			if (sums[i] > 0.0) {
+				assertTrue(piece < vector.getSize());
+				assertEquals(times[i], vector.getStart(piece), 0.0);
+				assertEquals(times[i + 1], vector.getEnd(piece), 0.0);
+				assertEquals(sums[i], vector.getRssi(piece), EPSILON);
+				piece++;
+			}
+		}
+		assertEquals(piece, vector.getSize());
+	}
+
+	/** overlapping, touching and equal interferences, with and without a gap. */
+	@Test
+	public void fixedProfile() {
+		add(0.0, 2.0, 1.0);
+		add(1.0, 2.0, 2.0);
+		add(1.0, 2.0, 4.0);
+		add(3.0, 1.0, 8.0);
+		add(5.0, 1.0, 16.0);
+		add(0.5, 10.0, 32.0);
+		assertProfile(0.0, 20.0);
+		assertProfile(1.5, 2.0);
+		assertProfile(6.0, 1.0);
+		assertProfile(20.0, 1.0);
+		assertEquals(0, vector.getSize());
+		assertQuickProfile(0.0, 20.0, 40.0);
+	}
+
+	/** random interferences, trimmed to random transmissions. */
+	@Test
+	public void randomProfiles() {
+		Random random = new Random(1);
+
+		for (int run = 0; run < 200; run++) {
+			queue = new InterferenceQueue(null);
+
+			int count = random.nextInt(60);
+
+			for (int i = 0; i < count; i++) {
+				if (random.nextBoolean()) {
+					add(random.nextInt(20) * 0.5, (1 + random.nextInt(6)) * 0.5, random.nextDouble());
+				} else {
+					add(random.nextDouble() * 10.0, random.nextDouble() * 3.0, random.nextDouble());
+				}
+			}
+			for (int i = 0; i < 10; i++) {
+				double start = random.nextDouble() * 10.0, duration = random.nextDouble() * 5.0;
+
+				assertProfile(start, duration);
+				assertQuickProfile(start, duration, 0.5 + random.nextDouble() * 5.0);
+			}
+		}
+	}
+}
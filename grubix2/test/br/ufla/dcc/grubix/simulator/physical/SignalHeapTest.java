@@ -0,0 +1,83 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+
+package br.ufla.dcc.grubix.simulator.physical;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the SignalHeap against a sorted array of the same entries.
+ */
+public class SignalHeapTest {
+
+	/** pushes and pops random entries and compares the order, the sums and the maxima. */
+	@Test
+	public void randomEntries() {
+		Random random = new Random(1);
+		SignalHeap heap = new SignalHeap();
+
+		for (int run = 0; run < 100; run++) {
+			int count = random.nextInt(100);
+			double[] keys = new double[count];
+			double sum = 0.0;
+
+			heap.clear();
+			for (int i = 0; i < count; i++) {
+				// few distinct keys, so equal keys are common.
+				keys[i] = random.nextInt(20) * 0.5;
+				heap.push(keys[i], keys[i] + 1.0, -keys[i]);
+				sum += keys[i] + 1.0;
+			}
+			assertEquals(sum, heap.sumFirst(), 1.0E-9);
+			Arrays.sort(keys);
+
+			for (int i = 0; i < count; i++) {
+				assertEquals(count - i, heap.size);
+				assertEquals(keys[i], heap.keys[0], 0.0);
+				assertEquals(keys[i] + 1.0, heap.first[0], 0.0);
+				assertEquals(-keys[i], heap.second[0], 0.0);
+				assertEquals(keys[i] + 1.0, heap.maxFirstOf(0, keys[i], 0.0), 0.0);
+				heap.pop();
+			}
+			assertEquals(0, heap.size);
+		}
+	}
+
+	/** maxFirstOf finds the largest first value among all entries with the smallest key. */
+	@Test
+	public void maxFirstOfEqualKeys() {
+		SignalHeap heap = new SignalHeap();
+
+		heap.push(1.0, 5.0, 0.0);
+		heap.push(2.0, 9.0, 0.0);
+		heap.push(1.0, 7.0, 0.0);
+		heap.push(1.0, 3.0, 0.0);
+		heap.push(0.5, 1.0, 0.0);
+		assertEquals(1.0, heap.maxFirstOf(0, 0.5, 0.0), 0.0);
+		assertEquals(4.0, heap.maxFirstOf(0, 0.5, 4.0), 0.0);
+		heap.pop();
+		assertEquals(7.0, heap.maxFirstOf(0, 1.0, 0.0), 0.0);
+		assertEquals(24.0, heap.sumFirst(), 0.0);
+	}
+}
@@ -0,0 +1,61 @@
+/********************************************************************************
+This file is part of ShoX.
+
+ShoX is free software; you can redistribute it and/or modify it under the terms
+of the GNU General Public License as published by the Free Software Foundation;
+either version 2 of the License, or (at your option) any later version.
+
+ShoX is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+ShoX; if not, write to the Free Software Foundation, Inc., 51 Franklin Street,
+Fifth Floor, Boston, MA 02110-1301, USA
+
+Copyright 2006 The ShoX developers as defined under http://shox.sourceforge.net
+********************************************************************************/
+
+
+package br.ufla.dcc.grubix.simulator.physical;
+
+import br.ufla.dcc.grubix.simulator.Address;
+import br.ufla.dcc.grubix.simulator.LayerType;
+import br.ufla.dcc.grubix.simulator.NodeId;
+import br.ufla.dcc.grubix.simulator.event.Interference;
+import br.ufla.dcc.grubix.simulator.event.PhysicalPacket;
+import br.ufla.dcc.grubix.simulator.event.Transmission;
+
+/**
+ * Creates interferences for the tests of the physical package, without a running simulation.
+ * A SimulationContext has to exist, since the packets get an id of it.
+ */
+final class TestSignals {
+
+	/** the header length of the created packets in bit. */
+	private static final int HEADER_LENGTH = 64;
+
+	/** no instances. */
+	private TestSignals() {
+	}
+
+	/**
+	 * @param start    the start time of the interference.
+	 * @param duration the sending time of the interference.
+	 * @param rssi     the signal strength at the receiver.
+	 * @return a new interference of a new packet.
+	 */
+	static Interference create(double start, double duration, double rssi) {
+		PhysicalPacket packet = new PhysicalPacket(NodeId.ALLNODES, new Address(NodeId.ALLNODES, LayerType.PHYSICAL));
+		
+		packet.setHeaderLength(HEADER_LENGTH);
+		packet.setBPS(HEADER_LENGTH / duration);
+		packet.setTime(start);
+		
+		Reachability reachability = new Reachability();
+		
+		reachability.setSsAtReceiver(rssi);
+		reachability.setSignalStrength(rssi);
+		return new Interference(new Transmission(packet, rssi), reachability);
+	}
+}